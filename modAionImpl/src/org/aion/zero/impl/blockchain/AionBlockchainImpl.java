@@ -79,6 +79,7 @@ import org.aion.zero.impl.core.ImportResult;
 import org.aion.zero.impl.core.energy.AbstractEnergyStrategyLimit;
 import org.aion.zero.impl.core.energy.EnergyStrategies;
 import org.aion.zero.impl.db.AionRepositoryImpl;
+import org.aion.zero.impl.db.LogIndex;
 import org.aion.zero.impl.db.TransactionStore;
 import org.aion.zero.impl.forks.ForkUtility;
 import org.aion.zero.impl.sync.DatabaseType;
@@ -147,6 +148,7 @@ public class AionBlockchainImpl implements IAionBlockchain {
     private final GreatGrandParentBlockHeaderValidator unityGreatGrandParentBlockHeaderValidator, nonceSeedValidator, nonceSeedDifficultyValidator;
     private final ParentBlockHeaderValidator preUnityParentBlockHeaderValidator;
     private final ParentBlockHeaderValidator unityParentBlockHeaderValidator;
+    private final BlockImportPipeline importPipeline;
     private StakingContractHelper stakingContractHelper = null;
     public final ForkUtility forkUtility;
     public final BeaconHashValidator beaconHashValidator;
@@ -300,6 +302,7 @@ public class AionBlockchainImpl implements IAionBlockchain {
         nonceSeedDifficultyValidator = chainConfiguration.createNonceSeedDifficultyValidator();
         nonceSeedValidator = chainConfiguration.createNonceSeedValidator();
         vrfProofValidator = chainConfiguration.createVRFValidator();
+        importPipeline = new BlockImportPipeline(this::isValidWithoutContext, LOG);
 
         this.transactionStore = this.repository.getTransactionStore();
 
@@ -624,6 +627,7 @@ public class AionBlockchainImpl implements IAionBlockchain {
 
             // main branch become this branch cause we proved that total difficulty is greater
             forkLevel = repository.getBlockStore().reBranch(block);
+            indexBranchLogs(block, forkLevel);
 
             // The main repository rebranch
             this.repository = savedState.savedRepo;
@@ -678,6 +682,16 @@ public class AionBlockchainImpl implements IAionBlockchain {
         return repository.getReferencedTrieNodes(value, limit, dbType);
     }
 
+    @Override
+    public Map<ByteArrayWrapper, byte[]> getReferencedStorageNodes(byte[] key, byte[] value, int limit) {
+        return repository.getReferencedStorageNodes(key, value, limit);
+    }
+
+    @Override
+    public Map<ByteArrayWrapper, byte[]> getContractDetails(byte[] from, int limit) {
+        return repository.getContractDetails(from, limit);
+    }
+
     @Override
     public StakingBlock getBestStakingBlock() {
         return bestStakingBlock;
@@ -826,6 +840,48 @@ public class AionBlockchainImpl implements IAionBlockchain {
         }
     }
 
+    /**
+     * Makes the pivot block of a fast sync the best block once its state was downloaded. The given
+     * ancestors are stored together with the pivot, since the validation of the following blocks
+     * requires the recent history of the chain.
+     *
+     * @param pivot the pivot block, whose state must be complete
+     * @param totalDifficulty the total difficulty of the pivot block
+     * @param ancestors the ancestors of the pivot in descending order of their heights
+     */
+    public void importFastSyncPivot(Block pivot, BigInteger totalDifficulty, List<Block> ancestors) {
+        lock.lock();
+        try {
+            pivot.setTotalDifficulty(totalDifficulty);
+            repository.getBlockStore().saveBlock(pivot, totalDifficulty, true);
+            for (Block ancestor : ancestors) {
+                if (!tryFastImport(ancestor).isSuccessful()) {
+                    break;
+                }
+            }
+
+            repository.syncToRoot(pivot.getStateRoot());
+            setBestBlock(pivot);
+            loadBestMiningBlock();
+            loadBestStakingBlock();
+            setTotalDifficulty(totalDifficulty);
+            pubBestBlock = bestBlock;
+            repository.flush();
+
+            if (callback != null) {
+                callback.updateBlockStatus(pivot.getNumber(), pivot.getHash().clone(), totalDifficulty);
+            }
+
+            LOG.info(
+                    "Fast sync pivot imported: number: {}, hash: {}, state root: {}",
+                    pivot.getNumber(),
+                    pivot.getShortHash(),
+                    Hex.toHexString(pivot.getStateRoot()));
+        } finally {
+            lock.unlock();
+        }
+    }
+
     public static long shutdownHook = Long.MAX_VALUE;
 
     public static boolean enableFullSyncCheck = false;
@@ -882,11 +938,14 @@ public class AionBlockchainImpl implements IAionBlockchain {
     public Triple<Long, Set<ByteArrayWrapper>, ImportResult> tryToConnect(final List<Block> blockRange, String peerDisplayId) {
 
         lock.lock();
+        BlockImportPipeline.Validation validation = null;
         try {
+            validation = importPipeline.validate(blockRange);
             ImportResult importResult = null;
             Set<ByteArrayWrapper> imported = new HashSet<>();
-            for (Block block : blockRange) {
-                Pair<ImportResult, Long> result = tryToConnectWithTimedExecution(new BlockWrapper(block));
+            for (int i = 0; i < blockRange.size(); i++) {
+                Block block = blockRange.get(i);
+                Pair<ImportResult, Long> result = tryToConnectWithTimedExecution(new BlockWrapper(block, validation.isValid(i)));
                 importResult = result.getLeft();
                 long importTime = result.getRight();
 
@@ -914,8 +973,15 @@ public class AionBlockchainImpl implements IAionBlockchain {
             }
             return Triple.of(bestBlock.getNumber(), imported, importResult);
         } finally{
-            lock.unlock();
-            checkKernelExit();
+            if (validation != null) {
+                validation.cancel();
+            }
+            try {
+                importPipeline.awaitPersistence();
+            } finally {
+                lock.unlock();
+                checkKernelExit();
+            }
         }
     }
 
@@ -1486,7 +1552,7 @@ public class AionBlockchainImpl implements IAionBlockchain {
         repository.clearCachedVMs();
 
         Block block = blockWrapper.block;
-        if (!blockWrapper.validatedHeader && !isValid(block)) {
+        if (!blockWrapper.validatedHeader && !isValid(block, blockWrapper.preValidated)) {
             LOG.error("Attempting to add {} block.", (block == null ? "NULL" : "INVALID"));
             return Pair.of(null, null);
         }
@@ -1539,7 +1605,9 @@ public class AionBlockchainImpl implements IAionBlockchain {
                     transactionStore.putAliasesToBatch(infoWithInternalTxs);
                 }
             }
+            transactionStore.putHistoryToBatch(block);
             transactionStore.flushBatch();
+            indexLogs(block, receipts, mainChain);
 
             repository.commitBlock(block.getHashWrapper(), block.getNumber(), block.getStateRoot());
 
@@ -1585,11 +1653,19 @@ public class AionBlockchainImpl implements IAionBlockchain {
     }
 
     public boolean isValid(BlockHeader header) {
+        return isValid(header, false);
+    }
+
+    /**
+     * @param preValidated {@code true} when the header already passed the rules that do not depend
+     *     on its ancestors
+     */
+    private boolean isValid(BlockHeader header, boolean preValidated) {
         /*
          * The block header should already be validated at this point by P2P or mining,
          * but we are including the validation in case future import paths forget to add it.
          */
-        if (!this.headerValidator.validate(header, LOG)) {
+        if (!preValidated && !this.headerValidator.validate(header, LOG)) {
             return false;
         }
 
@@ -1675,26 +1751,59 @@ public class AionBlockchainImpl implements IAionBlockchain {
         }
     }
 
+    /**
+     * Validates the parts of the block that do not depend on its ancestors or on the chain state,
+     * i.e. the header rules, the transaction trie root and the individual transactions. Used for
+     * validating blocks ahead of their import.
+     */
+    private boolean isValidWithoutContext(Block block) {
+        if (block.isGenesis()) {
+            return false;
+        }
+
+        if (!this.headerValidator.validate(block.getHeader(), LOG)) {
+            return false;
+        }
+
+        List<AionTransaction> txs = block.getTransactionsList();
+        if (!isValidTxTrieRoot(block.getTxTrieRoot(), txs, block.getNumber(), LOG)) {
+            return false;
+        }
+
+        boolean unityForkEnabled = forkUtility.isUnityForkActive(block.getNumber());
+        for (AionTransaction tx : txs) {
+            if (!isValidTransaction(tx, unityForkEnabled)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean isValidTransaction(AionTransaction tx, boolean unityForkEnabled) {
+        return TXValidator.validateTx(tx, unityForkEnabled).isSuccess()
+                && TransactionTypeValidator.isValid(tx);
+    }
+
     /**
      * This mechanism enforces a homeostasis in terms of the time between blocks; a smaller period
      * between the last two blocks results in an increase in the difficulty level and thus
      * additional computation required, lengthening the likely next period. Conversely, if the
      * period is too large, the difficulty, and expected time to the next block, is reduced.
      */
-    private boolean isValid(Block block) {
+    private boolean isValid(Block block, boolean preValidated) {
 
         if (block == null) {
             return false;
         }
 
         if (!block.isGenesis()) {
-            if (!isValid(block.getHeader())) {
+            if (!isValid(block.getHeader(), preValidated)) {
                 LOG.warn("Block {} has an invalid block header", block.getNumber());
                 return false;
             }
 
             List<AionTransaction> txs = block.getTransactionsList();
-            if (!isValidTxTrieRoot(block.getTxTrieRoot(), txs, block.getNumber(), LOG)) {
+            if (!preValidated && !isValidTxTrieRoot(block.getTxTrieRoot(), txs, block.getNumber(), LOG)) {
                 return false;
             }
 
@@ -1713,8 +1822,7 @@ public class AionBlockchainImpl implements IAionBlockchain {
                 if (txs.parallelStream()
                         .anyMatch(
                                 tx ->
-                                    TXValidator.validateTx(tx, unityForkEnabled).isFail()
-                                                || !TransactionTypeValidator.isValid(tx)
+                                    (!preValidated && !isValidTransaction(tx, unityForkEnabled))
                                                 || !beaconHashValidator.validateTxForBlock(tx, block))) {
                     LOG.error("Some transactions in the block are invalid");
 
@@ -1931,27 +2039,85 @@ public class AionBlockchainImpl implements IAionBlockchain {
         return chainConfiguration;
     }
 
+    private void indexLogs(Block block, List<AionTxReceipt> receipts, boolean mainChain) {
+        LogIndex logIndex = repository.getLogIndex();
+        if (logIndex != null) {
+            logIndex.index(block, receipts, mainChain);
+        }
+    }
+
+    /**
+     * Indexes the logs of the blocks that became part of the main chain with a chain
+     * reorganization as main chain blocks. They were indexed as side chain blocks when imported, so
+     * without this the next main chain block would not follow the covered range of the index and
+     * would restart it.
+     *
+     * @param best the new best block
+     * @param commonBlockNumber the number of the last block shared by the old and the new branch
+     */
+    private void indexBranchLogs(Block best, long commonBlockNumber) {
+        LogIndex logIndex = repository.getLogIndex();
+        if (logIndex == null || commonBlockNumber < 0) {
+            return;
+        }
+
+        Deque<Block> branch = new ArrayDeque<>();
+        for (Block block = best; block != null && block.getNumber() > commonBlockNumber; ) {
+            branch.push(block);
+            block = repository.getBlockStore().getBlockByHash(block.getParentHash());
+        }
+
+        // the blocks are indexed in increasing order so that each one extends the covered range
+        for (Block block : branch) {
+            List<AionTxReceipt> receipts = new ArrayList<>();
+            for (AionTransaction tx : block.getTransactionsList()) {
+                Map<ByteArrayWrapper, AionTxInfo> infos = transactionStore.getTxInfo(tx.getTransactionHash());
+                AionTxInfo info = infos == null ? null : infos.get(block.getHashWrapper());
+                if (info == null) {
+                    LOG.warn("Unable to index the logs of block {} without its receipts.", block.getShortDescr());
+                    return;
+                }
+                receipts.add(info.getReceipt());
+            }
+            logIndex.index(block, receipts, true);
+        }
+    }
+
+    /** @return the index of the transaction logs or {@code null} when it is not enabled */
+    public LogIndex getLogIndex() {
+        return repository.getLogIndex();
+    }
+
     private void storeBlock(Block block, List<AionTxReceipt> receipts, List<AionTxExecSummary> summaries) {
 
         BigInteger td = totalDifficulty.get();
+        boolean mainChain = !fork;
 
-        repository.getBlockStore().saveBlock(block, td, !fork);
+        Runnable storeReceipts = () -> {
+            for (int i = 0; i < receipts.size(); i++) {
+                AionTxInfo infoWithInternalTxs = AionTxInfo.newInstanceWithInternalTransactions(receipts.get(i), block.getHashWrapper(), i, summaries.get(i).getInternalTransactions());
 
-        for (int i = 0; i < receipts.size(); i++) {
-            AionTxInfo infoWithInternalTxs = AionTxInfo.newInstanceWithInternalTransactions(receipts.get(i), block.getHashWrapper(), i, summaries.get(i).getInternalTransactions());
+                if (storeInternalTransactions) {
+                    transactionStore.putTxInfoToBatch(infoWithInternalTxs);
+                } else {
+                    AionTxInfo info = AionTxInfo.newInstance(receipts.get(i), block.getHashWrapper(), i);
+                    transactionStore.putTxInfoToBatch(info);
+                }
 
-            if (storeInternalTransactions) {
-                transactionStore.putTxInfoToBatch(infoWithInternalTxs);
-            } else {
-                AionTxInfo info = AionTxInfo.newInstance(receipts.get(i), block.getHashWrapper(), i);
-                transactionStore.putTxInfoToBatch(info);
+                if (summaries.get(i).getInternalTransactions().size() > 0) {
+                    transactionStore.putAliasesToBatch(infoWithInternalTxs);
+                }
             }
+            transactionStore.putHistoryToBatch(block);
+            transactionStore.flushBatch();
+            indexLogs(block, receipts, mainChain);
+        };
 
-            if (summaries.get(i).getInternalTransactions().size() > 0) {
-                transactionStore.putAliasesToBatch(infoWithInternalTxs);
-            }
-        }
-        transactionStore.flushBatch();
+        // the receipts are written while the block is saved and must be complete before the block
+        // is committed, so that a committed block always has its receipts
+        importPipeline.persist(storeReceipts);
+        repository.getBlockStore().saveBlock(block, td, mainChain);
+        importPipeline.awaitPersistence();
 
         repository.commitBlock(block.getHashWrapper(), block.getNumber(), block.getStateRoot());
 
@@ -2067,6 +2233,8 @@ public class AionBlockchainImpl implements IAionBlockchain {
 
             // We do not flush before closing the database because under normal circumstances the repository was already flushed.
             // If close was called due to an error (like a VM issue) then flushing may store corrupt data, so it shouldn't be done.
+            importPipeline.shutdown();
+
             GEN_LOG.info("shutting down DB...");
             repository.close();
             GEN_LOG.info("shutdown DB... Done!");
@@ -37,6 +37,7 @@ import org.aion.zero.impl.pendingState.AionPendingStateImpl;
 import org.aion.zero.impl.pendingState.IPendingState;
 import org.aion.zero.impl.config.CfgAion;
 import org.aion.zero.impl.pow.AionPoW;
+import org.aion.zero.impl.sync.FastSyncManager;
 import org.aion.zero.impl.sync.NodeWrapper;
 import org.aion.zero.impl.sync.SyncMgr;
 import org.aion.zero.impl.sync.handler.BlockPropagationHandler;
@@ -45,9 +46,14 @@ import org.aion.zero.impl.sync.handler.BroadcastTxHandler;
 import org.aion.zero.impl.sync.handler.ReqBlocksBodiesHandler;
 import org.aion.zero.impl.sync.handler.ReqBlocksHeadersHandler;
 import org.aion.zero.impl.sync.handler.ReqStatusHandler;
+import org.aion.zero.impl.sync.handler.RequestBlocksHandler;
+import org.aion.zero.impl.sync.handler.RequestTrieDataHandler;
 import org.aion.zero.impl.sync.handler.ResBlocksBodiesHandler;
 import org.aion.zero.impl.sync.handler.ResBlocksHeadersHandler;
 import org.aion.zero.impl.sync.handler.ResStatusHandler;
+import org.aion.zero.impl.sync.handler.ResponseBlocksHandler;
+import org.aion.zero.impl.sync.handler.ResponseTrieDataHandler;
+import org.aion.zero.impl.vm.common.BulkExecutor;
 import org.slf4j.Logger;
 
 public class AionHub {
@@ -102,6 +108,8 @@ public class AionHub {
 
         this.cfg = _cfgAion;
 
+        BulkExecutor.setSpeculativeExecution(cfg.getSync().isParallelTxExecutionEnabled());
+
         // load event manager before init blockchain instance
         loadEventMgr(forTest);
         registerBlockEvents();
@@ -165,7 +173,8 @@ public class AionHub {
                         cfgNetP2p.getMaxTempNodes(),
                         cfgNetP2p.getMaxActiveNodes(),
                         cfgNetP2p.getBootlistSyncOnly(),
-                        cfgNetP2p.getErrorTolerance());
+                        cfgNetP2p.getErrorTolerance(),
+                        cfgNetP2p.getIoThreads());
 
         this.syncMgr = new SyncMgr(
                 blockchain,
@@ -173,7 +182,8 @@ public class AionHub {
                 eventMgr,
                 cfg.getSync().getShowStatus(),
                 cfg.getSync().getShowStatistics(),
-                cfg.getNet().getP2p().getMaxActiveNodes());
+                cfg.getNet().getP2p().getMaxActiveNodes(),
+                cfg.getSync().isFastSyncEnabled());
 
         ChainConfiguration chainConfig = new ChainConfiguration();
         this.propHandler =
@@ -241,6 +251,13 @@ public class AionHub {
         cbs.add(new ResBlocksBodiesHandler(syncLOG, surveyLOG, syncMgr, p2pMgr));
         cbs.add(new BroadcastTxHandler(syncLOG, mempool, p2pMgr, inSyncOnlyMode));
         cbs.add(new BroadcastNewBlockHandler(syncLOG, surveyLOG, propHandler, p2pMgr));
+        cbs.add(new RequestTrieDataHandler(syncLOG, blockchain, p2pMgr));
+        cbs.add(new RequestBlocksHandler(syncLOG, blockchain, p2pMgr));
+        FastSyncManager fastSyncMgr = syncMgr.getFastSyncManager();
+        if (fastSyncMgr != null) {
+            cbs.add(new ResponseTrieDataHandler(syncLOG, fastSyncMgr.getReceivedTrieData()));
+            cbs.add(new ResponseBlocksHandler(syncLOG, fastSyncMgr, p2pMgr));
+        }
         this.p2pMgr.register(cbs);
     }
 
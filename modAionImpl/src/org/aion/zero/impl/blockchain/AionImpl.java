@@ -457,6 +457,14 @@ public class AionImpl implements IAionChain {
                 }
             }
         }
+
+        public void chainReorganizedCallback(Block commonAncestor) {
+            for (BlockchainCallbackInterface callbackInterface : callbackInterfaces) {
+                if (callbackInterface.isForApiServer()) {
+                    callbackInterface.chainReorganized(commonAncestor);
+                }
+            }
+        }
     }
 
     public static class TransactionBroadcastCallback {
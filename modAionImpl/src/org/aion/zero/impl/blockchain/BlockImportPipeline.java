@@ -0,0 +1,181 @@
+package org.aion.zero.impl.blockchain;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Predicate;
+import org.aion.mcf.blockchain.Block;
+import org.slf4j.Logger;
+
+/**
+ * Overlaps the stages of importing a range of blocks.
+ *
+ * <p>The context-free validation of the blocks (header seal and fields, transaction trie root and
+ * transaction signatures) runs ahead of the import on a pool of worker threads, bounded to a window
+ * of {@link #VALIDATION_WINDOW} blocks. The persistence of a block's transaction receipts runs in
+ * the background while the block is written to the block store and must be completed before the
+ * block is committed, so that a crash never leaves a committed block without its receipts.
+ *
+ * <p>Apart from {@link #shutdown()}, the methods of this class are expected to be called while
+ * holding the blockchain lock.
+ */
+final class BlockImportPipeline {
+
+    /** The maximum number of blocks validated ahead of the block being imported. */
+    static final int VALIDATION_WINDOW = 16;
+
+    private final Predicate<Block> contextFreeValidator;
+    private final Logger log;
+    private final ExecutorService validationPool;
+    private final ExecutorService persistenceExecutor;
+
+    private Runnable pendingPersistenceTask = null;
+    private Future<?> pendingPersistence = null;
+
+    /**
+     * @param contextFreeValidator validates the parts of a block that do not depend on its parent
+     *     or on the chain state
+     * @param log the logger used for reporting failures
+     */
+    BlockImportPipeline(Predicate<Block> contextFreeValidator, Logger log) {
+        this.contextFreeValidator = contextFreeValidator;
+        this.log = log;
+        this.validationPool =
+                newExecutor(
+                        "import-validate",
+                        Math.max(1, Math.min(4, Runtime.getRuntime().availableProcessors() - 1)));
+        this.persistenceExecutor = newExecutor("import-persist", 1);
+    }
+
+    /**
+     * Starts the context-free validation of the given blocks, which are expected to be imported in
+     * the given order.
+     *
+     * @param blocks the blocks to be imported
+     * @return a handle for retrieving the validation results in import order
+     */
+    Validation validate(List<Block> blocks) {
+        return new Validation(blocks);
+    }
+
+    /**
+     * Runs the given task in the background after waiting for the previously submitted one.
+     *
+     * @param task a task that persists data for an imported block; it must be safe to run it again
+     *     if it fails
+     */
+    void persist(Runnable task) {
+        awaitPersistence();
+        pendingPersistenceTask = task;
+        pendingPersistence = persistenceExecutor.submit(task);
+    }
+
+    /**
+     * Waits for the persistence of the block being imported. A failed task is retried on the
+     * calling thread, so that a persistent failure surfaces to the importer as it would without
+     * the pipeline.
+     */
+    void awaitPersistence() {
+        if (pendingPersistence == null) {
+            return;
+        }
+
+        Runnable task = pendingPersistenceTask;
+        Future<?> future = pendingPersistence;
+        pendingPersistenceTask = null;
+        pendingPersistence = null;
+
+        boolean interrupted = false;
+        try {
+            while (true) {
+                try {
+                    future.get();
+                    return;
+                } catch (InterruptedException e) {
+                    // the data must be persisted before the block is committed
+                    interrupted = true;
+                } catch (ExecutionException e) {
+                    log.warn("Background persistence failed, retrying.", e.getCause());
+                    task.run();
+                    return;
+                }
+            }
+        } finally {
+            if (interrupted) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    /** Completes the pending persistence and stops the worker threads. */
+    void shutdown() {
+        try {
+            awaitPersistence();
+        } finally {
+            validationPool.shutdownNow();
+            persistenceExecutor.shutdown();
+        }
+    }
+
+    /** The context-free validation results for a range of blocks. */
+    final class Validation {
+        private final List<Block> blocks;
+        private final List<Future<Boolean>> results;
+
+        private Validation(List<Block> blocks) {
+            this.blocks = blocks;
+            this.results = new ArrayList<>(blocks.size());
+            for (int i = 0; i < Math.min(VALIDATION_WINDOW, blocks.size()); i++) {
+                submitNext();
+            }
+        }
+
+        private void submitNext() {
+            Block block = blocks.get(results.size());
+            results.add(validationPool.submit(() -> contextFreeValidator.test(block)));
+        }
+
+        /**
+         * Returns {@code true} if the block at the given index passed the context-free validation
+         * and {@code false} if it failed or could not be validated, in which case the importer must
+         * perform the full validation. Also extends the validation window by one block.
+         */
+        boolean isValid(int index) {
+            if (results.size() < blocks.size()) {
+                submitNext();
+            }
+
+            try {
+                return results.get(index).get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return false;
+            } catch (ExecutionException e) {
+                log.debug("Context-free validation failed.", e.getCause());
+                return false;
+            }
+        }
+
+        /** Stops the validation of the blocks that are no longer going to be imported. */
+        void cancel() {
+            for (Future<Boolean> result : results) {
+                result.cancel(false);
+            }
+        }
+    }
+
+    private static ExecutorService newExecutor(String name, int threads) {
+        AtomicInteger count = new AtomicInteger(0);
+        return Executors.newFixedThreadPool(
+                threads,
+                runnable -> {
+                    Thread thread = new Thread(runnable, name + "-" + count.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                });
+    }
+}
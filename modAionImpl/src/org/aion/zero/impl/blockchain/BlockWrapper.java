@@ -8,6 +8,8 @@ public class BlockWrapper {
     public final boolean skipExistCheck;
     public final boolean reBuild;
     public final boolean skipRepoFlush;
+    /** The checks that do not depend on the parent block or the chain state have passed. */
+    public final boolean preValidated;
 
     public BlockWrapper(Block block) {
         this.block = block;
@@ -15,6 +17,16 @@ public class BlockWrapper {
         this.skipExistCheck = false;
         this.reBuild = false;
         this.skipRepoFlush = false;
+        this.preValidated = false;
+    }
+
+    public BlockWrapper(Block block, boolean preValidated) {
+        this.block = block;
+        this.validatedHeader = false;
+        this.skipExistCheck = false;
+        this.reBuild = false;
+        this.skipRepoFlush = false;
+        this.preValidated = preValidated;
     }
 
     public BlockWrapper(
@@ -28,5 +40,6 @@ public class BlockWrapper {
         this.skipExistCheck = skipExistCheck;
         this.reBuild = reBuild;
         this.skipRepoFlush = skipRepoFlush;
+        this.preValidated = false;
     }
 }
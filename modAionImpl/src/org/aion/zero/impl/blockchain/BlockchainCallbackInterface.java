@@ -1,6 +1,7 @@
 package org.aion.zero.impl.blockchain;
 
 import org.aion.base.AionTransaction;
+import org.aion.mcf.blockchain.Block;
 import org.aion.zero.impl.types.PendingTxDetails;
 
 public interface BlockchainCallbackInterface {
@@ -10,4 +11,7 @@ public interface BlockchainCallbackInterface {
     void pendingTxReceived(AionTransaction tx);
 
     void pendingTxUpdated(PendingTxDetails txDetails);
+
+    /** Called when the best block moved to another fork that branches at the given block. */
+    void chainReorganized(Block commonAncestor);
 }
@@ -78,6 +78,29 @@ public interface IAionBlockchain extends UnityChain {
     Map<ByteArrayWrapper, byte[]> getReferencedTrieNodes(
             byte[] value, int limit, DatabaseType dbType);
 
+    /**
+     * Retrieves the storage trie nodes referenced by a given storage trie node, where the size of
+     * the result is bounded by the given limit.
+     *
+     * @param key the database key of a storage trie node
+     * @param value the value of the storage trie node
+     * @param limit the maximum number of key-value pairs to be retrieved by this method
+     * @return a map from the database keys to the values of the referenced nodes reached while
+     *     keeping within the limit on the result size
+     */
+    Map<ByteArrayWrapper, byte[]> getReferencedStorageNodes(byte[] key, byte[] value, int limit);
+
+    /**
+     * Retrieves the stored contract details in the order of the contract addresses, starting from
+     * the given address.
+     *
+     * @param from the first contract address to be included
+     * @param limit the maximum number of contracts to be retrieved
+     * @return the encodings of the contract details by contract address, in the order of the
+     *     addresses
+     */
+    Map<ByteArrayWrapper, byte[]> getContractDetails(byte[] from, int limit);
+
     long getSize();
 
     void setBestBlock(Block block);
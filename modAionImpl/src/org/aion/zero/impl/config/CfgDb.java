@@ -36,6 +36,9 @@ public class CfgDb {
 
         public static final String TX_CACHE = "pendingtxCache";
         public static final String TX_POOL = "pendingtxPool";
+
+        public static final String FLAT_STATE = "flatState";
+        public static final String LOG_INDEX = "logIndex";
     }
 
     /** Properties used by the DatabaseFactory */
@@ -59,6 +62,14 @@ public class CfgDb {
 
         public static final String WRITE_BUFFER_SIZE = "write_buffer_size";
         public static final String READ_BUFFER_SIZE = "read_buffer_size";
+
+        public static final String TRIE_CACHE_SIZE = "trie_cache_size";
+        public static final String PARALLEL_TRIE_UPDATES = "parallel_trie_updates";
+        public static final String ENABLE_WRITE_JOURNAL = "enable_write_journal";
+        public static final String ENABLE_BLOCK_SEGMENTS = "enable_block_segments";
+        public static final String ENABLE_FLAT_STATE = "enable_flat_state";
+        public static final String ENABLE_LOG_INDEX = "enable_log_index";
+        public static final String ENABLE_ADDRESS_HISTORY = "enable_address_history";
     }
 
     private String path;
@@ -68,6 +79,14 @@ public class CfgDb {
     private CfgPrune prune;
     private PruneOption prune_option;
     private boolean internalTxStorage;
+    // memory limit in MB for clean nodes kept by the state trie cache
+    private int trieCacheSize;
+    private boolean parallelTrieUpdates;
+    private boolean writeJournal;
+    private boolean blockSegments;
+    private boolean flatState;
+    private boolean logIndex;
+    private boolean addressHistory;
 
     /**
      * Enabling expert mode allows more detailed database configurations.
@@ -86,6 +105,7 @@ public class CfgDb {
         this.check_integrity = true;
         this.prune = new CfgPrune(false);
         this.prune_option = PruneOption.FULL;
+        this.trieCacheSize = DEFAULT_TRIE_CACHE_SIZE;
 
         if (expert) {
             this.specificConfig = new HashMap<>();
@@ -113,6 +133,27 @@ public class CfgDb {
                         case "internal-tx-storage":
                             this.internalTxStorage = Boolean.parseBoolean(ConfigUtil.readValue(sr));
                             break;
+                        case "trie-cache-size":
+                            setTrieCacheSize(ConfigUtil.readValue(sr));
+                            break;
+                        case "parallel-trie-updates":
+                            this.parallelTrieUpdates = Boolean.parseBoolean(ConfigUtil.readValue(sr));
+                            break;
+                        case "write-journal":
+                            this.writeJournal = Boolean.parseBoolean(ConfigUtil.readValue(sr));
+                            break;
+                        case "block-segments":
+                            this.blockSegments = Boolean.parseBoolean(ConfigUtil.readValue(sr));
+                            break;
+                        case "flat-state":
+                            this.flatState = Boolean.parseBoolean(ConfigUtil.readValue(sr));
+                            break;
+                        case "log-index":
+                            this.logIndex = Boolean.parseBoolean(ConfigUtil.readValue(sr));
+                            break;
+                        case "address-history":
+                            this.addressHistory = Boolean.parseBoolean(ConfigUtil.readValue(sr));
+                            break;
                             // parameter considered only when expert==false
                         case "vendor":
                             this.vendor = ConfigUtil.readValue(sr);
@@ -252,10 +293,59 @@ public class CfgDb {
             xmlWriter.writeCharacters(String.valueOf(internalTxStorage));
             xmlWriter.writeEndElement();
 
+            xmlWriter.writeCharacters("\r\n\t\t");
+            xmlWriter.writeComment("Memory limit in MB for the state trie nodes kept in memory after being read or stored.");
+            xmlWriter.writeCharacters("\r\n\t\t");
+            xmlWriter.writeStartElement("trie-cache-size");
+            xmlWriter.writeCharacters(String.valueOf(trieCacheSize));
+            xmlWriter.writeEndElement();
+
+            xmlWriter.writeCharacters("\r\n\t\t");
+            xmlWriter.writeComment("Boolean value. Enable/disable hashing the state trie subtrees in parallel when importing blocks.");
+            xmlWriter.writeCharacters("\r\n\t\t");
+            xmlWriter.writeStartElement("parallel-trie-updates");
+            xmlWriter.writeCharacters(String.valueOf(parallelTrieUpdates));
+            xmlWriter.writeEndElement();
+
+            xmlWriter.writeCharacters("\r\n\t\t");
+            xmlWriter.writeComment("Boolean value. Enable/disable storing the updates of each imported block to all the databases as a single journal record.");
+            xmlWriter.writeCharacters("\r\n\t\t");
+            xmlWriter.writeStartElement("write-journal");
+            xmlWriter.writeCharacters(String.valueOf(writeJournal));
+            xmlWriter.writeEndElement();
+
+            xmlWriter.writeCharacters("\r\n\t\t");
+            xmlWriter.writeComment("Boolean value. Enable/disable keeping a copy of the main chain blocks in memory-mapped files ordered by block number.");
+            xmlWriter.writeCharacters("\r\n\t\t");
+            xmlWriter.writeStartElement("block-segments");
+            xmlWriter.writeCharacters(String.valueOf(blockSegments));
+            xmlWriter.writeEndElement();
+
+            xmlWriter.writeCharacters("\r\n\t\t");
+            xmlWriter.writeComment("Boolean value. Enable/disable keeping a flat copy of the head state accounts and storage for reads that bypass the state tries.");
+            xmlWriter.writeCharacters("\r\n\t\t");
+            xmlWriter.writeStartElement("flat-state");
+            xmlWriter.writeCharacters(String.valueOf(flatState));
+            xmlWriter.writeEndElement();
+
+            xmlWriter.writeCharacters("\r\n\t\t");
+            xmlWriter.writeComment("Boolean value. Enable/disable indexing the transaction logs of imported blocks by address and topic for log queries over large block ranges.");
+            xmlWriter.writeCharacters("\r\n\t\t");
+            xmlWriter.writeStartElement("log-index");
+            xmlWriter.writeCharacters(String.valueOf(logIndex));
+            xmlWriter.writeEndElement();
+
+            xmlWriter.writeCharacters("\r\n\t\t");
+            xmlWriter.writeComment("Boolean value. Enable/disable indexing the transactions of imported blocks by sender, recipient and deployed contract address.");
+            xmlWriter.writeCharacters("\r\n\t\t");
+            xmlWriter.writeStartElement("address-history");
+            xmlWriter.writeCharacters(String.valueOf(addressHistory));
+            xmlWriter.writeEndElement();
+
             if (!expert) {
                 xmlWriter.writeCharacters("\r\n\t\t");
                 xmlWriter.writeComment(
-                        "Database implementation used to store data; supported options: leveldb, h2, rocksdb.");
+                        "Database implementation used to store data; supported options: leveldb, h2, rocksdb, rocksdbcf (rocksdb with all databases in one instance).");
                 xmlWriter.writeCharacters("\r\n\t\t");
                 xmlWriter.writeComment(
                         "Caution: changing implementation requires re-syncing from genesis!");
@@ -331,6 +421,70 @@ public class CfgDb {
         return this.prune;
     }
 
+    public int getTrieCacheSize() {
+        return trieCacheSize;
+    }
+
+    public void setTrieCacheSize(String value) {
+        try {
+            int size = Integer.parseInt(value.trim());
+            this.trieCacheSize = size > 0 ? size : DEFAULT_TRIE_CACHE_SIZE;
+        } catch (NumberFormatException e) {
+            this.trieCacheSize = DEFAULT_TRIE_CACHE_SIZE;
+        }
+    }
+
+    public boolean isParallelTrieUpdatesEnabled() {
+        return parallelTrieUpdates;
+    }
+
+    public void setParallelTrieUpdates(boolean isEnabled) {
+        this.parallelTrieUpdates = isEnabled;
+    }
+
+    public boolean isWriteJournalEnabled() {
+        return writeJournal;
+    }
+
+    public void setWriteJournal(boolean isEnabled) {
+        this.writeJournal = isEnabled;
+    }
+
+    public boolean isBlockSegmentsEnabled() {
+        return blockSegments;
+    }
+
+    public void setBlockSegments(boolean isEnabled) {
+        this.blockSegments = isEnabled;
+    }
+
+    public boolean isFlatStateEnabled() {
+        return flatState;
+    }
+
+    public void setFlatState(boolean isEnabled) {
+        this.flatState = isEnabled;
+    }
+
+    public boolean isLogIndexEnabled() {
+        return logIndex;
+    }
+
+    public void setLogIndex(boolean isEnabled) {
+        this.logIndex = isEnabled;
+    }
+
+    public boolean isAddressHistoryEnabled() {
+        return addressHistory;
+    }
+
+    public void setAddressHistory(boolean isEnabled) {
+        this.addressHistory = isEnabled;
+    }
+
+    /** Default memory limit in MB for clean nodes kept by the state trie cache. */
+    public static final int DEFAULT_TRIE_CACHE_SIZE = 256;
+
     /**
      * Number of topmost blocks present in the database in TOP pruning mode. Information about these
      * blocks is also kept in memory for later pruning.
@@ -404,11 +558,25 @@ public class CfgDb {
 
             Properties props = propSet.get(Names.DEFAULT);
             props.setProperty(Props.CHECK_INTEGRITY, String.valueOf(this.check_integrity));
+            props.setProperty(Props.TRIE_CACHE_SIZE, String.valueOf((long) this.trieCacheSize * Utils.MEGA_BYTE));
+            props.setProperty(Props.PARALLEL_TRIE_UPDATES, String.valueOf(this.parallelTrieUpdates));
+            props.setProperty(Props.ENABLE_WRITE_JOURNAL, String.valueOf(this.writeJournal));
+            props.setProperty(Props.ENABLE_BLOCK_SEGMENTS, String.valueOf(this.blockSegments));
+            props.setProperty(Props.ENABLE_FLAT_STATE, String.valueOf(this.flatState));
+            props.setProperty(Props.ENABLE_LOG_INDEX, String.valueOf(this.logIndex));
+            props.setProperty(Props.ENABLE_ADDRESS_HISTORY, String.valueOf(this.addressHistory));
         } else {
             Properties props = new Properties();
             props.setProperty(Props.DB_TYPE, this.vendor);
             props.setProperty(Props.ENABLE_DB_COMPRESSION, String.valueOf(this.compression));
             props.setProperty(Props.CHECK_INTEGRITY, String.valueOf(this.check_integrity));
+            props.setProperty(Props.TRIE_CACHE_SIZE, String.valueOf((long) this.trieCacheSize * Utils.MEGA_BYTE));
+            props.setProperty(Props.PARALLEL_TRIE_UPDATES, String.valueOf(this.parallelTrieUpdates));
+            props.setProperty(Props.ENABLE_WRITE_JOURNAL, String.valueOf(this.writeJournal));
+            props.setProperty(Props.ENABLE_BLOCK_SEGMENTS, String.valueOf(this.blockSegments));
+            props.setProperty(Props.ENABLE_FLAT_STATE, String.valueOf(this.flatState));
+            props.setProperty(Props.ENABLE_LOG_INDEX, String.valueOf(this.logIndex));
+            props.setProperty(Props.ENABLE_ADDRESS_HISTORY, String.valueOf(this.addressHistory));
 
             props.setProperty(Props.ENABLE_DB_CACHE, "true");
             props.setProperty(Props.DB_CACHE_SIZE, String.valueOf(128 * (int) Utils.MEGA_BYTE));
@@ -442,6 +610,13 @@ public class CfgDb {
                 && Objects.equal(vendor, cfgDb.vendor)
                 && Objects.equal(prune, cfgDb.prune)
                 && prune_option == cfgDb.prune_option
+                && trieCacheSize == cfgDb.trieCacheSize
+                && parallelTrieUpdates == cfgDb.parallelTrieUpdates
+                && writeJournal == cfgDb.writeJournal
+                && blockSegments == cfgDb.blockSegments
+                && flatState == cfgDb.flatState
+                && logIndex == cfgDb.logIndex
+                && addressHistory == cfgDb.addressHistory
                 && Objects.equal(specificConfig, cfgDb.specificConfig);
     }
 
@@ -454,6 +629,13 @@ public class CfgDb {
                 check_integrity,
                 prune,
                 prune_option,
+                trieCacheSize,
+                parallelTrieUpdates,
+                writeJournal,
+                blockSegments,
+                flatState,
+                logIndex,
+                addressHistory,
                 expert,
                 specificConfig);
     }
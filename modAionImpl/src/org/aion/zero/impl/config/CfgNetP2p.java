@@ -21,6 +21,7 @@ public final class CfgNetP2p {
         this.errorTolerance = 50;
         this.clusterNodeMode = false;
         this.syncOnlyMode = false;
+        this.ioThreads = 1;
     }
 
     private String ip;
@@ -41,6 +42,9 @@ public final class CfgNetP2p {
 
     private int errorTolerance;
 
+    // number of event loops handling the peer connections
+    private int ioThreads;
+
     public void fromXML(final XMLStreamReader sr) throws XMLStreamException {
         loop:
         while (sr.hasNext()) {
@@ -76,6 +80,9 @@ public final class CfgNetP2p {
                         case "err-tolerance":
                             this.errorTolerance = Integer.parseInt(ConfigUtil.readValue(sr));
                             break;
+                        case "io-threads":
+                            this.ioThreads = Math.max(1, Integer.parseInt(ConfigUtil.readValue(sr)));
+                            break;
                         default:
                             // ConfigUtil.skipElement(sr);
                             break;
@@ -171,6 +178,10 @@ public final class CfgNetP2p {
         return errorTolerance;
     }
 
+    public int getIoThreads() {
+        return ioThreads;
+    }
+
     public boolean inClusterNodeMode() {
         return clusterNodeMode;
     }
@@ -192,6 +203,7 @@ public final class CfgNetP2p {
                 && maxTempNodes == cfgNetP2p.maxTempNodes
                 && maxActiveNodes == cfgNetP2p.maxActiveNodes
                 && errorTolerance == cfgNetP2p.errorTolerance
+                && ioThreads == cfgNetP2p.ioThreads
                 && Objects.equal(ip, cfgNetP2p.ip);
     }
 
@@ -206,6 +218,7 @@ public final class CfgNetP2p {
                 syncOnlyMode,
                 maxTempNodes,
                 maxActiveNodes,
-                errorTolerance);
+                errorTolerance,
+                ioThreads);
     }
 }
@@ -17,9 +17,13 @@ public final class CfgSync {
 
     private boolean showStatus;
     private Set<StatsType> showStatistics;
+    private boolean parallelTxExecution;
+    private boolean fastSync;
 
     public CfgSync() {
         this.showStatus = false;
+        this.parallelTxExecution = false;
+        this.fastSync = false;
         this.showStatistics = new HashSet<>();
         this.showStatistics.add(StatsType.NONE);
     }
@@ -38,6 +42,12 @@ public final class CfgSync {
                         case "show-statistics":
                             parseSelectedStats(showStatistics, ConfigUtil.readValue(sr));
                             break;
+                        case "parallel-tx-execution":
+                            this.parallelTxExecution = Boolean.parseBoolean(ConfigUtil.readValue(sr));
+                            break;
+                        case "fast-sync":
+                            this.fastSync = Boolean.parseBoolean(ConfigUtil.readValue(sr));
+                            break;
                         default:
                             ConfigUtil.skipElement(sr);
                             break;
@@ -106,6 +116,24 @@ public final class CfgSync {
             xmlWriter.writeCharacters(printSelectedStats().toLowerCase());
             xmlWriter.writeEndElement();
 
+            // sub-element parallel-tx-execution
+            xmlWriter.writeCharacters("\r\n\t\t");
+            xmlWriter.writeComment(
+                    "speculatively executes the precompiled contract calls of imported blocks in parallel");
+            xmlWriter.writeCharacters("\r\n\t\t");
+            xmlWriter.writeStartElement("parallel-tx-execution");
+            xmlWriter.writeCharacters(this.parallelTxExecution + "");
+            xmlWriter.writeEndElement();
+
+            // sub-element fast-sync
+            xmlWriter.writeCharacters("\r\n\t\t");
+            xmlWriter.writeComment(
+                    "downloads the state of a recent block instead of executing the chain history when starting from genesis");
+            xmlWriter.writeCharacters("\r\n\t\t");
+            xmlWriter.writeStartElement("fast-sync");
+            xmlWriter.writeCharacters(this.fastSync + "");
+            xmlWriter.writeEndElement();
+
             // close element sync
             xmlWriter.writeCharacters("\r\n\t");
             xmlWriter.writeEndElement();
@@ -163,16 +191,34 @@ public final class CfgSync {
         return showStatistics;
     }
 
+    public void setParallelTxExecution(boolean parallelTxExecution) {
+        this.parallelTxExecution = parallelTxExecution;
+    }
+
+    public boolean isParallelTxExecutionEnabled() {
+        return this.parallelTxExecution;
+    }
+
+    public void setFastSync(boolean fastSync) {
+        this.fastSync = fastSync;
+    }
+
+    public boolean isFastSyncEnabled() {
+        return this.fastSync;
+    }
+
     @Override
     public boolean equals(Object o) {
         if (this == o) return true;
         if (o == null || getClass() != o.getClass()) return false;
         CfgSync cfgSync = (CfgSync) o;
-        return showStatus == cfgSync.showStatus;
+        return showStatus == cfgSync.showStatus
+                && parallelTxExecution == cfgSync.parallelTxExecution
+                && fastSync == cfgSync.fastSync;
     }
 
     @Override
     public int hashCode() {
-        return Objects.hashCode(showStatus);
+        return Objects.hashCode(showStatus, parallelTxExecution, fastSync);
     }
 }
@@ -6,6 +6,7 @@ import java.io.File;
 import java.io.FileWriter;
 import java.io.IOException;
 import java.math.BigInteger;
+import java.nio.ByteBuffer;
 import java.util.ArrayDeque;
 import java.util.ArrayList;
 import java.util.Arrays;
@@ -41,6 +42,11 @@ public class AionBlockStore {
 
     private ArrayStore<List<BlockInfo>> index;
     private ObjectStore<Block> blocks;
+    // optional copy of the main chain blocks ordered by number
+    private BlockSegmentStore segments;
+
+    // the largest gap in the block segments that is filled from the blocks database
+    private static final long MAX_SEGMENT_BACKFILL = 1024L;
 
     private boolean checkIntegrity;
 
@@ -54,6 +60,14 @@ public class AionBlockStore {
     }
 
     public AionBlockStore(ByteArrayKeyValueDatabase index, ByteArrayKeyValueDatabase blocks, boolean checkIntegrity, int blockCacheSize) {
+        this(index, blocks, checkIntegrity, blockCacheSize, null);
+    }
+
+    /**
+     * @param segments optional store for the main chain blocks used to read blocks by number
+     *     without querying the blocks database; may be {@code null}
+     */
+    AionBlockStore(ByteArrayKeyValueDatabase index, ByteArrayKeyValueDatabase blocks, boolean checkIntegrity, int blockCacheSize, BlockSegmentStore segments) {
         if (index == null) {
             throw new NullPointerException("index db is null");
         }
@@ -67,6 +81,7 @@ public class AionBlockStore {
         // Note: because of cache use the blocks db should write lock on get as well
         this.blocks = Stores.newObjectStoreWithCache(blocks, BLOCK_SERIALIZER, blockCacheSize, false);
         this.checkIntegrity = checkIntegrity;
+        this.segments = segments;
     }
 
     private static final Serializer<Block> BLOCK_SERIALIZER =
@@ -268,6 +283,10 @@ public class AionBlockStore {
             blocks.put(block.getHash(), block);
             blocks.commit(); // TODO AKI-309: flush in bulk by the repository
             index.set(block.getNumber(), blockInfos);
+
+            if (mainChain && segments != null) {
+                appendToSegments(block);
+            }
         } finally {
             lock.unlock();
         }
@@ -326,7 +345,10 @@ public class AionBlockStore {
             for (BlockInfo blockInfo : blockInfos) {
                 if (blockInfo.isMainChain()) {
                     byte[] hash = blockInfo.getHash();
-                    Block block = blocks.get(hash);
+                    Block block = getBlockFromSegments(number, hash);
+                    if (block == null) {
+                        block = blocks.get(hash);
+                    }
                     if (block != null) {
                         block.setTotalDifficulty(blockInfo.getTotalDifficulty());
                         block.setMainChain();
@@ -416,6 +438,14 @@ public class AionBlockStore {
         lock.lock();
 
         try {
+            List<Block> stored = getBlocksByRangeFromSegments(first, last);
+            if (stored == null) {
+                stored = getBlocksByRangeWithBatch(first, last);
+            }
+            if (stored != null) {
+                return stored;
+            }
+
             Block block = getChainBlockByNumber(first);
             if (block == null) {
                 // invalid request
@@ -500,6 +530,194 @@ public class AionBlockStore {
         }
     }
 
+    /**
+     * Reads the requested range of main chain blocks from the block segments.
+     *
+     * @return the blocks in the order defined by {@link #getBlocksByRange(long, long)} or {@code
+     *     null} when the range is not fully covered by the segments
+     * @implNote The method calling this method must handle the locking.
+     */
+    private List<Block> getBlocksByRangeFromSegments(long first, long last) {
+        if (segments == null) {
+            return null;
+        }
+
+        long low = first > last ? Math.max(last, 1L) : first;
+        long high = first > last ? first : Math.min(last, index.size() - 1L);
+        if (low > high || !segments.contains(low) || !segments.contains(high)) {
+            return null;
+        }
+
+        List<Block> result = new ArrayList<>((int) (high - low + 1));
+        try {
+            long number = low;
+            while (number <= high) {
+                // the blocks stored in one segment are copied together and decoded from the copy
+                List<ByteBuffer> run = segments.copyEncodedRun(number, high);
+                int size = run == null ? 1 : run.size();
+                for (int i = 0; i < size; i++, number++) {
+                    BlockInfo info = getMainChainInfo(index.get(number));
+                    Block block = info == null ? null : decodeFromSegments(number, info.getHash(), run == null ? null : run.get(i));
+                    if (block == null) {
+                        return null;
+                    }
+                    block.setTotalDifficulty(info.getTotalDifficulty());
+                    block.setMainChain();
+                    result.add(block);
+                }
+            }
+        } catch (IOException e) {
+            disableSegments(e);
+            return null;
+        }
+
+        if (first > last) {
+            Collections.reverse(result);
+        }
+        return result;
+    }
+
+    /**
+     * Reads the requested range of main chain blocks from the blocks database with a single batch
+     * query for all the blocks that are not cached.
+     *
+     * @return the blocks in the order defined by {@link #getBlocksByRange(long, long)} or {@code
+     *     null} when the index or the blocks database do not contain the complete range
+     * @implNote The method calling this method must handle the locking.
+     */
+    private List<Block> getBlocksByRangeWithBatch(long first, long last) {
+        long low = first > last ? Math.max(last, 1L) : first;
+        long high = first > last ? first : Math.min(last, index.size() - 1L);
+        if (low > high) {
+            return null;
+        }
+
+        List<BlockInfo> infos = new ArrayList<>((int) (high - low + 1));
+        List<byte[]> hashes = new ArrayList<>((int) (high - low + 1));
+        for (long number = low; number <= high; number++) {
+            BlockInfo info = getMainChainInfo(index.get(number));
+            if (info == null) {
+                return null;
+            }
+            infos.add(info);
+            hashes.add(info.getHash());
+        }
+
+        List<Block> result = blocks.getBatch(hashes);
+        for (int i = 0; i < result.size(); i++) {
+            Block block = result.get(i);
+            if (block == null) {
+                return null;
+            }
+            block.setTotalDifficulty(infos.get(i).getTotalDifficulty());
+            block.setMainChain();
+        }
+
+        if (first > last) {
+            Collections.reverse(result);
+        }
+        return result;
+    }
+
+    /**
+     * Reads a main chain block from the block segments. Stored data that does not match the given
+     * hash is discarded.
+     *
+     * @return the block or {@code null} if it is not available in the segments
+     * @implNote The method calling this method must handle the locking.
+     */
+    private Block getBlockFromSegments(long number, byte[] hash) {
+        if (segments == null || !segments.contains(number)) {
+            return null;
+        }
+
+        try {
+            List<ByteBuffer> run = segments.copyEncodedRun(number, number);
+            return decodeFromSegments(number, hash, run == null ? null : run.get(0));
+        } catch (IOException e) {
+            disableSegments(e);
+        }
+        return null;
+    }
+
+    /**
+     * Decodes a main chain block copied from the block segments in place, without copying its
+     * encoding again. Stored data that does not match the given hash is discarded.
+     *
+     * @param encoded the encoding copied by {@link BlockSegmentStore#copyEncodedRun(long, long)} or
+     *     {@code null} if the stored record is invalid
+     * @return the block or {@code null} if the stored data does not match the given hash
+     * @implNote The method calling this method must handle the locking.
+     */
+    private Block decodeFromSegments(long number, byte[] hash, ByteBuffer encoded) throws IOException {
+        if (Arrays.equals(hash, segments.getHash(number))) {
+            if (encoded != null) {
+                Block block = BlockUtil.newBlockFromRlp(encoded.array(), encoded.arrayOffset() + encoded.position(), encoded.remaining());
+                if (block != null && Arrays.equals(hash, block.getHash())) {
+                    return block;
+                }
+            }
+            LOG.warn("Discarding invalid block segment data from level {}.", number);
+        }
+        segments.truncate(number);
+        return null;
+    }
+
+    /**
+     * Appends a new main chain block to the block segments. Small gaps left by chain
+     * reorganizations are first filled with the main chain blocks from the blocks database.
+     *
+     * @implNote The method calling this method must handle the locking.
+     */
+    private void appendToSegments(Block block) {
+        try {
+            long number = block.getNumber();
+            long next = segments.getNext();
+            if (!segments.isEmpty() && number > next && number - next <= MAX_SEGMENT_BACKFILL) {
+                for (long level = next; level < number; level++) {
+                    Block missing = getChainBlockByNumber(level);
+                    if (missing == null) {
+                        break;
+                    }
+                    segments.append(level, missing.getHash(), missing.getEncoded());
+                }
+            }
+            segments.append(number, block.getHash(), block.getEncoded());
+        } catch (IOException e) {
+            disableSegments(e);
+        }
+    }
+
+    /** @implNote The method calling this method must handle the locking. */
+    private void truncateSegments(long level) {
+        if (segments != null) {
+            try {
+                segments.truncate(level);
+            } catch (IOException e) {
+                disableSegments(e);
+            }
+        }
+    }
+
+    /** @implNote The method calling this method must handle the locking. */
+    private void disableSegments(IOException e) {
+        LOG.error("Disabling the block segments due to: ", e);
+        segments.clear();
+        segments.close();
+        segments = null;
+    }
+
+    private static BlockInfo getMainChainInfo(List<BlockInfo> infos) {
+        if (infos != null) {
+            for (BlockInfo info : infos) {
+                if (info.isMainChain()) {
+                    return info;
+                }
+            }
+        }
+        return null;
+    }
+
     /**
      *  Get block data by given block hash, usually use this method when the kernel need to know the
      *  block information itself.
@@ -929,6 +1147,7 @@ public class AionBlockStore {
                 --currentLevel;
             }
             blocks.commit();
+            truncateSegments(targetLevel + 1);
 
             log.info("Block store revert COMPLETE.");
             log.warn("Please be aware that the current main chain is the same chain that contained the best block encountered at the start of this operation. "
@@ -1380,6 +1599,7 @@ public class AionBlockStore {
 
                 // replace all the block info with empty list
                 index.set(block.getNumber(), Collections.emptyList());
+                truncateSegments(block.getNumber());
             }
         } finally {
             lock.unlock();
@@ -1612,6 +1832,23 @@ public class AionBlockStore {
     private void setBlockInfoForLevel(long level, List<BlockInfo> infos) {
         // locks acquired by calling method
         index.set(level, infos);
+
+        if (segments != null && segments.contains(level)) {
+            // discard the stored blocks when the main chain changes at this level
+            byte[] mainChainHash = null;
+            for (BlockInfo info : infos) {
+                if (info.isMainChain()) {
+                    mainChainHash = info.getHash();
+                }
+            }
+            try {
+                if (!Arrays.equals(mainChainHash, segments.getHash(level))) {
+                    segments.truncate(level);
+                }
+            } catch (IOException e) {
+                disableSegments(e);
+            }
+        }
     }
 
     /**
@@ -1813,6 +2050,10 @@ public class AionBlockStore {
             } catch (Exception e) {
                 LOG.error("Not able to close the blocks database:", e);
             } finally {
+                if (segments != null) {
+                    segments.close();
+                    segments = null;
+                }
                 lock.unlock();
             }
         }
@@ -1842,6 +2083,7 @@ public class AionBlockStore {
 
                 index.remove(level--);
             }
+            truncateSegments(blockNumber + 1);
         } finally {
             lock.unlock();
         }
@@ -8,7 +8,9 @@ import java.math.BigInteger;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.Map;
+import java.util.Set;
 import java.util.concurrent.locks.Lock;
 import java.util.concurrent.locks.ReentrantLock;
 import org.aion.log.AionLoggerFactory;
@@ -42,13 +44,74 @@ public final class AionRepositoryCache implements RepositoryCache<AccountState>
     /** local transformed code cache */
     private final Map<AionAddress, TransformedCodeInfo> cachedTransformedCode;
 
+    /** accounts read from the tracked repository, only recorded when access tracking is enabled */
+    private final Set<AionAddress> accessedAccounts;
+
     private final Lock lock = new ReentrantLock();
 
     public AionRepositoryCache(final Repository trackedRepository) {
+        this(trackedRepository, false);
+    }
+
+    private AionRepositoryCache(final Repository trackedRepository, boolean trackAccess) {
         this.repository = trackedRepository;
         this.cachedAccounts = new HashMap<>();
         this.cachedDetails = new HashMap<>();
         this.cachedTransformedCode = new HashMap<>();
+        this.accessedAccounts = trackAccess ? new HashSet<>() : null;
+    }
+
+    /**
+     * Creates a cache that records every account it (or any cache tracking it) reads from the
+     * given repository. Used for detecting conflicts between transactions executed speculatively
+     * against the same state.
+     *
+     * @param trackedRepository the repository being tracked
+     * @return a new cache with access tracking enabled
+     */
+    public static AionRepositoryCache withAccessTracking(final Repository trackedRepository) {
+        return new AionRepositoryCache(trackedRepository, true);
+    }
+
+    /**
+     * Returns the accounts read from the tracked repository together with all the accounts held
+     * locally by this cache, i.e. every account whose state may influence or be overwritten by a
+     * flush of this cache. Storage access is covered by the owning account.
+     *
+     * @return the set of accounts touched through this cache
+     * @throws IllegalStateException if the cache was not created with access tracking enabled
+     */
+    public Set<AionAddress> getTouchedAccounts() {
+        if (accessedAccounts == null) {
+            throw new IllegalStateException("Access tracking is not enabled for this cache.");
+        }
+        lock.lock();
+        try {
+            Set<AionAddress> touched = new HashSet<>(accessedAccounts);
+            touched.addAll(cachedAccounts.keySet());
+            touched.addAll(cachedDetails.keySet());
+            return touched;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /** @return {@code true} if no state is cached locally, {@code false} otherwise */
+    public boolean isEmpty() {
+        lock.lock();
+        try {
+            return cachedAccounts.isEmpty()
+                    && cachedDetails.isEmpty()
+                    && cachedTransformedCode.isEmpty();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void recordAccess(AionAddress address) {
+        if (accessedAccounts != null) {
+            accessedAccounts.add(address);
+        }
     }
 
     @Override
@@ -134,6 +197,7 @@ public final class AionRepositoryCache implements RepositoryCache<AccountState>
                 return !accountState.isDeleted();
             } else {
                 // check repository when not cached
+                recordAccess(address);
                 return repository.hasAccountState(address);
             }
         } finally {
@@ -174,6 +238,7 @@ public final class AionRepositoryCache implements RepositoryCache<AccountState>
 
             if (contractDetails == null) {
                 // ask repository when not cached
+                recordAccess(address);
                 return repository.hasContractDetails(address);
             } else {
                 // TODO: may also need to check if the details are empty
@@ -193,6 +258,8 @@ public final class AionRepositoryCache implements RepositoryCache<AccountState>
      *     ContractDetails} as they are known to the closest ancestor repository
      */
     private Pair<AccountState, InnerContractDetails> getAccountStateFromParent(AionAddress address) {
+        recordAccess(address);
+
         if (repository instanceof AionRepositoryCache) {
             AionRepositoryCache parent = (AionRepositoryCache) repository;
 
@@ -608,6 +675,7 @@ public final class AionRepositoryCache implements RepositoryCache<AccountState>
     }
 
     public InternalVmType getVMUsed(AionAddress contract, byte[] codeHash) {
+        recordAccess(contract);
         return repository.getVMUsed(contract, codeHash);
     }
 
@@ -9,8 +9,10 @@ import static org.aion.zero.impl.config.CfgDb.Names.CONTRACT_INDEX;
 import static org.aion.zero.impl.config.CfgDb.Names.CONTRACT_PERFORM_CODE;
 import static org.aion.zero.impl.config.CfgDb.Names.DEFAULT;
 import static org.aion.zero.impl.config.CfgDb.Names.DETAILS;
+import static org.aion.zero.impl.config.CfgDb.Names.FLAT_STATE;
 import static org.aion.zero.impl.config.CfgDb.Names.GRAPH;
 import static org.aion.zero.impl.config.CfgDb.Names.INDEX;
+import static org.aion.zero.impl.config.CfgDb.Names.LOG_INDEX;
 import static org.aion.zero.impl.config.CfgDb.Names.PENDING_BLOCK;
 import static org.aion.zero.impl.config.CfgDb.Names.STATE;
 import static org.aion.zero.impl.config.CfgDb.Names.STATE_ARCHIVE;
@@ -35,12 +37,15 @@ import java.util.Collection;
 import java.util.Collections;
 import java.util.Deque;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
 import java.util.Optional;
 import java.util.Properties;
+import java.util.Set;
 import java.util.concurrent.locks.ReadWriteLock;
 import java.util.concurrent.locks.ReentrantReadWriteLock;
 import org.aion.base.AionTransaction;
@@ -53,6 +58,7 @@ import org.aion.db.store.ArchivedDataSource;
 import org.aion.db.store.JournalPruneDataSource;
 import org.aion.db.store.ObjectStore;
 import org.aion.db.store.Stores;
+import org.aion.db.store.WriteAheadJournal;
 import org.aion.db.store.XorDataSource;
 import org.aion.log.AionLoggerFactory;
 import org.aion.log.LogEnum;
@@ -66,6 +72,7 @@ import org.aion.mcf.db.exception.InvalidFileTypeException;
 import org.aion.util.types.AddressUtils;
 import org.aion.util.types.DataWord;
 import org.aion.zero.impl.config.CfgDb.Props;
+import org.aion.zero.impl.trie.Cache;
 import org.aion.zero.impl.trie.SecureTrie;
 import org.aion.zero.impl.trie.Trie;
 import org.aion.zero.impl.trie.TrieImpl;
@@ -94,6 +101,9 @@ public final class AionRepositoryImpl implements Repository<AccountState> {
     private static final Logger LOG = AionLoggerFactory.getLogger(LogEnum.DB.name());
     private static final Logger LOGGEN = AionLoggerFactory.getLogger(LogEnum.GEN.name());
 
+    private static final String JOURNAL_FILE_NAME = "journal.wal";
+    private static final String BLOCK_SEGMENTS_DIRECTORY = "blockSegments";
+
     // Read Write Lock
     private ReadWriteLock rwLock = new ReentrantReadWriteLock();
 
@@ -111,6 +121,27 @@ public final class AionRepositoryImpl implements Repository<AccountState> {
     @VisibleForTesting ByteArrayKeyValueDatabase txPoolDatabase;
     @VisibleForTesting ByteArrayKeyValueDatabase pendingTxCacheDatabase;
     @VisibleForTesting ByteArrayKeyValueDatabase contractPerformCodeDatabase;
+    @VisibleForTesting ByteArrayKeyValueDatabase flatStateDatabase;
+    @VisibleForTesting ByteArrayKeyValueDatabase logIndexDatabase;
+
+    // Groups the updates to the databases of each block into a single durable write.
+    private WriteAheadJournal journal;
+
+    // Optional copy of the main chain blocks read by number.
+    private BlockSegmentStore blockSegments;
+
+    // Optional flat copy of the head state used for reads.
+    private FlatStateSnapshot flatState;
+    // The flat state changes made on top of the state with the root flatBase.
+    private FlatStateSnapshot.Changes flatChanges;
+    private byte[] flatBase;
+    // Set when the flat state snapshot is at flatBase and can serve the reads of the head state.
+    private boolean flatInSync;
+
+    // Optional index of the transaction logs by address and topic.
+    private LogIndex logIndex;
+    // Incremented when the flat state snapshot or its pending changes are modified.
+    private long flatVersion;
 
     // Current block store.
     private AionBlockStore blockStore;
@@ -123,6 +154,8 @@ public final class AionRepositoryImpl implements Repository<AccountState> {
     private int pruneBlockCount;
     private long archiveRate;
     private boolean pruneEnabled;
+    private long trieCacheSize = Cache.UNBOUNDED;
+    private boolean parallelTrieUpdates;
 
     private DetailsDataStore detailsDS;
     private TransactionStore transactionStore;
@@ -173,15 +206,24 @@ public final class AionRepositoryImpl implements Repository<AccountState> {
             // Setup the cache for transaction data source.
             this.transactionStore =
                     new TransactionStore(
-                            transactionDatabase, AionTransactionStoreSerializer.serializer);
+                            transactionDatabase,
+                            AionTransactionStoreSerializer.serializer,
+                            Boolean.parseBoolean(cfg.getDatabaseConfig(DEFAULT).getProperty(Props.ENABLE_ADDRESS_HISTORY)));
 
             // Setup block store. Read integrity check flag (set to perform a block store integrity check at startup) directly from config.
-            blockStore = new AionBlockStore(indexDatabase, blockDatabase, Boolean.valueOf(cfg.getDatabaseConfig(DEFAULT).getProperty(Props.CHECK_INTEGRITY)), blockCacheSize);
+            blockStore = new AionBlockStore(indexDatabase, blockDatabase, Boolean.valueOf(cfg.getDatabaseConfig(DEFAULT).getProperty(Props.CHECK_INTEGRITY)), blockCacheSize, blockSegments);
 
             pendingStore = new PendingBlockStore(getDatabaseConfig(cfg, PENDING_BLOCK, cfg.getDbPath()));
             this.contractInfoSource = Stores.newObjectStoreWithCache(contractIndexDatabase, ContractInformation.RLP_SERIALIZER, 10, true);
             this.transformedCodeSource = Stores.newObjectStore(contractPerformCodeDatabase, TransformedCodeSerializer.RLP_SERIALIZER);
 
+            // Memory limit for the state trie cache.
+            String trieCacheProp = cfg.getDatabaseConfig(DEFAULT).getProperty(Props.TRIE_CACHE_SIZE);
+            if (trieCacheProp != null && Long.parseLong(trieCacheProp) > 0) {
+                trieCacheSize = Long.parseLong(trieCacheProp);
+            }
+            parallelTrieUpdates = Boolean.parseBoolean(cfg.getDatabaseConfig(DEFAULT).getProperty(Props.PARALLEL_TRIE_UPDATES));
+
             // State and pruning config.
             if (cfg.getPruneConfig().isArchived()) {
                 setupSpreadPruning(cfg.getPruneConfig().getCurrentCount(), cfg.getPruneConfig().getArchiveRate(), getDatabaseConfig(cfg, STATE_ARCHIVE, cfg.getDbPath()));
@@ -197,6 +239,20 @@ public final class AionRepositoryImpl implements Repository<AccountState> {
                 // Setup world trie.
                 worldState = createStateTrie();
             }
+
+            if (flatStateDatabase != null) {
+                // the snapshot is used once the repository is synced to its root
+                flatState = new FlatStateSnapshot(flatStateDatabase, LOG);
+                flatChanges = new FlatStateSnapshot.Changes();
+            }
+
+            if (logIndexDatabase != null) {
+                logIndex = new LogIndex(logIndexDatabase, LOG);
+            }
+
+            if (journal != null) {
+                journal.finishRecovery();
+            }
         } catch (Exception e) {
             LOGGEN.error("Shutdown due to failure to initialize repository.");
             // the above message does not get logged without the printStackTrace below
@@ -213,7 +269,7 @@ public final class AionRepositoryImpl implements Repository<AccountState> {
         this.archiveRate = rate;
 
         // using state config for state_archive
-        stateArchiveDatabase = connectAndOpen(dbConfig, LOG);
+        stateArchiveDatabase = journaled(connectAndOpen(dbConfig, LOG));
         databaseGroup.add(stateArchiveDatabase);
 
         stateWithArchive = new ArchivedDataSource(stateDatabase, stateArchiveDatabase);
@@ -265,18 +321,31 @@ public final class AionRepositoryImpl implements Repository<AccountState> {
 
             if (vendor.equals(DBVendor.LEVELDB) || vendor.equals(DBVendor.ROCKSDB)) {
                 verifyDBfileType(f, vendor.toValue());
+            } else if (vendor.equals(DBVendor.ROCKSDB_CF)) {
+                verifyDBfileType(f, DBVendor.ROCKSDB.toValue());
             }
         }
 
         Properties sharedProps;
         databaseGroup = new ArrayList<>();
 
+        if (isPersistent && Boolean.parseBoolean(cfg.getDatabaseConfig(DEFAULT).getProperty(Props.ENABLE_WRITE_JOURNAL))) {
+            journal = new WriteAheadJournal(new File(dbPath, JOURNAL_FILE_NAME), LOG);
+            LOGGEN.info("Write-ahead journal ENABLED.");
+        }
+
+        if (isPersistent && Boolean.parseBoolean(cfg.getDatabaseConfig(DEFAULT).getProperty(Props.ENABLE_BLOCK_SEGMENTS))) {
+            blockSegments = new BlockSegmentStore(new File(dbPath, BLOCK_SEGMENTS_DIRECTORY), LOG);
+            LOGGEN.info("Block segments ENABLED.");
+        }
+
         // getting state specific properties
         sharedProps = getDatabaseConfig(cfg, STATE, dbPath);
         this.stateDatabase = connectAndOpen(sharedProps, LOG);
         if (stateDatabase == null || stateDatabase.isClosed()) {
             throw newException(STATE, sharedProps);
         }
+        this.stateDatabase = journaled(stateDatabase);
         databaseGroup.add(stateDatabase);
 
         // getting transaction specific properties
@@ -285,6 +354,7 @@ public final class AionRepositoryImpl implements Repository<AccountState> {
         if (transactionDatabase == null || transactionDatabase.isClosed()) {
             throw newException(TRANSACTION, sharedProps);
         }
+        this.transactionDatabase = journaled(transactionDatabase);
         databaseGroup.add(transactionDatabase);
 
         // getting contract index specific properties
@@ -294,6 +364,7 @@ public final class AionRepositoryImpl implements Repository<AccountState> {
         if (contractIndexDatabase == null || contractIndexDatabase.isClosed()) {
             throw newException(CONTRACT_INDEX, sharedProps);
         }
+        this.contractIndexDatabase = journaled(contractIndexDatabase);
         databaseGroup.add(contractIndexDatabase);
 
         // getting contract perform code specific properties
@@ -302,6 +373,7 @@ public final class AionRepositoryImpl implements Repository<AccountState> {
         if (contractPerformCodeDatabase == null || contractPerformCodeDatabase.isClosed()) {
             throw newException(CONTRACT_PERFORM_CODE, sharedProps);
         }
+        this.contractPerformCodeDatabase = journaled(contractPerformCodeDatabase);
         databaseGroup.add(contractPerformCodeDatabase);
 
         // getting details specific properties
@@ -310,6 +382,7 @@ public final class AionRepositoryImpl implements Repository<AccountState> {
         if (detailsDatabase == null || detailsDatabase.isClosed()) {
             throw newException(DETAILS, sharedProps);
         }
+        this.detailsDatabase = journaled(detailsDatabase);
         databaseGroup.add(detailsDatabase);
 
         // getting storage specific properties
@@ -318,6 +391,7 @@ public final class AionRepositoryImpl implements Repository<AccountState> {
         if (storageDatabase == null || storageDatabase.isClosed()) {
             throw newException(STORAGE, sharedProps);
         }
+        this.storageDatabase = journaled(storageDatabase);
         databaseGroup.add(storageDatabase);
 
         // getting graph specific properties
@@ -326,6 +400,7 @@ public final class AionRepositoryImpl implements Repository<AccountState> {
         if (graphDatabase == null || graphDatabase.isClosed()) {
             throw newException(GRAPH, sharedProps);
         }
+        this.graphDatabase = journaled(graphDatabase);
         databaseGroup.add(graphDatabase);
 
         // getting index specific properties
@@ -334,6 +409,7 @@ public final class AionRepositoryImpl implements Repository<AccountState> {
         if (indexDatabase == null || indexDatabase.isClosed()) {
             throw newException(INDEX, sharedProps);
         }
+        this.indexDatabase = journaled(indexDatabase);
         databaseGroup.add(indexDatabase);
 
         // getting block specific properties
@@ -342,6 +418,7 @@ public final class AionRepositoryImpl implements Repository<AccountState> {
         if (blockDatabase == null || blockDatabase.isClosed()) {
             throw newException(BLOCK, sharedProps);
         }
+        this.blockDatabase = journaled(blockDatabase);
         databaseGroup.add(blockDatabase);
 
         // getting pending tx pool specific properties
@@ -359,6 +436,37 @@ public final class AionRepositoryImpl implements Repository<AccountState> {
             throw newException(TX_CACHE, sharedProps);
         }
         databaseGroup.add(pendingTxCacheDatabase);
+
+        if (Boolean.parseBoolean(cfg.getDatabaseConfig(DEFAULT).getProperty(Props.ENABLE_FLAT_STATE))) {
+            // not journaled since the snapshot detects incomplete updates on its own
+            sharedProps = getDatabaseConfig(cfg, FLAT_STATE, dbPath);
+            this.flatStateDatabase = connectAndOpen(sharedProps, LOG);
+            if (flatStateDatabase == null || flatStateDatabase.isClosed()) {
+                throw newException(FLAT_STATE, sharedProps);
+            }
+            databaseGroup.add(flatStateDatabase);
+            LOGGEN.info("Flat state snapshot ENABLED.");
+        }
+
+        if (Boolean.parseBoolean(cfg.getDatabaseConfig(DEFAULT).getProperty(Props.ENABLE_LOG_INDEX))) {
+            sharedProps = getDatabaseConfig(cfg, LOG_INDEX, dbPath);
+            this.logIndexDatabase = connectAndOpen(sharedProps, LOG);
+            if (logIndexDatabase == null || logIndexDatabase.isClosed()) {
+                throw newException(LOG_INDEX, sharedProps);
+            }
+            this.logIndexDatabase = journaled(logIndexDatabase);
+            databaseGroup.add(logIndexDatabase);
+            LOGGEN.info("Log index ENABLED.");
+        }
+    }
+
+    /**
+     * Routes the updates to the given database through the write-ahead journal when it is enabled.
+     * The databases of the pending transactions are not journaled since they are not part of the
+     * block import.
+     */
+    private ByteArrayKeyValueDatabase journaled(ByteArrayKeyValueDatabase database) {
+        return journal == null ? database : journal.register(database);
     }
 
     private Properties getDatabaseConfig(RepositoryConfig cfg, String dbName, String dbPath) {
@@ -387,8 +495,15 @@ public final class AionRepositoryImpl implements Repository<AccountState> {
         return this.transactionStore;
     }
 
+    /** @return the index of the transaction logs or {@code null} when it is not enabled */
+    public LogIndex getLogIndex() {
+        return this.logIndex;
+    }
+
     private Trie createStateTrie() {
-        return new SecureTrie(stateDSPrune).withPruningEnabled(pruneEnabled);
+        return new SecureTrie(new Cache(stateDSPrune, trieCacheSize), "")
+                .withPruningEnabled(pruneEnabled)
+                .withParallelUpdates(parallelTrieUpdates);
     }
 
     @Override
@@ -399,17 +514,18 @@ public final class AionRepositoryImpl implements Repository<AccountState> {
         rwLock.writeLock().lock();
 
         try {
+            // world state changes are applied together to allow parallel hashing in the trie
+            Map<ByteArrayWrapper, byte[]> stateChanges = new LinkedHashMap<>();
+
             for (Map.Entry<AionAddress, AccountState> entry : stateCache.entrySet()) {
                 AionAddress address = entry.getKey();
                 AccountState accountState = entry.getValue();
                 ContractDetails contractDetails = detailsCache.get(address);
 
                 if (accountState.isDeleted()) {
-                    // TODO-A: batch operations here
-                    try {
-                        worldState.delete(address.toByteArray());
-                    } catch (Exception e) {
-                        LOG.error("key deleted exception [{}]", e.toString());
+                    stateChanges.put(ByteArrayWrapper.wrap(address.toByteArray()), EMPTY_BYTE_ARRAY);
+                    if (flatChanges != null) {
+                        flatChanges.deleteAccount(ByteArrayWrapper.wrap(address.toByteArray()));
                     }
                     if (LOG.isDebugEnabled()) {
                         LOG.debug("key deleted <key={}>", Hex.toHexString(address.toByteArray()));
@@ -424,7 +540,10 @@ public final class AionRepositoryImpl implements Repository<AccountState> {
                         // TODO: issue above will be solved with the conversion to a
                         // ContractState class
                         if (accountState.isDirty()) {
-                            updateAccountState(address, accountState);
+                            stateChanges.put(ByteArrayWrapper.wrap(address.toByteArray()), accountState.getEncoded());
+                            if (flatChanges != null) {
+                                flatChanges.putAccount(ByteArrayWrapper.wrap(address.toByteArray()), accountState.getEncoded());
+                            }
 
                             if (LOG.isTraceEnabled()) {
                                 LOG.trace(
@@ -452,7 +571,15 @@ public final class AionRepositoryImpl implements Repository<AccountState> {
 
                     accountState.setStateRoot(parentDetails.getStorageHash());
 
-                    updateAccountState(address, accountState);
+                    stateChanges.put(ByteArrayWrapper.wrap(address.toByteArray()), accountState.getEncoded());
+
+                    if (flatChanges != null) {
+                        ByteArrayWrapper flatAddress = ByteArrayWrapper.wrap(address.toByteArray());
+                        flatChanges.putAccount(flatAddress, accountState.getEncoded());
+                        for (Map.Entry<ByteArrayWrapper, ByteArrayWrapper> storage : contractDetailsCache.getStorageChanges().entrySet()) {
+                            flatChanges.putStorage(flatAddress, storage.getKey(), storage.getValue());
+                        }
+                    }
 
                     cachedContractIndex.put(address, Pair.of(ByteArrayWrapper.wrap(accountState.getCodeHash()), parentDetails.getVmType()));
 
@@ -467,6 +594,9 @@ public final class AionRepositoryImpl implements Repository<AccountState> {
                 }
             }
 
+            worldState.updateBatch(stateChanges);
+            flatVersion++;
+
             for (Map.Entry<AionAddress, TransformedCodeInfo> entry : transformedCodeCache.entrySet()) {
                 for (Map.Entry<ByteArrayWrapper, Map<Integer, byte[]>> infoMap : entry.getValue().transformedCodeMap.entrySet()) {
                     for (Map.Entry<Integer, byte[]> innerEntry : infoMap.getValue().entrySet()) {
@@ -503,11 +633,15 @@ public final class AionRepositoryImpl implements Repository<AccountState> {
                 LOG.info("worldState.sync()");
             }
             worldState.sync();
+            commitFlatState(worldState.getRootHash());
 
             // Flush all necessary caches.
             if (LOG.isInfoEnabled()) {
                 LOG.info("flush all databases");
             }
+            if (journal != null) {
+                journal.commit();
+            }
 
             if (LOG.isInfoEnabled()) {
                 LOG.info("RepositoryImpl.flush took " + (System.currentTimeMillis() - s) + " ms");
@@ -547,6 +681,7 @@ public final class AionRepositoryImpl implements Repository<AccountState> {
         rwLock.writeLock().lock();
         try {
             worldState.setRoot(root);
+            syncFlatState(root);
         } finally {
             rwLock.writeLock().unlock();
         }
@@ -695,12 +830,6 @@ public final class AionRepositoryImpl implements Repository<AccountState> {
         return (account == null) ? BigInteger.ZERO : account.getNonce();
     }
 
-    /** @implNote The method calling this method must handle the locking. */
-    private void updateAccountState(AionAddress address, AccountState accountState) {
-        // locked by calling method
-        worldState.update(address.toByteArray(), accountState.getEncoded());
-    }
-
     /**
      * @inheritDoc
      * @implNote Methods calling this can rely on the fact that the contract details returned is a
@@ -725,12 +854,118 @@ public final class AionRepositoryImpl implements Repository<AccountState> {
             }
 
             InternalVmType vm = getVMUsed(address, codeHash);
-            return detailsDS.getSnapshot(vm, address.toByteArray(), storageRoot);
+            StoredContractDetails details = detailsDS.getSnapshot(vm, address.toByteArray(), storageRoot);
+
+            if (flatInSync && details != null) {
+                FlatStorageView view = new FlatStorageView(address.toByteArray(), storageRoot);
+                if (details instanceof FvmContractDetails) {
+                    ((FvmContractDetails) details).setStorageView(view);
+                } else if (details instanceof AvmContractDetails) {
+                    ((AvmContractDetails) details).setStorageView(view);
+                }
+            }
+            return details;
         } finally {
             rwLock.readLock().unlock();
         }
     }
 
+    /**
+     * Reads the account encoding from the flat state snapshot. Accounts that are not known yet are
+     * read from the state trie and added to the snapshot.
+     *
+     * @return the account encoding or an empty array if the account does not exist
+     */
+    private byte[] getFlatAccount(byte[] address) {
+        byte[] encoding = flatChanges.accounts.get(ByteArrayWrapper.wrap(address));
+        if (encoding != null) {
+            return encoding;
+        }
+
+        byte[] entry = flatState.getAccount(address);
+        if (entry == null) {
+            // the account is not among the pending changes, so the trie value is also valid for the stored root
+            entry = flatState.populateAccount(address, worldState.get(address));
+        }
+        return FlatStateSnapshot.getEncoding(entry);
+    }
+
+    /**
+     * Serves the storage reads of contract details from the flat state snapshot while the account
+     * in the head state has the same storage root as the details.
+     */
+    private final class FlatStorageView implements FlatStateSnapshot.StorageView {
+        private final byte[] address;
+        private final ByteArrayWrapper addressKey;
+        private final byte[] storageRoot;
+
+        // the incarnation of the account is checked again when the flat state changes
+        private long checkedVersion = -1;
+        private long incarnation = -1;
+        private boolean matchesRoot;
+
+        private FlatStorageView(byte[] address, byte[] storageRoot) {
+            this.address = address;
+            this.addressKey = ByteArrayWrapper.wrap(address);
+            this.storageRoot = storageRoot;
+        }
+
+        @Override
+        public synchronized byte[] get(byte[] key) {
+            rwLock.readLock().lock();
+            try {
+                if (!check()) {
+                    return null;
+                }
+                Map<ByteArrayWrapper, ByteArrayWrapper> changes = flatChanges.storage.get(addressKey);
+                ByteArrayWrapper storageKey = ByteArrayWrapper.wrap(key);
+                if (changes != null && changes.containsKey(storageKey)) {
+                    return FlatStateSnapshot.storageEntry(changes.get(storageKey));
+                }
+                return incarnation < 0 ? null : flatState.getStorage(address, incarnation, key);
+            } finally {
+                rwLock.readLock().unlock();
+            }
+        }
+
+        @Override
+        public synchronized void populate(byte[] key, ByteArrayWrapper value) {
+            rwLock.readLock().lock();
+            try {
+                if (!check() || incarnation < 0) {
+                    return;
+                }
+                // the stored entries are only valid for keys without pending changes
+                Map<ByteArrayWrapper, ByteArrayWrapper> changes = flatChanges.storage.get(addressKey);
+                if (changes == null || !changes.containsKey(ByteArrayWrapper.wrap(key))) {
+                    flatState.populateStorage(address, incarnation, key, value);
+                }
+            } finally {
+                rwLock.readLock().unlock();
+            }
+        }
+
+        /** @return {@code true} if the head state account has the storage root of this view */
+        private boolean check() {
+            if (!flatInSync) {
+                return false;
+            }
+            if (checkedVersion != flatVersion) {
+                byte[] encoding = getFlatAccount(address);
+                matchesRoot = encoding.length != 0 && Arrays.equals(new AccountState(encoding).getStateRoot(), storageRoot);
+
+                // the stored storage entries belong to the incarnation of the stored account
+                byte[] entry = flatState.getAccount(address);
+                incarnation =
+                        entry == null || FlatStateSnapshot.isAbsent(entry) || flatChanges.recreated.contains(addressKey)
+                                ? -1
+                                : FlatStateSnapshot.getIncarnation(entry);
+                checkedVersion = flatVersion;
+            }
+            return matchesRoot;
+        }
+    }
+
     @Override
     public boolean hasContractDetails(AionAddress address) {
         rwLock.readLock().lock();
@@ -754,7 +989,7 @@ public final class AionRepositoryImpl implements Repository<AccountState> {
         AccountState result = null;
 
         try {
-            byte[] accountData = worldState.get(address.toByteArray());
+            byte[] accountData = flatInSync ? getFlatAccount(address.toByteArray()) : worldState.get(address.toByteArray());
 
             if (accountData.length != 0) {
                 result = new AccountState(accountData);
@@ -801,6 +1036,7 @@ public final class AionRepositoryImpl implements Repository<AccountState> {
         rwLock.writeLock().lock();
         try {
             worldState.setRoot(root);
+            syncFlatState(root);
         } finally {
             rwLock.writeLock().unlock();
         }
@@ -825,11 +1061,49 @@ public final class AionRepositoryImpl implements Repository<AccountState> {
                 detailsDS.getStorageDSPrune().storeBlockChanges(blockHash, blockNumber);
                 pruneBlocks(blockNumber);
             }
+
+            // all the updates of the block are stored together
+            if (journal != null) {
+                journal.commit();
+            }
+
+            // updated after the state is durable since the snapshot is discarded if it is ahead
+            commitFlatState(blockStateRoot);
         } finally {
             rwLock.writeLock().unlock();
         }
     }
 
+    /**
+     * Discards the pending flat state changes and moves the flat state snapshot to the given root.
+     * Snapshot repositories only track the root their changes apply to.
+     */
+    private void syncFlatState(byte[] root) {
+        if (flatState == null) {
+            return;
+        }
+        flatChanges = new FlatStateSnapshot.Changes();
+        flatBase = root;
+        if (!isSnapshot) {
+            flatState.moveTo(root);
+            flatInSync = true;
+        }
+        flatVersion++;
+    }
+
+    /**
+     * Registers the pending flat state changes as leading to the given root. The main repository
+     * also moves the flat state snapshot to the root, while the changes of snapshot repositories
+     * remain available for reorganizations that switch the main chain to their blocks.
+     */
+    private void commitFlatState(byte[] root) {
+        if (flatState == null) {
+            return;
+        }
+        flatState.addLayer(flatBase, root, flatChanges);
+        syncFlatState(root);
+    }
+
     private void pruneBlocks(long currentBlockNumber) {
         if (currentBlockNumber > bestBlockNumber) {
             // Prune only on increasing blocks
@@ -839,8 +1113,9 @@ public final class AionRepositoryImpl implements Repository<AccountState> {
                 byte[] pruneBlockHash = blockStore.getBlockHashByNumber(pruneBlockNumber);
                 if (pruneBlockHash != null) {
                     ByteArrayWrapper hash = ByteArrayWrapper.wrap(pruneBlockHash);
-                    stateDSPrune.prune(hash, pruneBlockNumber);
-                    detailsDS.getStorageDSPrune().prune(hash, pruneBlockNumber);
+                    // the deletions are applied in the background to avoid stalling the import
+                    stateDSPrune.schedulePrune(hash, pruneBlockNumber);
+                    detailsDS.getStorageDSPrune().schedulePrune(hash, pruneBlockNumber);
                 }
             }
         }
@@ -855,6 +1130,14 @@ public final class AionRepositoryImpl implements Repository<AccountState> {
         return pruneEnabled && !stateDSPrune.isArchiveEnabled();
     }
 
+    /**
+     * @return {@code true} when the updates of each block are stored through the write-ahead
+     *     journal, {@code false} otherwise
+     */
+    public boolean usesWriteJournal() {
+        return journal != null;
+    }
+
     public Trie getWorldState() {
         return worldState;
     }
@@ -876,13 +1159,24 @@ public final class AionRepositoryImpl implements Repository<AccountState> {
             repo.pruneEnabled = this.pruneEnabled;
             repo.pruneBlockCount = this.pruneBlockCount;
             repo.archiveRate = this.archiveRate;
+            repo.trieCacheSize = this.trieCacheSize;
+            repo.parallelTrieUpdates = this.parallelTrieUpdates;
 
             repo.detailsDS = this.detailsDS;
+            // the blocks imported on a snapshot while trying a fork are indexed as side chain blocks
+            repo.logIndex = this.logIndex;
             repo.isSnapshot = true;
 
             repo.worldState = repo.createStateTrie();
             repo.worldState.setRoot(root);
 
+            // snapshots record their changes for the flat state but do not read from it
+            if (flatState != null) {
+                repo.flatState = this.flatState;
+                repo.flatChanges = new FlatStateSnapshot.Changes();
+                repo.flatBase = root;
+            }
+
             // gives snapshots access to the pending store
             repo.pendingStore = this.pendingStore;
 
@@ -949,6 +1243,28 @@ public final class AionRepositoryImpl implements Repository<AccountState> {
     public void close() {
         rwLock.writeLock().lock();
         try {
+            try {
+                // the scheduled deletions must complete before the databases are closed
+                if (stateDSPrune != null) {
+                    stateDSPrune.shutdownPruning();
+                }
+                if (detailsDS != null) {
+                    detailsDS.getStorageDSPrune().shutdownPruning();
+                }
+            } catch (Exception e) {
+                LOGGEN.error("Exception occurred while completing the state pruning.", e);
+            }
+
+            try {
+                if (journal != null) {
+                    journal.close();
+                    LOGGEN.info("Write-ahead journal closed.");
+                    journal = null;
+                }
+            } catch (Exception e) {
+                LOGGEN.error("Exception occurred while closing the write-ahead journal.", e);
+            }
+
             try {
                 if (detailsDS != null) {
                     detailsDS.close();
@@ -1041,6 +1357,29 @@ public final class AionRepositoryImpl implements Repository<AccountState> {
                         "Exception occurred while closing the pendingTxCacheDatabase store.", e);
             }
 
+            try {
+                if (flatStateDatabase != null) {
+                    flatInSync = false;
+                    flatState = null;
+                    flatStateDatabase.close();
+                    LOGGEN.info("Flat state database closed.");
+                    flatStateDatabase = null;
+                }
+            } catch (Exception e) {
+                LOGGEN.error("Exception occurred while closing the flat state database.", e);
+            }
+
+            try {
+                if (logIndexDatabase != null) {
+                    logIndex = null;
+                    logIndexDatabase.close();
+                    LOGGEN.info("Log index database closed.");
+                    logIndexDatabase = null;
+                }
+            } catch (Exception e) {
+                LOGGEN.error("Exception occurred while closing the log index database.", e);
+            }
+
             try {
                 if (transformedCodeSource != null) {
                     transformedCodeSource.close();
@@ -1179,6 +1518,40 @@ public final class AionRepositoryImpl implements Repository<AccountState> {
         }
     }
 
+    /**
+     * Retrieves the storage trie nodes referenced by a given storage trie node, where the size of
+     * the result is bounded by the given limit. The nodes of each contract storage are stored under
+     * their hashes combined with a key specific to the contract, which is recovered from the key and
+     * value of the given node.
+     *
+     * @param key the database key of a storage trie node
+     * @param value the value of the storage trie node
+     * @param limit the maximum number of key-value pairs to be retrieved by this method; zero and
+     *     negative values for the limit will result in no search and an empty map will be returned
+     * @return a map from the database keys to the values of the referenced nodes reached while
+     *     keeping within the limit on the result size
+     */
+    public Map<ByteArrayWrapper, byte[]> getReferencedStorageNodes(byte[] key, byte[] value, int limit) {
+        if (limit <= 0) {
+            return Collections.emptyMap();
+        } else {
+            byte[] subKey = ByteUtil.xorAlignRight(key, h256(value));
+
+            ByteArrayKeyValueStore db =
+                    new XorDataSource(selectDatabase(DatabaseType.STORAGE), subKey, false);
+
+            Trie trie = new TrieImpl(db);
+            Map<ByteArrayWrapper, byte[]> refs = trie.getReferencedTrieNodes(value, limit);
+            Map<ByteArrayWrapper, byte[]> converted = new HashMap<>();
+            for (Map.Entry<ByteArrayWrapper, byte[]> ref : refs.entrySet()) {
+                converted.put(
+                        ByteArrayWrapper.wrap(ByteUtil.xorAlignRight(ref.getKey().toBytes(), subKey)),
+                        ref.getValue());
+            }
+            return converted;
+        }
+    }
+
     @VisibleForTesting
     public byte[] dumpImportableState(byte[] root, int limit, DatabaseType dbType) {
         Map<ByteArrayWrapper, byte[]> refs = getReferencedTrieNodes(root, limit, dbType);
@@ -1210,7 +1583,7 @@ public final class AionRepositoryImpl implements Repository<AccountState> {
         if (limit <= 0) {
             return Collections.emptyList();
         } else {
-            byte[] subKey = h256(("details-storage/" + contract.toString()).getBytes());
+            byte[] subKey = DetailsDataStore.storageSubKey(contract);
 
             ByteArrayKeyValueStore db =
                     new XorDataSource(selectDatabase(DatabaseType.STORAGE), subKey, false);
@@ -1278,6 +1651,104 @@ public final class AionRepositoryImpl implements Repository<AccountState> {
         return TrieNodeResult.IMPORTED;
     }
 
+    /**
+     * Makes the trie nodes imported with {@link #importTrieNode} durable when the databases are
+     * updated through the write-ahead journal, which otherwise keeps them in memory until the next
+     * block is stored.
+     */
+    public void commitTrieNodes() {
+        rwLock.writeLock().lock();
+        try {
+            if (journal != null) {
+                journal.commit();
+            }
+        } finally {
+            rwLock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Retrieves the keys of the trie nodes that are referenced by the stored node with the given
+     * hash, either directly or through other stored nodes, and are missing from the database
+     * associated with the given type.
+     *
+     * @param hash the hash of a trie node
+     * @param dbType the database where the trie is stored
+     * @param subKey the key combined with the node hashes to obtain their keys in the database, as
+     *     done for the tries of each contract, or {@code null} when the hashes are the keys
+     * @return the database keys of the missing nodes, which includes the given node when it is not
+     *     stored
+     */
+    public Set<ByteArrayWrapper> getMissingTrieNodes(byte[] hash, DatabaseType dbType, byte[] subKey) {
+        ByteArrayKeyValueDatabase db = selectDatabase(dbType);
+
+        if (subKey == null) {
+            return new TrieImpl(db).getMissingNodes(hash);
+        } else {
+            Trie trie = new TrieImpl(new XorDataSource(db, subKey, false));
+            Set<ByteArrayWrapper> missing = new HashSet<>();
+            for (ByteArrayWrapper node : trie.getMissingNodes(hash)) {
+                missing.add(ByteArrayWrapper.wrap(ByteUtil.xorAlignRight(node.toBytes(), subKey)));
+            }
+            return missing;
+        }
+    }
+
+    /**
+     * Retrieves the stored contract details in the order of the contract addresses, starting from
+     * the given address.
+     *
+     * @param from the first contract address to be included
+     * @param limit the maximum number of contracts to be retrieved
+     * @return the encodings of the contract details by contract address, in the order of the
+     *     addresses
+     */
+    public Map<ByteArrayWrapper, byte[]> getContractDetails(byte[] from, int limit) {
+        Map<ByteArrayWrapper, byte[]> details = new LinkedHashMap<>();
+        if (limit > 0) {
+            for (Map.Entry<byte[], byte[]> entry : detailsDatabase.getRange(from, null, limit)) {
+                details.put(ByteArrayWrapper.wrap(entry.getKey()), entry.getValue());
+            }
+        }
+        return details;
+    }
+
+    /**
+     * Retrieves the account state from the world state with the given root. The state trie is read
+     * directly, without the caches of the current world state.
+     *
+     * @param address the address of the account
+     * @param stateRoot the root of the world state
+     * @return the account state or {@code null} if the account does not exist
+     * @throws RuntimeException when the nodes of the state trie leading to the account are missing
+     */
+    public AccountState getAccountState(AionAddress address, byte[] stateRoot) {
+        byte[] accountData = new SecureTrie(stateDatabase, stateRoot).get(address.toByteArray());
+        return accountData.length == 0 ? null : new AccountState(accountData);
+    }
+
+    /**
+     * Counts the accounts from the world state with the given root that have code or storage, i.e.
+     * the accounts with stored contract details.
+     *
+     * @param stateRoot the root of the world state
+     * @return the number of contract accounts
+     * @throws RuntimeException when nodes of the state trie are missing
+     */
+    public long countContractAccounts(byte[] stateRoot) {
+        long[] count = new long[1];
+        new TrieImpl(stateDatabase)
+                .scanValues(
+                        stateRoot,
+                        value -> {
+                            AccountState account = new AccountState(value);
+                            if (account.hasStorage() || !Arrays.equals(account.getCodeHash(), EMPTY_DATA_HASH)) {
+                                count[0]++;
+                            }
+                        });
+        return count[0];
+    }
+
     private ByteArrayKeyValueDatabase selectDatabase(DatabaseType dbType) {
         switch (dbType) {
             case DETAILS:
@@ -1286,6 +1757,8 @@ public final class AionRepositoryImpl implements Repository<AccountState> {
                 return storageDatabase;
             case STATE:
                 return stateDatabase;
+            case GRAPH:
+                return graphDatabase;
             default:
                 throw new IllegalArgumentException(
                         "The database type " + dbType.toString() + " is not supported.");
@@ -1671,6 +2144,19 @@ public final class AionRepositoryImpl implements Repository<AccountState> {
             return false;
         }
 
+        if (transactionStore.isHistoryEnabled()) {
+            // remove the reverted blocks from the address history
+            for (long number = nbBlock + 1; number <= nbBestBlock; number++) {
+                List<Block> blocks = blockStore.getAllChainBlockByNumber(number, log);
+                if (blocks != null) {
+                    for (Block block : blocks) {
+                        transactionStore.removeHistoryToBatch(block);
+                    }
+                }
+            }
+            transactionStore.flushBatch();
+        }
+
         // revert to block number and flush changes
         blockStore.revert(nbBlock, log);
 
@@ -0,0 +1,362 @@
+package org.aion.zero.impl.db;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import org.slf4j.Logger;
+
+/**
+ * Stores the encoding of a contiguous range of main chain blocks in append-only, memory-mapped
+ * segment files, so that blocks can be read by number without a key-value lookup and ranges of
+ * blocks are read sequentially.
+ *
+ * <p>The data is kept in fixed-size segment files. Each block is stored as a record consisting of
+ * its length followed by its encoding, and records never span two segments. A separate index file
+ * maps each block number to the offset of its record and the hash of the block.
+ *
+ * <p>The store is a copy of data kept in the block database and may be truncated or cleared at any
+ * time. Readers must compare the stored hash with the main chain hash from the block index before
+ * using a block.
+ *
+ * @implNote This class is not thread safe. The calling block store must handle the locking.
+ */
+final class BlockSegmentStore {
+
+    static final int HASH_SIZE = 32;
+    static final int DEFAULT_SEGMENT_SIZE = 64 * 1024 * 1024;
+
+    private static final String INDEX_FILE_NAME = "blocks.idx";
+    private static final String SEGMENT_FILE_FORMAT = "blocks-%06d.seg";
+
+    // the index file starts with the first block number and the number of stored blocks
+    private static final int HEADER_SIZE = 2 * Long.BYTES;
+    private static final int ENTRY_SIZE = Long.BYTES + HASH_SIZE;
+    private static final int ENTRIES_PER_WINDOW = 64 * 1024;
+    private static final int RECORD_HEADER_SIZE = Integer.BYTES;
+
+    private final File directory;
+    private final int segmentSize;
+    private final Logger log;
+
+    private final FileChannel indexChannel;
+    private final MappedByteBuffer header;
+    private final Map<Long, MappedByteBuffer> indexWindows = new HashMap<>();
+    private final List<MappedByteBuffer> segments = new ArrayList<>();
+
+    private long first;
+    private long count;
+    // the global offset where the next record is written
+    private long position;
+
+    BlockSegmentStore(File directory, Logger log) throws IOException {
+        this(directory, DEFAULT_SEGMENT_SIZE, log);
+    }
+
+    BlockSegmentStore(File directory, int segmentSize, Logger log) throws IOException {
+        if (segmentSize <= RECORD_HEADER_SIZE) {
+            throw new IllegalArgumentException("The segment size must be able to hold a record.");
+        }
+        if (!directory.exists() && !directory.mkdirs()) {
+            throw new IOException("Unable to create the block segment directory " + directory);
+        }
+
+        this.directory = directory;
+        this.segmentSize = segmentSize;
+        this.log = log;
+
+        indexChannel =
+                FileChannel.open(
+                        new File(directory, INDEX_FILE_NAME).toPath(),
+                        StandardOpenOption.CREATE,
+                        StandardOpenOption.READ,
+                        StandardOpenOption.WRITE);
+        header = indexChannel.map(MapMode.READ_WRITE, 0, HEADER_SIZE);
+        first = header.getLong(0);
+        count = header.getLong(Long.BYTES);
+
+        if (first < 0 || count < 0) {
+            log.warn("Clearing the block segments due to an invalid index header.");
+            clear();
+        } else if (count > 0) {
+            ByteBuffer last = getEncoded(first + count - 1);
+            position = last == null ? -1 : offset(first + count - 1) + RECORD_HEADER_SIZE + last.remaining();
+            if (position < 0) {
+                log.warn("Clearing the block segments due to an invalid last record.");
+                clear();
+            }
+        }
+        log.info("Loaded {} blocks from the block segments at {}.", count, directory);
+    }
+
+    /** @return the number of the first stored block */
+    long getFirst() {
+        return first;
+    }
+
+    /** @return the number following the last stored block */
+    long getNext() {
+        return first + count;
+    }
+
+    boolean isEmpty() {
+        return count == 0;
+    }
+
+    boolean contains(long number) {
+        return count > 0 && number >= first && number < first + count;
+    }
+
+    /** @return the hash of the stored block with the given number or {@code null} if missing */
+    byte[] getHash(long number) throws IOException {
+        if (!contains(number)) {
+            return null;
+        }
+        ByteBuffer entry = indexEntry(number);
+        byte[] hash = new byte[HASH_SIZE];
+        entry.position(entry.position() + Long.BYTES);
+        entry.get(hash);
+        return hash;
+    }
+
+    /**
+     * Returns a read-only view of the encoding of the block with the given number. The view shares
+     * the memory mapping of the segment, so the data is not copied.
+     *
+     * @return the encoding of the block or {@code null} if the block is not stored
+     */
+    ByteBuffer getEncoded(long number) throws IOException {
+        if (!contains(number)) {
+            return null;
+        }
+
+        long offset = offset(number);
+        int segment = (int) (offset / segmentSize);
+        int start = (int) (offset % segmentSize);
+        if (offset < 0 || start > segmentSize - RECORD_HEADER_SIZE) {
+            return null;
+        }
+
+        ByteBuffer data = segment(segment).duplicate();
+        int length = data.getInt(start);
+        if (length <= 0 || length > segmentSize - start - RECORD_HEADER_SIZE) {
+            return null;
+        }
+        data.position(start + RECORD_HEADER_SIZE);
+        data.limit(start + RECORD_HEADER_SIZE + length);
+        return data.slice().asReadOnlyBuffer();
+    }
+
+    /**
+     * Copies the encodings of the consecutive stored blocks from {@code from} up to {@code to} that
+     * are kept in the same segment as the first one. The records are contiguous within a segment,
+     * so they are copied out of the mapping with a single bulk read.
+     *
+     * <p>The copy is needed because the records are overwritten in place once the store is
+     * truncated, while the decoded blocks may outlive the mapping.
+     *
+     * @return the encodings in increasing block order as heap buffers sharing one array, or {@code
+     *     null} if the first block is not stored or one of the records is invalid
+     */
+    List<ByteBuffer> copyEncodedRun(long from, long to) throws IOException {
+        if (!contains(from)) {
+            return null;
+        }
+
+        long start = offset(from);
+        int segment = (int) (start / segmentSize);
+        if (start < 0 || start % segmentSize > segmentSize - RECORD_HEADER_SIZE) {
+            return null;
+        }
+
+        List<Long> offsets = new ArrayList<>();
+        offsets.add(start);
+        long last = Math.min(to, getNext() - 1);
+        for (long number = from + 1; number <= last; number++) {
+            long offset = offset(number);
+            if (offset / segmentSize != segment) {
+                break;
+            }
+            offsets.add(offset);
+        }
+
+        // the run ends with the record of its last block
+        ByteBuffer data = segment(segment).duplicate();
+        int lastStart = (int) (offsets.get(offsets.size() - 1) % segmentSize);
+        if (lastStart > segmentSize - RECORD_HEADER_SIZE) {
+            return null;
+        }
+        int lastLength = data.getInt(lastStart);
+        if (lastLength <= 0 || lastLength > segmentSize - lastStart - RECORD_HEADER_SIZE) {
+            return null;
+        }
+
+        int runStart = (int) (start % segmentSize);
+        byte[] run = new byte[lastStart + RECORD_HEADER_SIZE + lastLength - runStart];
+        data.position(runStart);
+        data.get(run);
+
+        ByteBuffer records = ByteBuffer.wrap(run);
+        List<ByteBuffer> encodings = new ArrayList<>(offsets.size());
+        for (long offset : offsets) {
+            int recordStart = (int) (offset - start);
+            if (recordStart < 0 || recordStart > run.length - RECORD_HEADER_SIZE) {
+                return null;
+            }
+            int length = records.getInt(recordStart);
+            if (length <= 0 || length > run.length - recordStart - RECORD_HEADER_SIZE) {
+                return null;
+            }
+            encodings.add(ByteBuffer.wrap(run, recordStart + RECORD_HEADER_SIZE, length).slice());
+        }
+        return encodings;
+    }
+
+    /**
+     * Stores the given main chain block. Blocks with numbers above the given one are discarded. If
+     * the block does not follow the stored range, the store is cleared and restarts from the block.
+     */
+    void append(long number, byte[] hash, byte[] encoded) throws IOException {
+        if (hash.length != HASH_SIZE) {
+            throw new IllegalArgumentException("Unexpected hash size " + hash.length + ".");
+        }
+        if (number < 0) {
+            throw new IllegalArgumentException("Negative block number " + number + ".");
+        }
+
+        if (number < getNext()) {
+            truncate(number);
+        }
+        if (count > 0 && number != getNext()) {
+            clear();
+        }
+
+        int recordSize = RECORD_HEADER_SIZE + encoded.length;
+        if (recordSize > segmentSize) {
+            // cannot keep the range contiguous without this block
+            log.warn("Block {} is too large for the block segments.", number);
+            clear();
+            return;
+        }
+
+        // records never span two segments
+        long remaining = segmentSize - position % segmentSize;
+        if (recordSize > remaining) {
+            position += remaining;
+        }
+
+        ByteBuffer data = segment((int) (position / segmentSize)).duplicate();
+        int start = (int) (position % segmentSize);
+        data.putInt(start, encoded.length);
+        data.position(start + RECORD_HEADER_SIZE);
+        data.put(encoded);
+
+        if (count == 0) {
+            first = number;
+            header.putLong(0, first);
+        }
+        ByteBuffer entry = indexEntry(number);
+        entry.putLong(position);
+        entry.put(hash);
+
+        // the entry becomes visible once the count is updated
+        count++;
+        header.putLong(Long.BYTES, count);
+        position += recordSize;
+    }
+
+    /** Discards the block with the given number and all the blocks above it. */
+    void truncate(long number) throws IOException {
+        if (number >= getNext()) {
+            return;
+        }
+        if (number <= first) {
+            clear();
+            return;
+        }
+
+        position = offset(number);
+        count = number - first;
+        header.putLong(Long.BYTES, count);
+    }
+
+    /** Discards all the stored blocks. The segment files are reused by the following appends. */
+    void clear() {
+        first = 0;
+        count = 0;
+        position = 0;
+        header.putLong(0, first);
+        header.putLong(Long.BYTES, count);
+    }
+
+    /** Writes the modified data to disk. */
+    void flush() {
+        for (MappedByteBuffer segment : segments) {
+            segment.force();
+        }
+        for (MappedByteBuffer window : indexWindows.values()) {
+            window.force();
+        }
+        header.force();
+    }
+
+    void close() {
+        try {
+            flush();
+            indexChannel.close();
+        } catch (Exception e) {
+            log.error("Not able to close the block segments:", e);
+        } finally {
+            // the mappings are released once they are no longer referenced
+            indexWindows.clear();
+            segments.clear();
+        }
+    }
+
+    private long offset(long number) throws IOException {
+        return indexEntry(number).getLong();
+    }
+
+    /** @return a buffer positioned at the index entry of the given block */
+    private ByteBuffer indexEntry(long number) throws IOException {
+        long entryNumber = number - first;
+        long windowNumber = entryNumber / ENTRIES_PER_WINDOW;
+
+        MappedByteBuffer window = indexWindows.get(windowNumber);
+        if (window == null) {
+            window =
+                    indexChannel.map(
+                            MapMode.READ_WRITE,
+                            HEADER_SIZE + windowNumber * ENTRIES_PER_WINDOW * ENTRY_SIZE,
+                            (long) ENTRIES_PER_WINDOW * ENTRY_SIZE);
+            indexWindows.put(windowNumber, window);
+        }
+
+        ByteBuffer entry = window.duplicate();
+        entry.position((int) (entryNumber % ENTRIES_PER_WINDOW) * ENTRY_SIZE);
+        return entry;
+    }
+
+    private MappedByteBuffer segment(int segmentNumber) throws IOException {
+        while (segments.size() <= segmentNumber) {
+            File file = new File(directory, String.format(SEGMENT_FILE_FORMAT, segments.size()));
+            try (FileChannel channel =
+                    FileChannel.open(
+                            file.toPath(),
+                            StandardOpenOption.CREATE,
+                            StandardOpenOption.READ,
+                            StandardOpenOption.WRITE)) {
+                // the mapping remains valid after the channel is closed
+                segments.add(channel.map(MapMode.READ_WRITE, 0, segmentSize));
+            }
+        }
+        return segments.get(segmentNumber);
+    }
+}
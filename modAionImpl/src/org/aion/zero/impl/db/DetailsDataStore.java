@@ -49,7 +49,15 @@ public class DetailsDataStore {
      */
     private ByteArrayKeyValueStore createStorageSource(AionAddress address) {
         // NOTE: The consensus-correct Trie use for contracts requires not pushing deletions via the XorDataSource.
-        return new XorDataSource(storageDSPrune, h256(("details-storage/" + address.toString()).getBytes()), false);
+        return new XorDataSource(storageDSPrune, storageSubKey(address), false);
+    }
+
+    /**
+     * Returns the key combined with the hashes of the storage trie nodes of the given contract to
+     * obtain their keys in the storage database.
+     */
+    public static byte[] storageSubKey(AionAddress address) {
+        return h256(("details-storage/" + address.toString()).getBytes());
     }
 
     /**
@@ -60,7 +68,15 @@ public class DetailsDataStore {
      * @return the object graph data source associated with the given contract address
      */
     private ByteArrayKeyValueStore createGraphSource(AionAddress address) {
-        return new XorDataSource(graphSrc, h256(("details-graph/" + address.toString()).getBytes()), true);
+        return new XorDataSource(graphSrc, graphSubKey(address), true);
+    }
+
+    /**
+     * Returns the key combined with the hashes of the object graph entries of the given contract to
+     * obtain their keys in the graph database.
+     */
+    public static byte[] graphSubKey(AionAddress address) {
+        return h256(("details-graph/" + address.toString()).getBytes());
     }
 
     /**
@@ -0,0 +1,402 @@
+package org.aion.zero.impl.db;
+
+import static org.aion.util.bytes.ByteUtil.EMPTY_BYTE_ARRAY;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import org.aion.db.impl.ByteArrayKeyValueDatabase;
+import org.aion.util.conversions.Hex;
+import org.aion.util.types.ByteArrayWrapper;
+import org.slf4j.Logger;
+
+/**
+ * Keeps a flat copy of the accounts and contract storage of the head state, so that reads of the
+ * head state can be answered with a single key-value lookup instead of a traversal of the state and
+ * storage tries.
+ *
+ * <p>The snapshot is a partial copy. An entry that is present is authoritative for the state at
+ * {@link #getRoot()}, including entries recording that an account or storage key does not exist.
+ * Missing entries are unknown and must be read from the tries, after which they can be added with
+ * {@link #populateAccount} and {@link #populateStorage}. The snapshot is therefore never generated
+ * from an existing state, but it is warmed up by the reads.
+ *
+ * <p>Account entries are stored by address and consist of an incarnation number followed by the
+ * account encoding, which is empty for accounts that do not exist. Storage entries are stored under
+ * the address, the incarnation of the account and the storage key. A new incarnation is assigned
+ * when an account is deleted or its previous entry is unknown, which discards all its storage
+ * entries without having to delete them.
+ *
+ * <p>The changes made by each block are registered as a layer on top of the state they apply to.
+ * Moving the snapshot to a new root applies the layers leading to it and keeps the previous values
+ * of the modified entries, which allows moving the snapshot back during chain reorganizations. When
+ * no path of layers leads to the requested root, all the entries are discarded.
+ *
+ * @implNote The entries are read without locking. The repository must ensure that the snapshot is
+ *     not moved while it is being read.
+ */
+final class FlatStateSnapshot {
+
+    /** The number of layers kept in memory for moving the snapshot between roots. */
+    static final int MAX_LAYERS = 128;
+
+    private static final int INCARNATION_SIZE = Long.BYTES;
+    // the meta keys are shorter than the account and storage keys
+    private static final byte[] ROOT_KEY = "flat-root".getBytes(StandardCharsets.UTF_8);
+    private static final byte[] INCARNATION_KEY = "flat-incarnation".getBytes(StandardCharsets.UTF_8);
+
+    private static final byte ABSENT = 0;
+    private static final byte PRESENT = 1;
+    private static final byte[] ABSENT_STORAGE = new byte[] {ABSENT};
+
+    private final ByteArrayKeyValueDatabase database;
+    private final Logger log;
+
+    private final Map<ByteArrayWrapper, Layer> layers =
+            new LinkedHashMap<>() {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<ByteArrayWrapper, Layer> eldest) {
+                    return size() > MAX_LAYERS;
+                }
+            };
+
+    private byte[] root;
+    private long incarnation;
+
+    FlatStateSnapshot(ByteArrayKeyValueDatabase database, Logger log) {
+        this.database = database;
+        this.log = log;
+
+        Optional<byte[]> storedIncarnation = database.get(INCARNATION_KEY);
+        incarnation = storedIncarnation.isPresent() ? ByteBuffer.wrap(storedIncarnation.get()).getLong() : 0L;
+
+        // the root is missing when the last update did not complete
+        Optional<byte[]> storedRoot = database.get(ROOT_KEY);
+        if (storedRoot.isPresent()) {
+            root = storedRoot.get();
+        } else if (!database.isEmpty()) {
+            log.warn("Discarding the flat state snapshot due to an incomplete update.");
+            database.drop();
+            writeIncarnation();
+        }
+    }
+
+    /** @return the state root the stored entries correspond to or {@code null} if not set */
+    synchronized byte[] getRoot() {
+        return root;
+    }
+
+    /** @return the account entry for the given address or {@code null} when it is not known */
+    byte[] getAccount(byte[] address) {
+        return database.get(address).orElse(null);
+    }
+
+    /** @return the storage entry for the given key or {@code null} when it is not known */
+    byte[] getStorage(byte[] address, long incarnation, byte[] key) {
+        return database.get(storageKey(address, incarnation, key)).orElse(null);
+    }
+
+    /**
+     * Stores the account read from the state trie at the current root, unless the account entry
+     * became known in the meantime.
+     *
+     * @param encoding the account encoding or an empty array if the account does not exist
+     * @return the stored account entry
+     */
+    synchronized byte[] populateAccount(byte[] address, byte[] encoding) {
+        Optional<byte[]> existing = database.get(address);
+        if (existing.isPresent()) {
+            return existing.get();
+        }
+
+        byte[] entry = accountEntry(++incarnation, encoding);
+        Map<byte[], byte[]> batch = new HashMap<>();
+        batch.put(address, entry);
+        batch.put(INCARNATION_KEY, ByteBuffer.allocate(Long.BYTES).putLong(incarnation).array());
+        database.putBatch(batch);
+        return entry;
+    }
+
+    /**
+     * Stores the storage value read from the storage trie at the current root.
+     *
+     * @param value the stored value or {@code null} if the key is not set
+     */
+    void populateStorage(byte[] address, long incarnation, byte[] key, ByteArrayWrapper value) {
+        database.put(storageKey(address, incarnation, key), storageEntry(value));
+    }
+
+    /**
+     * Registers the changes that lead from the parent state to the given root. The snapshot can be
+     * moved to any root reachable through the registered layers.
+     */
+    synchronized void addLayer(byte[] parent, byte[] root, Changes changes) {
+        if (parent == null || Arrays.equals(parent, root)) {
+            // blocks without state changes do not need a layer
+            return;
+        }
+        layers.putIfAbsent(ByteArrayWrapper.wrap(root), new Layer(parent, changes));
+    }
+
+    /**
+     * Moves the stored entries to the given state root. The previous entries are discarded when no
+     * registered layers lead from the current root to the given one.
+     *
+     * @return {@code true} if the entries were kept, {@code false} if they were discarded
+     */
+    synchronized boolean moveTo(byte[] target) {
+        if (Arrays.equals(root, target)) {
+            return true;
+        }
+
+        // the ancestors of the current root that the stored entries can be reverted to
+        Map<ByteArrayWrapper, Integer> applied = new HashMap<>();
+        List<Layer> revertible = new ArrayList<>();
+        if (root != null) {
+            applied.put(ByteArrayWrapper.wrap(root), 0);
+            Layer layer = layers.get(ByteArrayWrapper.wrap(root));
+            while (layer != null && layer.undo != null && !applied.containsKey(ByteArrayWrapper.wrap(layer.parent))) {
+                revertible.add(layer);
+                applied.put(ByteArrayWrapper.wrap(layer.parent), revertible.size());
+                layer = layers.get(ByteArrayWrapper.wrap(layer.parent));
+            }
+        }
+
+        // the layers leading from one of these ancestors to the target
+        Deque<Layer> forward = new ArrayDeque<>();
+        ByteArrayWrapper current = ByteArrayWrapper.wrap(target);
+        while (!applied.containsKey(current)) {
+            Layer layer = layers.get(current);
+            if (layer == null || forward.size() >= layers.size()) {
+                clear(target);
+                return false;
+            }
+            forward.push(layer);
+            current = ByteArrayWrapper.wrap(layer.parent);
+        }
+
+        Map<ByteArrayWrapper, byte[]> writes = new HashMap<>();
+        for (int i = 0; i < applied.get(current); i++) {
+            Layer layer = revertible.get(i);
+            writes.putAll(layer.undo);
+            layer.undo = null;
+        }
+        for (Layer layer : forward) {
+            layer.undo = apply(layer.changes, writes);
+        }
+        write(writes, target);
+
+        if (log.isDebugEnabled()) {
+            log.debug(
+                    "Moved the flat state snapshot to {} reverting {} and applying {} layers.",
+                    Hex.toHexString(target),
+                    applied.get(current),
+                    forward.size());
+        }
+        return true;
+    }
+
+    /** Discards all the stored entries and the registered layers. */
+    synchronized void clear(byte[] target) {
+        if (root != null) {
+            log.info("Discarding the flat state snapshot at root {}.", Hex.toHexString(root));
+        }
+        database.drop();
+        for (Layer layer : layers.values()) {
+            layer.undo = null;
+        }
+        writeIncarnation();
+        root = target;
+        database.put(ROOT_KEY, target);
+    }
+
+    /**
+     * Applies the given changes on top of the entries from the database and the given writes.
+     *
+     * @return the previous values of the modified entries where {@code null} marks unknown entries
+     */
+    private Map<ByteArrayWrapper, byte[]> apply(Changes changes, Map<ByteArrayWrapper, byte[]> writes) {
+        Map<ByteArrayWrapper, byte[]> undo = new HashMap<>();
+
+        Set<ByteArrayWrapper> addresses = new HashSet<>(changes.accounts.keySet());
+        addresses.addAll(changes.storage.keySet());
+
+        for (ByteArrayWrapper address : addresses) {
+            byte[] previous = read(address, writes);
+            byte[] encoding = changes.accounts.get(address);
+
+            // the storage entries remain valid only while the account keeps its incarnation
+            long accountIncarnation;
+            if (previous != null && !isAbsent(previous) && !changes.recreated.contains(address)) {
+                accountIncarnation = getIncarnation(previous);
+            } else if (encoding != null) {
+                accountIncarnation = ++incarnation;
+            } else {
+                // the storage cannot be attributed to a known account
+                continue;
+            }
+
+            if (encoding != null) {
+                write(address, accountEntry(accountIncarnation, encoding), previous, writes, undo);
+            }
+
+            Map<ByteArrayWrapper, ByteArrayWrapper> storage = changes.storage.get(address);
+            if (storage != null && !(encoding != null && encoding.length == 0)) {
+                for (Map.Entry<ByteArrayWrapper, ByteArrayWrapper> entry : storage.entrySet()) {
+                    ByteArrayWrapper storageKey =
+                            ByteArrayWrapper.wrap(storageKey(address.toBytes(), accountIncarnation, entry.getKey().toBytes()));
+                    write(storageKey, storageEntry(entry.getValue()), read(storageKey, writes), writes, undo);
+                }
+            }
+        }
+        return undo;
+    }
+
+    private byte[] read(ByteArrayWrapper key, Map<ByteArrayWrapper, byte[]> writes) {
+        return writes.containsKey(key) ? writes.get(key) : database.get(key.toBytes()).orElse(null);
+    }
+
+    private static void write(
+            ByteArrayWrapper key,
+            byte[] value,
+            byte[] previous,
+            Map<ByteArrayWrapper, byte[]> writes,
+            Map<ByteArrayWrapper, byte[]> undo) {
+        undo.putIfAbsent(key, previous);
+        writes.put(key, value);
+    }
+
+    /**
+     * Stores the given writes, where {@code null} values mark deleted entries. The root is removed
+     * during the update so that an interrupted update is detected on restart.
+     */
+    private void write(Map<ByteArrayWrapper, byte[]> writes, byte[] target) {
+        database.delete(ROOT_KEY);
+
+        Map<byte[], byte[]> puts = new HashMap<>();
+        List<byte[]> deletes = new ArrayList<>();
+        for (Map.Entry<ByteArrayWrapper, byte[]> entry : writes.entrySet()) {
+            if (entry.getValue() == null) {
+                deletes.add(entry.getKey().toBytes());
+            } else {
+                puts.put(entry.getKey().toBytes(), entry.getValue());
+            }
+        }
+        puts.put(INCARNATION_KEY, ByteBuffer.allocate(Long.BYTES).putLong(incarnation).array());
+
+        database.deleteBatch(deletes);
+        database.putBatch(puts);
+
+        root = target;
+        database.put(ROOT_KEY, target);
+    }
+
+    private void writeIncarnation() {
+        database.put(INCARNATION_KEY, ByteBuffer.allocate(Long.BYTES).putLong(incarnation).array());
+    }
+
+    static byte[] accountEntry(long incarnation, byte[] encoding) {
+        return ByteBuffer.allocate(INCARNATION_SIZE + encoding.length).putLong(incarnation).put(encoding).array();
+    }
+
+    static long getIncarnation(byte[] accountEntry) {
+        return ByteBuffer.wrap(accountEntry).getLong();
+    }
+
+    /** @return the account encoding from the entry, which is empty if the account does not exist */
+    static byte[] getEncoding(byte[] accountEntry) {
+        return accountEntry.length == INCARNATION_SIZE
+                ? EMPTY_BYTE_ARRAY
+                : Arrays.copyOfRange(accountEntry, INCARNATION_SIZE, accountEntry.length);
+    }
+
+    static boolean isAbsent(byte[] accountEntry) {
+        return accountEntry.length == INCARNATION_SIZE;
+    }
+
+    static byte[] storageEntry(ByteArrayWrapper value) {
+        if (value == null) {
+            return ABSENT_STORAGE;
+        }
+        byte[] data = value.toBytes();
+        byte[] entry = new byte[data.length + 1];
+        entry[0] = PRESENT;
+        System.arraycopy(data, 0, entry, 1, data.length);
+        return entry;
+    }
+
+    /** @return the storage value from the entry or {@code null} if the key is not set */
+    static ByteArrayWrapper getStorageValue(byte[] storageEntry) {
+        return storageEntry[0] == ABSENT
+                ? null
+                : ByteArrayWrapper.wrap(Arrays.copyOfRange(storageEntry, 1, storageEntry.length));
+    }
+
+    private static byte[] storageKey(byte[] address, long incarnation, byte[] key) {
+        return ByteBuffer.allocate(address.length + INCARNATION_SIZE + key.length)
+                .put(address)
+                .putLong(incarnation)
+                .put(key)
+                .array();
+    }
+
+    /** Reads contract storage at a fixed storage root through the flat state snapshot. */
+    interface StorageView {
+
+        /** @return the storage entry for the given key or {@code null} when it is not known */
+        byte[] get(byte[] key);
+
+        /** Stores the value read from the storage trie when the snapshot can hold it. */
+        void populate(byte[] key, ByteArrayWrapper value);
+    }
+
+    /** The account and storage changes made on top of a state. */
+    static final class Changes {
+        // the account encodings, which are empty for deleted accounts
+        final Map<ByteArrayWrapper, byte[]> accounts = new HashMap<>();
+        // the storage values, which are null for deleted keys
+        final Map<ByteArrayWrapper, Map<ByteArrayWrapper, ByteArrayWrapper>> storage = new HashMap<>();
+        // the accounts whose previous storage was discarded
+        final Set<ByteArrayWrapper> recreated = new HashSet<>();
+
+        void putAccount(ByteArrayWrapper address, byte[] encoding) {
+            accounts.put(address, encoding);
+        }
+
+        void deleteAccount(ByteArrayWrapper address) {
+            accounts.put(address, EMPTY_BYTE_ARRAY);
+            storage.remove(address);
+            recreated.add(address);
+        }
+
+        void putStorage(ByteArrayWrapper address, ByteArrayWrapper key, ByteArrayWrapper value) {
+            storage.computeIfAbsent(address, a -> new HashMap<>()).put(key, value);
+        }
+
+        boolean isEmpty() {
+            return accounts.isEmpty() && storage.isEmpty();
+        }
+    }
+
+    private static final class Layer {
+        private final byte[] parent;
+        private final Changes changes;
+        // the previous values of the entries while the layer is applied to the database
+        private Map<ByteArrayWrapper, byte[]> undo;
+
+        private Layer(byte[] parent, Changes changes) {
+            this.parent = parent;
+            this.changes = changes;
+        }
+    }
+}
@@ -47,6 +47,9 @@ public class FvmContractDetails implements StoredContractDetails {
 
     private SecureTrie storageTrie;
 
+    // optional source of the storage values at the root of the storage trie
+    private FlatStateSnapshot.StorageView storageView;
+
     /**
      * Creates an object with attached database access for the external storage.
      *
@@ -145,6 +148,8 @@ public class FvmContractDetails implements StoredContractDetails {
         byte[] data = RLP.encodeElement(value.toBytes());
         storageTrie.update(key.toBytes(), data);
 
+        // the storage no longer matches the flat state snapshot
+        storageView = null;
         dirty = true;
     }
 
@@ -154,6 +159,7 @@ public class FvmContractDetails implements StoredContractDetails {
 
         storageTrie.delete(key.toBytes());
 
+        storageView = null;
         dirty = true;
     }
 
@@ -166,10 +172,32 @@ public class FvmContractDetails implements StoredContractDetails {
      */
     @Override
     public ByteArrayWrapper get(ByteArrayWrapper key) {
+        if (storageView != null) {
+            byte[] entry = storageView.get(key.toBytes());
+            if (entry != null) {
+                return FlatStateSnapshot.getStorageValue(entry);
+            }
+        }
+
         byte[] data = storageTrie.get(key.toBytes());
-        return (data == null || data.length == 0)
-                ? null
-                : ByteArrayWrapper.wrap(RLP.decode2(data).get(0).getRLPData());
+        ByteArrayWrapper value =
+                (data == null || data.length == 0)
+                        ? null
+                        : ByteArrayWrapper.wrap(RLP.decode2(data).get(0).getRLPData());
+
+        if (storageView != null) {
+            storageView.populate(key.toBytes(), value);
+        }
+        return value;
+    }
+
+    /**
+     * Serves the storage reads from the flat state snapshot while the storage is not modified.
+     *
+     * @param storageView a view of the flat state snapshot at the storage root of these details
+     */
+    void setStorageView(FlatStateSnapshot.StorageView storageView) {
+        this.storageView = storageView;
     }
 
     public InternalVmType getVmType() {
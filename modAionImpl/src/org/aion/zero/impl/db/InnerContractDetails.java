@@ -42,6 +42,14 @@ public class InnerContractDetails implements ContractDetails {
         }
     }
 
+    /**
+     * Returns the storage keys read or modified through these details. Deleted keys are mapped to
+     * {@code null}.
+     */
+    Map<ByteArrayWrapper, ByteArrayWrapper> getStorageChanges() {
+        return storage;
+    }
+
     public static InnerContractDetails copy(InnerContractDetails cache) {
         InnerContractDetails copy = new InnerContractDetails(cache.origContract);
         copy.codes = new HashMap<>(cache.getCodes());
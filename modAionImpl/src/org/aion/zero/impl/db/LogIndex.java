@@ -0,0 +1,255 @@
+package org.aion.zero.impl.db;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import org.aion.base.AionTransaction;
+import org.aion.base.AionTxReceipt;
+import org.aion.db.impl.ByteArrayKeyValueDatabase;
+import org.aion.mcf.blockchain.Block;
+import org.aion.types.Log;
+import org.slf4j.Logger;
+
+/**
+ * Indexes the transaction logs by the address of the contract that emitted them and by their topic
+ * at each position, so that log queries over large block ranges read only the matching logs instead
+ * of scanning every block.
+ *
+ * <p>Each log is stored as one posting per indexed value. The posting key is made of the kind of
+ * value (the address or the topic position), the value, the block number, the block hash, the
+ * transaction index and the log index, and the posting value is the transaction hash. The postings
+ * of a value are therefore ordered by block number and a query reads one key range per value.
+ *
+ * <p>The logs of side chain blocks are indexed as well, since the block hash is part of the key.
+ * The readers must check that the block of a posting is on the main chain, which keeps the index
+ * correct across chain reorganizations without rewriting it.
+ *
+ * <p>Only the blocks imported while the index is enabled are indexed. The index keeps the range of
+ * main chain block numbers that were indexed without gaps and reports through {@link #covers(long,
+ * long)} whether a query can be answered from it. After a chain reorganization the blocks of the
+ * new main chain are indexed again as main chain blocks, which extends the range over them.
+ *
+ * <p>The postings are read through a {@link Cursor}, one page of {@link #PAGE_SIZE} postings at a
+ * time, so that a query can stop once it has found enough logs without loading all the postings of
+ * a frequently used address or topic.
+ */
+public final class LogIndex {
+
+    public static final int VALUE_SIZE = 32;
+
+    /** The number of postings a cursor reads from the database at a time. */
+    static final int PAGE_SIZE = 256;
+
+    private static final byte ADDRESS = 0;
+    // the topics at position i use the kind 1 + i
+    private static final byte FIRST_TOPIC = 1;
+    private static final int POSTING_SIZE = 1 + VALUE_SIZE + Long.BYTES + 32 + Integer.BYTES + Integer.BYTES;
+    // the meta key uses a kind that is never assigned to a topic position
+    private static final byte[] RANGE_KEY = new byte[] {(byte) 0xFF};
+
+    private final ByteArrayKeyValueDatabase database;
+    private final Logger log;
+
+    private long first;
+    private long last;
+
+    public LogIndex(ByteArrayKeyValueDatabase database, Logger log) {
+        this.database = database;
+        this.log = log;
+
+        Optional<byte[]> range = database.get(RANGE_KEY);
+        if (range.isPresent()) {
+            ByteBuffer buffer = ByteBuffer.wrap(range.get());
+            first = buffer.getLong();
+            last = buffer.getLong();
+        } else {
+            first = -1;
+            last = -1;
+        }
+    }
+
+    /**
+     * Adds the logs of the given block to the index.
+     *
+     * @param block the imported block, on the main chain or a side chain
+     * @param receipts the receipts of the block transactions in their block order
+     * @param mainChain {@code true} if the block is imported on the main chain; only main chain
+     *     blocks extend the covered range
+     */
+    public synchronized void index(Block block, List<AionTxReceipt> receipts, boolean mainChain) {
+        Map<byte[], byte[]> batch = new HashMap<>();
+        long number = block.getNumber();
+        byte[] blockHash = block.getHash();
+        List<AionTransaction> transactions = block.getTransactionsList();
+
+        for (int txIndex = 0; txIndex < receipts.size(); txIndex++) {
+            AionTxReceipt receipt = receipts.get(txIndex);
+            byte[] txHash = transactions.get(txIndex).getTransactionHash();
+            List<Log> logs = receipt.getLogInfoList();
+
+            for (int logIndex = 0; logIndex < logs.size(); logIndex++) {
+                Log logInfo = logs.get(logIndex);
+                batch.put(posting(ADDRESS, logInfo.copyOfAddress(), number, blockHash, txIndex, logIndex), txHash);
+
+                List<byte[]> topics = logInfo.copyOfTopics();
+                for (int position = 0; position < topics.size(); position++) {
+                    if (topics.get(position).length != VALUE_SIZE) {
+                        // the filters only match topics of a full word
+                        continue;
+                    }
+                    batch.put(posting(topicKind(position), topics.get(position), number, blockHash, txIndex, logIndex), txHash);
+                }
+            }
+        }
+
+        int entries = batch.size();
+        if (mainChain) {
+            if (first < 0 || number > last + 1 || number < first) {
+                // a gap in the indexed blocks restarts the covered range
+                first = number;
+                last = number;
+            } else {
+                last = Math.max(last, number);
+            }
+            batch.put(RANGE_KEY, ByteBuffer.allocate(2 * Long.BYTES).putLong(first).putLong(last).array());
+        }
+
+        database.putBatch(batch);
+        log.debug("Indexed {} log entries of block {}.", entries, number);
+    }
+
+    /**
+     * @return {@code true} if all the blocks with numbers in {@code [from, to]} are indexed, {@code
+     *     false} otherwise
+     */
+    public synchronized boolean covers(long from, long to) {
+        return first >= 0 && first <= from && to <= last;
+    }
+
+    /**
+     * Iterates over the logs emitted by the given contract in the given range of block numbers.
+     *
+     * @return a cursor over the positions of the logs in {@link Position#ORDER}, including logs of
+     *     side chain blocks
+     */
+    public Cursor scanByAddress(byte[] address, long from, long to) {
+        return new Cursor(database, ADDRESS, address, from, to);
+    }
+
+    /**
+     * Iterates over the logs with the given topic at the given position in the given range of
+     * block numbers.
+     *
+     * @return a cursor over the positions of the logs in {@link Position#ORDER}, including logs of
+     *     side chain blocks
+     */
+    public Cursor scanByTopic(int position, byte[] topic, long from, long to) {
+        return new Cursor(database, topicKind(position), topic, from, to);
+    }
+
+    private static byte topicKind(int position) {
+        if (position < 0 || position > 253 - FIRST_TOPIC) {
+            throw new IllegalArgumentException("Invalid topic position " + position + ".");
+        }
+        return (byte) (FIRST_TOPIC + position);
+    }
+
+    private static byte[] posting(byte kind, byte[] value, long number, byte[] blockHash, int txIndex, int logIndex) {
+        return ByteBuffer.allocate(POSTING_SIZE)
+                .put(kind)
+                .put(value)
+                .putLong(number)
+                .put(blockHash)
+                .putInt(txIndex)
+                .putInt(logIndex)
+                .array();
+    }
+
+    /**
+     * Reads the postings of one indexed value in increasing key order, one page at a time. Not
+     * thread safe.
+     */
+    public static final class Cursor {
+        private final ByteArrayKeyValueDatabase database;
+        private final byte[] upper;
+        private final ArrayDeque<Position> page = new ArrayDeque<>();
+        // the first key of the next page, null once all the postings were read
+        private byte[] lower;
+
+        private Cursor(ByteArrayKeyValueDatabase database, byte kind, byte[] value, long from, long to) {
+            this.database = database;
+            if (value.length != VALUE_SIZE || from > to) {
+                this.lower = null;
+                this.upper = null;
+            } else {
+                this.lower = ByteBuffer.allocate(1 + VALUE_SIZE + Long.BYTES).put(kind).put(value).putLong(from).array();
+                this.upper = ByteBuffer.allocate(1 + VALUE_SIZE + Long.BYTES).put(kind).put(value).putLong(to + 1).array();
+            }
+        }
+
+        /** @return the next position without consuming it or {@code null} if there are none left */
+        public Position peek() {
+            fill();
+            return page.peekFirst();
+        }
+
+        /** @return the next position or {@code null} if there are none left */
+        public Position next() {
+            fill();
+            return page.pollFirst();
+        }
+
+        private void fill() {
+            if (!page.isEmpty() || lower == null) {
+                return;
+            }
+
+            List<Map.Entry<byte[], byte[]>> entries = database.getRange(lower, upper, PAGE_SIZE);
+            for (Map.Entry<byte[], byte[]> entry : entries) {
+                ByteBuffer key = ByteBuffer.wrap(entry.getKey());
+                key.position(1 + VALUE_SIZE);
+                long number = key.getLong();
+                byte[] blockHash = new byte[32];
+                key.get(blockHash);
+                page.add(new Position(number, blockHash, key.getInt(), key.getInt(), entry.getValue()));
+            }
+
+            if (entries.size() < PAGE_SIZE) {
+                lower = null;
+            } else {
+                // the smallest key after the last one read
+                byte[] last = entries.get(entries.size() - 1).getKey();
+                lower = Arrays.copyOf(last, last.length + 1);
+            }
+        }
+    }
+
+    /** The location of an indexed log. */
+    public static final class Position {
+        /** The order of the postings of a value: by block number, block hash, transaction and log. */
+        public static final Comparator<Position> ORDER =
+                Comparator.<Position>comparingLong(p -> p.blockNumber)
+                        .thenComparing(p -> p.blockHash, Arrays::compareUnsigned)
+                        .thenComparingInt(p -> p.txIndex)
+                        .thenComparingInt(p -> p.logIndex);
+
+        public final long blockNumber;
+        public final byte[] blockHash;
+        public final int txIndex;
+        public final int logIndex;
+        public final byte[] txHash;
+
+        Position(long blockNumber, byte[] blockHash, int txIndex, int logIndex, byte[] txHash) {
+            this.blockNumber = blockNumber;
+            this.blockHash = blockHash;
+            this.txIndex = txIndex;
+            this.logIndex = logIndex;
+            this.txHash = txHash;
+        }
+    }
+}
@@ -2,16 +2,22 @@ package org.aion.zero.impl.db;
 
 import java.io.Closeable;
 import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.locks.ReadWriteLock;
 import java.util.concurrent.locks.ReentrantReadWriteLock;
+import org.aion.base.AionTransaction;
+import org.aion.base.TxUtil;
 import org.aion.db.impl.ByteArrayKeyValueDatabase;
 import org.aion.db.store.ObjectStore;
 import org.aion.db.store.Serializer;
 import org.aion.db.store.Stores;
+import org.aion.mcf.blockchain.Block;
 import org.aion.types.InternalTransaction;
 import org.aion.util.types.ByteArrayWrapper;
 import org.aion.zero.impl.types.AionTxInfo;
@@ -20,12 +26,27 @@ public class TransactionStore implements Closeable {
     private final ObjectStore<Map<ByteArrayWrapper, AionTxInfo>> txInfoSource;
     private final ObjectStore<Set<ByteArrayWrapper>> aliasSource;
 
+    /**
+     * Optional index of the transactions sent, received or deployed by each address. The entries
+     * share the database of the transaction infos and are committed with them. Their keys are made
+     * of the address, the block number, the transaction index and the block hash, which makes them
+     * longer than the transaction hashes and orders the history of an address by block.
+     */
+    private final ByteArrayKeyValueDatabase historySource;
+
+    private static final int HISTORY_KEY_SIZE = 32 + HistoryEntry.POSITION_SIZE;
+
     private final ReadWriteLock lock = new ReentrantReadWriteLock();
 
     public TransactionStore(ByteArrayKeyValueDatabase txInfoSrc, Serializer<Map<ByteArrayWrapper, AionTxInfo>> serializer) {
+        this(txInfoSrc, serializer, false);
+    }
+
+    public TransactionStore(ByteArrayKeyValueDatabase txInfoSrc, Serializer<Map<ByteArrayWrapper, AionTxInfo>> serializer, boolean addressHistory) {
         // TODO AKI-436: introduce caching of recent transactions
         txInfoSource = Stores.newObjectStore(txInfoSrc, serializer);
         aliasSource = Stores.newObjectStore(txInfoSrc, aliasSerializer);
+        historySource = addressHistory ? txInfoSrc : null;
     }
 
     public void putTxInfoToBatch(AionTxInfo tx) {
@@ -73,6 +94,118 @@ public class TransactionStore implements Closeable {
         }
     }
 
+    /**
+     * Adds the transactions of the given block to the history of their sender and of their
+     * recipient or deployed contract. Does nothing when the address history is not enabled.
+     *
+     * @apiNote Requires {@link #flushBatch()} to push the changes to the underlying database.
+     */
+    public void putHistoryToBatch(Block block) {
+        if (historySource == null) {
+            return;
+        }
+
+        lock.writeLock().lock();
+
+        try {
+            List<AionTransaction> transactions = block.getTransactionsList();
+            for (int i = 0; i < transactions.size(); i++) {
+                AionTransaction tx = transactions.get(i);
+                byte[] txHash = tx.getTransactionHash();
+                for (byte[] address : historyAddresses(tx)) {
+                    historySource.put(historyKey(address, block.getNumber(), i, block.getHash()), txHash);
+                }
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Removes the transactions of the given block from the address history. Used when the block is
+     * deleted from the database. Does nothing when the address history is not enabled.
+     *
+     * @apiNote Requires {@link #flushBatch()} to push the changes to the underlying database.
+     */
+    public void removeHistoryToBatch(Block block) {
+        if (historySource == null) {
+            return;
+        }
+
+        lock.writeLock().lock();
+
+        try {
+            List<AionTransaction> transactions = block.getTransactionsList();
+            for (int i = 0; i < transactions.size(); i++) {
+                for (byte[] address : historyAddresses(transactions.get(i))) {
+                    historySource.delete(historyKey(address, block.getNumber(), i, block.getHash()));
+                }
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public boolean isHistoryEnabled() {
+        return historySource != null;
+    }
+
+    /**
+     * Retrieves the transactions of the given address starting at the given position and up to the
+     * given block number, in increasing block and transaction order.
+     *
+     * <p>The entries of side chain blocks are included. The callers must check that the blocks are
+     * on the main chain.
+     *
+     * @param fromPosition the first position to return, either the {@link
+     *     HistoryEntry#getPosition() position} of an entry or {@link HistoryEntry#startOf(long)}
+     * @param toBlock the last block number to return (inclusive)
+     * @param limit the maximum number of entries to return
+     */
+    public List<HistoryEntry> getHistory(byte[] address, byte[] fromPosition, long toBlock, int limit) {
+        List<HistoryEntry> entries = new ArrayList<>();
+        if (historySource == null || toBlock == Long.MAX_VALUE) {
+            return entries;
+        }
+
+        byte[] from = ByteBuffer.allocate(address.length + fromPosition.length).put(address).put(fromPosition).array();
+        byte[] to = ByteBuffer.allocate(address.length + Long.BYTES).put(address).putLong(toBlock + 1).array();
+
+        lock.readLock().lock();
+
+        try {
+            for (Map.Entry<byte[], byte[]> entry : historySource.getRange(from, to, limit)) {
+                if (entry.getKey().length == HISTORY_KEY_SIZE) {
+                    ByteBuffer key = ByteBuffer.wrap(entry.getKey());
+                    key.position(32);
+                    long number = key.getLong();
+                    int index = key.getInt();
+                    byte[] blockHash = new byte[32];
+                    key.get(blockHash);
+                    entries.add(new HistoryEntry(number, index, blockHash, entry.getValue()));
+                }
+            }
+            return entries;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private static List<byte[]> historyAddresses(AionTransaction tx) {
+        List<byte[]> addresses = new ArrayList<>(2);
+        addresses.add(tx.getSenderAddress().toByteArray());
+        if (tx.isContractCreationTransaction()) {
+            addresses.add(TxUtil.calculateContractAddress(tx).toByteArray());
+        } else if (!tx.getDestinationAddress().equals(tx.getSenderAddress())) {
+            addresses.add(tx.getDestinationAddress().toByteArray());
+        }
+        return addresses;
+    }
+
+    private static byte[] historyKey(byte[] address, long blockNumber, int txIndex, byte[] blockHash) {
+        return ByteBuffer.allocate(HISTORY_KEY_SIZE).put(address).putLong(blockNumber).putInt(txIndex).put(blockHash).array();
+    }
+
     public void flushBatch() {
         lock.writeLock().lock();
         try {
@@ -127,6 +260,33 @@ public class TransactionStore implements Closeable {
         }
     }
 
+    /** A transaction in the history of an address. */
+    public static final class HistoryEntry {
+        public static final int POSITION_SIZE = Long.BYTES + Integer.BYTES + 32;
+
+        public final long blockNumber;
+        public final int txIndex;
+        public final byte[] blockHash;
+        public final byte[] txHash;
+
+        HistoryEntry(long blockNumber, int txIndex, byte[] blockHash, byte[] txHash) {
+            this.blockNumber = blockNumber;
+            this.txIndex = txIndex;
+            this.blockHash = blockHash;
+            this.txHash = txHash;
+        }
+
+        /** @return the position of this entry, used to resume reading the history from it */
+        public byte[] getPosition() {
+            return ByteBuffer.allocate(POSITION_SIZE).putLong(blockNumber).putInt(txIndex).put(blockHash).array();
+        }
+
+        /** @return the position before all the entries of the given block number */
+        public static byte[] startOf(long blockNumber) {
+            return ByteBuffer.allocate(Long.BYTES).putLong(blockNumber).array();
+        }
+    }
+
     private static final Serializer<Set<ByteArrayWrapper>> aliasSerializer =
         new Serializer<>() {
             @Override
@@ -5,6 +5,7 @@ import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
@@ -17,6 +18,7 @@ import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicReference;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
+import org.aion.precompiled.ContractInfo;
 import org.aion.txpool.Constant.TXPOOL_PROPERTY;
 import org.aion.txpool.v1.TxPoolV1;
 import org.aion.util.types.ByteArrayWrapper;
@@ -45,6 +47,7 @@ import org.aion.zero.impl.vm.common.BulkExecutor;
 import org.aion.zero.impl.SystemExitCodes;
 import org.aion.zero.impl.valid.TXValidator;
 import org.aion.zero.impl.valid.TransactionTypeValidator;
+import org.apache.commons.lang3.tuple.Pair;
 import org.aion.base.AionTxExecSummary;
 import org.aion.base.AionTxReceipt;
 import org.slf4j.Logger;
@@ -83,6 +86,14 @@ public final class AionPendingStateImpl implements IPendingState {
 
     private boolean closeToNetworkBest = true;
 
+    /**
+     * The senders whose pool transactions have to be executed again when the pending state is
+     * rebuilt on top of a new best block. The other pool transactions are still valid because only
+     * their own sender can lower an account nonce or balance.
+     */
+    private final Set<AionAddress> affectedSenders = new HashSet<>();
+    private boolean rerunAllTxs = false;
+
     private final AtomicBoolean pendingTxReceivedforMining;
     private final PendingTxCallback pendingTxCallback;
     private final NetworkBestBlockCallback networkBestBlockCallback;
@@ -193,11 +204,11 @@ public final class AionPendingStateImpl implements IPendingState {
 
     /**
      * Transaction comes from the ApiServer. Validate it first then add into the pendingPool.
-     * Synchronized it because multiple Api interfaces call this method.
+     * The validation runs before synchronizing because multiple Api interfaces call this method.
      * @param tx transaction comes from the ApiServer.
      * @return the TxResponse.
      */
-    public synchronized TxResponse addTransactionFromApiServer(AionTransaction tx) {
+    public TxResponse addTransactionFromApiServer(AionTransaction tx) {
 
         TxResponse response = validateTx(tx);
         if (response.isFail()) {
@@ -205,20 +216,22 @@ public final class AionPendingStateImpl implements IPendingState {
             return response;
         }
 
-        // SeedMode or the syncing status will just broadcast the transaction to the network.
-        if (isSeedMode || !closeToNetworkBest) {
-            transactionBroadcastCallback.broadcastTransactions(Collections.singletonList(tx));
-            return TxResponse.SUCCESS;
-        }
+        synchronized (this) {
+            // SeedMode or the syncing status will just broadcast the transaction to the network.
+            if (isSeedMode || !closeToNetworkBest) {
+                transactionBroadcastCallback.broadcastTransactions(Collections.singletonList(tx));
+                return TxResponse.SUCCESS;
+            }
 
-        return addPendingTransactions(Collections.singletonList(tx)).get(0);
+            return addPendingTransactions(Collections.singletonList(tx)).get(0);
+        }
     }
 
     /**
      * The transactions come from the p2p network. We validate it first then add into the pendingPool.
      * @param transactions transaction list come from the network.
      */
-    public synchronized void addTransactionsFromNetwork(List<AionTransaction> transactions) {
+    public void addTransactionsFromNetwork(List<AionTransaction> transactions) {
         List<AionTransaction> validTransactions = new ArrayList<>();
 
         for (AionTransaction tx : transactions) {
@@ -227,11 +240,13 @@ public final class AionPendingStateImpl implements IPendingState {
             }
         }
 
-        // SeedMode or the syncing status will just broadcast the transaction to the network.
-        if (isSeedMode || !closeToNetworkBest) {
-            transactionBroadcastCallback.broadcastTransactions(validTransactions);
-        } else {
-            addPendingTransactions(validTransactions);
+        synchronized (this) {
+            // SeedMode or the syncing status will just broadcast the transaction to the network.
+            if (isSeedMode || !closeToNetworkBest) {
+                transactionBroadcastCallback.broadcastTransactions(validTransactions);
+            } else {
+                addPendingTransactions(validTransactions);
+            }
         }
     }
 
@@ -315,12 +330,8 @@ public final class AionPendingStateImpl implements IPendingState {
                     if (implResponse.equals(TxResponse.REPAID)) {
                         newPending.add(tx);
                         response = TxResponse.REPAID;
+                        // the original transaction is dropped when the repay transaction enters the pool
                         addPendingTxToBackupDatabase(tx);
-
-                        PooledTransaction ptx = txPool.getDroppedPoolTx();
-                        if (ptx != null) {
-                            fireDroppedTx(ptx.tx, TxResponse.REPAYTX_LOWPRICE.getMessage());
-                        }
                     } else {
                         response = implResponse;
                     }
@@ -566,6 +577,8 @@ public final class AionPendingStateImpl implements IPendingState {
         if (currentBestBlock.get().isParentOf(newBlock)) {
             LOGGER_TX.info("PendingStateImpl.processBest: {}", newBlock.getShortDescr());
             processBestInternal(newBlock, receipts);
+            // the pending transactions are executed assuming the same miner
+            affectedSenders.add(newBlock.getCoinbase());
         } else {
             // need to switch the state to another fork
             Block commonAncestor = findCommonAncestor(currentBestBlock.get(), newBlock);
@@ -579,6 +592,11 @@ public final class AionPendingStateImpl implements IPendingState {
             processRollbackTransactions(commonAncestor);
 
             processMainChainBlocks(commonAncestor, newBlock);
+
+            // the state of any account may have changed when switching the fork
+            rerunAllTxs = true;
+
+            pendingTxCallback.chainReorganizedCallback(commonAncestor);
         }
 
         currentBestBlock.set(newBlock);
@@ -729,6 +747,7 @@ public final class AionPendingStateImpl implements IPendingState {
 
         List<PooledTransaction> clearedTxFromTxPool = txPool.clearOutDateTransaction();
         for (PooledTransaction pTx : clearedTxFromTxPool) {
+            affectedSenders.add(pTx.tx.getSenderAddress());
             removeBackupDBPendingTx(pTx.tx.getTransactionHash());
             fireTxUpdate(
                 createDroppedReceipt(
@@ -769,6 +788,14 @@ public final class AionPendingStateImpl implements IPendingState {
             int cnt = 0;
             for (AionTransaction tx : txList) {
                 accountNonce.computeIfAbsent(tx.getSenderAddress(), this::bestRepoNonce);
+                affectedSenders.add(tx.getSenderAddress());
+                if (isPlainTransfer(tx)) {
+                    affectedSenders.add(tx.getDestinationAddress());
+                } else {
+                    // a contract may transfer value to any account or change the state read by
+                    // any pool transaction, which the block receipts do not tell
+                    rerunAllTxs = true;
+                }
 
                 LOGGER_TX.debug(
                     "Clear pending transaction, addr: {} hash: {}",
@@ -795,7 +822,14 @@ public final class AionPendingStateImpl implements IPendingState {
             }
 
             if (!accountNonce.isEmpty()) {
-                txPool.removeTxsWithNonceLessThan(accountNonce);
+                // the pool transactions replaced by the block no longer fund their destinations
+                for (PooledTransaction pTx : txPool.removeTxsWithNonceLessThan(accountNonce)) {
+                    if (isPlainTransfer(pTx.tx)) {
+                        affectedSenders.add(pTx.tx.getDestinationAddress());
+                    } else {
+                        rerunAllTxs = true;
+                    }
+                }
             }
         }
     }
@@ -818,51 +852,142 @@ public final class AionPendingStateImpl implements IPendingState {
 
     private void rerunTxsInPool(Block block) {
 
+        for (AionTransaction tx : repayTransaction) {
+            affectedSenders.add(tx.getSenderAddress());
+        }
         addRepayTxToTxPool();
 
         List<AionTransaction> pendingTxl = txPool.snapshotAll();
-        LOGGER_TX.info("rerunTxsInPool - snapshotAll tx[{}]", pendingTxl.size());
+        LOGGER_TX.info("rerunTxsInPool - snapshotAll tx[{}] affectedSenders[{}] rerunAll[{}]", pendingTxl.size(), affectedSenders.size(), rerunAllTxs);
+
+        // The events are sent once after the last pass, a fallback full rerun replaces the events of
+        // the partial one.
+        Map<ByteArrayWrapper, Pair<AionTxReceipt, PendingTransactionState>> txUpdates = new LinkedHashMap<>();
+        if (rerunAllTxs) {
+            rerunTxs(pendingTxl, txUpdates);
+        } else {
+            // Only plain transfers can be applied without execution, so a sender with any other
+            // transaction in the pool is executed again.
+            Set<AionAddress> rerunSenders = new HashSet<>(affectedSenders);
+            for (AionTransaction tx : pendingTxl) {
+                if (!isPlainTransfer(tx)) {
+                    rerunSenders.add(tx.getSenderAddress());
+                }
+            }
 
-        if (!pendingTxl.isEmpty()) {
+            List<AionTransaction> rerunTxl = new ArrayList<>();
+            Set<AionAddress> skippedSenders = new HashSet<>();
             for (AionTransaction tx : pendingTxl) {
-                LOGGER_TX.debug("rerunTxsInPool - loop: {}", tx);
+                if (rerunSenders.contains(tx.getSenderAddress())) {
+                    rerunTxl.add(tx);
+                } else {
+                    skippedSenders.add(tx.getSenderAddress());
+                    applyPooledTxToPendingState(tx);
+                }
+            }
 
-                AionTxExecSummary txSum = executeTx(tx);
-                AionTxReceipt receipt = txSum.getReceipt();
-                receipt.setTransaction(tx);
+            LOGGER_TX.debug("rerunTxsInPool - rerun tx[{}] skipped tx[{}]", rerunTxl.size(), pendingTxl.size() - rerunTxl.size());
 
-                if (txSum.isRejected()) {
-                    LOGGER_TX.debug("Invalid transaction in txPool: {}", tx);
+            // A dropped transaction may have funded a transaction of the skipped senders, directly
+            // or through a contract.
+            List<AionTransaction> droppedTxl = rerunTxs(rerunTxl, txUpdates);
+            if (droppedTxl.stream().anyMatch(tx -> !isPlainTransfer(tx) || skippedSenders.contains(tx.getDestinationAddress()))) {
+                LOGGER_TX.debug("rerunTxsInPool - dropped tx funded the skipped senders, rerun all");
+                pendingState = blockchain.getRepository().startTracking();
+                rerunTxs(txPool.snapshotAll(), txUpdates);
+            }
+        }
 
-                    txPool.remove(new PooledTransaction(tx, receipt.getEnergyUsed()));
-                    removeBackupDBPendingTx(tx.getTransactionHash());
-                    fireTxUpdate(receipt, PendingTransactionState.DROPPED, block);
-                } else {
-                    if (repayTransaction.contains(tx)) {
-                        txPool.updatePoolTransaction(new PooledTransaction(tx, receipt.getEnergyUsed()));
-                    }
+        for (Pair<AionTxReceipt, PendingTransactionState> update : txUpdates.values()) {
+            fireTxUpdate(update.getLeft(), update.getRight(), block);
+        }
 
-                    fireTxUpdate(receipt, PendingTransactionState.PENDING, block);
+        affectedSenders.clear();
+        rerunAllTxs = false;
+        repayTransaction.clear();
+    }
+
+    /**
+     * Executes the given pool transactions on top of the pending state and records their new
+     * state in the given updates, keyed by transaction hash.
+     *
+     * @return the transactions dropped from the pool because they are no longer valid.
+     */
+    private List<AionTransaction> rerunTxs(List<AionTransaction> pendingTxl, Map<ByteArrayWrapper, Pair<AionTxReceipt, PendingTransactionState>> txUpdates) {
+        List<AionTransaction> droppedTxl = new ArrayList<>();
+        for (AionTransaction tx : pendingTxl) {
+            LOGGER_TX.debug("rerunTxsInPool - loop: {}", tx);
+
+            AionTxExecSummary txSum = executeTx(tx);
+            AionTxReceipt receipt = txSum.getReceipt();
+            receipt.setTransaction(tx);
+
+            PendingTransactionState state;
+            if (txSum.isRejected()) {
+                LOGGER_TX.debug("Invalid transaction in txPool: {}", tx);
+
+                txPool.remove(new PooledTransaction(tx, receipt.getEnergyUsed()));
+                removeBackupDBPendingTx(tx.getTransactionHash());
+                state = PendingTransactionState.DROPPED;
+                droppedTxl.add(tx);
+            } else {
+                if (repayTransaction.contains(tx)) {
+                    txPool.updatePoolTransaction(new PooledTransaction(tx, receipt.getEnergyUsed()));
                 }
+
+                state = PendingTransactionState.PENDING;
             }
+
+            ByteArrayWrapper txHash = ByteArrayWrapper.wrap(tx.getTransactionHash());
+            txUpdates.remove(txHash);
+            txUpdates.put(txHash, Pair.of(receipt, state));
         }
+        return droppedTxl;
+    }
 
-        repayTransaction.clear();
+    /**
+     * @return {@code true} if the transaction only transfers value to an account without code, so
+     *     that its sender and destination are the only accounts it changes besides the miner
+     */
+    private boolean isPlainTransfer(AionTransaction tx) {
+        if (tx.isContractCreationTransaction()) {
+            return false;
+        }
+
+        AionAddress destination = tx.getDestinationAddress();
+        return !ContractInfo.isPrecompiledContract(destination)
+                && blockchain.getRepository().getCode(destination).length == 0;
+    }
+
+    /**
+     * Applies the nonce and balance changes of a pooled plain transfer which is still valid without
+     * executing it again. These are the only changes of a plain transfer besides the miner reward.
+     */
+    private void applyPooledTxToPendingState(AionTransaction tx) {
+        PooledTransaction pTx = txPool.getPoolTx(tx.getSenderAddress(), tx.getNonceBI());
+        long energyConsumed = pTx == null ? tx.getEnergyLimit() : pTx.energyConsumed;
+        BigInteger energyCost = BigInteger.valueOf(energyConsumed).multiply(BigInteger.valueOf(tx.getEnergyPrice()));
+
+        pendingState.setNonce(tx.getSenderAddress(), tx.getNonceBI().add(BigInteger.ONE));
+        pendingState.addBalance(tx.getSenderAddress(), energyCost.add(tx.getValueBI()).negate());
+        if (!tx.isContractCreationTransaction()) {
+            pendingState.addBalance(tx.getDestinationAddress(), tx.getValueBI());
+        }
     }
 
     private void addRepayTxToTxPool() {
         for (AionTransaction tx : repayTransaction) {
             // Add the energy limit value because it will get rerun soon after it is added
-            PooledTransaction ptx = txPool.add(new PooledTransaction(tx, tx.getEnergyLimit()));
+            List<PooledTransaction> droppedTransactions = new ArrayList<>();
+            PooledTransaction ptx = txPool.add(new PooledTransaction(tx, tx.getEnergyLimit()), droppedTransactions);
             if (ptx != null && ptx.tx.equals(tx)) {
                 addPendingTxToBackupDatabase(tx);
-            } else {
-                // lowPriceTransaction been dropped!
-                PooledTransaction droppedPtx = txPool.getDroppedPoolTx();
-                if (droppedPtx != null) {
-                    removeBackupDBPendingTx(droppedPtx.tx.getTransactionHash());
-                    fireDroppedTx(droppedPtx.tx, TxResponse.DROPPED.getMessage());
-                }
+            }
+
+            // lowPriceTransaction been dropped!
+            for (PooledTransaction droppedPtx : droppedTransactions) {
+                removeBackupDBPendingTx(droppedPtx.tx.getTransactionHash());
+                fireDroppedTx(droppedPtx.tx, TxResponse.REPAYTX_LOWPRICE.getMessage());
             }
         }
     }
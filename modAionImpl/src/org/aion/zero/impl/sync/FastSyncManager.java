@@ -0,0 +1,981 @@
+package org.aion.zero.impl.sync;
+
+import static org.aion.crypto.HashUtil.EMPTY_DATA_HASH;
+import static org.aion.crypto.HashUtil.h256;
+import static org.aion.p2p.V1Constants.BLOCKS_REQUEST_MAXIMUM_BATCH_SIZE;
+import static org.aion.p2p.V1Constants.TRIE_DATA_REQUEST_MAXIMUM_BATCH_SIZE;
+
+import com.google.common.annotations.VisibleForTesting;
+import java.math.BigInteger;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import org.aion.base.AccountState;
+import org.aion.base.ConstantUtil;
+import org.aion.log.AionLoggerFactory;
+import org.aion.log.LogEnum;
+import org.aion.mcf.blockchain.Block;
+import org.aion.mcf.db.InternalVmType;
+import org.aion.p2p.INode;
+import org.aion.p2p.IP2pMgr;
+import org.aion.precompiled.ContractInfo;
+import org.aion.rlp.RLP;
+import org.aion.rlp.RLPElement;
+import org.aion.rlp.RLPList;
+import org.aion.types.AionAddress;
+import org.aion.util.bytes.ByteUtil;
+import org.aion.util.types.ByteArrayWrapper;
+import org.aion.zero.impl.blockchain.AionBlockchainImpl;
+import org.aion.zero.impl.blockchain.ChainConfiguration;
+import org.aion.zero.impl.core.FastImportResult;
+import org.aion.zero.impl.db.AionRepositoryImpl;
+import org.aion.zero.impl.db.DetailsDataStore;
+import org.aion.zero.impl.db.DetailsDataStore.RLPContractDetails;
+import org.aion.zero.impl.sync.msg.RequestBlocks;
+import org.aion.zero.impl.sync.msg.RequestTrieData;
+import org.aion.zero.impl.sync.msg.ResponseBlocks;
+import org.aion.zero.impl.sync.statistics.RequestType;
+import org.aion.zero.impl.trie.TrieNodeResult;
+import org.aion.zero.impl.valid.BlockDetailsValidator;
+import org.aion.zero.impl.valid.BlockHeaderValidator;
+import org.apache.commons.lang3.tuple.Pair;
+import org.slf4j.Logger;
+
+/**
+ * Synchronizes the node by downloading the world state of a recent block, called the pivot,
+ * instead of executing the full history of the chain.
+ *
+ * <p>The sync goes through the following phases:
+ *
+ * <ol>
+ *   <li>{@link Phase#PIVOT}: a block that is the best block of several peers is selected as the
+ *       pivot and retrieved together with its recent ancestors. When the network is too short for
+ *       a fast sync or no pivot is agreed on in time, the fast sync ends and the regular sync
+ *       continues from the current best block.
+ *   <li>{@link Phase#STATE}: the nodes of the state trie of the pivot are downloaded starting from
+ *       its root. Each node is verified against the hash referencing it before being stored.
+ *   <li>{@link Phase#CONTRACTS}: the contract details are listed from peers in the order of the
+ *       contract addresses, since the state trie keys cannot be mapped back to addresses. The
+ *       details are verified against the accounts from the downloaded state, after which the
+ *       contract storage and, for the AVM, the object graph are downloaded.
+ *   <li>{@link Phase#HISTORY}: the pivot becomes the best block, which lets the regular sync
+ *       continue from it, while the blocks below the pivot are downloaded in descending order.
+ * </ol>
+ *
+ * <p>The peers prune old states, so the sync moves to a new pivot when the network advances too
+ * far beyond the current one. The nodes that were already downloaded are kept and are not
+ * requested again for the new pivot.
+ *
+ * <p>The total difficulty of the pivot cannot be verified without the blocks below it, so it is
+ * taken from the status messages of the peers and becomes the total difficulty of the chain used
+ * for the fork choice. It is trusted only when {@link #MIN_PIVOT_PEERS} peers report the same best
+ * block and the same total difficulty. A node whose peers are all controlled by an attacker can
+ * therefore be given a wrong total difficulty, as it can be given a wrong pivot.
+ *
+ * @implNote All the work is done by a single thread, which processes the responses queued by the
+ *     handlers and sends the requests.
+ */
+public final class FastSyncManager {
+
+    private static final Logger log = AionLoggerFactory.getLogger(LogEnum.SYNC.name());
+
+    /** Fast sync is only used when the node is at least this many blocks behind the network. */
+    public static final long MIN_FAST_SYNC_DISTANCE = 10_000L;
+
+    /**
+     * The number of peers that must agree on a best block and its total difficulty for it to be
+     * used as pivot.
+     */
+    @VisibleForTesting static final int MIN_PIVOT_PEERS = 3;
+
+    /** The network may advance this many blocks past the pivot before a new one is selected. */
+    @VisibleForTesting static final long MAX_PIVOT_AGE = 128L;
+
+    /** The number of ancestors of the pivot stored together with it. */
+    @VisibleForTesting static final int PIVOT_ANCESTORS = 32;
+
+    /** The time to wait for peers to agree on a pivot before continuing with the regular sync. */
+    private static final long PIVOT_TIMEOUT = TimeUnit.MINUTES.toNanos(2);
+
+    private static final int MAX_REQUESTS_PER_PEER = 16;
+    private static final long REQUEST_TIMEOUT = TimeUnit.SECONDS.toNanos(10);
+    private static final long POLL_INTERVAL = 100L; // in milliseconds
+
+    private static final byte[] FIRST_ADDRESS = new byte[AionAddress.LENGTH];
+
+    /** The phases of the fast sync, in the order in which they are executed. */
+    public enum Phase {
+        PIVOT,
+        STATE,
+        CONTRACTS,
+        HISTORY,
+        COMPLETE
+    }
+
+    /** The kinds of data downloaded for the world state. */
+    private enum Kind {
+        STATE(DatabaseType.STATE),
+        STORAGE(DatabaseType.STORAGE),
+        GRAPH_ROOT(DatabaseType.GRAPH),
+        GRAPH_DATA(DatabaseType.GRAPH);
+
+        final DatabaseType dbType;
+
+        Kind(DatabaseType dbType) {
+            this.dbType = dbType;
+        }
+    }
+
+    /** A node of the world state that is missing from the databases. */
+    private static final class MissingNode {
+        final Kind kind;
+        final ByteArrayWrapper key;
+        final byte[] hash;
+        final byte[] subKey;
+        final Contract contract;
+        Request request;
+
+        MissingNode(Kind kind, byte[] hash, byte[] subKey, Contract contract) {
+            this.kind = kind;
+            this.hash = hash;
+            this.subKey = subKey;
+            this.contract = contract;
+            this.key = ByteArrayWrapper.wrap(subKey == null ? hash : ByteUtil.xorAlignRight(hash, subKey));
+        }
+    }
+
+    /** A contract whose storage is being downloaded. */
+    private static final class Contract {
+        final AionAddress address;
+        final byte[] codeHash;
+        final byte[] root;
+        boolean resolved;
+
+        Contract(AionAddress address, byte[] codeHash, byte[] root) {
+            this.address = address;
+            this.codeHash = codeHash;
+            this.root = root;
+        }
+    }
+
+    /** A request sent to a peer. */
+    private static final class Request {
+        final int peerId;
+        final long time;
+        final MissingNode node;
+
+        Request(int peerId, long time, MissingNode node) {
+            this.peerId = peerId;
+            this.time = time;
+            this.node = node;
+        }
+    }
+
+    private final AionBlockchainImpl chain;
+    private final AionRepositoryImpl repository;
+    private final IP2pMgr p2pMgr;
+    private final SyncStats stats;
+    private final BlockHeaderValidator blockHeaderValidator;
+
+    private final BlockingQueue<TrieNodeWrapper> receivedTrieData = new LinkedBlockingQueue<>();
+    private final BlockingQueue<BlocksWrapper> receivedBlocks = new LinkedBlockingQueue<>();
+
+    private final ExecutorService executor;
+    private volatile boolean running = true;
+
+    private volatile Phase phase;
+
+    // pivot
+    private Block pivot;
+    private BigInteger pivotTotalDifficulty;
+    private List<Block> pivotAncestors;
+    private BigInteger candidateTotalDifficulty;
+    private final long pivotTimeout;
+    // the time when the search for the current pivot started
+    private long pivotSearchStart;
+
+    // the only block request that is accepted at a time
+    private Request blocksRequest;
+    private byte[] blocksRequestHash;
+
+    // world state
+    private final Map<ByteArrayWrapper, MissingNode> missing = new HashMap<>();
+    private final Deque<MissingNode> unrequested = new ArrayDeque<>();
+    private final Deque<Request> requested = new ArrayDeque<>();
+    private final Map<Integer, Integer> inFlight = new HashMap<>();
+    private final List<INode> peers = new ArrayList<>();
+
+    // contracts
+    private long expectedContracts;
+    private final Set<AionAddress> verifiedContracts = new HashSet<>();
+    private byte[] contractsCursor;
+    private Request contractsRequest;
+
+    // history
+    private byte[] missingAncestor;
+
+    /**
+     * Starts a fast sync, or resumes the download of the history of a fast sync that was
+     * interrupted after the state was synchronized.
+     *
+     * @param chain the blockchain used by the application
+     * @param p2pMgr the peer manager used to submit requests
+     * @param stats the statistics for the requests to peers
+     */
+    public FastSyncManager(final AionBlockchainImpl chain, final IP2pMgr p2pMgr, final SyncStats stats) {
+        this(chain, p2pMgr, stats, new ChainConfiguration().createBlockHeaderValidator(), PIVOT_TIMEOUT, true);
+    }
+
+    @VisibleForTesting
+    FastSyncManager(final AionBlockchainImpl chain, final IP2pMgr p2pMgr, final SyncStats stats, final BlockHeaderValidator blockHeaderValidator, long pivotTimeout, boolean start) {
+        this.chain = Objects.requireNonNull(chain);
+        this.pivotTimeout = pivotTimeout;
+        this.pivotSearchStart = System.nanoTime();
+        this.repository = chain.getRepository();
+        this.p2pMgr = Objects.requireNonNull(p2pMgr);
+        this.stats = stats;
+        this.blockHeaderValidator = Objects.requireNonNull(blockHeaderValidator);
+
+        Block best = chain.getBestBlock();
+        if (best.getNumber() > 0) {
+            // the state is complete, only the blocks below the lowest stored one are missing
+            Pair<ByteArrayWrapper, Long> ancestor = chain.findMissingAncestor(findLowestBlock(best.getNumber()));
+            missingAncestor = ancestor == null ? null : ancestor.getLeft().toBytes();
+            phase = missingAncestor == null ? Phase.COMPLETE : Phase.HISTORY;
+        } else {
+            phase = Phase.PIVOT;
+        }
+        log.info("<fast-sync starting phase={}>", phase);
+
+        if (start && phase != Phase.COMPLETE) {
+            executor = Executors.newSingleThreadExecutor();
+            executor.execute(this::run);
+        } else {
+            executor = null;
+        }
+    }
+
+    /**
+     * Determines if a fast sync is needed for the given chain, i.e. the chain has only the genesis
+     * block or the download of its history was interrupted.
+     */
+    public static boolean isRequired(AionBlockchainImpl chain) {
+        return chain.getBestBlock().getNumber() == 0 || chain.getBlockByNumber(1) == null;
+    }
+
+    /** Returns the lowest stored block, knowing that the blocks are stored up to the given one. */
+    private Block findLowestBlock(long best) {
+        long low = 1, high = best;
+        while (low < high) {
+            long middle = low + (high - low) / 2;
+            if (chain.getBlockByNumber(middle) == null) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return chain.getBlockByNumber(low);
+    }
+
+    /** Returns the queue where the trie data responses are added to be processed. */
+    public BlockingQueue<TrieNodeWrapper> getReceivedTrieData() {
+        return receivedTrieData;
+    }
+
+    /**
+     * Queues the blocks received from a peer to be checked against the pending block request.
+     *
+     * @param peerId the hash id of the peer who sent the response
+     * @param displayId the display id of the peer who sent the response
+     * @param response the response received from the peer
+     */
+    public void validateAndAddBlocks(int peerId, String displayId, ResponseBlocks response) {
+        List<Block> blocks = response.getBlocks();
+        if (blocks != null && !blocks.isEmpty()) {
+            receivedBlocks.add(new BlocksWrapper(peerId, displayId, blocks));
+        }
+    }
+
+    public Phase getPhase() {
+        return phase;
+    }
+
+    /**
+     * Returns {@code true} when the state of the pivot was fully downloaded and the regular sync
+     * can continue from it, {@code false} otherwise.
+     */
+    public boolean isStateSynced() {
+        return phase.compareTo(Phase.HISTORY) >= 0;
+    }
+
+    public void shutdown() {
+        running = false;
+        if (executor != null) {
+            executor.shutdownNow();
+            try {
+                if (!executor.awaitTermination(60, TimeUnit.SECONDS)) {
+                    log.error("Fast sync did not terminate");
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    private void run() {
+        Thread.currentThread().setName("sync-fast");
+        while (running && phase != Phase.COMPLETE) {
+            try {
+                step(POLL_INTERVAL);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (Exception e) {
+                log.error("<fast-sync failure phase=" + phase + ">", e);
+            }
+        }
+    }
+
+    /**
+     * Processes the received responses, waiting up to the given time for a trie data response,
+     * and sends the new requests.
+     */
+    @VisibleForTesting
+    void step(long waitMillis) throws InterruptedException {
+        TrieNodeWrapper trieData = receivedTrieData.poll(waitMillis, TimeUnit.MILLISECONDS);
+        if (trieData != null) {
+            do {
+                processTrieData(trieData);
+            } while ((trieData = receivedTrieData.poll()) != null);
+            repository.commitTrieNodes();
+        }
+
+        BlocksWrapper blocks;
+        while ((blocks = receivedBlocks.poll()) != null) {
+            processBlocks(blocks);
+        }
+
+        long now = System.nanoTime();
+        expireRequests(now);
+        updatePeers();
+
+        switch (phase) {
+            case PIVOT:
+                requestPivot(now);
+                if (blocksRequest == null && isPivotUnavailable(now)) {
+                    // the regular sync continues from the current best block
+                    log.info("<fast-sync no pivot available, continuing with the regular sync>");
+                    phase = Phase.COMPLETE;
+                }
+                break;
+            case STATE:
+                if (isPivotTooOld()) {
+                    restartFromNewPivot();
+                } else if (missing.isEmpty()) {
+                    startContracts();
+                } else {
+                    requestTrieNodes(now);
+                }
+                break;
+            case CONTRACTS:
+                if (isPivotTooOld()) {
+                    restartFromNewPivot();
+                } else if (verifiedContracts.size() == expectedContracts && missing.isEmpty()) {
+                    completeState();
+                } else {
+                    requestContracts(now);
+                    requestTrieNodes(now);
+                }
+                break;
+            case HISTORY:
+                requestHistory(now);
+                break;
+            default:
+                break;
+        }
+    }
+
+    // ---------------------------------------------------------------------------------------------
+    // pivot
+    // ---------------------------------------------------------------------------------------------
+
+    /**
+     * Requests the pivot and its ancestors from a peer when several peers share a best block and
+     * its total difficulty.
+     */
+    private void requestPivot(long now) {
+        if (blocksRequest != null) {
+            return;
+        }
+
+        long selfBest = chain.getBestBlock().getNumber();
+        Map<Pair<ByteArrayWrapper, BigInteger>, List<INode>> byBestBlock = new HashMap<>();
+        for (INode peer : peers) {
+            if (peer.getBestBlockNumber() >= selfBest + MIN_FAST_SYNC_DISTANCE && peer.getTotalDifficulty() != null) {
+                Pair<ByteArrayWrapper, BigInteger> status = Pair.of(ByteArrayWrapper.wrap(peer.getBestBlockHash()), peer.getTotalDifficulty());
+                byBestBlock.computeIfAbsent(status, k -> new ArrayList<>()).add(peer);
+            }
+        }
+
+        for (Map.Entry<Pair<ByteArrayWrapper, BigInteger>, List<INode>> entry : byBestBlock.entrySet()) {
+            List<INode> agreeing = entry.getValue();
+            if (agreeing.size() >= MIN_PIVOT_PEERS) {
+                INode peer = agreeing.get(0);
+                // the total difficulty reported by all the agreeing peers
+                candidateTotalDifficulty = entry.getKey().getRight();
+                blocksRequestHash = entry.getKey().getLeft().toBytes();
+                blocksRequest = new Request(peer.getIdHash(), now, null);
+
+                log.debug("<fast-sync request-pivot number={} hash={} td={} peer={}>", peer.getBestBlockNumber(), entry.getKey().getLeft(), candidateTotalDifficulty, peer.getIdShort());
+                sendBlocksRequest(peer, blocksRequestHash, PIVOT_ANCESTORS + 1);
+                return;
+            }
+        }
+    }
+
+    /**
+     * Returns {@code true} when fast sync cannot be used, because the peers with a known status are
+     * not far enough ahead of this node or because no pivot was agreed on within the pivot timeout.
+     * A network shorter than {@link #MIN_FAST_SYNC_DISTANCE}, too few peers or peers disagreeing on
+     * their best block would otherwise keep the node at its current block forever.
+     */
+    private boolean isPivotUnavailable(long now) {
+        if (now - pivotSearchStart >= pivotTimeout) {
+            return true;
+        }
+
+        long selfBest = chain.getBestBlock().getNumber();
+        int known = 0;
+        for (INode peer : peers) {
+            // the peers that did not send their status yet report the genesis block
+            if (peer.getBestBlockNumber() > 0) {
+                if (peer.getBestBlockNumber() >= selfBest + MIN_FAST_SYNC_DISTANCE) {
+                    return false;
+                }
+                known++;
+            }
+        }
+        return known >= MIN_PIVOT_PEERS;
+    }
+
+    /**
+     * Sets the pivot if the received blocks are the requested block with valid ancestors. The
+     * bodies are checked against the headers, since the blocks are stored without being executed.
+     */
+    private void acceptPivot(BlocksWrapper response) {
+        List<Block> blocks = response.blocks;
+        for (int i = 0; i < blocks.size(); i++) {
+            Block block = blocks.get(i);
+            if (!blockHeaderValidator.validate(block.getHeader(), log)
+                    || !BlockDetailsValidator.isValidTxTrieRoot(block.getTxTrieRoot(), block.getTransactionsList(), block.getNumber(), log)) {
+                log.debug("<fast-sync invalid pivot block number={} peer={}>", block.getNumber(), response.displayId);
+                p2pMgr.errCheck(response.nodeId, response.displayId);
+                return;
+            }
+            if (i > 0) {
+                Block child = blocks.get(i - 1);
+                if (child.getNumber() != block.getNumber() + 1 || !Arrays.equals(child.getParentHash(), block.getHash())) {
+                    log.debug("<fast-sync non-sequential pivot ancestors peer={}>", response.displayId);
+                    p2pMgr.errCheck(response.nodeId, response.displayId);
+                    return;
+                }
+            }
+        }
+
+        pivot = blocks.get(0);
+        pivotTotalDifficulty = candidateTotalDifficulty;
+        pivotAncestors = new ArrayList<>(blocks.subList(1, blocks.size()));
+        phase = Phase.STATE;
+        log.info("<fast-sync pivot number={} hash={} state-root={}>", pivot.getNumber(), pivot.getShortHash(), ByteUtil.toHexString(pivot.getStateRoot()));
+
+        want(new MissingNode(Kind.STATE, pivot.getStateRoot(), null, null));
+    }
+
+    private boolean isPivotTooOld() {
+        for (INode peer : peers) {
+            if (peer.getBestBlockNumber() > pivot.getNumber() + MAX_PIVOT_AGE) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /** Drops the progress tied to the current pivot. The stored nodes are kept. */
+    private void restartFromNewPivot() {
+        log.info("<fast-sync pivot number={} is too old, selecting a new pivot>", pivot.getNumber());
+        phase = Phase.PIVOT;
+        pivot = null;
+        pivotSearchStart = System.nanoTime();
+        missing.clear();
+        unrequested.clear();
+        requested.clear();
+        inFlight.clear();
+        verifiedContracts.clear();
+        contractsRequest = null;
+    }
+
+    // ---------------------------------------------------------------------------------------------
+    // world state
+    // ---------------------------------------------------------------------------------------------
+
+    /** Marks the given node as needed. If the node is already stored its children are checked. */
+    private void want(MissingNode node) {
+        if (missing.containsKey(node.key)) {
+            return;
+        }
+        if (node.kind != Kind.GRAPH_DATA && Arrays.equals(node.hash, ConstantUtil.EMPTY_TRIE_HASH)) {
+            // empty tries have no stored nodes
+            return;
+        }
+        byte[] value = repository.getTrieNode(node.key.toBytes(), node.kind.dbType);
+        if (value == null) {
+            addMissing(node);
+        } else {
+            onStored(node, value);
+        }
+    }
+
+    private void addMissing(MissingNode node) {
+        if (!missing.containsKey(node.key)) {
+            missing.put(node.key, node);
+            unrequested.add(node);
+        }
+    }
+
+    private void removeMissing(MissingNode node) {
+        missing.remove(node.key);
+        if (node.request != null) {
+            inFlight.merge(node.request.peerId, -1, Integer::sum);
+            node.request = null;
+        }
+    }
+
+    /** Adds the missing nodes referenced by the given stored node. */
+    private void onStored(MissingNode node, byte[] value) {
+        Contract contract = node.contract;
+        if (contract != null && Arrays.equals(node.hash, contract.root) && node.kind != Kind.GRAPH_DATA) {
+            resolveContract(contract, node.kind == Kind.STORAGE ? InternalVmType.FVM : InternalVmType.AVM);
+        }
+
+        switch (node.kind) {
+            case STATE:
+            case STORAGE:
+                for (ByteArrayWrapper key : repository.getMissingTrieNodes(node.hash, node.kind.dbType, node.subKey)) {
+                    byte[] hash = node.subKey == null ? key.toBytes() : ByteUtil.xorAlignRight(key.toBytes(), node.subKey);
+                    addMissing(new MissingNode(node.kind, hash, node.subKey, contract));
+                }
+                break;
+            case GRAPH_ROOT:
+                RLPList pair = (RLPList) RLP.decode2(value).get(0);
+                byte[] storageRoot = pair.get(0).getRLPData();
+                byte[] graphHash = pair.get(1).getRLPData();
+                if (!Arrays.equals(storageRoot, ConstantUtil.EMPTY_TRIE_HASH)) {
+                    want(new MissingNode(Kind.STORAGE, storageRoot, DetailsDataStore.storageSubKey(contract.address), contract));
+                }
+                if (!Arrays.equals(graphHash, EMPTY_DATA_HASH)) {
+                    want(new MissingNode(Kind.GRAPH_DATA, graphHash, DetailsDataStore.graphSubKey(contract.address), contract));
+                }
+                break;
+            default:
+                break;
+        }
+    }
+
+    /**
+     * Records the virtual machine of the given contract, which is known once one of the two
+     * possible interpretations of its root was found, and drops the other interpretation.
+     */
+    private void resolveContract(Contract contract, InternalVmType vm) {
+        if (contract.resolved) {
+            return;
+        }
+        contract.resolved = true;
+
+        Kind other = vm == InternalVmType.FVM ? Kind.GRAPH_ROOT : Kind.STORAGE;
+        byte[] subKey = other == Kind.STORAGE ? DetailsDataStore.storageSubKey(contract.address) : DetailsDataStore.graphSubKey(contract.address);
+        MissingNode dropped = missing.get(ByteArrayWrapper.wrap(ByteUtil.xorAlignRight(contract.root, subKey)));
+        if (dropped != null) {
+            removeMissing(dropped);
+        }
+
+        indexContract(contract, vm);
+    }
+
+    private void indexContract(Contract contract, InternalVmType vm) {
+        // the precompiled contracts are not indexed
+        if (!Arrays.equals(contract.codeHash, EMPTY_DATA_HASH) && !ContractInfo.isPrecompiledContract(contract.address)) {
+            repository.saveIndexedContractInformation(contract.address, ByteArrayWrapper.wrap(contract.codeHash), pivot.getHashWrapper(), vm, true);
+        }
+    }
+
+    /** Checks that the given value matches what is expected for the node. */
+    private static boolean verify(MissingNode node, byte[] value) {
+        if (value == null || value.length == 0) {
+            return false;
+        }
+        if (node.kind != Kind.GRAPH_ROOT) {
+            return Arrays.equals(h256(value), node.hash);
+        }
+
+        // the consensus root of an AVM contract is the hash of the storage root and graph hash
+        try {
+            RLPElement decoded = RLP.decode2(value).get(0);
+            if (!(decoded instanceof RLPList) || ((RLPList) decoded).size() != 2) {
+                return false;
+            }
+            byte[] storageRoot = ((RLPList) decoded).get(0).getRLPData();
+            byte[] graphHash = ((RLPList) decoded).get(1).getRLPData();
+            if (storageRoot == null || storageRoot.length != 32 || graphHash == null || graphHash.length != 32) {
+                return false;
+            }
+            return Arrays.equals(h256(ByteUtil.merge(storageRoot, graphHash)), node.hash);
+        } catch (Exception e) {
+            return false;
+        }
+    }
+
+    /** Imports the received value if it is the expected one for a missing node. */
+    private boolean importNode(ByteArrayWrapper key, byte[] value) {
+        MissingNode node = missing.get(key);
+        if (node == null || !verify(node, value)) {
+            return false;
+        }
+
+        TrieNodeResult result = repository.importTrieNode(key.toBytes(), value, node.kind.dbType);
+        removeMissing(node);
+        if (result.isSuccessful()) {
+            onStored(node, value);
+        } else {
+            log.error("<fast-sync import failed key={} db={} result={}>", key, node.kind.dbType, result);
+        }
+        return true;
+    }
+
+    private void processTrieData(TrieNodeWrapper response) {
+        if (response.getDbType() == DatabaseType.DETAILS) {
+            processContracts(response);
+            return;
+        }
+
+        ByteArrayWrapper key = response.getNodeKey();
+        MissingNode node = missing.get(key);
+        if (node == null) {
+            // answered by an earlier response
+            return;
+        }
+        if (!importNode(key, response.getNodeValue())) {
+            log.debug("<fast-sync invalid trie node key={} peer={}>", key, response.getDisplayId());
+            p2pMgr.errCheck(response.getPeerId(), response.getDisplayId());
+            return;
+        }
+
+        // the referenced nodes become expected as their parents are imported
+        Map<ByteArrayWrapper, byte[]> referenced = new HashMap<>(response.getReferencedNodes());
+        boolean progress = true;
+        while (progress && !referenced.isEmpty()) {
+            progress = false;
+            Iterator<Map.Entry<ByteArrayWrapper, byte[]>> it = referenced.entrySet().iterator();
+            while (it.hasNext()) {
+                Map.Entry<ByteArrayWrapper, byte[]> entry = it.next();
+                if (missing.containsKey(entry.getKey())) {
+                    it.remove();
+                    progress |= importNode(entry.getKey(), entry.getValue());
+                }
+            }
+        }
+        stats.updateResponseTime(response.getDisplayId(), System.nanoTime(), RequestType.TRIE_DATA);
+    }
+
+    /** Sends requests for the missing nodes to the peers with available capacity. */
+    private void requestTrieNodes(long now) {
+        if (unrequested.isEmpty()) {
+            return;
+        }
+        for (INode peer : peers) {
+            if (peer.getBestBlockNumber() < pivot.getNumber()) {
+                continue;
+            }
+            int peerId = peer.getIdHash();
+            while (inFlight.getOrDefault(peerId, 0) < MAX_REQUESTS_PER_PEER) {
+                MissingNode node = unrequested.poll();
+                if (node == null) {
+                    return;
+                }
+                if (missing.get(node.key) != node || node.request != null) {
+                    // already received or dropped
+                    continue;
+                }
+                node.request = new Request(peerId, now, node);
+                requested.add(node.request);
+                inFlight.merge(peerId, 1, Integer::sum);
+
+                p2pMgr.send(peerId, peer.getIdShort(), new RequestTrieData(node.key.toBytes(), node.kind.dbType, 0));
+                stats.updateTotalRequestsToPeer(peer.getIdShort(), RequestType.TRIE_DATA);
+                stats.updateRequestTime(peer.getIdShort(), System.nanoTime(), RequestType.TRIE_DATA);
+            }
+        }
+    }
+
+    /** Makes the nodes whose requests were not answered in time available for new requests. */
+    private void expireRequests(long now) {
+        while (!requested.isEmpty() && now - requested.peek().time > REQUEST_TIMEOUT) {
+            Request request = requested.poll();
+            MissingNode node = request.node;
+            if (node.request == request) {
+                inFlight.merge(request.peerId, -1, Integer::sum);
+                node.request = null;
+                if (missing.get(node.key) == node) {
+                    unrequested.add(node);
+                }
+            }
+        }
+
+        if (blocksRequest != null && now - blocksRequest.time > REQUEST_TIMEOUT) {
+            blocksRequest = null;
+        }
+
+        if (contractsRequest != null && now - contractsRequest.time > REQUEST_TIMEOUT) {
+            // the peer may not have contracts after the cursor, the listing restarts from another peer
+            contractsRequest = null;
+            contractsCursor = FIRST_ADDRESS;
+        }
+    }
+
+    /** Refreshes the active peers, rotating their order to spread the requests. */
+    private void updatePeers() {
+        List<INode> active = new ArrayList<>(p2pMgr.getActiveNodes().values());
+        if (!active.isEmpty()) {
+            Collections.rotate(active, (int) (System.nanoTime() % active.size()));
+        }
+        peers.clear();
+        peers.addAll(active);
+    }
+
+    // ---------------------------------------------------------------------------------------------
+    // contracts
+    // ---------------------------------------------------------------------------------------------
+
+    private void startContracts() {
+        repository.commitTrieNodes();
+        expectedContracts = repository.countContractAccounts(pivot.getStateRoot());
+        contractsCursor = FIRST_ADDRESS;
+        phase = Phase.CONTRACTS;
+        log.info("<fast-sync state trie complete pivot={} contracts={}>", pivot.getNumber(), expectedContracts);
+    }
+
+    /** Requests the next page of contract details. */
+    private void requestContracts(long now) {
+        if (contractsRequest != null || verifiedContracts.size() == expectedContracts) {
+            return;
+        }
+        for (INode peer : peers) {
+            if (peer.getBestBlockNumber() >= pivot.getNumber()) {
+                contractsRequest = new Request(peer.getIdHash(), now, null);
+                p2pMgr.send(peer.getIdHash(), peer.getIdShort(), new RequestTrieData(contractsCursor, DatabaseType.DETAILS, 0));
+                stats.updateTotalRequestsToPeer(peer.getIdShort(), RequestType.TRIE_DATA);
+                stats.updateRequestTime(peer.getIdShort(), System.nanoTime(), RequestType.TRIE_DATA);
+                return;
+            }
+        }
+    }
+
+    /** Verifies and stores a page of contract details, then moves the cursor past it. */
+    private void processContracts(TrieNodeWrapper response) {
+        if (phase != Phase.CONTRACTS || contractsRequest == null || contractsRequest.peerId != response.getPeerId()) {
+            return;
+        }
+        contractsRequest = null;
+
+        Map<ByteArrayWrapper, byte[]> page = new HashMap<>(response.getReferencedNodes());
+        page.put(response.getNodeKey(), response.getNodeValue());
+
+        byte[] last = null;
+        for (Map.Entry<ByteArrayWrapper, byte[]> entry : page.entrySet()) {
+            byte[] address = entry.getKey().toBytes();
+            if (last == null || Arrays.compareUnsigned(address, last) > 0) {
+                last = address;
+            }
+            importContract(entry.getKey(), entry.getValue());
+        }
+
+        if (page.size() < TRIE_DATA_REQUEST_MAXIMUM_BATCH_SIZE) {
+            // reached the last contract known by the peer
+            contractsCursor = FIRST_ADDRESS;
+            if (verifiedContracts.size() < expectedContracts) {
+                log.debug("<fast-sync contracts missing from peer={} verified={} expected={}>", response.getDisplayId(), verifiedContracts.size(), expectedContracts);
+            }
+        } else {
+            contractsCursor = last.clone();
+            if (!ByteUtil.increment(contractsCursor)) {
+                contractsCursor = FIRST_ADDRESS;
+            }
+        }
+        stats.updateResponseTime(response.getDisplayId(), System.nanoTime(), RequestType.TRIE_DATA);
+    }
+
+    /**
+     * Stores the given contract details if they match a contract account of the pivot state and
+     * adds the contract storage to the missing nodes.
+     */
+    private void importContract(ByteArrayWrapper key, byte[] value) {
+        if (key.length() != AionAddress.LENGTH) {
+            return;
+        }
+        AionAddress address = new AionAddress(key.toBytes());
+        if (verifiedContracts.contains(address)) {
+            return;
+        }
+
+        AccountState account = repository.getAccountState(address, pivot.getStateRoot());
+        if (account == null || !hasCode(value, address, account.getCodeHash())) {
+            // contracts created after the pivot or invalid details
+            return;
+        }
+
+        TrieNodeResult result = repository.importTrieNode(key.toBytes(), value, DatabaseType.DETAILS);
+        if (result == TrieNodeResult.INCONSISTENT) {
+            // details stored for an earlier pivot, which differ only by the storage root
+            if (!hasCode(repository.getTrieNode(key.toBytes(), DatabaseType.DETAILS), address, account.getCodeHash())) {
+                log.error("<fast-sync stored details do not match contract={}>", address);
+                return;
+            }
+        } else if (!result.isSuccessful()) {
+            return;
+        }
+        verifiedContracts.add(address);
+
+        Contract contract = new Contract(address, account.getCodeHash(), account.getStateRoot());
+        if (Arrays.equals(contract.root, ConstantUtil.EMPTY_TRIE_HASH)) {
+            // only FVM contracts can have an empty storage
+            contract.resolved = true;
+            indexContract(contract, InternalVmType.FVM);
+        } else if (ContractInfo.isPrecompiledContract(address)) {
+            want(new MissingNode(Kind.STORAGE, contract.root, DetailsDataStore.storageSubKey(address), contract));
+        } else {
+            // the root is interpreted according to the VM, so both options are requested
+            want(new MissingNode(Kind.STORAGE, contract.root, DetailsDataStore.storageSubKey(address), contract));
+            if (!contract.resolved) {
+                want(new MissingNode(Kind.GRAPH_ROOT, contract.root, DetailsDataStore.graphSubKey(address), contract));
+            }
+        }
+    }
+
+    /** Checks that the given details belong to the address and contain the code with the hash. */
+    private static boolean hasCode(byte[] details, AionAddress address, byte[] codeHash) {
+        if (details == null) {
+            return false;
+        }
+        try {
+            RLPContractDetails decoded = DetailsDataStore.fromEncoding(details);
+            if (!decoded.address.equals(address)) {
+                return false;
+            }
+            if (Arrays.equals(codeHash, EMPTY_DATA_HASH)) {
+                return true;
+            }
+            RLPElement code = decoded.code;
+            if (code instanceof RLPList) {
+                for (RLPElement e : (RLPList) code) {
+                    if (Arrays.equals(h256(e.getRLPData()), codeHash)) {
+                        return true;
+                    }
+                }
+                return false;
+            } else {
+                return Arrays.equals(h256(code.getRLPData()), codeHash);
+            }
+        } catch (Exception e) {
+            return false;
+        }
+    }
+
+    // ---------------------------------------------------------------------------------------------
+    // history
+    // ---------------------------------------------------------------------------------------------
+
+    private void completeState() {
+        repository.commitTrieNodes();
+        chain.importFastSyncPivot(pivot, pivotTotalDifficulty, pivotAncestors);
+
+        Block lowest = pivotAncestors.isEmpty() ? pivot : pivotAncestors.get(pivotAncestors.size() - 1);
+        Pair<ByteArrayWrapper, Long> ancestor = chain.findMissingAncestor(lowest);
+        missingAncestor = ancestor == null ? null : ancestor.getLeft().toBytes();
+        phase = missingAncestor == null ? Phase.COMPLETE : Phase.HISTORY;
+        log.info("<fast-sync state complete pivot={} contracts={}>", pivot.getNumber(), expectedContracts);
+    }
+
+    /** Requests the blocks below the lowest stored block. */
+    private void requestHistory(long now) {
+        if (blocksRequest != null || peers.isEmpty()) {
+            return;
+        }
+        INode peer = peers.get(0);
+        blocksRequestHash = missingAncestor;
+        blocksRequest = new Request(peer.getIdHash(), now, null);
+        sendBlocksRequest(peer, missingAncestor, BLOCKS_REQUEST_MAXIMUM_BATCH_SIZE);
+    }
+
+    /** Stores the received blocks in descending order until one does not link to the stored ones. */
+    private void importHistory(BlocksWrapper response) {
+        Block lowest = null;
+        for (Block block : response.blocks) {
+            FastImportResult result = chain.tryFastImport(block);
+            if (result.isSuccessful() || result.isKnown()) {
+                lowest = block;
+            } else {
+                break;
+            }
+        }
+        if (lowest == null) {
+            p2pMgr.errCheck(response.nodeId, response.displayId);
+            return;
+        }
+
+        Pair<ByteArrayWrapper, Long> ancestor = chain.findMissingAncestor(lowest);
+        if (ancestor == null) {
+            missingAncestor = null;
+            phase = Phase.COMPLETE;
+            log.info("<fast-sync complete best={}>", chain.getBestBlock().getNumber());
+        } else {
+            missingAncestor = ancestor.getLeft().toBytes();
+            log.debug("<fast-sync history missing-number={}>", ancestor.getRight());
+        }
+    }
+
+    private void sendBlocksRequest(INode peer, byte[] hash, int count) {
+        p2pMgr.send(peer.getIdHash(), peer.getIdShort(), new RequestBlocks(hash, count, true));
+        stats.updateTotalRequestsToPeer(peer.getIdShort(), RequestType.BLOCKS);
+        stats.updateRequestTime(peer.getIdShort(), System.nanoTime(), RequestType.BLOCKS);
+    }
+
+    private void processBlocks(BlocksWrapper response) {
+        if (blocksRequest == null
+                || blocksRequest.peerId != response.nodeId
+                || !Arrays.equals(response.blocks.get(0).getHash(), blocksRequestHash)) {
+            // not the pending request
+            return;
+        }
+        blocksRequest = null;
+        stats.updateResponseTime(response.displayId, System.nanoTime(), RequestType.BLOCKS);
+
+        if (phase == Phase.PIVOT) {
+            acceptPivot(response);
+        } else if (phase == Phase.HISTORY) {
+            importHistory(response);
+        }
+    }
+}
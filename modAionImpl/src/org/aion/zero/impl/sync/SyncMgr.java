@@ -11,13 +11,18 @@ import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.ThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.stream.Collectors;
+import org.aion.base.AionTransaction;
 import org.aion.evtmgr.IEvent;
 import org.aion.evtmgr.IEventMgr;
 import org.aion.evtmgr.impl.evt.EventConsensus;
@@ -30,6 +35,7 @@ import org.aion.zero.impl.config.StatsType;
 import org.aion.p2p.IP2pMgr;
 import org.aion.util.conversions.Hex;
 import org.aion.util.types.ByteArrayWrapper;
+import org.aion.util.types.HashKey;
 import org.aion.zero.impl.blockchain.AionBlockchainImpl;
 import org.aion.zero.impl.blockchain.ChainConfiguration;
 import org.aion.zero.impl.sync.SyncHeaderRequestManager.SyncMode;
@@ -38,6 +44,7 @@ import org.aion.zero.impl.sync.msg.ReqStatus;
 import org.aion.zero.impl.sync.statistics.BlockType;
 import org.aion.zero.impl.sync.statistics.RequestType;
 import org.aion.zero.impl.types.BlockUtil;
+import org.aion.zero.impl.types.StakingBlockHeader;
 import org.aion.zero.impl.valid.BlockHeaderValidator;
 import org.apache.commons.collections4.map.LRUMap;
 import org.slf4j.Logger;
@@ -73,7 +80,7 @@ public final class SyncMgr {
 
     // store the hashes of blocks which have been successfully imported
     @VisibleForTesting
-    final Map<ByteArrayWrapper, Object> importedBlockHashes = Collections.synchronizedMap(new LRUMap<>(4096));
+    final Map<HashKey, Object> importedBlockHashes = Collections.synchronizedMap(new LRUMap<>(4096));
     private AionBlockchainImpl chain;
     private IP2pMgr p2pMgr;
     private IEventMgr evtMgr;
@@ -81,10 +88,14 @@ public final class SyncMgr {
 
     private final ScheduledExecutorService syncExecutors;
     private final ThreadPoolExecutor importExecutor;
+    private final ExecutorService signatureExecutor;
 
     private BlockHeaderValidator blockHeaderValidator;
     private volatile long timeUpdated = 0;
 
+    // null unless the node is downloading the state of a pivot block
+    private final FastSyncManager fastSyncMgr;
+
     private static final ReqStatus cachedReqStatus = new ReqStatus();
 
     public SyncMgr(final AionBlockchainImpl _chain,
@@ -93,12 +104,31 @@ public final class SyncMgr {
         final boolean _showStatus,
         final Set<StatsType> showStatistics,
         final int maxActivePeers) {
+        this(_chain, _p2pMgr, _evtMgr, _showStatus, showStatistics, maxActivePeers, false);
+    }
+
+    public SyncMgr(final AionBlockchainImpl _chain,
+        final IP2pMgr _p2pMgr,
+        final IEventMgr _evtMgr,
+        final boolean _showStatus,
+        final Set<StatsType> showStatistics,
+        final int maxActivePeers,
+        final boolean fastSync) {
 
         p2pMgr = _p2pMgr;
         chain = _chain;
         evtMgr = _evtMgr;
         syncExecutors = Executors.newScheduledThreadPool(4);
         importExecutor = new ThreadPoolExecutor(1, 1, 0L, TimeUnit.MILLISECONDS, new LinkedBlockingQueue<>(QUEUE_CAPACITY));
+        AtomicInteger signatureThreads = new AtomicInteger(0);
+        signatureExecutor =
+                Executors.newFixedThreadPool(
+                        Math.max(1, Runtime.getRuntime().availableProcessors() - 1),
+                        runnable -> {
+                            Thread thread = new Thread(runnable, "sync-sig-" + signatureThreads.incrementAndGet());
+                            thread.setDaemon(true);
+                            return thread;
+                        });
 
         blockHeaderValidator = new ChainConfiguration().createBlockHeaderValidator();
 
@@ -109,6 +139,12 @@ public final class SyncMgr {
 
         syncHeaderRequestManager =  new SyncHeaderRequestManager(log, survey_log);
 
+        if (fastSync && FastSyncManager.isRequired(chain)) {
+            fastSyncMgr = new FastSyncManager(chain, p2pMgr, stats);
+        } else {
+            fastSyncMgr = null;
+        }
+
         syncExecutors.scheduleWithFixedDelay(() -> requestStatus(), 0L, DELAY_STATUS_REQUEST, TimeUnit.SECONDS);
 
         if (_showStatus) {
@@ -264,6 +300,11 @@ public final class SyncMgr {
     }
 
     private void getHeaders(BigInteger _selfTd) {
+        // the blocks are imported on top of the pivot once its state is downloaded
+        if (fastSyncMgr != null && !fastSyncMgr.isStateSynced()) {
+            return;
+        }
+
         // Making requests only if the executor has capacity to add more than half the tasks since multiple requests may be sent at the same time.
         if (importExecutor.getQueue().size() < HALF_QUEUE_CAPACITY) {
             syncHeaderRequestManager.sendHeadersRequests(chain.getBestBlock().getNumber(), _selfTd, p2pMgr, stats);
@@ -307,7 +348,7 @@ public final class SyncMgr {
                 }
 
                 // Check for already imported blocks.
-                if (!importedBlockHashes.containsKey(current.getHashWrapper())) {
+                if (!importedBlockHashes.containsKey(HashKey.wrap(current.getHashWrapper()))) {
                     filtered.add(current);
                 }
 
@@ -334,7 +375,7 @@ public final class SyncMgr {
         List<List<BlockHeader>> forRequests = syncHeaderRequestManager.getHeadersForBodiesRequests(nodeId);
         for (List<BlockHeader> requestHeaders : forRequests) {
             // Filter headers again in case the blockchain has advanced while this task was waiting to be executed.
-            List<BlockHeader> filtered = requestHeaders.stream().filter(h -> !importedBlockHashes.containsKey(ByteArrayWrapper.wrap(h.getHash()))).collect(Collectors.toList());
+            List<BlockHeader> filtered = requestHeaders.stream().filter(h -> !importedBlockHashes.containsKey(HashKey.wrap(h.getHash()))).collect(Collectors.toList());
             // Check the peer state and discard blocks that are under the current best (in case the hashes already dropped from the above map).
             // This check is only applicable for SyncMode.NORMAL because the other sync modes deal with side chains.
             long currentBest = chain.getBestBlock() == null ? 0L : chain.getBestBlock().getNumber();
@@ -428,10 +469,65 @@ public final class SyncMgr {
             int stored = chain.storePendingBlockRange(downloadedBlocks.blocks, log);
             stats.updatePeerBlocks(downloadedBlocks.displayId, stored, BlockType.STORED);
         } else {
-            importExecutor.execute(() -> TaskImportBlocks.importBlocks(chain, stats, downloadedBlocks, importedBlockHashes, syncHeaderRequestManager));
+            List<Future<?>> verifications = verifySignatures(downloadedBlocks.blocks);
+            importExecutor.execute(
+                    () -> {
+                        awaitSignatures(verifications);
+                        TaskImportBlocks.importBlocks(chain, stats, downloadedBlocks, importedBlockHashes, syncHeaderRequestManager);
+                    });
         }
     }
 
+    /**
+     * Starts verifying the staking header and transaction signatures of the given blocks across
+     * the worker pool, without waiting for the results. The successful verifications are cached by
+     * the headers and transactions, so the import thread does not repeat them. Failures are left
+     * for the import to report.
+     *
+     * @return the pending verifications, which the import task waits for
+     */
+    private List<Future<?>> verifySignatures(List<Block> blocks) {
+        List<Future<?>> verifications = new ArrayList<>(blocks.size());
+        try {
+            for (Block block : blocks) {
+                verifications.add(
+                        signatureExecutor.submit(
+                                () -> {
+                                    BlockHeader header = block.getHeader();
+                                    if (header instanceof StakingBlockHeader) {
+                                        ((StakingBlockHeader) header).verifySignature();
+                                    }
+                                    for (AionTransaction tx : block.getTransactionsList()) {
+                                        tx.verifySignature();
+                                    }
+                                }));
+            }
+        } catch (RejectedExecutionException e) {
+            // shutting down, any unverified signatures are checked by the import
+        }
+        return verifications;
+    }
+
+    private static void awaitSignatures(List<Future<?>> verifications) {
+        for (Future<?> verification : verifications) {
+            try {
+                verification.get();
+            } catch (ExecutionException e) {
+                // the import verifies the signature again and reports the failure
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+    }
+
+    /**
+     * Returns the manager of the fast sync or {@code null} when the node does not use fast sync.
+     */
+    public FastSyncManager getFastSyncManager() {
+        return fastSyncMgr;
+    }
+
     public long getNetworkBestBlockNumber() {
         synchronized (this.networkStatus) {
             return this.networkStatus.getTargetBestBlockNumber();
@@ -461,7 +557,11 @@ public final class SyncMgr {
             }
         }
 
+        if (fastSyncMgr != null) {
+            fastSyncMgr.shutdown();
+        }
         shutdownAndAwaitTermination(syncExecutors);
+        shutdownAndAwaitTermination(signatureExecutor);
         shutdownAndAwaitTermination(importExecutor);
     }
 
@@ -15,6 +15,7 @@ import org.aion.log.LogEnum;
 import org.aion.mcf.blockchain.Block;
 import org.aion.zero.impl.core.ImportResult;
 import org.aion.util.types.ByteArrayWrapper;
+import org.aion.util.types.HashKey;
 import org.aion.zero.impl.SystemExitCodes;
 import org.aion.zero.impl.blockchain.AionBlockchainImpl;
 import org.aion.zero.impl.sync.SyncHeaderRequestManager.SyncMode;
@@ -34,7 +35,7 @@ final class TaskImportBlocks {
     private static final Logger log = AionLoggerFactory.getLogger(LogEnum.SYNC.name());
     private static final Logger surveyLog = AionLoggerFactory.getLogger(LogEnum.SURVEY.name());
 
-    static void importBlocks(final AionBlockchainImpl chain, final SyncStats syncStats, final BlocksWrapper bw, final Map<ByteArrayWrapper, Object> importedBlockHashes, final SyncHeaderRequestManager syncHeaderRequestManager) {
+    static void importBlocks(final AionBlockchainImpl chain, final SyncStats syncStats, final BlocksWrapper bw, final Map<HashKey, Object> importedBlockHashes, final SyncHeaderRequestManager syncHeaderRequestManager) {
         Thread.currentThread().setName("sync-ib");
 
         long startTime = System.nanoTime();
@@ -80,7 +81,7 @@ final class TaskImportBlocks {
     static List<Block> filterBatch(
             List<Block> blocks,
             AionBlockchainImpl chain,
-            Map<ByteArrayWrapper, Object> imported) {
+            Map<HashKey, Object> imported) {
         if (chain.hasPruneRestriction()) {
             // filter out restricted blocks if prune restrictions enabled
             return blocks.stream()
@@ -95,8 +96,8 @@ final class TaskImportBlocks {
         }
     }
 
-    private static boolean isNotImported(Block b, Map<ByteArrayWrapper, Object> imported) {
-        return imported.get(ByteArrayWrapper.wrap(b.getHash())) == null;
+    private static boolean isNotImported(Block b, Map<HashKey, Object> imported) {
+        return imported.get(HashKey.wrap(b.getHashWrapper())) == null;
     }
 
     private static boolean isNotRestricted(Block b, AionBlockchainImpl chain) {
@@ -104,7 +105,7 @@ final class TaskImportBlocks {
     }
 
     /** @implNote This method is called only when state is not null. */
-    private static SyncMode processBatch(AionBlockchainImpl chain, Map<ByteArrayWrapper, Object> importedBlockHashes, SyncStats syncStats, SyncMode syncMode, List<Block> batch, String displayId) {
+    private static SyncMode processBatch(AionBlockchainImpl chain, Map<HashKey, Object> importedBlockHashes, SyncStats syncStats, SyncMode syncMode, List<Block> batch, String displayId) {
         // for runtime survey information
         long startTime, duration;
 
@@ -128,7 +129,7 @@ final class TaskImportBlocks {
             // implies the full batch was already imported (but not filtered by the queue)
             if (chain.isBlockStored(b.getHash(), b.getNumber())) {
                 // keeping track of the last block check
-                importedBlockHashes.put(ByteArrayWrapper.wrap(b.getHash()), true);
+                importedBlockHashes.put(HashKey.wrap(b.getHashWrapper()), true);
 
                 // skipping the batch
                 log.debug("Skip {} blocks from node = {} in mode = {}.", batch.size(), displayId, syncMode);
@@ -161,7 +162,7 @@ final class TaskImportBlocks {
             int count = importedHashes.size();
             if (currentBest >= first) {
                 last = currentBest + 1;
-                importedHashes.stream().forEach(v -> importedBlockHashes.put(v, true));
+                importedHashes.stream().forEach(v -> importedBlockHashes.put(HashKey.wrap(v), true));
                 syncStats.updatePeerBlocks(displayId, count, BlockType.IMPORTED);
                 log.info("<import-status: node = {}, from = #{}, to = #{}, time elapsed = {} ms>", displayId, first, currentBest, importDuration);
             }
@@ -214,7 +215,7 @@ final class TaskImportBlocks {
      *
      * @return the total number of imported blocks from all iterations
      */
-    private static SyncMode importFromStorage(AionBlockchainImpl chain,Map<ByteArrayWrapper, Object> importedBlockHashes, SyncMode givenMode, long first, long last) {
+    private static SyncMode importFromStorage(AionBlockchainImpl chain,Map<HashKey, Object> importedBlockHashes, SyncMode givenMode, long first, long last) {
         // for runtime survey information
         long startTime, duration;
 
@@ -280,7 +281,7 @@ final class TaskImportBlocks {
                     batch = importedHashes.size();
                     if (currentBest >= first) {
                         last = currentBest + 1;
-                        importedHashes.stream().forEach(v -> importedBlockHashes.put(v, true));
+                        importedHashes.stream().forEach(v -> importedBlockHashes.put(HashKey.wrap(v), true));
                         log.info("<import-status: node = {}, from = #{}, to = #{}, time elapsed = {} ms>", "STORAGE", first, currentBest, importDuration);
                     } else {
                         // do not delete queue from storage
@@ -57,7 +57,7 @@ public final class BroadcastNewBlockHandler extends Handler {
         }
 
         try { // preventative try-catch: it's unlikely that exceptions can pass up to here
-            RLPList params = RLP.decode2(rawdata);
+            RLPList params = RLP.decode2SharedList(rawdata);
             RLPList blockRLP = (RLPList) params.get(0);
 
             // returns null when decoding failed
@@ -4,6 +4,8 @@ import static org.aion.p2p.V1Constants.TRIE_DATA_REQUEST_MAXIMUM_BATCH_SIZE;
 
 import java.util.Arrays;
 import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
 import java.util.Map;
 import org.aion.p2p.Ctrl;
 import org.aion.p2p.Handler;
@@ -20,6 +22,11 @@ import org.slf4j.Logger;
 /**
  * Handler for trie node requests from the network.
  *
+ * <p>The contract details are stored by address instead of in a trie. Requests for contract
+ * details that allow more than one entry are answered with the details stored at or after the
+ * requested address, followed by the details of the next contracts in the order of their addresses,
+ * which allows peers to list all the contracts.
+ *
  * @author Alexandra Roatis
  */
 public final class RequestTrieDataHandler extends Handler {
@@ -63,6 +70,11 @@ public final class RequestTrieDataHandler extends Handler {
                 this.log.debug("<req-trie from-db={} key={} peer={}>", dbType, key, displayId);
             }
 
+            if (dbType == DatabaseType.DETAILS && limit != 1) {
+                sendContractDetails(peerId, displayId, key.toBytes(), limit);
+                return;
+            }
+
             byte[] value = null;
             try {
                 // retrieve from blockchain depending on db type
@@ -74,7 +86,8 @@ public final class RequestTrieDataHandler extends Handler {
             if (value != null) {
                 ResponseTrieData response;
 
-                if (limit == 1) {
+                // the object graph entries do not reference other entries
+                if (limit == 1 || dbType == DatabaseType.GRAPH) {
                     // generate response without referenced nodes
                     response = new ResponseTrieData(key, value, dbType);
                 } else {
@@ -89,7 +102,11 @@ public final class RequestTrieDataHandler extends Handler {
                     Map<ByteArrayWrapper, byte[]> referencedNodes = Collections.emptyMap();
                     try {
                         // determine if the node can be expanded
-                        referencedNodes = chain.getReferencedTrieNodes(value, limit, dbType);
+                        if (dbType == DatabaseType.STORAGE) {
+                            referencedNodes = chain.getReferencedStorageNodes(key.toBytes(), value, limit);
+                        } else {
+                            referencedNodes = chain.getReferencedTrieNodes(value, limit, dbType);
+                        }
                     } catch (Exception e) {
                         this.log.error("<req-trie reference retrieval failed>", e);
                     }
@@ -113,4 +130,31 @@ public final class RequestTrieDataHandler extends Handler {
             }
         }
     }
+
+    /** Replies with the details of the contracts with addresses starting from the given one. */
+    private void sendContractDetails(int peerId, String displayId, byte[] from, int limit) {
+        int count = limit == 0 ? TRIE_DATA_REQUEST_MAXIMUM_BATCH_SIZE : Math.min(limit, TRIE_DATA_REQUEST_MAXIMUM_BATCH_SIZE);
+
+        Map<ByteArrayWrapper, byte[]> details = Collections.emptyMap();
+        try {
+            details = chain.getContractDetails(from, count);
+        } catch (Exception e) {
+            this.log.error("<req-trie details retrieval failed>", e);
+        }
+
+        Iterator<Map.Entry<ByteArrayWrapper, byte[]>> iterator = details.entrySet().iterator();
+        if (iterator.hasNext()) {
+            Map.Entry<ByteArrayWrapper, byte[]> first = iterator.next();
+            Map<ByteArrayWrapper, byte[]> following = new HashMap<>();
+            while (iterator.hasNext()) {
+                Map.Entry<ByteArrayWrapper, byte[]> entry = iterator.next();
+                following.put(entry.getKey(), entry.getValue());
+            }
+
+            this.p2p.send(
+                    peerId,
+                    displayId,
+                    new ResponseTrieData(first.getKey(), first.getValue(), following, DatabaseType.DETAILS));
+        }
+    }
 }
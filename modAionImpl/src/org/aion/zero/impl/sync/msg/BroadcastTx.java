@@ -38,7 +38,7 @@ public final class BroadcastTx extends Msg {
     /* return the encodedData of the Transaction list, the caller function need to cast the return byte[] array
      */
     public static List<byte[]> decode(final byte[] _msgBytes) {
-        RLPList paramsList = (RLPList) RLP.decode2(_msgBytes).get(0);
+        RLPList paramsList = (RLPList) RLP.decode2SharedList(_msgBytes).get(0);
         List<byte[]> txl = new ArrayList<>();
         for (RLPElement aParamsList : paramsList) {
             RLPList rlpData = ((RLPList) aParamsList);
@@ -24,8 +24,9 @@ public final class ResBlocksBodies extends Msg {
     }
 
     public static ResBlocksBodies decode(final byte[] _msgBytes) {
-        RLPList paramsList = (RLPList) RLP.decode2(_msgBytes).get(0);
-        List<byte[]> blocksBodies = new ArrayList<>();
+        // only the encoding of each body is copied
+        RLPList paramsList = (RLPList) RLP.decode2SharedList(_msgBytes).get(0);
+        List<byte[]> blocksBodies = new ArrayList<>(paramsList.size());
         for (RLPElement aParamsList : paramsList) {
             RLPList rlpData = ((RLPList) aParamsList);
             blocksBodies.add(rlpData.getRLPData());
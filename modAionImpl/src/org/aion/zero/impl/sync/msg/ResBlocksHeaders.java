@@ -27,7 +27,7 @@ public final class ResBlocksHeaders extends Msg {
         if (_msgBytes == null || _msgBytes.length == 0) return null;
         else {
             try {
-                RLPList list = (RLPList) RLP.decode2(_msgBytes).get(0);
+                RLPList list = (RLPList) RLP.decode2SharedList(_msgBytes).get(0);
                 List<BlockHeader> blockHeaders = new ArrayList<>();
                 for (RLPElement aList : list) {
                     blockHeaders.add(BlockUtil.newHeaderFromUnsafeSource((RLPList) aList));
@@ -9,7 +9,7 @@ import org.aion.p2p.Msg;
 import org.aion.p2p.Ver;
 import org.aion.rlp.RLP;
 import org.aion.rlp.RLPElement;
-import org.aion.rlp.RLPList;
+import org.aion.rlp.SharedRLPList;
 import org.aion.zero.impl.sync.Act;
 import org.aion.zero.impl.types.BlockUtil;
 
@@ -51,17 +51,21 @@ public final class ResponseBlocks extends Msg {
         if (message == null || message.length == 0) {
             return null;
         } else {
-            RLPList list = RLP.decode2(message);
-            if (list.get(0) instanceof RLPList) {
-                list = (RLPList) list.get(0);
+            // the blocks are decoded in place instead of being copied and decoded again
+            SharedRLPList list = RLP.decode2SharedList(message);
+            if (list.get(0) instanceof SharedRLPList) {
+                list = (SharedRLPList) list.get(0);
             } else {
                 return null;
             }
 
-            List<Block> blocks = new ArrayList<>();
+            List<Block> blocks = new ArrayList<>(list.size());
             Block current;
             for (RLPElement encoded : list) {
-                current = BlockUtil.newBlockFromRlp(encoded.getRLPData());
+                current =
+                        encoded instanceof SharedRLPList
+                                ? BlockUtil.newBlockFromSharedRlpList((SharedRLPList) encoded)
+                                : BlockUtil.newBlockFromRlp(encoded.getRLPData());
                 if (current == null) {
                     return null;
                 } else {
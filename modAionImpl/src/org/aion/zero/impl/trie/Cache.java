@@ -1,45 +1,89 @@
 package org.aion.zero.impl.trie;
 
 import static org.aion.rlp.Value.fromRlpEncoded;
-import static org.aion.util.types.ByteArrayWrapper.wrap;
 
 import java.util.ArrayList;
-import java.util.Arrays;
+import java.util.Collections;
 import java.util.HashMap;
-import java.util.HashSet;
 import java.util.Iterator;
-import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Optional;
+import java.util.Queue;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
 import org.aion.crypto.HashUtil;
 import org.aion.db.impl.ByteArrayKeyValueStore;
 import org.aion.log.AionLoggerFactory;
 import org.aion.log.LogEnum;
 import org.aion.rlp.Value;
-import org.aion.util.types.ByteArrayWrapper;
+import org.aion.util.types.HashKey;
 import org.slf4j.Logger;
 
-/** Cache class */
+/**
+ * Node cache used by the trie.
+ *
+ * <p>Reads are lock-free and may run concurrently with a writer. Updates ({@link #put(Object)},
+ * {@link #markRemoved(byte[])}) and {@link #commit(boolean)} are expected to be serialized by the
+ * owning trie.
+ *
+ * <p>Dirty nodes are pinned in memory until they are committed. Clean nodes (loaded from the
+ * database or already committed) are accounted by their encoded size and evicted in insertion
+ * order once the configured limit is exceeded.
+ */
 public class Cache {
 
     private static final Logger LOG = AionLoggerFactory.getLogger(LogEnum.DB.name());
 
+    /** Used when no limit is set for the clean nodes kept in memory. */
+    public static final long UNBOUNDED = Long.MAX_VALUE;
+
     private ByteArrayKeyValueStore dataSource;
-    private Map<ByteArrayWrapper, Node> nodes = new LinkedHashMap<>();
-    private Set<ByteArrayWrapper> removedNodes = new HashSet<>();
-    private boolean isDirty;
+    private Map<HashKey, Node> nodes = new ConcurrentHashMap<>();
+    private Set<HashKey> removedNodes = ConcurrentHashMap.newKeySet();
+    private volatile boolean isDirty;
+
+    // size-bounded tracking of clean nodes
+    private final long maxCleanBytes;
+    private final Queue<CleanEntry> cleanQueue = new ConcurrentLinkedQueue<>();
+    private final AtomicLong cleanBytes = new AtomicLong(0);
+
+    // metrics
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
 
     public Cache(ByteArrayKeyValueStore dataSource) {
+        this(dataSource, UNBOUNDED);
+    }
+
+    /**
+     * @param dataSource the database backing this cache
+     * @param maxCleanBytes the maximum number of bytes used by clean nodes before they start being
+     *     evicted; dirty nodes are not included in this limit
+     */
+    public Cache(ByteArrayKeyValueStore dataSource, long maxCleanBytes) {
+        if (maxCleanBytes <= 0) {
+            throw new IllegalArgumentException("The cache size must be positive.");
+        }
         this.dataSource = dataSource;
+        this.maxCleanBytes = maxCleanBytes;
     }
 
     public synchronized void markRemoved(byte[] key) {
-        ByteArrayWrapper keyW = ByteArrayWrapper.wrap(key);
-        removedNodes.add(keyW);
-        nodes.remove(keyW);
+        // only the hashes of the nodes are stored, other references are embedded in their parent
+        if (key.length == HashKey.LENGTH) {
+            markRemoved(HashKey.wrap(key));
+        }
+    }
+
+    synchronized void markRemoved(HashKey key) {
+        removedNodes.add(key);
+        nodes.remove(key);
     }
 
     /**
@@ -52,31 +96,58 @@ public class Cache {
         Value value = new Value(o);
         byte[] enc = value.encode();
         if (enc.length >= 32) {
-            byte[] sha = HashUtil.h256(value.encode());
-            ByteArrayWrapper key = wrap(sha);
-            this.nodes.put(key, new Node(value, true));
-            this.removedNodes.remove(key);
-            this.isDirty = true;
+            byte[] sha = HashUtil.h256(enc);
+            putNode(HashKey.wrap(sha), new Node(value, true));
 
             return sha;
         }
         return value;
     }
 
-    public synchronized Value get(byte[] key) {
+    /** Adds a dirty node computed outside this cache (see {@link StagedCache}). */
+    synchronized void putNode(HashKey key, Node node) {
+        this.nodes.put(key, node);
+        this.removedNodes.remove(key);
+        this.isDirty = true;
+    }
+
+    /** Adds a clean node that is already stored in the database (see {@link TrieImpl#deserialize}). */
+    synchronized void putCleanNode(HashKey key, Node node) {
+        if (this.nodes.put(key, node) == null) {
+            trackClean(key, node, node.getValue().encode().length);
+        }
+    }
 
-        ByteArrayWrapper wrappedKey = wrap(key);
-        Node node = nodes.get(wrappedKey);
-        if (node != null) {
-            // cachehits++;
-            return node.getValue();
+    /**
+     * Returns the node with the given key, loading it from the database if it is not in memory.
+     *
+     * @implNote Runs without the cache lock, so a read may race with a commit that prunes the same
+     *     node and add it back to memory after it was deleted from the database. This is benign: the
+     *     key of a node is the hash of its encoding, so the loaded node is always correct for its
+     *     key, and it is added as a clean node, which {@link #commit(boolean)} never writes back and
+     *     the size limit eventually evicts. A node added by a writer in the meantime is never
+     *     replaced, since the loaded node is only added if the key is absent.
+     */
+    public Value get(byte[] key) {
+        // only node hashes can be held in memory
+        HashKey wrappedKey = key.length == HashKey.LENGTH ? HashKey.wrap(key) : null;
+        if (wrappedKey != null) {
+            Node node = nodes.get(wrappedKey);
+            if (node != null) {
+                hits.increment();
+                return node.getValue();
+            }
         }
+        misses.increment();
         if (this.dataSource != null) {
             Optional<byte[]> data = this.dataSource.get(key);
             if (data.isPresent()) {
-                // dbhits++;
                 Value val = fromRlpEncoded(data.get());
-                nodes.put(wrappedKey, new Node(val, false));
+                Node loaded = new Node(val, false);
+                // a concurrent writer may have added the same node in the meantime
+                if (wrappedKey != null && nodes.putIfAbsent(wrappedKey, loaded) == null) {
+                    trackClean(wrappedKey, loaded, data.get().length);
+                }
                 return val;
             }
         }
@@ -89,81 +160,56 @@ public class Cache {
         if ((dataSource == null) || !this.isDirty) {
             // clear cache when flush requested
             if (flushCache) {
-                this.nodes.clear();
+                clearNodes();
             }
             return;
         }
 
-        // long start = System.nanoTime();
-        // int batchMemorySize = 0;
         Map<byte[], byte[]> batch = new HashMap<>();
         List<byte[]> deleteBatch = new ArrayList<>();
-        for (ByteArrayWrapper nodeKey : this.nodes.keySet()) {
-            Node node = this.nodes.get(nodeKey);
-
-            if (node == null || node.isDirty()) {
-                byte[] value;
-                if (node != null) {
-                    node.setDirty(false);
-                    value = node.getValue().encode();
-                } else {
-                    value = null;
-                }
-
-                byte[] key = nodeKey.toBytes();
+        List<Entry<HashKey, Node>> committed = new ArrayList<>();
+        for (Entry<HashKey, Node> entry : this.nodes.entrySet()) {
+            Node node = entry.getValue();
 
-                batch.put(key, value);
-                // batchMemorySize += length(key, value);
+            if (node.isDirty()) {
+                batch.put(entry.getKey().toBytes(), node.getValue().encode());
+                committed.add(entry);
             }
         }
-        for (ByteArrayWrapper removedNode : removedNodes) {
+        for (HashKey removedNode : removedNodes) {
             deleteBatch.add(removedNode.toBytes());
         }
 
         this.dataSource.putBatch(batch);
         this.dataSource.deleteBatch(deleteBatch);
         this.isDirty = false;
+        this.removedNodes.clear();
+
         if (flushCache) {
-            this.nodes.clear();
+            clearNodes();
+        } else {
+            // the committed nodes are now clean and can be evicted
+            for (Entry<HashKey, Node> entry : committed) {
+                Node node = entry.getValue();
+                node.setDirty(false);
+                trackClean(entry.getKey(), node, node.getValue().encode().length);
+            }
         }
-        this.removedNodes.clear();
     }
 
-    // not used
-    //    public synchronized void undo() {
-    //        this.nodes.entrySet().removeIf(entry -> entry.getValue().isDirty());
-    //        this.isDirty = false;
-    //    }
-
-    public synchronized boolean isDirty() {
+    public boolean isDirty() {
         return isDirty;
     }
 
-    public synchronized Map<ByteArrayWrapper, Node> getNodes() {
-        return nodes;
+    /** @return a read-only view of the nodes currently held in memory */
+    public Map<HashKey, Node> getNodes() {
+        return Collections.unmodifiableMap(nodes);
     }
 
     public synchronized ByteArrayKeyValueStore getDb() {
         return dataSource;
     }
 
-    // not used
-    //    public String cacheDump() {
-    //        StringBuilder cacheDump = new StringBuilder();
-    //        for (ByteArrayWrapper key : nodes.keySet()) {
-    //            Node node = nodes.get(key);
-    //            if (node.getValue() != null) {
-    //                cacheDump
-    //                        .append(key.toString())
-    //                        .append(" : ")
-    //                        .append(node.getValue().toString())
-    //                        .append("\n");
-    //            }
-    //        }
-    //
-    //        return cacheDump.toString();
-    //    }
-
     @SuppressWarnings("OptionalGetWithoutIsPresent")
     public synchronized void setDB(ByteArrayKeyValueStore kvds) {
         if (this.dataSource == kvds) {
@@ -172,12 +218,10 @@ public class Cache {
 
         Map<byte[], byte[]> rows = new HashMap<>();
         if (this.dataSource == null) {
-            for (ByteArrayWrapper key : nodes.keySet()) {
-                Node node = nodes.get(key);
-                if (node == null) {
-                    rows.put(key.toBytes(), null);
-                } else if (!node.isDirty()) {
-                    rows.put(key.toBytes(), node.getValue().encode());
+            for (Entry<HashKey, Node> entry : nodes.entrySet()) {
+                Node node = entry.getValue();
+                if (!node.isDirty()) {
+                    rows.put(entry.getKey().toBytes(), node.getValue().encode());
                 }
             }
         } else {
@@ -202,6 +246,27 @@ public class Cache {
         return nodes.size();
     }
 
+    /** @return the number of bytes currently accounted for clean nodes */
+    public long getCleanBytes() {
+        return cleanBytes.get();
+    }
+
+    public long getMaxCleanBytes() {
+        return maxCleanBytes;
+    }
+
+    public long getHits() {
+        return hits.sum();
+    }
+
+    public long getMisses() {
+        return misses.sum();
+    }
+
+    public long getEvictions() {
+        return evictions.sum();
+    }
+
     /**
      * Returns a copy of this cache.
      *
@@ -211,37 +276,71 @@ public class Cache {
      *
      * @return A copy of this cache.
      */
-    public Cache copy() {
-        Cache cacheCopy = new Cache(this.dataSource);
+    public synchronized Cache copy() {
+        Cache cacheCopy = new Cache(this.dataSource, this.maxCleanBytes);
         cacheCopy.isDirty = this.isDirty;
-        cacheCopy.nodes = copyOfNodes();
-        cacheCopy.removedNodes = copyOfRemovedNodes();
+        copyNodesInto(cacheCopy);
+        cacheCopy.removedNodes.addAll(this.removedNodes);
         return cacheCopy;
     }
 
-    private Map<ByteArrayWrapper, Node> copyOfNodes() {
-        if (this.nodes == null) {
-            return null;
+    /** Adds copies of all the nodes held by this cache to the given cache. */
+    synchronized void copyNodesInto(Cache target) {
+        for (Entry<HashKey, Node> entry : this.nodes.entrySet()) {
+            Node nodeCopy = entry.getValue().copy();
+            target.nodes.put(entry.getKey(), nodeCopy);
+            if (!nodeCopy.isDirty()) {
+                target.trackClean(
+                        entry.getKey(), nodeCopy, nodeCopy.getValue().encode().length);
+            }
         }
+    }
 
-        Map<ByteArrayWrapper, Node> nodesCopy = new HashMap<>();
-        for (Entry<ByteArrayWrapper, Node> nodesEntry : this.nodes.entrySet()) {
-            nodesCopy.put(
-                    nodesEntry.getKey(),
-                    (nodesEntry.getValue() == null) ? null : nodesEntry.getValue().copy());
+    /**
+     * Accounts for a clean node and evicts the oldest clean nodes if the size limit is exceeded.
+     *
+     * @implNote Entries that were already removed or replaced are discarded when they reach the
+     *     head of the queue, so the accounted size may briefly include nodes no longer in memory.
+     */
+    private void trackClean(HashKey key, Node node, int encodedSize) {
+        if (maxCleanBytes == UNBOUNDED) {
+            return;
+        }
+
+        long size = (long) encodedSize + HashKey.LENGTH;
+        cleanQueue.add(new CleanEntry(key, node, size));
+        long total = cleanBytes.addAndGet(size);
+
+        while (total > maxCleanBytes) {
+            CleanEntry oldest = cleanQueue.poll();
+            if (oldest == null) {
+                break;
+            }
+            total = cleanBytes.addAndGet(-oldest.size);
+            // dirty nodes are pinned until commit
+            if (!oldest.node.isDirty() && nodes.remove(oldest.key, oldest.node)) {
+                evictions.increment();
+            }
         }
-        return nodesCopy;
     }
 
-    private Set<ByteArrayWrapper> copyOfRemovedNodes() {
-        if (this.removedNodes == null) {
-            return null;
+    private void clearNodes() {
+        nodes.clear();
+        CleanEntry entry;
+        while ((entry = cleanQueue.poll()) != null) {
+            cleanBytes.addAndGet(-entry.size);
         }
+    }
+
+    private static final class CleanEntry {
+        private final HashKey key;
+        private final Node node;
+        private final long size;
 
-        Set<ByteArrayWrapper> removedNodesCopy = new HashSet<>();
-        for (ByteArrayWrapper removedNode : this.removedNodes) {
-            removedNodesCopy.add(removedNode);
+        private CleanEntry(HashKey key, Node node, long size) {
+            this.key = key;
+            this.node = node;
+            this.size = size;
         }
-        return removedNodesCopy;
     }
 }
@@ -36,7 +36,7 @@ public class Node {
 
     /* RLP encoded value of the Trie-node */
     private final Value value;
-    private boolean dirty;
+    private volatile boolean dirty;
 
     public Node(Value val) {
         this(val, false);
@@ -3,7 +3,10 @@ package org.aion.zero.impl.trie;
 import static org.aion.crypto.HashUtil.h256;
 
 import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
 import org.aion.db.impl.ByteArrayKeyValueStore;
+import org.aion.util.types.ByteArrayWrapper;
 
 public class SecureTrie extends TrieImpl implements Trie {
 
@@ -34,6 +37,15 @@ public class SecureTrie extends TrieImpl implements Trie {
         super.delete(h256(key));
     }
 
+    @Override
+    public void updateBatch(Map<ByteArrayWrapper, byte[]> changes) {
+        Map<ByteArrayWrapper, byte[]> hashed = new LinkedHashMap<>();
+        for (Map.Entry<ByteArrayWrapper, byte[]> entry : changes.entrySet()) {
+            hashed.put(ByteArrayWrapper.wrap(h256(entry.getKey().toBytes())), entry.getValue());
+        }
+        super.updateBatch(hashed);
+    }
+
     /**
      * Returns a copy of this trie.
      *
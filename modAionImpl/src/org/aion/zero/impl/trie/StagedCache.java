@@ -0,0 +1,90 @@
+package org.aion.zero.impl.trie;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import org.aion.crypto.HashUtil;
+import org.aion.rlp.Value;
+import org.aion.util.types.HashKey;
+
+/**
+ * Cache used to update a subtree of a trie in isolation from other threads. Nodes that are not
+ * staged locally are read through to the parent cache. All changes are recorded in order so that
+ * they can be replayed on the parent cache once the subtree update is complete.
+ *
+ * <p>Instances are not thread-safe and must be used by a single thread.
+ */
+final class StagedCache extends Cache {
+
+    private final Cache parent;
+    private final Map<HashKey, Node> staged = new HashMap<>();
+    private final List<Change> changes = new ArrayList<>();
+
+    StagedCache(Cache parent) {
+        super(null);
+        this.parent = parent;
+    }
+
+    @Override
+    public void markRemoved(byte[] key) {
+        // only the hashes of the nodes are stored, other references are embedded in their parent
+        if (key.length == HashKey.LENGTH) {
+            markRemoved(HashKey.wrap(key));
+        }
+    }
+
+    @Override
+    void markRemoved(HashKey key) {
+        staged.remove(key);
+        changes.add(new Change(key, null));
+    }
+
+    @Override
+    public Object put(Object o) {
+        Value value = new Value(o);
+        byte[] enc = value.encode();
+        if (enc.length >= 32) {
+            byte[] sha = HashUtil.h256(enc);
+            HashKey key = HashKey.wrap(sha);
+            Node node = new Node(value, true);
+            staged.put(key, node);
+            changes.add(new Change(key, node));
+
+            return sha;
+        }
+        return value;
+    }
+
+    @Override
+    public Value get(byte[] key) {
+        if (key.length == HashKey.LENGTH) {
+            Node node = staged.get(HashKey.wrap(key));
+            if (node != null) {
+                return node.getValue();
+            }
+        }
+        return parent.get(key);
+    }
+
+    /** Replays all the recorded changes on the parent cache in the order they were made. */
+    void applyToParent() {
+        for (Change change : changes) {
+            if (change.node == null) {
+                parent.markRemoved(change.key);
+            } else {
+                parent.putNode(change.key, change.node);
+            }
+        }
+    }
+
+    private static final class Change {
+        private final HashKey key;
+        private final Node node;
+
+        private Change(HashKey key, Node node) {
+            this.key = key;
+            this.node = node;
+        }
+    }
+}
@@ -34,6 +34,14 @@ public interface Trie {
      */
     void delete(byte[] key);
 
+    /**
+     * Applies a set of updates and deletions to the trie.
+     *
+     * @param changes the keys to be updated mapped to their new values; keys mapped to an empty
+     *     value are deleted
+     */
+    void updateBatch(Map<ByteArrayWrapper, byte[]> changes);
+
     /**
      * Returns a SHA-3 hash from the top node of the trie
      *
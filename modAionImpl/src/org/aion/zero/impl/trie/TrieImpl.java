@@ -6,8 +6,8 @@ import static org.aion.rlp.CompactEncoder.hasTerminator;
 import static org.aion.rlp.CompactEncoder.packNibbles;
 import static org.aion.rlp.CompactEncoder.unpackToNibbles;
 import static org.aion.rlp.RLP.calcElementPrefixSize;
+import static org.aion.util.bytes.ByteUtil.EMPTY_BYTE_ARRAY;
 import static org.aion.util.bytes.ByteUtil.matchingNibbleLength;
-import static org.aion.util.types.ByteArrayWrapper.wrap;
 import static org.spongycastle.util.Arrays.concatenate;
 
 import com.google.common.annotations.VisibleForTesting;
@@ -16,11 +16,16 @@ import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.ObjectInputStream;
 import java.io.ObjectOutputStream;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Deque;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.function.Consumer;
 import org.aion.base.ConstantUtil;
 import org.aion.crypto.HashUtil;
 import org.aion.db.impl.ByteArrayKeyValueDatabase;
@@ -31,6 +36,7 @@ import org.aion.rlp.RLPList;
 import org.aion.rlp.Value;
 import org.aion.util.conversions.Hex;
 import org.aion.util.types.ByteArrayWrapper;
+import org.aion.util.types.HashKey;
 import org.aion.zero.impl.trie.scan.CollectFullSetOfNodes;
 import org.aion.zero.impl.trie.scan.CollectMappings;
 import org.aion.zero.impl.trie.scan.CountNodes;
@@ -68,12 +74,18 @@ public class TrieImpl implements Trie {
     private static final byte PAIR_SIZE = 2;
     private static final byte LIST_SIZE = 17;
     private static final int MAX_SIZE = 20;
+    /** Minimum number of changes in a batch for the subtrees to be updated in parallel. */
+    private static final int PARALLEL_UPDATE_THRESHOLD = 64;
+
+    private static final ForkJoinPool UPDATE_POOL =
+            new ForkJoinPool(Runtime.getRuntime().availableProcessors());
 
     // private Object prevRoot;
-    private Object root;
+    private volatile Object root;
     private Cache cache;
 
     private boolean pruningEnabled;
+    private boolean parallelUpdates;
 
     public TrieImpl(ByteArrayKeyValueStore db) {
         this(db, "");
@@ -145,19 +157,32 @@ public class TrieImpl implements Trie {
         return this;
     }
 
+    public boolean isParallelUpdatesEnabled() {
+        return parallelUpdates;
+    }
+
+    public TrieImpl withParallelUpdates(boolean parallelUpdates) {
+        this.parallelUpdates = parallelUpdates;
+        return this;
+    }
+
     /** Retrieve a value from a key as String. */
     public byte[] get(String key) {
         return this.get(key.getBytes());
     }
 
+    /**
+     * Retrieve a value from a key.
+     *
+     * @implNote Reads are not synchronized with updates. They traverse the trie from the root
+     *     present at the start of the call and rely on the cache being safe for concurrent reads.
+     */
     @Override
     public byte[] get(byte[] key) {
-        synchronized (cache) {
-            byte[] k = binToNibbles(key);
-            Value c = new Value(this.get(this.root, k));
+        byte[] k = binToNibbles(key);
+        Value c = new Value(this.get(this.root, k));
 
-            return c.asBytes();
-        }
+        return c.asBytes();
     }
 
     /** Insert key/value pair into trie. */
@@ -180,6 +205,10 @@ public class TrieImpl implements Trie {
             throw new IllegalArgumentException("The value should not be empty.");
         }
 
+        updateUnchecked(key, value);
+    }
+
+    private void updateUnchecked(byte[] key, byte[] value) {
         byte[] k = binToNibbles(key);
 
         synchronized (cache) {
@@ -204,6 +233,10 @@ public class TrieImpl implements Trie {
 
     @Override
     public void delete(byte[] key) {
+        deleteUnchecked(key);
+    }
+
+    private void deleteUnchecked(byte[] key) {
         synchronized (cache) {
             byte[] k = binToNibbles(key);
 
@@ -215,6 +248,125 @@ public class TrieImpl implements Trie {
         }
     }
 
+    /**
+     * Applies all the given changes to the trie. Entries with an empty value are deleted.
+     *
+     * <p>When parallel updates are enabled and the root is a branch node, the changes are grouped
+     * by the first nibble of their key and each affected subtree is rebuilt on a separate fork-join
+     * task, including the RLP encoding and hashing of its new nodes. The staged nodes are then added
+     * to the cache in nibble order, so the outcome does not depend on thread scheduling.
+     */
+    @Override
+    public void updateBatch(Map<ByteArrayWrapper, byte[]> changes) {
+        synchronized (cache) {
+            if (parallelUpdates
+                    && changes.size() >= PARALLEL_UPDATE_THRESHOLD
+                    && updateSubtreesInParallel(changes)) {
+                return;
+            }
+
+            // not calling the public methods to avoid re-hashing the keys in the secure trie
+            for (Map.Entry<ByteArrayWrapper, byte[]> entry : changes.entrySet()) {
+                byte[] value = entry.getValue();
+                if (value == null || value.length == 0) {
+                    deleteUnchecked(entry.getKey().toBytes());
+                } else {
+                    updateUnchecked(entry.getKey().toBytes(), value);
+                }
+            }
+        }
+    }
+
+    /**
+     * Updates the subtrees below a branch root in parallel.
+     *
+     * @return {@code false} if the changes could not be applied in parallel, in which case the trie
+     *     is left unchanged
+     */
+    private boolean updateSubtreesInParallel(Map<ByteArrayWrapper, byte[]> changes) {
+        if (isEmptyNode(root)) {
+            return false;
+        }
+        Value rootNode = getNode(root);
+        if (rootNode == null || rootNode.length() != LIST_SIZE) {
+            return false;
+        }
+
+        // group the changes by the first nibble of their key
+        List<List<Map.Entry<byte[], byte[]>>> groups = new ArrayList<>(LIST_SIZE - 1);
+        for (int i = 0; i < LIST_SIZE - 1; i++) {
+            groups.add(new ArrayList<>());
+        }
+        for (Map.Entry<ByteArrayWrapper, byte[]> entry : changes.entrySet()) {
+            byte[] k = binToNibbles(entry.getKey().toBytes());
+            if (k[0] == LIST_SIZE - 1) {
+                // the change targets the value of the root itself
+                return false;
+            }
+            byte[] value = entry.getValue() == null ? EMPTY_BYTE_ARRAY : entry.getValue();
+            groups.get(k[0]).add(Map.entry(copyOfRange(k, 1, k.length), value));
+        }
+
+        Object[] newNode = copyNode(rootNode);
+        List<ForkJoinTask<TrieImpl>> tasks = new ArrayList<>(LIST_SIZE - 1);
+        for (int i = 0; i < LIST_SIZE - 1; i++) {
+            List<Map.Entry<byte[], byte[]>> group = groups.get(i);
+            if (group.isEmpty()) {
+                tasks.add(null);
+            } else {
+                Object child = newNode[i];
+                tasks.add(UPDATE_POOL.submit(() -> updateSubtree(child, group)));
+            }
+        }
+
+        // merge the results in nibble order
+        List<TrieImpl> subtrees = new ArrayList<>(LIST_SIZE - 1);
+        int nonEmpty = 0;
+        for (int i = 0; i < LIST_SIZE - 1; i++) {
+            ForkJoinTask<TrieImpl> task = tasks.get(i);
+            if (task != null) {
+                TrieImpl subtree = task.join();
+                subtrees.add(subtree);
+                newNode[i] = subtree.root;
+            }
+            if (!isEmptyNode(newNode[i])) {
+                nonEmpty++;
+            }
+        }
+        if (!isEmptyNode(newNode[LIST_SIZE - 1])) {
+            nonEmpty++;
+        }
+        if (nonEmpty < 2) {
+            // the branch collapses into a different node type
+            return false;
+        }
+
+        for (TrieImpl subtree : subtrees) {
+            ((StagedCache) subtree.cache).applyToParent();
+        }
+        byte[] oldRootHash = HashUtil.h256(rootNode.encode());
+        Object newRoot = putToCache(newNode);
+        if (!(newRoot instanceof byte[]) || !Arrays.equals((byte[]) newRoot, oldRootHash)) {
+            markRemoved(oldRootHash);
+        }
+        this.root = newRoot;
+        return true;
+    }
+
+    private TrieImpl updateSubtree(Object child, List<Map.Entry<byte[], byte[]>> changes) {
+        TrieImpl subtree = new TrieImpl(new StagedCache(cache), child);
+        subtree.pruningEnabled = this.pruningEnabled;
+        for (Map.Entry<byte[], byte[]> change : changes) {
+            byte[] value = change.getValue();
+            if (value.length == 0) {
+                subtree.root = subtree.delete(subtree.root, change.getKey());
+            } else {
+                subtree.root = subtree.insert(subtree.root, change.getKey(), value);
+            }
+        }
+        return subtree;
+    }
+
     @Override
     public byte[] getRootHash() {
         synchronized (cache) {
@@ -232,33 +384,31 @@ public class TrieImpl implements Trie {
     }
 
     private Object get(Object node, byte[] key) {
-        synchronized (cache) {
-            int keypos = 0;
-            while (key.length - keypos != 0 && !isEmptyNode(node)) {
-                Value currentNode = this.getNode(node);
-                if (currentNode == null) {
-                    return null;
-                }
+        int keypos = 0;
+        while (key.length - keypos != 0 && !isEmptyNode(node)) {
+            Value currentNode = this.getNode(node);
+            if (currentNode == null) {
+                return null;
+            }
 
-                if (currentNode.length() == PAIR_SIZE) {
-                    // Decode the key
-                    byte[] k = unpackToNibbles(currentNode.get(0).asBytes());
-                    Object v = currentNode.get(1).asObj();
+            if (currentNode.length() == PAIR_SIZE) {
+                // Decode the key
+                byte[] k = unpackToNibbles(currentNode.get(0).asBytes());
+                Object v = currentNode.get(1).asObj();
 
-                    if (key.length - keypos >= k.length
-                            && Arrays.equals(k, copyOfRange(key, keypos, k.length + keypos))) {
-                        node = v;
-                        keypos += k.length;
-                    } else {
-                        return "";
-                    }
+                if (key.length - keypos >= k.length
+                        && Arrays.equals(k, copyOfRange(key, keypos, k.length + keypos))) {
+                    node = v;
+                    keypos += k.length;
                 } else {
-                    node = currentNode.get(key[keypos]).asObj();
-                    keypos++;
+                    return "";
                 }
+            } else {
+                node = currentNode.get(key[keypos]).asObj();
+                keypos++;
             }
-            return node;
         }
+        return node;
     }
 
     /**
@@ -521,11 +671,11 @@ public class TrieImpl implements Trie {
     // Returns a copy of this trie
     public TrieImpl copy() {
         synchronized (cache) {
-            TrieImpl trie = new TrieImpl(this.cache.getDb(), this.root);
-            for (ByteArrayWrapper key : this.cache.getNodes().keySet()) {
-                Node node = this.cache.getNodes().get(key);
-                trie.cache.getNodes().put(key, node.copy());
-            }
+            TrieImpl trie =
+                    new TrieImpl(
+                            new Cache(this.cache.getDb(), this.cache.getMaxCleanBytes()),
+                            this.root);
+            this.cache.copyNodesInto(trie.cache);
             return trie;
         }
     }
@@ -694,14 +844,13 @@ public class TrieImpl implements Trie {
             RLPList valsList = (RLPList) rlpList.get(1);
             RLPItem root = (RLPItem) rlpList.get(2);
 
+            byte[] keys = keysElement.getRLPData();
             for (int i = 0; i < valsList.size(); ++i) {
 
                 byte[] val = valsList.get(i).getRLPData();
-                byte[] key = new byte[32];
 
                 Value value = Value.fromRlpEncoded(val);
-                System.arraycopy(keysElement.getRLPData(), i * 32, key, 0, 32);
-                cache.getNodes().put(wrap(key), new Node(value));
+                cache.putCleanNode(HashKey.wrap(keys, i * HashKey.LENGTH), new Node(value));
             }
 
             this.deserializeRoot(root.getRLPData());
@@ -711,20 +860,19 @@ public class TrieImpl implements Trie {
     public byte[] serialize() {
 
         synchronized (cache) {
-            Map<ByteArrayWrapper, Node> map = getCache().getNodes();
+            Map<HashKey, Node> map = getCache().getNodes();
 
             int keysTotalSize = 0;
             int valsTotalSize = 0;
 
-            Set<ByteArrayWrapper> keys = map.keySet();
-            for (ByteArrayWrapper key : keys) {
+            Set<HashKey> keys = map.keySet();
+            for (HashKey key : keys) {
                 Node node = map.get(key);
                 if (node == null) {
                     continue;
                 }
 
-                byte[] keyBytes = key.toBytes();
-                keysTotalSize += keyBytes.length;
+                keysTotalSize += HashKey.LENGTH;
 
                 byte[] valBytes = node.getValue().getData();
                 valsTotalSize += valBytes.length + calcElementPrefixSize(valBytes);
@@ -784,21 +932,15 @@ public class TrieImpl implements Trie {
 
             int k_1 = 0;
             int k_2 = 0;
-            for (ByteArrayWrapper key : keys) {
+            for (HashKey key : keys) {
                 Node node = map.get(key);
                 if (node == null) {
                     continue;
                 }
 
-                // TODO: make internal wrapper operation
-                System.arraycopy(
-                        key.toBytes(),
-                        0,
-                        rlpData,
-                        (listHeader.length + keysHeader.length + k_1),
-                        key.length());
+                key.writeTo(rlpData, listHeader.length + keysHeader.length + k_1);
 
-                k_1 += key.length();
+                k_1 += HashKey.LENGTH;
 
                 byte[] valBytes = RLP.encodeElement(node.getValue().getData());
 
@@ -967,6 +1109,55 @@ public class TrieImpl implements Trie {
         return collect.getNodes();
     }
 
+    /**
+     * Applies the given action to all the values stored in the trie with the given root. The nodes
+     * are visited depth first, which bounds the number of pending nodes by the depth of the trie.
+     *
+     * @param root the root hash of the trie to scan
+     * @param action the action applied to each stored value
+     * @throws RuntimeException when a node of the trie is missing from the database
+     */
+    public void scanValues(byte[] root, Consumer<byte[]> action) {
+        if (Arrays.equals(root, ConstantUtil.EMPTY_TRIE_HASH)) {
+            return;
+        }
+
+        synchronized (cache) {
+            Deque<Object> nodes = new ArrayDeque<>();
+            nodes.push(root);
+
+            while (!nodes.isEmpty()) {
+                Object reference = nodes.pop();
+                Value node = getNode(reference);
+                if (node == null) {
+                    throw new RuntimeException("Not found: " + Hex.toHexString(new Value(reference).asBytes()));
+                }
+
+                if (node.isList()) {
+                    if (node.length() == PAIR_SIZE) {
+                        if (hasTerminator(node.get(0).asBytes())) {
+                            action.accept(node.get(1).asBytes());
+                        } else {
+                            nodes.push(node.get(1).asObj());
+                        }
+                    } else {
+                        for (int j = 0; j < LIST_SIZE - 1; ++j) {
+                            Object child = node.get(j).asObj();
+                            if (!isEmptyNode(child)) {
+                                nodes.push(child);
+                            }
+                        }
+
+                        byte[] value = node.get(LIST_SIZE - 1).asBytes();
+                        if (value.length > 0) {
+                            action.accept(value);
+                        }
+                    }
+                }
+            }
+        }
+    }
+
     private void appendHashes(byte[] bytes, ArrayList<byte[]> hashes) {
         Value node;
 
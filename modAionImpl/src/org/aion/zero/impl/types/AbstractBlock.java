@@ -1,13 +1,12 @@
 package org.aion.zero.impl.types;
 
 import java.math.BigInteger;
-import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
 import java.util.concurrent.CopyOnWriteArrayList;
 import org.aion.base.AionTransaction;
 import org.aion.mcf.blockchain.Block;
-import org.aion.rlp.RLP;
+import org.aion.rlp.RLPListEncoder;
 import org.aion.util.types.ByteArrayWrapper;
 
 /** Abstract Block class. */
@@ -47,27 +46,23 @@ public abstract class AbstractBlock implements Block {
 
     @Override
     public byte[] getEncodedBody() {
-        List<byte[]> body = getBodyElements();
-        byte[][] elements = body.toArray(new byte[body.size()][]);
-        return RLP.encodeList(elements);
+        return new RLPListEncoder(1).addList(getTransactionsEncoder()).encode();
     }
 
-    List<byte[]> getBodyElements() {
-        byte[] transactions = getTransactionsEncoded();
-        List<byte[]> body = new ArrayList<>();
-        body.add(transactions);
-        return body;
+    /**
+     * Encodes the block with the given header, writing the header fields and the transactions
+     * directly into the block encoding.
+     */
+    byte[] encodeWithHeader(RLPListEncoder header) {
+        return new RLPListEncoder(2).addList(header).addList(getTransactionsEncoder()).encode();
     }
 
-    private byte[] getTransactionsEncoded() {
-
-        byte[][] transactionsEncoded = new byte[transactionsList.size()][];
-        int i = 0;
+    private RLPListEncoder getTransactionsEncoder() {
+        RLPListEncoder transactions = new RLPListEncoder(transactionsList.size());
         for (AionTransaction tx : transactionsList) {
-            transactionsEncoded[i] = tx.getEncoded();
-            ++i;
+            transactions.addEncoded(tx.getEncoded());
         }
-        return RLP.encodeList(transactionsEncoded);
+        return transactions;
     }
 
     @Override
@@ -17,6 +17,7 @@ import org.aion.mcf.blockchain.BlockHeader.Seal;
 import org.aion.rlp.RLP;
 import org.aion.rlp.RLPElement;
 import org.aion.rlp.RLPList;
+import org.aion.rlp.SharedRLPList;
 import org.aion.util.types.ByteArrayWrapper;
 import org.aion.zero.impl.trie.Trie;
 import org.aion.zero.impl.trie.TrieImpl;
@@ -54,26 +55,81 @@ public final class BlockUtil {
 
         // attempt decoding, return null if it fails
         try {
-            RLPList params = RLP.decode2(rlp);
-            RLPList block = (RLPList) params.get(0);
-            RLPList header = (RLPList) block.get(0);
-            List<AionTransaction> txs = parseTransactions((RLPList) block.get(1));
-            byte[] sealType = header.get(0).getRLPData();
-            if (sealType[0] == Seal.PROOF_OF_WORK.getSealId()) {
-                MiningBlockHeader miningHeader = MiningBlockHeader.Builder.newInstance().withRlpList(header).build();
-                return new MiningBlock(miningHeader, txs);
-            } else if (sealType[0] == Seal.PROOF_OF_STAKE.getSealId()) {
-                StakingBlockHeader stakingHeader = StakingBlockHeader.Builder.newInstance().withRlpList(header).build();
-                return new StakingBlock(stakingHeader, txs);
-            } else {
-                return null;
-            }
+            SharedRLPList params = RLP.decode2SharedList(rlp);
+            return newBlock((SharedRLPList) params.get(0));
         } catch (Exception e) {
             genLog.warn("Unable to decode block bytes " + Arrays.toString(rlp), e);
             return null;
         }
     }
 
+    /**
+     * Decodes the block encoded in the given range of the array or returns {@code null} if the
+     * range does not contain a valid block. Used when several blocks are read into the same array,
+     * to avoid copying each of them.
+     *
+     * @param data the array containing the block encoding
+     * @param offset the position of the block encoding in the array
+     * @param length the number of bytes of the block encoding
+     * @return a new instance of a block or {@code null} if the range does not contain a valid block
+     * @implNote Assumes the data is from a safe (internal) source.
+     */
+    public static Block newBlockFromRlp(byte[] data, int offset, int length) {
+        // return null when given empty bytes
+        if (data == null || length == 0) {
+            return null;
+        }
+
+        // attempt decoding, return null if it fails
+        try {
+            SharedRLPList params = RLP.decode2SharedList(data, offset, length);
+            return newBlock((SharedRLPList) params.get(0));
+        } catch (Exception e) {
+            genLog.warn("Unable to decode block bytes " + Arrays.toString(Arrays.copyOfRange(data, offset, offset + length)), e);
+            return null;
+        }
+    }
+
+    /**
+     * Decodes the given list into a new instance of a block or returns {@code null} if the list
+     * does not describe a valid block. Used when the block is part of a larger encoding, to avoid
+     * copying and decoding it again.
+     *
+     * @param rlpList an RLP list encoding block data, decoded with {@link
+     *     RLP#decode2SharedList(byte[])}
+     * @return a new instance of a block or {@code null} if the list does not describe a valid block
+     * @implNote Assumes the data is from a safe (internal) source.
+     */
+    public static Block newBlockFromSharedRlpList(SharedRLPList rlpList) {
+        // return null when given empty list
+        if (rlpList == null || rlpList.isEmpty()) {
+            return null;
+        }
+
+        // attempt decoding, return null if it fails
+        try {
+            return newBlock(rlpList);
+        } catch (Exception e) {
+            genLog.warn("Unable to decode block bytes " + Arrays.toString(rlpList.getRLPData()), e);
+            return null;
+        }
+    }
+
+    private static Block newBlock(SharedRLPList block) {
+        SharedRLPList header = (SharedRLPList) block.get(0);
+        List<AionTransaction> txs = parseTransactions((SharedRLPList) block.get(1));
+        byte[] sealType = header.get(0).getRLPData();
+        if (sealType[0] == Seal.PROOF_OF_WORK.getSealId()) {
+            MiningBlockHeader miningHeader = MiningBlockHeader.Builder.newInstance().withRlpList(header).build();
+            return new MiningBlock(miningHeader, txs);
+        } else if (sealType[0] == Seal.PROOF_OF_STAKE.getSealId()) {
+            StakingBlockHeader stakingHeader = StakingBlockHeader.Builder.newInstance().withRlpList(header).build();
+            return new StakingBlock(stakingHeader, txs);
+        } else {
+            return null;
+        }
+    }
+
     /**
      * Decodes the given encoding into a new instance of a block or returns {@code null} if the RLP
      * encoding does not describe a valid block.
@@ -131,8 +187,8 @@ public final class BlockUtil {
             return null;
         }
         try {
-            RLPList items = (RLPList) RLP.decode2(bodyBytes).get(0);
-            RLPList transactions = (RLPList) items.get(0);
+            SharedRLPList items = (SharedRLPList) RLP.decode2SharedList(bodyBytes).get(0);
+            SharedRLPList transactions = (SharedRLPList) items.get(0);
             List<AionTransaction> txs = parseTransactions(transactions);
             if (!BlockDetailsValidator.isValidTxTrieRoot(header.getTxTrieRoot(), txs, header.getNumber(), syncLog)) {
                 return null;
@@ -154,8 +210,8 @@ public final class BlockUtil {
         Objects.requireNonNull(bodyBytes);
 
         try {
-            RLPList items = (RLPList) RLP.decode2(bodyBytes).get(0);
-            RLPList transactions = (RLPList) items.get(0);
+            SharedRLPList items = (SharedRLPList) RLP.decode2SharedList(bodyBytes).get(0);
+            SharedRLPList transactions = (SharedRLPList) items.get(0);
             return calcTxTrieRootFromRLP(transactions);
         } catch (Exception e) {
             genLog.warn("Unable to decode block body=" + ByteArrayWrapper.wrap(bodyBytes), e);
@@ -203,12 +259,21 @@ public final class BlockUtil {
         }
     }
 
-    /** Decodes the give transactions. */
+    /**
+     * Decodes the give transactions.
+     *
+     * @implNote Transactions decoded with {@link RLP#decode2SharedList(byte[])} are read in place,
+     *     so that only their encoding and fields are copied.
+     */
     private static List<AionTransaction> parseTransactions(RLPList txTransactions) {
-        List<AionTransaction> transactionsList = new ArrayList<>();
+        List<AionTransaction> transactionsList = new ArrayList<>(txTransactions.size());
         for (int i = 0; i < txTransactions.size(); i++) {
             RLPElement transactionRaw = txTransactions.get(i);
-            transactionsList.add(TxUtil.decode(transactionRaw.getRLPData()));
+            if (transactionRaw instanceof SharedRLPList) {
+                transactionsList.add(TxUtil.decodeUsingRlpSharedList((SharedRLPList) transactionRaw));
+            } else {
+                transactionsList.add(TxUtil.decode(transactionRaw.getRLPData()));
+            }
         }
         return transactionsList;
     }
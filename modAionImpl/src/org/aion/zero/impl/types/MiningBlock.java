@@ -7,7 +7,6 @@ import java.util.Collections;
 import java.util.List;
 import org.aion.base.AionTransaction;
 import org.aion.mcf.blockchain.BlockHeader;
-import org.aion.rlp.RLP;
 import org.aion.types.AionAddress;
 import org.aion.util.bytes.ByteUtil;
 import org.aion.util.conversions.Hex;
@@ -392,13 +391,7 @@ public class MiningBlock extends AbstractBlock {
 
     @Override
     public byte[] getEncoded() {
-        byte[] header = this.header.getEncoded();
-
-        List<byte[]> block = getBodyElements();
-        block.add(0, header);
-        byte[][] elements = block.toArray(new byte[block.size()][]);
-
-        return RLP.encodeList(elements);
+        return encodeWithHeader(this.header.getEncoder());
     }
 
     @Override
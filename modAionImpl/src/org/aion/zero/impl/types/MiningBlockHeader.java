@@ -13,6 +13,7 @@ import org.aion.crypto.HashUtil;
 import org.aion.mcf.blockchain.BlockHeader;
 import org.aion.rlp.RLP;
 import org.aion.rlp.RLPList;
+import org.aion.rlp.RLPListEncoder;
 import org.aion.types.AionAddress;
 import org.aion.util.bytes.ByteUtil;
 import org.aion.util.types.AddressUtils;
@@ -426,7 +427,7 @@ public final class MiningBlockHeader implements BlockHeader {
                 throw new NullPointerException("rlpEncoded data can not be null");
             }
 
-            return withRlpList((RLPList) RLP.decode2(rlpEncoded).get(0));
+            return withRlpList((RLPList) RLP.decode2SharedList(rlpEncoded).get(0));
         }
 
         /**
@@ -774,37 +775,27 @@ public final class MiningBlockHeader implements BlockHeader {
 
     @Override
     public byte[] getEncoded() {
-        byte[] number = RLP.encodeBigInteger(BigInteger.valueOf(this.number));
-        byte[] parentHash = RLP.encodeElement(this.parentHash.toBytes());
-        byte[] coinbase = RLP.encodeElement(this.coinbase.toByteArray());
-        byte[] stateRoot = RLP.encodeElement(this.stateRoot);
-        byte[] txTrieRoot = RLP.encodeElement(this.txTrieRoot.toBytes());
-        byte[] receiptTrieRoot = RLP.encodeElement(this.receiptTrieRoot);
-        byte[] logsBloom = RLP.encodeElement(this.logsBloom);
-        byte[] difficulty = RLP.encodeElement(this.difficulty);
-        byte[] extraData = RLP.encodeElement(this.extraData);
-        byte[] energyConsumed = RLP.encodeBigInteger(BigInteger.valueOf(this.energyConsumed));
-        byte[] energyLimit = RLP.encodeBigInteger(BigInteger.valueOf(this.energyLimit));
-        byte[] timestamp = RLP.encodeBigInteger(BigInteger.valueOf(this.timestamp));
-        byte[] solution = RLP.encodeElement(this.solution);
-        byte[] nonce = RLP.encodeElement(this.nonce);
-
-        return RLP.encodeList(
-                rlpEncodedSealType,
-                number,
-                parentHash,
-                coinbase,
-                stateRoot,
-                txTrieRoot,
-                receiptTrieRoot,
-                logsBloom,
-                difficulty,
-                extraData,
-                energyConsumed,
-                energyLimit,
-                timestamp,
-                nonce,
-                solution);
+        return getEncoder().encode();
+    }
+
+    /** Returns an encoder of the header, which a block can write in place of its own encoding. */
+    RLPListEncoder getEncoder() {
+        return new RLPListEncoder(15)
+                .addEncoded(rlpEncodedSealType)
+                .addBigInteger(BigInteger.valueOf(this.number))
+                .addElement(this.parentHash.toBytes())
+                .addElement(this.coinbase.toByteArray())
+                .addElement(this.stateRoot)
+                .addElement(this.txTrieRoot.toBytes())
+                .addElement(this.receiptTrieRoot)
+                .addElement(this.logsBloom)
+                .addElement(this.difficulty)
+                .addElement(this.extraData)
+                .addBigInteger(BigInteger.valueOf(this.energyConsumed))
+                .addBigInteger(BigInteger.valueOf(this.energyLimit))
+                .addBigInteger(BigInteger.valueOf(this.timestamp))
+                .addElement(this.nonce)
+                .addElement(this.solution);
     }
 
     @Override
@@ -8,7 +8,6 @@ import java.util.Arrays;
 import java.util.List;
 import org.aion.base.AionTransaction;
 import org.aion.mcf.blockchain.BlockHeader;
-import org.aion.rlp.RLP;
 import org.aion.types.AionAddress;
 import org.aion.util.bytes.ByteUtil;
 import org.aion.util.conversions.Hex;
@@ -370,13 +369,7 @@ public class StakingBlock extends AbstractBlock {
     }
 
     public byte[] getEncoded() {
-        byte[] headerRlpEncoded = header.getEncoded();
-
-        List<byte[]> block = getBodyElements();
-        block.add(0, headerRlpEncoded);
-        byte[][] elements = block.toArray(new byte[block.size()][]);
-
-        return RLP.encodeList(elements);
+        return encodeWithHeader(header.getEncoder());
     }
 
     @Override
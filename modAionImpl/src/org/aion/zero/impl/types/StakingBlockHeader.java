@@ -3,10 +3,12 @@ package org.aion.zero.impl.types;
 import com.google.common.annotations.VisibleForTesting;
 import org.aion.base.ConstantUtil;
 import org.aion.crypto.HashUtil;
+import org.aion.crypto.ed25519.ECKeyEd25519;
 import org.aion.crypto.vrf.VRF_Ed25519;
 import org.aion.mcf.blockchain.BlockHeader;
 import org.aion.rlp.RLP;
 import org.aion.rlp.RLPList;
+import org.aion.rlp.RLPListEncoder;
 import org.aion.types.AionAddress;
 import org.aion.util.bytes.ByteUtil;
 
@@ -116,6 +118,9 @@ public class StakingBlockHeader  implements BlockHeader {
 
     private ByteArrayWrapper headerHash;
 
+    /** Set after a successful signature verification. */
+    private volatile boolean signatureVerified = false;
+
     public static final int SIG_LENGTH = 64;
     public static final int SEED_LENGTH = 64;
     public static final int PROOF_LENGTH = VRF_Ed25519.PROOF_BYTES;
@@ -147,38 +152,28 @@ public class StakingBlockHeader  implements BlockHeader {
 
     @Override
     public byte[] getEncoded() {
-        byte[] number = RLP.encodeBigInteger(BigInteger.valueOf(this.number));
-        byte[] parentHash = RLP.encodeElement(this.parentHash.toBytes());
-        byte[] coinbase = RLP.encodeElement(this.coinbase.toByteArray());
-        byte[] stateRoot = RLP.encodeElement(this.stateRoot);
-        byte[] txTrieRoot = RLP.encodeElement(this.txTrieRoot.toBytes());
-        byte[] receiptTrieRoot = RLP.encodeElement(this.receiptTrieRoot);
-        byte[] logsBloom = RLP.encodeElement(this.logsBloom);
-        byte[] difficulty = RLP.encodeElement(this.difficulty);
-        byte[] extraData = RLP.encodeElement(this.extraData);
-        byte[] energyConsumed = RLP.encodeBigInteger(BigInteger.valueOf(this.energyConsumed));
-        byte[] energyLimit = RLP.encodeBigInteger(BigInteger.valueOf(this.energyLimit));
-        byte[] timestamp = RLP.encodeBigInteger(BigInteger.valueOf(this.timestamp));
-        byte[] seedOrProof = RLP.encodeElement(this.seedOrProof);
-        byte[] signature = RLP.encodeElement(this.signature);
-        byte[] signingPublicKey = RLP.encodeElement(this.signingPublicKey);
-        return RLP.encodeList(
-                rlpEncodedSealType,
-                number,
-                parentHash,
-                coinbase,
-                stateRoot,
-                txTrieRoot,
-                receiptTrieRoot,
-                logsBloom,
-                difficulty,
-                extraData,
-                energyConsumed,
-                energyLimit,
-                timestamp,
-                seedOrProof,
-                signature,
-                signingPublicKey);
+        return getEncoder().encode();
+    }
+
+    /** Returns an encoder of the header, which a block can write in place of its own encoding. */
+    RLPListEncoder getEncoder() {
+        return new RLPListEncoder(16)
+                .addEncoded(rlpEncodedSealType)
+                .addBigInteger(BigInteger.valueOf(this.number))
+                .addElement(this.parentHash.toBytes())
+                .addElement(this.coinbase.toByteArray())
+                .addElement(this.stateRoot)
+                .addElement(this.txTrieRoot.toBytes())
+                .addElement(this.receiptTrieRoot)
+                .addElement(this.logsBloom)
+                .addElement(this.difficulty)
+                .addElement(this.extraData)
+                .addBigInteger(BigInteger.valueOf(this.energyConsumed))
+                .addBigInteger(BigInteger.valueOf(this.energyLimit))
+                .addBigInteger(BigInteger.valueOf(this.timestamp))
+                .addElement(this.seedOrProof)
+                .addElement(this.signature)
+                .addElement(this.signingPublicKey);
     }
 
 
@@ -206,6 +201,19 @@ public class StakingBlockHeader  implements BlockHeader {
         return mineHashBytes.clone();
     }
 
+    /**
+     * Verifies the signature of the mine hash with the signing public key. A successful
+     * verification is cached, so it is performed at most once per instance.
+     *
+     * @return {@code true} if the signature is valid, {@code false} otherwise
+     */
+    public boolean verifySignature() {
+        if (!signatureVerified) {
+            signatureVerified = ECKeyEd25519.verify(getMineHash(), signature, signingPublicKey);
+        }
+        return signatureVerified;
+    }
+
     /** Builder used to introduce blocks into system that come from unsafe sources */
     public static class Builder {
         protected byte[] parentHash;
@@ -533,7 +541,7 @@ public class StakingBlockHeader  implements BlockHeader {
                 throw new NullPointerException("rlpEncoded data can not be null");
             }
 
-            return withRlpList((RLPList) RLP.decode2(rlpEncoded).get(0));
+            return withRlpList((RLPList) RLP.decode2SharedList(rlpEncoded).get(0));
         }
 
         /**
@@ -1,7 +1,6 @@
 package org.aion.zero.impl.valid;
 
 import java.util.List;
-import org.aion.crypto.ed25519.ECKeyEd25519;
 import org.aion.mcf.blockchain.BlockHeader;
 import org.aion.util.bytes.ByteUtil;
 import org.aion.zero.impl.types.StakingBlockHeader;
@@ -17,11 +16,11 @@ public class SignatureRule implements BlockHeaderRule {
         }
 
         StakingBlockHeader stakingBlockHeader = (StakingBlockHeader) header;
-        byte[] mineHash = header.getMineHash();
-        byte[] pk = stakingBlockHeader.getSigningPublicKey();
-        byte[] sig = stakingBlockHeader.getSignature();
 
-        if (!ECKeyEd25519.verify(mineHash, sig, pk)) {
+        if (!stakingBlockHeader.verifySignature()) {
+            byte[] mineHash = header.getMineHash();
+            byte[] pk = stakingBlockHeader.getSigningPublicKey();
+            byte[] sig = stakingBlockHeader.getSignature();
             BlockHeaderValidatorUtil.addError(
                     formatError(mineHash, ByteUtil.merge(pk, sig)), this.getClass(), errors);
             return false;
@@ -9,7 +9,6 @@ import java.util.Collections;
 import java.util.Map;
 import org.aion.base.AionTransaction;
 import org.aion.crypto.ISignature;
-import org.aion.crypto.SignatureFac;
 import org.aion.log.LogEnum;
 import org.aion.util.types.DataWord;
 import org.aion.util.types.ByteArrayWrapper;
@@ -123,7 +122,7 @@ public class TXValidator {
         }
 
         try {
-            return SignatureFac.verify(hash, sig) ? TxResponse.SUCCESS : TxResponse.INVALID_TX_SIGNATURE;
+            return tx.verifySignature() ? TxResponse.SUCCESS : TxResponse.INVALID_TX_SIGNATURE;
         } catch (Exception ex) {
             ex.printStackTrace();
             return TxResponse.INVALID_TX_SIGNATURE;
@@ -14,6 +14,7 @@ import org.aion.mcf.db.InternalVmType;
 import org.aion.mcf.db.RepositoryCache;
 import org.aion.precompiled.ContractInfo;
 import org.aion.types.AionAddress;
+import org.aion.zero.impl.db.AionRepositoryCache;
 import org.aion.zero.impl.vm.fvm.FvmTransactionExecutor;
 import org.aion.zero.impl.vm.precompiled.PrecompiledTransactionExecutor;
 import org.aion.base.AionTxExecSummary;
@@ -30,6 +31,23 @@ import org.slf4j.Logger;
  */
 public final class BulkExecutor {
 
+    private static volatile boolean speculativeExecution = false;
+
+    /**
+     * Enables or disables the speculative parallel execution of precompiled contract calls during
+     * block import.
+     *
+     * @param enabled whether the transactions of a batch may be executed speculatively
+     * @see SpeculativeExecutor
+     */
+    public static void setSpeculativeExecution(boolean enabled) {
+        speculativeExecution = enabled;
+    }
+
+    public static boolean isSpeculativeExecutionEnabled() {
+        return speculativeExecution;
+    }
+
     /**
      * Executes all of the transactions in the specified block and returns a list of summaries such
      * that the i'th summary corresponds to the i'th transaction in the block. The transactions will
@@ -422,7 +440,8 @@ public final class BulkExecutor {
             boolean checkBlockEnergyLimit,
             boolean incrementSenderNonce,
             boolean isLocalCall,
-            long blockRemainingEnergy) {
+            long blockRemainingEnergy)
+            throws VmFatalException {
 
         // Grab the next batch of precompiled contract call transactions to execute.
         List<AionTransaction> precompiledTransactionsToExecute =
@@ -437,6 +456,24 @@ public final class BulkExecutor {
         boolean fork032Enabled =
             (forkProperty != null) && (blockNumber >= Long.valueOf(forkProperty));
 
+        if (canExecuteSpeculatively(
+                repository,
+                precompiledTransactions.length,
+                postExecutionWork,
+                checkBlockEnergyLimit,
+                isLocalCall)) {
+            return PrecompiledTransactionExecutor.executeTransactionsSpeculatively(
+                    (AionRepositoryCache) repository,
+                    blockNumber,
+                    blockCoinbase,
+                    precompiledTransactions,
+                    postExecutionWork,
+                    logger,
+                    incrementSenderNonce,
+                    fork032Enabled,
+                    blockRemainingEnergy);
+        }
+
         // Execute the precompiled contract call transactions.
         return PrecompiledTransactionExecutor.executeTransactions(
                 repository,
@@ -452,6 +489,28 @@ public final class BulkExecutor {
                 blockRemainingEnergy);
     }
 
+    /**
+     * Returns true only if the next batch can be executed by the {@link SpeculativeExecutor}.
+     *
+     * <p>Speculation is limited to block import, where the block energy limit is not checked per
+     * transaction and the post-execution work flushes the repository after each transaction, so
+     * that the speculative runs read the state from a cache that holds nothing locally.
+     */
+    private static boolean canExecuteSpeculatively(
+            RepositoryCache<AccountState> repository,
+            int batchSize,
+            PostExecutionWork postExecutionWork,
+            boolean checkBlockEnergyLimit,
+            boolean isLocalCall) {
+        return speculativeExecution
+                && batchSize > 1
+                && postExecutionWork != null
+                && !checkBlockEnergyLimit
+                && !isLocalCall
+                && repository instanceof AionRepositoryCache
+                && ((AionRepositoryCache) repository).isEmpty();
+    }
+
     /**
      * Returns a batch of transactions to execute that are destined to be executed by the FVM,
      * starting with the transaction at index {@code startIndex} (inclusive) up to and including all
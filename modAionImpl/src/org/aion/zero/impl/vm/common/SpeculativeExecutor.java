@@ -0,0 +1,183 @@
+package org.aion.zero.impl.vm.common;
+
+import com.google.common.util.concurrent.Uninterruptibles;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import org.aion.base.AccountState;
+import org.aion.base.AionTransaction;
+import org.aion.base.AionTxExecSummary;
+import org.aion.mcf.db.RepositoryCache;
+import org.aion.types.AionAddress;
+import org.aion.zero.impl.db.AionRepositoryCache;
+import org.slf4j.Logger;
+
+/**
+ * Executes a batch of transactions optimistically in parallel.
+ *
+ * <p>Each transaction is first run against its own cache tracking the state at the start of the
+ * batch, recording the accounts it touches. The results are then committed in block order. A
+ * transaction whose touched accounts were modified by a previously committed transaction of the
+ * batch is discarded and re-executed against the current state, so the final state and summaries
+ * are the same as when executing the batch sequentially.
+ *
+ * <p>The miner is paid only when a transaction is committed, since every transaction modifies the
+ * coinbase balance. A transaction that deletes the coinbase is always re-executed to preserve the
+ * order of the fee payment and the account deletion.
+ *
+ * <p>This class is thread-safe.
+ */
+public final class SpeculativeExecutor {
+
+    private static final ForkJoinPool SPECULATION_POOL =
+            new ForkJoinPool(Runtime.getRuntime().availableProcessors());
+
+    /** Executes a single transaction and commits its state changes to the given cache. */
+    @FunctionalInterface
+    public interface TransactionRunner {
+        AionTxExecSummary execute(
+                AionRepositoryCache state, AionTransaction transaction, boolean payMiner)
+                throws VmFatalException;
+    }
+
+    /**
+     * Executes the given transactions speculatively and commits them in order to the given
+     * repository, applying the post-execution work after each commit.
+     *
+     * @param repository the repository the transactions are committed to; it must not hold any
+     *     cached state since it is read concurrently during the speculative runs
+     * @param blockCoinbase the address of the miner
+     * @param transactions the transactions to execute
+     * @param postExecutionWork the post-execution work to be run after each transaction
+     * @param logger a logger
+     * @param runner executes one transaction against a given state
+     * @return a list of transaction summaries pertaining to the transactions
+     * @throws VmFatalException if the in-order execution of a transaction fails fatally
+     */
+    public static List<AionTxExecSummary> executeTransactions(
+            AionRepositoryCache repository,
+            AionAddress blockCoinbase,
+            AionTransaction[] transactions,
+            PostExecutionWork postExecutionWork,
+            Logger logger,
+            TransactionRunner runner)
+            throws VmFatalException {
+
+        if (!repository.isEmpty()) {
+            throw new IllegalStateException("Cannot speculate on a repository with cached state.");
+        }
+
+        // Run all the transactions against the state at the start of the batch.
+        List<Future<Speculation>> speculations = new ArrayList<>(transactions.length);
+        for (AionTransaction transaction : transactions) {
+            speculations.add(
+                    SPECULATION_POOL.submit(
+                            () -> {
+                                AionRepositoryCache state =
+                                        AionRepositoryCache.withAccessTracking(repository);
+                                AionTxExecSummary summary =
+                                        runner.execute(state, transaction, false);
+                                return new Speculation(state, summary);
+                            }));
+        }
+
+        // The repository is only read while all the speculative runs complete.
+        Speculation[] results = new Speculation[transactions.length];
+        for (int i = 0; i < transactions.length; i++) {
+            results[i] = awaitSpeculation(speculations.get(i), logger);
+        }
+
+        // Commit the results in order, re-executing the ones that conflict.
+        List<AionTxExecSummary> transactionSummaries = new ArrayList<>(transactions.length);
+        Set<AionAddress> modifiedAccounts = new HashSet<>();
+        int reExecuted = 0;
+
+        for (int i = 0; i < transactions.length; i++) {
+            AionTransaction transaction = transactions[i];
+            Speculation speculation = results[i];
+
+            AionTxExecSummary summary;
+            Set<AionAddress> touchedAccounts;
+
+            if (speculation == null
+                    || speculation.conflictsWith(modifiedAccounts)
+                    || speculation.summary.getDeletedAccounts().contains(blockCoinbase)) {
+                AionRepositoryCache state = AionRepositoryCache.withAccessTracking(repository);
+                summary = runner.execute(state, transaction, true);
+                touchedAccounts = state.getTouchedAccounts();
+                state.flush();
+                reExecuted++;
+            } else {
+                summary = speculation.summary;
+                touchedAccounts = speculation.touchedAccounts;
+                speculation.state.flush();
+
+                if (!summary.isRejected()) {
+                    RepositoryCache<AccountState> repositoryTracker = repository.startTracking();
+                    repositoryTracker.addBalance(blockCoinbase, summary.getFee());
+                    repositoryTracker.flush();
+                }
+            }
+
+            modifiedAccounts.addAll(touchedAccounts);
+            if (!summary.isRejected()) {
+                modifiedAccounts.add(blockCoinbase);
+            }
+
+            postExecutionWork.doWork(repository, summary, transaction);
+
+            if (logger.isDebugEnabled()) {
+                logger.debug("Transaction receipt: {}", summary.getReceipt());
+                logger.debug("Transaction logs: {}", summary.getLogs());
+            }
+
+            transactionSummaries.add(summary);
+        }
+
+        if (logger.isDebugEnabled()) {
+            logger.debug(
+                    "Speculatively executed {} transactions, {} re-executed due to conflicts.",
+                    transactions.length,
+                    reExecuted);
+        }
+
+        return transactionSummaries;
+    }
+
+    /**
+     * Returns the result of the speculative run or {@code null} if it did not complete normally,
+     * in which case the transaction is re-executed in order.
+     */
+    private static Speculation awaitSpeculation(Future<Speculation> future, Logger logger) {
+        try {
+            // the runs must complete before the repository is modified
+            return Uninterruptibles.getUninterruptibly(future);
+        } catch (ExecutionException e) {
+            if (logger.isDebugEnabled()) {
+                logger.debug("Speculative execution failed, re-executing in order.", e.getCause());
+            }
+            return null;
+        }
+    }
+
+    private static final class Speculation {
+        private final AionRepositoryCache state;
+        private final AionTxExecSummary summary;
+        private final Set<AionAddress> touchedAccounts;
+
+        private Speculation(AionRepositoryCache state, AionTxExecSummary summary) {
+            this.state = state;
+            this.summary = summary;
+            this.touchedAccounts = state.getTouchedAccounts();
+        }
+
+        private boolean conflictsWith(Set<AionAddress> modifiedAccounts) {
+            return !Collections.disjoint(touchedAccounts, modifiedAccounts);
+        }
+    }
+}
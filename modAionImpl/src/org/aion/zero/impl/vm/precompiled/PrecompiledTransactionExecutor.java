@@ -3,7 +3,10 @@ package org.aion.zero.impl.vm.precompiled;
 import java.math.BigInteger;
 import java.util.ArrayList;
 import java.util.List;
+import org.aion.zero.impl.db.AionRepositoryCache;
 import org.aion.zero.impl.vm.common.PostExecutionWork;
+import org.aion.zero.impl.vm.common.SpeculativeExecutor;
+import org.aion.zero.impl.vm.common.VmFatalException;
 import org.aion.base.AccountState;
 import org.aion.base.AionTransaction;
 import org.aion.mcf.db.RepositoryCache;
@@ -47,37 +50,15 @@ public final class PrecompiledTransactionExecutor {
                         allowNonceIncrement);
 
         for (AionTransaction transaction : transactions) {
-
-            // Execute the contract.
-            PrecompiledWrappedTransactionResult wrappedResult = ContractExecutor.executeExternalCall(new ExternalCapabilitiesForPrecompiled(), externalState, toAionTypesTransaction(transaction));
-
-            TransactionResult result = wrappedResult.result;
-            List<AionAddress> deletedAddresses = wrappedResult.deletedAddresses;
-
-            // Check the block energy limit & reject if necessary.
-            if (result.energyUsed > blockRemainingEnergy) {
-                TransactionStatus status = TransactionStatus.rejection("Invalid Energy Limit");
-                result = new TransactionResult(status, result.logs, result.internalTransactions, 0, ByteUtil.EMPTY_BYTE_ARRAY);
-            }
-
-            // Build the transaction summary.
-            AionTxExecSummary summary = buildTransactionSummary(transaction, result, deletedAddresses);
-
-            // If the transaction was not rejected, then commit the state changes.
-            if (!result.transactionStatus.isRejected()) {
-                externalState.commit();
-            }
-
-            // For non-rejected non-local transactions, make some final repository updates.
-            if (!isLocalCall && !summary.isRejected()) {
-                RepositoryCache repositoryTracker = repository.startTracking();
-
-                refundSender(repositoryTracker, summary, transaction, result);
-                payMiner(repositoryTracker, blockCoinbase, summary);
-                deleteAccountsMarkedForDeletion(repositoryTracker, summary.getDeletedAccounts(), result);
-
-                repositoryTracker.flush();
-            }
+            AionTxExecSummary summary =
+                    executeTransaction(
+                            repository,
+                            externalState,
+                            blockCoinbase,
+                            transaction,
+                            isLocalCall,
+                            blockRemainingEnergy,
+                            true);
 
             // Do any post execution work.
             if (postExecutionWork != null) {
@@ -85,7 +66,7 @@ public final class PrecompiledTransactionExecutor {
             }
 
             // Update the remaining block energy.
-            if (!result.transactionStatus.isRejected() && decrementBlockEnergyLimit) {
+            if (!summary.isRejected() && decrementBlockEnergyLimit) {
                 blockRemainingEnergy -= summary.getReceipt().getEnergyUsed();
             }
 
@@ -100,6 +81,113 @@ public final class PrecompiledTransactionExecutor {
         return transactionSummaries;
     }
 
+    /**
+     * Executes the specified transactions speculatively in parallel and returns a list of
+     * transaction summaries, such that the i'th summary pertains to the i'th transaction in the
+     * input. The resulting state, summaries and post-execution work are the same as when calling
+     * {@link #executeTransactions} for a non-local call that does not decrement the block energy
+     * limit.
+     *
+     * @param repository The current snapshot of the kernel's repository layer. This cache must not
+     *     hold any state when the batch starts.
+     * @param blockNumber The current best block number.
+     * @param blockCoinbase The address of the miner.
+     * @param transactions The transactions to execute.
+     * @param postExecutionWork The post-execute work to be run immediately after each transaction
+     *     is committed.
+     * @param logger A logger.
+     * @param allowNonceIncrement Whether to increment the sender nonce.
+     * @param fork032Enabled Whether or not the 0.3.2 fork is enabled.
+     * @param blockEnergyLimit The block energy limit at the time of running these transactions.
+     * @return a list of transaction summaries pertaining to the transactions.
+     * @see SpeculativeExecutor
+     */
+    public static List<AionTxExecSummary> executeTransactionsSpeculatively(
+            AionRepositoryCache repository,
+            long blockNumber,
+            AionAddress blockCoinbase,
+            AionTransaction[] transactions,
+            PostExecutionWork postExecutionWork,
+            Logger logger,
+            boolean allowNonceIncrement,
+            boolean fork032Enabled,
+            long blockEnergyLimit)
+            throws VmFatalException {
+
+        return SpeculativeExecutor.executeTransactions(
+                repository,
+                blockCoinbase,
+                transactions,
+                postExecutionWork,
+                logger,
+                (state, transaction, payMiner) -> {
+                    IExternalStateForPrecompiled externalState =
+                            new ExternalStateForPrecompiled(
+                                    state.startTracking(),
+                                    blockNumber,
+                                    false,
+                                    fork032Enabled,
+                                    allowNonceIncrement);
+                    return executeTransaction(
+                            state,
+                            externalState,
+                            blockCoinbase,
+                            transaction,
+                            false,
+                            blockEnergyLimit,
+                            payMiner);
+                });
+    }
+
+    /**
+     * Executes a single transaction and commits its state changes to the given repository through
+     * the given external state, which must be backed by a cache tracking that repository.
+     */
+    private static AionTxExecSummary executeTransaction(
+            RepositoryCache<AccountState> repository,
+            IExternalStateForPrecompiled externalState,
+            AionAddress blockCoinbase,
+            AionTransaction transaction,
+            boolean isLocalCall,
+            long blockRemainingEnergy,
+            boolean payMiner) {
+
+        // Execute the contract.
+        PrecompiledWrappedTransactionResult wrappedResult = ContractExecutor.executeExternalCall(new ExternalCapabilitiesForPrecompiled(), externalState, toAionTypesTransaction(transaction));
+
+        TransactionResult result = wrappedResult.result;
+        List<AionAddress> deletedAddresses = wrappedResult.deletedAddresses;
+
+        // Check the block energy limit & reject if necessary.
+        if (result.energyUsed > blockRemainingEnergy) {
+            TransactionStatus status = TransactionStatus.rejection("Invalid Energy Limit");
+            result = new TransactionResult(status, result.logs, result.internalTransactions, 0, ByteUtil.EMPTY_BYTE_ARRAY);
+        }
+
+        // Build the transaction summary.
+        AionTxExecSummary summary = buildTransactionSummary(transaction, result, deletedAddresses);
+
+        // If the transaction was not rejected, then commit the state changes.
+        if (!result.transactionStatus.isRejected()) {
+            externalState.commit();
+        }
+
+        // For non-rejected non-local transactions, make some final repository updates.
+        if (!isLocalCall && !summary.isRejected()) {
+            RepositoryCache repositoryTracker = repository.startTracking();
+
+            refundSender(repositoryTracker, summary, transaction, result);
+            if (payMiner) {
+                payMiner(repositoryTracker, blockCoinbase, summary);
+            }
+            deleteAccountsMarkedForDeletion(repositoryTracker, summary.getDeletedAccounts(), result);
+
+            repositoryTracker.flush();
+        }
+
+        return summary;
+    }
+
     private static void refundSender(
             RepositoryCache repository,
             AionTxExecSummary summary,
@@ -0,0 +1,110 @@
+package org.aion.zero.impl.blockchain;
+
+import static com.google.common.truth.Truth.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.aion.log.AionLoggerFactory;
+import org.aion.log.LogEnum;
+import org.aion.mcf.blockchain.Block;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.slf4j.Logger;
+
+public class BlockImportPipelineTest {
+    private static final Logger LOG = AionLoggerFactory.getLogger(LogEnum.GEN.name());
+
+    private final List<Long> validated = new CopyOnWriteArrayList<>();
+    private BlockImportPipeline pipeline;
+
+    @Before
+    public void setup() {
+        // odd block numbers are invalid
+        pipeline =
+                new BlockImportPipeline(
+                        block -> {
+                            validated.add(block.getNumber());
+                            return block.getNumber() % 2 == 0;
+                        },
+                        LOG);
+    }
+
+    @After
+    public void tearDown() {
+        pipeline.shutdown();
+    }
+
+    @Test
+    public void testValidationResultsInImportOrder() {
+        int count = BlockImportPipeline.VALIDATION_WINDOW * 2 + 3;
+        BlockImportPipeline.Validation validation = pipeline.validate(mockBlocks(count));
+
+        for (int i = 0; i < count; i++) {
+            assertThat(validation.isValid(i)).isEqualTo(i % 2 == 0);
+            // the validation does not run further ahead than the window
+            assertThat(validated.size()).isAtMost(i + 1 + BlockImportPipeline.VALIDATION_WINDOW);
+        }
+        assertThat(validated).hasSize(count);
+    }
+
+    @Test
+    public void testValidationCancelledEarly() {
+        BlockImportPipeline.Validation validation =
+                pipeline.validate(mockBlocks(BlockImportPipeline.VALIDATION_WINDOW * 4));
+
+        assertThat(validation.isValid(0)).isTrue();
+        validation.cancel();
+
+        assertThat(validated.size()).isAtMost(BlockImportPipeline.VALIDATION_WINDOW + 1);
+    }
+
+    @Test
+    public void testPersistenceRunsInOrder() {
+        List<Integer> persisted = new CopyOnWriteArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            int index = i;
+            pipeline.persist(() -> persisted.add(index));
+        }
+        pipeline.awaitPersistence();
+
+        assertThat(persisted).containsExactly(0, 1, 2, 3, 4, 5, 6, 7, 8, 9).inOrder();
+    }
+
+    @Test
+    public void testFailedPersistenceIsRetried() {
+        AtomicInteger attempts = new AtomicInteger(0);
+        pipeline.persist(
+                () -> {
+                    if (attempts.incrementAndGet() == 1) {
+                        throw new IllegalStateException("first attempt fails");
+                    }
+                });
+        pipeline.awaitPersistence();
+
+        assertThat(attempts.get()).isEqualTo(2);
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void testPersistentFailureSurfaces() {
+        pipeline.persist(
+                () -> {
+                    throw new IllegalStateException("always fails");
+                });
+        pipeline.awaitPersistence();
+    }
+
+    private static List<Block> mockBlocks(int count) {
+        List<Block> blocks = new ArrayList<>();
+        for (long i = 0; i < count; i++) {
+            Block block = mock(Block.class);
+            when(block.getNumber()).thenReturn(i);
+            blocks.add(block);
+        }
+        return blocks;
+    }
+}
@@ -387,6 +387,35 @@ public class AionRepositoryCacheTest {
         }
     }
 
+    @Test
+    public void testAccessTrackingRecordsReadsThroughChildCaches() {
+        AionAddress read = getNewAddress();
+        AionAddress checked = getNewAddress();
+        AionAddress written = getNewAddress();
+
+        AionRepositoryCache tracking = AionRepositoryCache.withAccessTracking(repository);
+        RepositoryCache<AccountState> child = tracking.startTracking();
+        child.getBalance(read);
+        child.hasAccountState(checked);
+        child.addBalance(written, BigInteger.ONE);
+        assertThat(tracking.getTouchedAccounts()).containsExactly(read, checked, written);
+
+        // flushing the child does not lose the recorded reads
+        child.flush();
+        assertThat(tracking.getTouchedAccounts()).containsExactly(read, checked, written);
+        assertThat(tracking.isEmpty()).isFalse();
+
+        // the recorded reads outlive the cached state
+        tracking.flush();
+        assertThat(tracking.isEmpty()).isTrue();
+        assertThat(tracking.getTouchedAccounts()).containsExactly(read, checked, written);
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void testGetTouchedAccountsWithoutTracking() {
+        cache.getTouchedAccounts();
+    }
+
     /** Puts all of the key-value pairs in keys and values into cache under address. */
     private void massAddToCache(
             AionAddress address, List<ByteArrayWrapper> keys, List<ByteArrayWrapper> values) {
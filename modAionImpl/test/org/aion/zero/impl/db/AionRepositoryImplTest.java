@@ -9,6 +9,7 @@ import org.aion.crypto.HashUtil;
 import org.aion.db.impl.ByteArrayKeyValueDatabase;
 import org.aion.db.impl.DBVendor;
 import org.aion.db.impl.DatabaseFactory;
+import org.aion.zero.impl.config.CfgDb;
 import org.aion.zero.impl.config.CfgPrune;
 import org.aion.base.AccountState;
 import org.aion.mcf.db.InternalVmType;
@@ -447,4 +448,112 @@ public class AionRepositoryImplTest {
         value = db.get(altNodeKey);
         assertThat(value.isPresent()).isFalse();
     }
+
+    @Test
+    public void testFastSyncQueries() {
+        AionRepositoryImpl repository = AionRepositoryImpl.createForTesting(repoConfig);
+        AionAddress account = new AionAddress(ByteUtil.hexStringToBytes(value1));
+        AionAddress contract = new AionAddress(ByteUtil.hexStringToBytes(value2));
+
+        RepositoryCache track = repository.startTracking();
+        track.addBalance(account, BigInteger.ONE);
+        track.addBalance(contract, BigInteger.ONE);
+        track.saveCode(contract, contract.toByteArray());
+        track.saveVmType(contract, InternalVmType.FVM);
+        track.addStorageRow(
+                contract,
+                new DataWord(HashUtil.blake128("hello".getBytes())).toWrapper(),
+                new DataWord(HashUtil.blake128("world".getBytes())).toWrapper());
+        track.flush();
+        repository.flush();
+        byte[] root = repository.getRoot();
+
+        // only the accounts with code or storage are counted
+        assertThat(repository.countContractAccounts(root)).isEqualTo(1);
+        AccountState state = repository.getAccountState(contract, root);
+        assertThat(state.getCodeHash()).isEqualTo(HashUtil.h256(contract.toByteArray()));
+        assertThat(repository.getAccountState(new AionAddress(ByteUtil.hexStringToBytes(value3)), root)).isNull();
+
+        // the details are listed from the given address
+        assertThat(repository.getContractDetails(new byte[AionAddress.LENGTH], 10).keySet())
+                .containsExactly(ByteArrayWrapper.wrap(contract.toByteArray()));
+        assertThat(repository.getContractDetails(ByteUtil.hexStringToBytes(value3), 10)).isEmpty();
+
+        // the stored tries are complete
+        assertThat(repository.getMissingTrieNodes(root, DatabaseType.STATE, null)).isEmpty();
+        byte[] subKey = DetailsDataStore.storageSubKey(contract);
+        assertThat(repository.getMissingTrieNodes(state.getStateRoot(), DatabaseType.STORAGE, subKey)).isEmpty();
+
+        // an empty repository is missing the roots, which are returned as database keys
+        AionRepositoryImpl empty = AionRepositoryImpl.createForTesting(repoConfig);
+        assertThat(empty.getMissingTrieNodes(root, DatabaseType.STATE, null))
+                .containsExactly(ByteArrayWrapper.wrap(root));
+        assertThat(empty.getMissingTrieNodes(state.getStateRoot(), DatabaseType.STORAGE, subKey))
+                .containsExactly(ByteArrayWrapper.wrap(ByteUtil.xorAlignRight(state.getStateRoot(), subKey)));
+    }
+
+    @Test
+    public void testFlatStateFollowsSyncToRoot() {
+        RepositoryConfig flatStateConfig =
+                new RepositoryConfig() {
+                    @Override
+                    public String getDbPath() {
+                        return "";
+                    }
+
+                    @Override
+                    public PruneConfig getPruneConfig() {
+                        return new CfgPrune(false);
+                    }
+
+                    @Override
+                    public Properties getDatabaseConfig(String db_name) {
+                        Properties props = new Properties();
+                        props.setProperty(DatabaseFactory.Props.DB_TYPE, DBVendor.MOCKDB.toValue());
+                        props.setProperty(CfgDb.Props.ENABLE_FLAT_STATE, "true");
+                        return props;
+                    }
+                };
+        AionRepositoryImpl repository = AionRepositoryImpl.createForTesting(flatStateConfig);
+        repository.syncToRoot(repository.getRoot());
+
+        AionAddress defaultAccount = new AionAddress(ByteUtil.hexStringToBytes(value1));
+        ByteArrayWrapper key = new DataWord(HashUtil.blake128("hello".getBytes())).toWrapper();
+        ByteArrayWrapper value = new DataWord(HashUtil.blake128("world".getBytes())).toWrapper();
+        ByteArrayWrapper otherValue = new DataWord(HashUtil.blake128("other".getBytes())).toWrapper();
+
+        RepositoryCache track = repository.startTracking();
+        track.addBalance(defaultAccount, BigInteger.ONE);
+        track.addStorageRow(defaultAccount, key, value);
+        track.saveVmType(defaultAccount, InternalVmType.FVM);
+        track.flush();
+        repository.flush();
+        byte[] firstRoot = repository.getRoot();
+
+        assertThat(repository.getBalance(defaultAccount)).isEqualTo(BigInteger.ONE);
+        assertThat(repository.getStorageValue(defaultAccount, key)).isEqualTo(value);
+
+        track = repository.startTracking();
+        track.addBalance(defaultAccount, BigInteger.ONE);
+        track.addStorageRow(defaultAccount, key, otherValue);
+        track.flush();
+
+        // the pending changes are visible before the state is flushed
+        assertThat(repository.getBalance(defaultAccount)).isEqualTo(BigInteger.TWO);
+        assertThat(repository.getStorageValue(defaultAccount, key)).isEqualTo(otherValue);
+        repository.flush();
+        byte[] secondRoot = repository.getRoot();
+
+        // moving between the roots must match the values from the tries
+        repository.syncToRoot(firstRoot);
+        assertThat(repository.getBalance(defaultAccount)).isEqualTo(BigInteger.ONE);
+        assertThat(repository.getStorageValue(defaultAccount, key)).isEqualTo(value);
+
+        repository.syncToRoot(secondRoot);
+        Repository trieSnapshot = repository.getSnapshotTo(secondRoot);
+        assertThat(repository.getBalance(defaultAccount)).isEqualTo(trieSnapshot.getBalance(defaultAccount));
+        assertThat(repository.getStorageValue(defaultAccount, key)).isEqualTo(trieSnapshot.getStorageValue(defaultAccount, key));
+        assertThat(repository.getStorageValue(defaultAccount, key)).isEqualTo(otherValue);
+        repository.close();
+    }
 }
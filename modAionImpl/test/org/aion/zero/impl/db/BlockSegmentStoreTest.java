@@ -0,0 +1,158 @@
+package org.aion.zero.impl.db;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import java.io.File;
+import java.io.IOException;
+import java.math.BigInteger;
+import java.nio.ByteBuffer;
+import java.util.List;
+import org.aion.db.impl.ByteArrayKeyValueDatabase;
+import org.aion.db.impl.mockdb.MockDB;
+import org.aion.mcf.blockchain.Block;
+import org.aion.util.TestResources;
+import org.apache.commons.lang3.RandomUtils;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/** Unit tests for {@link BlockSegmentStore}. */
+public class BlockSegmentStoreTest {
+
+    private static final Logger log = LoggerFactory.getLogger("DB");
+
+    @Rule public TemporaryFolder testFolder = new TemporaryFolder();
+
+    @Test
+    public void testAppendAcrossSegmentsAndReopen() throws IOException {
+        File directory = testFolder.newFolder("segments");
+        BlockSegmentStore store = new BlockSegmentStore(directory, 64, log);
+
+        // each record uses 44 bytes so every block starts a new segment
+        byte[][] hashes = new byte[5][];
+        byte[][] encodings = new byte[5][];
+        for (int i = 0; i < 5; i++) {
+            hashes[i] = RandomUtils.nextBytes(BlockSegmentStore.HASH_SIZE);
+            encodings[i] = RandomUtils.nextBytes(40);
+            store.append(10 + i, hashes[i], encodings[i]);
+        }
+
+        assertThat(store.getFirst()).isEqualTo(10L);
+        assertThat(store.getNext()).isEqualTo(15L);
+        assertThat(store.contains(9L)).isFalse();
+        assertThat(store.contains(15L)).isFalse();
+        assertThat(store.getEncoded(15L)).isNull();
+        store.close();
+
+        BlockSegmentStore reopened = new BlockSegmentStore(directory, 64, log);
+        assertThat(reopened.getNext()).isEqualTo(15L);
+        for (int i = 0; i < 5; i++) {
+            assertThat(reopened.getHash(10 + i)).isEqualTo(hashes[i]);
+            assertThat(toBytes(reopened.getEncoded(10 + i))).isEqualTo(encodings[i]);
+        }
+        reopened.close();
+    }
+
+    @Test
+    public void testCopyEncodedRunStopsAtSegmentEnd() throws IOException {
+        BlockSegmentStore store = new BlockSegmentStore(testFolder.newFolder("segments"), 64, log);
+
+        // each record uses 14 bytes so a segment holds four blocks
+        byte[][] encodings = new byte[6][];
+        for (int i = 0; i < 6; i++) {
+            encodings[i] = RandomUtils.nextBytes(10);
+            store.append(i, RandomUtils.nextBytes(BlockSegmentStore.HASH_SIZE), encodings[i]);
+        }
+
+        List<ByteBuffer> run = store.copyEncodedRun(1, 5);
+        assertThat(run).hasSize(3);
+        for (int i = 0; i < 3; i++) {
+            assertThat(run.get(i).array()).isSameAs(run.get(0).array());
+            assertThat(toBytes(run.get(i))).isEqualTo(encodings[1 + i]);
+        }
+
+        run = store.copyEncodedRun(4, 10);
+        assertThat(run).hasSize(2);
+        assertThat(toBytes(run.get(0))).isEqualTo(encodings[4]);
+        assertThat(toBytes(run.get(1))).isEqualTo(encodings[5]);
+
+        // the copy is not affected by later writes to the segment
+        run = store.copyEncodedRun(2, 2);
+        store.append(2, RandomUtils.nextBytes(BlockSegmentStore.HASH_SIZE), new byte[10]);
+        assertThat(toBytes(run.get(0))).isEqualTo(encodings[2]);
+
+        assertThat(store.copyEncodedRun(6, 10)).isNull();
+        store.close();
+    }
+
+    @Test
+    public void testAppendBelowNextReplacesHigherBlocks() throws IOException {
+        BlockSegmentStore store = new BlockSegmentStore(testFolder.newFolder("segments"), log);
+        for (int i = 0; i < 4; i++) {
+            store.append(i, RandomUtils.nextBytes(BlockSegmentStore.HASH_SIZE), new byte[] {(byte) i});
+        }
+
+        byte[] hash = RandomUtils.nextBytes(BlockSegmentStore.HASH_SIZE);
+        store.append(2, hash, new byte[] {7, 7});
+
+        assertThat(store.getNext()).isEqualTo(3L);
+        assertThat(store.getHash(2)).isEqualTo(hash);
+        assertThat(toBytes(store.getEncoded(2))).isEqualTo(new byte[] {7, 7});
+        assertThat(toBytes(store.getEncoded(1))).isEqualTo(new byte[] {1});
+
+        // a gap restarts the stored range
+        store.append(10, hash, new byte[] {10});
+        assertThat(store.getFirst()).isEqualTo(10L);
+        assertThat(store.getNext()).isEqualTo(11L);
+        assertThat(store.contains(2)).isFalse();
+        store.close();
+    }
+
+    @Test
+    public void testBlockStoreReadsMainChainFromSegments() throws IOException {
+        ByteArrayKeyValueDatabase index = new MockDB("index", log);
+        ByteArrayKeyValueDatabase blocks = new MockDB("blocks", log);
+        index.open();
+        blocks.open();
+        BlockSegmentStore segments = new BlockSegmentStore(testFolder.newFolder("segments"), log);
+        AionBlockStore store = new AionBlockStore(index, blocks, false, 0, segments);
+
+        List<Block> chain = TestResources.consecutiveBlocks(4);
+        BigInteger totalDifficulty = BigInteger.ONE;
+        for (Block block : chain) {
+            totalDifficulty = totalDifficulty.add(block.getDifficultyBI());
+            store.saveBlock(block, totalDifficulty, true);
+        }
+
+        long first = chain.get(0).getNumber();
+        long last = chain.get(3).getNumber();
+        assertThat(segments.getFirst()).isEqualTo(first);
+        assertThat(segments.getNext()).isEqualTo(last + 1);
+
+        Block stored = store.getChainBlockByNumber(last);
+        assertThat(stored.getHash()).isEqualTo(chain.get(3).getHash());
+        assertThat(stored.getTotalDifficulty()).isEqualTo(totalDifficulty);
+
+        List<Block> descending = store.getBlocksByRange(last, first);
+        assertThat(descending.size()).isEqualTo(4);
+        assertThat(descending.get(0).getHash()).isEqualTo(chain.get(3).getHash());
+        assertThat(descending.get(3).getHash()).isEqualTo(chain.get(0).getHash());
+
+        // the segments are truncated together with the index
+        store.rollback(first + 1);
+        assertThat(segments.getNext()).isEqualTo(first + 2);
+        assertThat(store.getBlocksByRange(first, last).size()).isEqualTo(2);
+
+        store.close();
+        index.close();
+        blocks.close();
+    }
+
+    private static byte[] toBytes(ByteBuffer buffer) {
+        byte[] bytes = new byte[buffer.remaining()];
+        buffer.get(bytes);
+        return bytes;
+    }
+}
@@ -0,0 +1,99 @@
+package org.aion.zero.impl.db;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import org.aion.db.impl.ByteArrayKeyValueDatabase;
+import org.aion.db.impl.mockdb.MockDB;
+import org.aion.util.types.ByteArrayWrapper;
+import org.apache.commons.lang3.RandomUtils;
+import org.junit.Before;
+import org.junit.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/** Unit tests for {@link FlatStateSnapshot}. */
+public class FlatStateSnapshotTest {
+
+    private static final Logger log = LoggerFactory.getLogger("DB");
+
+    private final byte[] address = RandomUtils.nextBytes(32);
+    private final ByteArrayWrapper key = ByteArrayWrapper.wrap(RandomUtils.nextBytes(16));
+    private final byte[] rootA = RandomUtils.nextBytes(32);
+    private final byte[] rootB = RandomUtils.nextBytes(32);
+    private final byte[] rootC = RandomUtils.nextBytes(32);
+
+    private ByteArrayKeyValueDatabase database;
+
+    @Before
+    public void setup() {
+        database = new MockDB("flatState", log);
+        database.open();
+    }
+
+    @Test
+    public void testMoveBetweenBranches() {
+        FlatStateSnapshot snapshot = new FlatStateSnapshot(database, log);
+        snapshot.moveTo(rootA);
+        byte[] entry = snapshot.populateAccount(address, new byte[] {1});
+        long incarnation = FlatStateSnapshot.getIncarnation(entry);
+        snapshot.populateStorage(address, incarnation, key.toBytes(), ByteArrayWrapper.wrap(new byte[] {5}));
+
+        // block on the main chain updating the account and its storage
+        FlatStateSnapshot.Changes changesB = new FlatStateSnapshot.Changes();
+        changesB.putAccount(ByteArrayWrapper.wrap(address), new byte[] {2});
+        changesB.putStorage(ByteArrayWrapper.wrap(address), key, ByteArrayWrapper.wrap(new byte[] {6}));
+        snapshot.addLayer(rootA, rootB, changesB);
+
+        // competing block deleting the account
+        FlatStateSnapshot.Changes changesC = new FlatStateSnapshot.Changes();
+        changesC.deleteAccount(ByteArrayWrapper.wrap(address));
+        snapshot.addLayer(rootA, rootC, changesC);
+
+        assertThat(snapshot.moveTo(rootB)).isTrue();
+        assertThat(snapshot.getRoot()).isEqualTo(rootB);
+        assertThat(FlatStateSnapshot.getEncoding(snapshot.getAccount(address))).isEqualTo(new byte[] {2});
+        assertThat(FlatStateSnapshot.getIncarnation(snapshot.getAccount(address))).isEqualTo(incarnation);
+        assertStorage(snapshot, incarnation, new byte[] {6});
+
+        assertThat(snapshot.moveTo(rootC)).isTrue();
+        assertThat(FlatStateSnapshot.isAbsent(snapshot.getAccount(address))).isTrue();
+
+        // moving back restores the previous incarnation together with its storage
+        assertThat(snapshot.moveTo(rootA)).isTrue();
+        assertThat(FlatStateSnapshot.getEncoding(snapshot.getAccount(address))).isEqualTo(new byte[] {1});
+        assertThat(FlatStateSnapshot.getIncarnation(snapshot.getAccount(address))).isEqualTo(incarnation);
+        assertStorage(snapshot, incarnation, new byte[] {5});
+    }
+
+    @Test
+    public void testMoveToUnknownRootDiscardsEntries() {
+        FlatStateSnapshot snapshot = new FlatStateSnapshot(database, log);
+        snapshot.moveTo(rootA);
+        snapshot.populateAccount(address, new byte[] {1});
+
+        assertThat(snapshot.moveTo(rootB)).isFalse();
+        assertThat(snapshot.getRoot()).isEqualTo(rootB);
+        assertThat(snapshot.getAccount(address)).isNull();
+
+        // the root and the entries are kept across restarts
+        snapshot.populateAccount(address, new byte[] {3});
+        FlatStateSnapshot reopened = new FlatStateSnapshot(database, log);
+        assertThat(reopened.getRoot()).isEqualTo(rootB);
+        assertThat(FlatStateSnapshot.getEncoding(reopened.getAccount(address))).isEqualTo(new byte[] {3});
+    }
+
+    @Test
+    public void testIncompleteUpdateIsDiscarded() {
+        database.put(address, FlatStateSnapshot.accountEntry(1, new byte[] {1}));
+
+        FlatStateSnapshot snapshot = new FlatStateSnapshot(database, log);
+        assertThat(snapshot.getRoot()).isNull();
+        assertThat(snapshot.getAccount(address)).isNull();
+    }
+
+    private void assertStorage(FlatStateSnapshot snapshot, long incarnation, byte[] value) {
+        byte[] entry = snapshot.getStorage(address, incarnation, key.toBytes());
+        assertThat(entry).isNotNull();
+        assertThat(FlatStateSnapshot.getStorageValue(entry)).isEqualTo(ByteArrayWrapper.wrap(value));
+    }
+}
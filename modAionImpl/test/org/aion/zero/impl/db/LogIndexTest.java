@@ -0,0 +1,203 @@
+package org.aion.zero.impl.db;
+
+import static com.google.common.truth.Truth.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import org.aion.base.AionTransaction;
+import org.aion.base.AionTxReceipt;
+import org.aion.db.impl.ByteArrayKeyValueDatabase;
+import org.aion.db.impl.mockdb.MockDB;
+import org.aion.mcf.blockchain.Block;
+import org.aion.types.Log;
+import org.aion.util.types.ByteArrayWrapper;
+import org.apache.commons.lang3.RandomUtils;
+import org.junit.Before;
+import org.junit.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/** Unit tests for {@link LogIndex}. */
+public class LogIndexTest {
+
+    private static final Logger log = LoggerFactory.getLogger("DB");
+
+    private final byte[] contract = RandomUtils.nextBytes(32);
+    private final byte[] otherContract = RandomUtils.nextBytes(32);
+    private final byte[] topic = RandomUtils.nextBytes(32);
+    private final byte[] otherTopic = RandomUtils.nextBytes(32);
+
+    private ByteArrayKeyValueDatabase database;
+
+    @Before
+    public void setup() {
+        database = new MockDB("logIndex", log);
+        database.open();
+    }
+
+    @Test
+    public void testGetByAddressAndTopic() {
+        LogIndex index = new LogIndex(database, log);
+        byte[] txHash1 = RandomUtils.nextBytes(32);
+        byte[] txHash2 = RandomUtils.nextBytes(32);
+        byte[] hash1 = RandomUtils.nextBytes(32);
+        byte[] hash2 = RandomUtils.nextBytes(32);
+
+        index.index(block(1, hash1, txHash1), receipts(Log.topicsAndData(contract, List.of(topic, otherTopic), new byte[0])), true);
+        index.index(block(2, hash2, txHash2), receipts(Log.topicsAndData(otherContract, List.of(otherTopic, topic), new byte[0]), Log.topicsAndData(contract, List.of(topic), new byte[0])), true);
+
+        List<LogIndex.Position> byAddress = drain(index.scanByAddress(contract, 1, 2));
+        assertThat(byAddress).hasSize(2);
+        assertThat(byAddress.get(0).blockNumber).isEqualTo(1);
+        assertThat(byAddress.get(0).blockHash).isEqualTo(hash1);
+        assertThat(byAddress.get(0).txHash).isEqualTo(txHash1);
+        assertThat(byAddress.get(1).blockNumber).isEqualTo(2);
+        assertThat(byAddress.get(1).logIndex).isEqualTo(1);
+
+        // the range bounds are inclusive
+        assertThat(drain(index.scanByAddress(contract, 2, 2))).hasSize(1);
+        assertThat(drain(index.scanByAddress(contract, 3, 10))).isEmpty();
+
+        // the topics are indexed by their position
+        List<LogIndex.Position> byTopic = drain(index.scanByTopic(0, topic, 0, 2));
+        assertThat(byTopic).hasSize(2);
+        assertThat(byTopic.get(0).blockNumber).isEqualTo(1);
+        assertThat(byTopic.get(1).logIndex).isEqualTo(1);
+        assertThat(drain(index.scanByTopic(1, topic, 0, 2))).hasSize(1);
+        assertThat(drain(index.scanByTopic(2, topic, 0, 2))).isEmpty();
+    }
+
+    @Test
+    public void testSideChainBlocksAreKept() {
+        LogIndex index = new LogIndex(database, log);
+        byte[] mainHash = RandomUtils.nextBytes(32);
+        byte[] sideHash = RandomUtils.nextBytes(32);
+
+        index.index(block(1, mainHash, RandomUtils.nextBytes(32)), receipts(Log.topicsAndData(contract, List.of(topic), new byte[0])), true);
+        index.index(block(1, sideHash, RandomUtils.nextBytes(32)), receipts(Log.topicsAndData(contract, List.of(topic), new byte[0])), false);
+
+        List<LogIndex.Position> positions = drain(index.scanByAddress(contract, 1, 1));
+        assertThat(positions).hasSize(2);
+        List<ByteArrayWrapper> hashes = new ArrayList<>();
+        positions.forEach(p -> hashes.add(ByteArrayWrapper.wrap(p.blockHash)));
+        assertThat(hashes).containsExactly(ByteArrayWrapper.wrap(mainHash), ByteArrayWrapper.wrap(sideHash));
+    }
+
+    @Test
+    public void testCursorReadsAllPages() {
+        LogIndex index = new LogIndex(database, log);
+        int count = 2 * LogIndex.PAGE_SIZE + 3;
+        for (long number = 1; number <= count; number++) {
+            index.index(block(number, RandomUtils.nextBytes(32), RandomUtils.nextBytes(32)), receipts(Log.topicsAndData(contract, List.of(topic), new byte[0])), true);
+        }
+
+        List<LogIndex.Position> positions = drain(index.scanByAddress(contract, 1, count));
+        assertThat(positions).hasSize(count);
+        for (int i = 0; i < count; i++) {
+            assertThat(positions.get(i).blockNumber).isEqualTo(i + 1);
+        }
+
+        // the cursor only reads the pages it needs
+        LogIndex.Cursor cursor = index.scanByTopic(0, topic, 1, count);
+        assertThat(cursor.next().blockNumber).isEqualTo(1);
+        assertThat(cursor.peek().blockNumber).isEqualTo(2);
+    }
+
+    @Test
+    public void testCoveredRange() {
+        LogIndex index = new LogIndex(database, log);
+        assertThat(index.covers(0, 0)).isFalse();
+
+        for (long number = 5; number <= 8; number++) {
+            index.index(block(number, RandomUtils.nextBytes(32)), Collections.emptyList(), true);
+        }
+        assertThat(index.covers(5, 8)).isTrue();
+        assertThat(index.covers(4, 8)).isFalse();
+        assertThat(index.covers(5, 9)).isFalse();
+
+        // re-importing older blocks does not change the range
+        index.index(block(6, RandomUtils.nextBytes(32)), Collections.emptyList(), true);
+        assertThat(index.covers(5, 8)).isTrue();
+
+        // the range is kept across restarts
+        assertThat(new LogIndex(database, log).covers(5, 8)).isTrue();
+
+        // side chain blocks do not change the range
+        index.index(block(2, RandomUtils.nextBytes(32)), Collections.emptyList(), false);
+        index.index(block(9, RandomUtils.nextBytes(32)), Collections.emptyList(), false);
+        assertThat(index.covers(5, 8)).isTrue();
+        assertThat(index.covers(5, 9)).isFalse();
+
+        // a gap restarts the range
+        index.index(block(10, RandomUtils.nextBytes(32)), Collections.emptyList(), true);
+        assertThat(index.covers(5, 8)).isFalse();
+        assertThat(index.covers(10, 10)).isTrue();
+    }
+
+    @Test
+    public void testReorganizationToLongerFork() {
+        LogIndex index = new LogIndex(database, log);
+        for (long number = 1; number <= 5; number++) {
+            index.index(block(number, RandomUtils.nextBytes(32)), Collections.emptyList(), true);
+        }
+
+        // the fork from block 3 is imported as a side chain until it becomes heavier
+        List<Block> fork = new ArrayList<>();
+        for (long number = 4; number <= 6; number++) {
+            Block block = block(number, RandomUtils.nextBytes(32), RandomUtils.nextBytes(32));
+            fork.add(block);
+            index.index(block, receipts(Log.topicsAndData(contract, List.of(topic), new byte[0])), false);
+        }
+        assertThat(index.covers(1, 5)).isTrue();
+        assertThat(index.covers(1, 6)).isFalse();
+
+        // the blocks of the new main chain are indexed again in increasing order
+        for (Block block : fork) {
+            index.index(block, receipts(Log.topicsAndData(contract, List.of(topic), new byte[0])), true);
+        }
+        assertThat(index.covers(1, 6)).isTrue();
+
+        // the next main chain block extends the range instead of restarting it
+        index.index(block(7, RandomUtils.nextBytes(32)), Collections.emptyList(), true);
+        assertThat(index.covers(1, 7)).isTrue();
+
+        // indexing the fork again does not duplicate its postings
+        List<LogIndex.Position> positions = drain(index.scanByAddress(contract, 1, 7));
+        assertThat(positions).hasSize(3);
+        for (int i = 0; i < positions.size(); i++) {
+            assertThat(positions.get(i).blockHash).isEqualTo(fork.get(i).getHash());
+        }
+    }
+
+    private static List<LogIndex.Position> drain(LogIndex.Cursor cursor) {
+        List<LogIndex.Position> positions = new ArrayList<>();
+        for (LogIndex.Position position = cursor.next(); position != null; position = cursor.next()) {
+            positions.add(position);
+        }
+        return positions;
+    }
+
+    private static Block block(long number, byte[] hash, byte[]... txHashes) {
+        List<AionTransaction> transactions = new ArrayList<>();
+        for (byte[] txHash : txHashes) {
+            AionTransaction tx = mock(AionTransaction.class);
+            when(tx.getTransactionHash()).thenReturn(txHash);
+            transactions.add(tx);
+        }
+
+        Block block = mock(Block.class);
+        when(block.getNumber()).thenReturn(number);
+        when(block.getHash()).thenReturn(hash);
+        when(block.getTransactionsList()).thenReturn(transactions);
+        return block;
+    }
+
+    private static List<AionTxReceipt> receipts(Log... logs) {
+        AionTxReceipt receipt = new AionTxReceipt();
+        receipt.setLogs(List.of(logs));
+        return Collections.singletonList(receipt);
+    }
+}
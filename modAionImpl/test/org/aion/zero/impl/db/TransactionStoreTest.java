@@ -0,0 +1,130 @@
+package org.aion.zero.impl.db;
+
+import static com.google.common.truth.Truth.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.math.BigInteger;
+import java.util.List;
+import org.aion.base.AionTransaction;
+import org.aion.base.TxUtil;
+import org.aion.db.impl.ByteArrayKeyValueDatabase;
+import org.aion.db.impl.mockdb.MockDB;
+import org.aion.mcf.blockchain.Block;
+import org.aion.types.AionAddress;
+import org.aion.zero.impl.db.TransactionStore.HistoryEntry;
+import org.apache.commons.lang3.RandomUtils;
+import org.junit.Before;
+import org.junit.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/** Unit tests for the address history of {@link TransactionStore}. */
+public class TransactionStoreTest {
+
+    private static final Logger log = LoggerFactory.getLogger("DB");
+
+    private final AionAddress sender = new AionAddress(RandomUtils.nextBytes(32));
+    private final AionAddress recipient = new AionAddress(RandomUtils.nextBytes(32));
+
+    private ByteArrayKeyValueDatabase database;
+    private TransactionStore store;
+
+    @Before
+    public void setup() {
+        database = new MockDB("transaction", log);
+        database.open();
+        store = new TransactionStore(database, AionTransactionStoreSerializer.serializer, true);
+    }
+
+    @Test
+    public void testHistoryOfSenderAndRecipient() {
+        AionTransaction tx1 = transaction(sender, recipient);
+        AionTransaction tx2 = transaction(recipient, sender);
+        Block block1 = block(1, tx1);
+        Block block2 = block(2, tx2, transaction(recipient, recipient));
+
+        store.putHistoryToBatch(block1);
+        store.putHistoryToBatch(block2);
+        store.flushBatch();
+
+        List<HistoryEntry> history = store.getHistory(sender.toByteArray(), HistoryEntry.startOf(0), 10, 10);
+        assertThat(history).hasSize(2);
+        assertThat(history.get(0).blockNumber).isEqualTo(1);
+        assertThat(history.get(0).blockHash).isEqualTo(block1.getHash());
+        assertThat(history.get(0).txHash).isEqualTo(tx1.getTransactionHash());
+        assertThat(history.get(1).blockNumber).isEqualTo(2);
+        assertThat(history.get(1).txIndex).isEqualTo(0);
+        assertThat(history.get(1).txHash).isEqualTo(tx2.getTransactionHash());
+
+        // the transactions to self are listed once
+        assertThat(store.getHistory(recipient.toByteArray(), HistoryEntry.startOf(0), 10, 10)).hasSize(3);
+
+        // the block range and the limit are applied
+        assertThat(store.getHistory(sender.toByteArray(), HistoryEntry.startOf(2), 10, 10)).hasSize(1);
+        assertThat(store.getHistory(sender.toByteArray(), HistoryEntry.startOf(0), 1, 10)).hasSize(1);
+        List<HistoryEntry> page = store.getHistory(recipient.toByteArray(), HistoryEntry.startOf(0), 10, 2);
+        assertThat(page).hasSize(2);
+
+        // reading resumes from the position of an entry
+        List<HistoryEntry> next = store.getHistory(recipient.toByteArray(), page.get(1).getPosition(), 10, 10);
+        assertThat(next).hasSize(2);
+        assertThat(next.get(0).txHash).isEqualTo(page.get(1).txHash);
+    }
+
+    @Test
+    public void testContractDeploymentIsIndexed() {
+        AionTransaction deployment = mock(AionTransaction.class);
+        when(deployment.getTransactionHash()).thenReturn(RandomUtils.nextBytes(32));
+        when(deployment.getSenderAddress()).thenReturn(sender);
+        when(deployment.getNonceBI()).thenReturn(BigInteger.ZERO);
+        when(deployment.isContractCreationTransaction()).thenReturn(true);
+
+        store.putHistoryToBatch(block(1, deployment));
+        store.flushBatch();
+
+        byte[] contract = TxUtil.calculateContractAddress(deployment).toByteArray();
+        assertThat(store.getHistory(contract, HistoryEntry.startOf(0), 1, 10)).hasSize(1);
+        assertThat(store.getHistory(sender.toByteArray(), HistoryEntry.startOf(0), 1, 10)).hasSize(1);
+    }
+
+    @Test
+    public void testRemovedBlockIsDropped() {
+        Block block = block(1, transaction(sender, recipient));
+        store.putHistoryToBatch(block);
+        store.flushBatch();
+
+        store.removeHistoryToBatch(block);
+        store.flushBatch();
+
+        assertThat(store.getHistory(sender.toByteArray(), HistoryEntry.startOf(0), 10, 10)).isEmpty();
+        assertThat(store.getHistory(recipient.toByteArray(), HistoryEntry.startOf(0), 10, 10)).isEmpty();
+    }
+
+    @Test
+    public void testDisabledHistory() {
+        TransactionStore disabled = new TransactionStore(database, AionTransactionStoreSerializer.serializer);
+        disabled.putHistoryToBatch(block(1, transaction(sender, recipient)));
+        disabled.flushBatch();
+
+        assertThat(disabled.isHistoryEnabled()).isFalse();
+        assertThat(store.getHistory(sender.toByteArray(), HistoryEntry.startOf(0), 10, 10)).isEmpty();
+    }
+
+    private static AionTransaction transaction(AionAddress from, AionAddress to) {
+        AionTransaction tx = mock(AionTransaction.class);
+        when(tx.getTransactionHash()).thenReturn(RandomUtils.nextBytes(32));
+        when(tx.getSenderAddress()).thenReturn(from);
+        when(tx.getDestinationAddress()).thenReturn(to);
+        return tx;
+    }
+
+    private static Block block(long number, AionTransaction... transactions) {
+        Block block = mock(Block.class);
+        byte[] hash = RandomUtils.nextBytes(32);
+        when(block.getNumber()).thenReturn(number);
+        when(block.getHash()).thenReturn(hash);
+        when(block.getTransactionsList()).thenReturn(List.of(transactions));
+        return block;
+    }
+}
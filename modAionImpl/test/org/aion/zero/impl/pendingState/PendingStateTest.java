@@ -14,12 +14,15 @@ import org.aion.base.AionTransaction;
 import org.aion.base.TransactionTypes;
 import org.aion.base.TxUtil;
 import org.aion.crypto.ECKey;
+import org.aion.crypto.ECKeyFac;
+import org.aion.mcf.blockchain.Block;
 import org.aion.txpool.Constant;
 import org.aion.zero.impl.blockchain.AionHub;
 import org.aion.zero.impl.blockchain.AionImpl;
 import org.aion.zero.impl.blockchain.AionImpl.NetworkBestBlockCallback;
 import org.aion.zero.impl.blockchain.AionImpl.PendingTxCallback;
 import org.aion.zero.impl.blockchain.AionImpl.TransactionBroadcastCallback;
+import org.aion.zero.impl.blockchain.BlockchainCallbackInterface;
 import org.aion.zero.impl.blockchain.StandaloneBlockchain;
 import org.aion.zero.impl.blockchain.StandaloneBlockchain.Bundle;
 import org.aion.zero.impl.types.TxResponse;
@@ -30,6 +33,7 @@ import org.aion.util.bytes.ByteUtil;
 import org.aion.util.time.TimeInstant;
 import org.aion.zero.impl.config.CfgAion;
 import org.aion.zero.impl.types.MiningBlock;
+import org.aion.zero.impl.types.PendingTxDetails;
 import org.aion.zero.impl.types.AionBlockSummary;
 import org.aion.zero.impl.vm.AvmPathManager;
 import org.aion.zero.impl.vm.AvmTestConfig;
@@ -47,6 +51,7 @@ public class PendingStateTest {
     private StandaloneBlockchain blockchain;
     private ECKey deployerKey;
     private AionPendingStateImpl pendingState;
+    private List<PendingTxDetails> txUpdates;
     private long energyPrice = 10_000_000_000L;
 
     @BeforeClass
@@ -74,8 +79,28 @@ public class PendingStateTest {
 
         CfgAion.inst().setGenesis(blockchain.getGenesis());
 
+        txUpdates = new ArrayList<>();
+        List<BlockchainCallbackInterface> callbacks = new ArrayList<>();
+        callbacks.add(new BlockchainCallbackInterface() {
+            @Override
+            public boolean isForApiServer() {
+                return true;
+            }
+
+            @Override
+            public void pendingTxReceived(AionTransaction tx) {}
+
+            @Override
+            public void pendingTxUpdated(PendingTxDetails txDetails) {
+                txUpdates.add(txDetails);
+            }
+
+            @Override
+            public void chainReorganized(Block commonAncestor) {}
+        });
+
         pendingState = AionHub.createForTesting(CfgAion.inst(), blockchain,
-            new PendingTxCallback(new ArrayList<>()), new NetworkBestBlockCallback(AionImpl.inst()), new TransactionBroadcastCallback(AionImpl.inst())).getPendingState();
+            new PendingTxCallback(callbacks), new NetworkBestBlockCallback(AionImpl.inst()), new TransactionBroadcastCallback(AionImpl.inst())).getPendingState();
     }
 
     private List<AionTransaction> getMockTransaction(int startNonce, int num, int keyIndex) {
@@ -897,4 +922,143 @@ public class PendingStateTest {
         assertEquals(0 , pendingState.getCachePoolSize());
         assertEquals(cachedTx.get(1), pendingState.getPendingTransactions().get(0));
     }
+
+    @Test
+    public void unaffectedSenderKeepsPendingState() {
+        List<AionTransaction> transactions = getMockTransaction(0, 2, 0);
+        List<AionTransaction> unaffected = getMockTransaction(0, 3, 2);
+        AionAddress unaffectedSender = unaffected.get(0).getSenderAddress();
+
+        pendingState.addTransactionsFromNetwork(transactions);
+        pendingState.addTransactionsFromNetwork(unaffected);
+        assertEquals(5, pendingState.getPendingTxSize());
+
+        MiningBlock block =
+            blockchain.createNewMiningBlock(
+                blockchain.getBestBlock(), Collections.singletonList(transactions.get(0)), false);
+        Pair<ImportResult, AionBlockSummary> connectResult = blockchain.tryToConnectAndFetchSummary(block);
+        assertEquals(connectResult.getLeft(), ImportResult.IMPORTED_BEST);
+
+        pendingState.applyBlockUpdate(block, connectResult.getRight().getReceipts());
+        assertEquals(4, pendingState.getPendingTxSize());
+        assertEquals(BigInteger.valueOf(3), pendingState.bestPendingStateNonce(unaffectedSender));
+        assertEquals(BigInteger.TWO, pendingState.bestPendingStateNonce(transactions.get(0).getSenderAddress()));
+
+        // the next transaction of the skipped sender is executed on top of its pending transactions
+        assertEquals(TxResponse.SUCCESS, pendingState.addTransactionFromApiServer(getMockTransaction(3, 1, 2).get(0)));
+        assertEquals(5, pendingState.getPendingTxSize());
+    }
+
+    private AionTransaction genTransfer(ECKey key, long nonce, AionAddress to, BigInteger value) {
+        return AionTransaction.create(
+                key,
+                BigInteger.valueOf(nonce).toByteArray(),
+                to,
+                value.toByteArray(),
+                new byte[0],
+                Constant.MIN_ENERGY_CONSUME * 10,
+                energyPrice,
+                TransactionTypes.DEFAULT,
+                null);
+    }
+
+    private AionBlockSummary connectAndApply(List<AionTransaction> transactions) {
+        MiningBlock block = blockchain.createNewMiningBlock(blockchain.getBestBlock(), transactions, false);
+        Pair<ImportResult, AionBlockSummary> connectResult = blockchain.tryToConnectAndFetchSummary(block);
+        assertEquals(ImportResult.IMPORTED_BEST, connectResult.getLeft());
+
+        pendingState.applyBlockUpdate(block, connectResult.getRight().getReceipts());
+        return connectResult.getRight();
+    }
+
+    @Test
+    public void unaffectedSenderContractCallFundsAffectedSender() throws Exception {
+        TestResourceProvider resourceProvider = TestResourceProvider.initializeAndCreateNewProvider(AvmPathManager.getPathOfProjectRootDirectory());
+        IAvmResourceFactory resourceFactory = resourceProvider.factoryForVersion1;
+
+        byte[] jar = resourceFactory.newContractFactory().getDeploymentBytes(AvmContract.GENERIC_CONTRACT);
+        AionTransaction createTransaction =
+                AionTransaction.create(
+                        deployerKey,
+                        BigInteger.ZERO.toByteArray(),
+                        null,
+                        BigInteger.ZERO.toByteArray(),
+                        jar,
+                        5_000_000,
+                        energyPrice,
+                        TransactionTypes.AVM_CREATE_CODE, null);
+        AionBlockSummary summary = connectAndApply(Collections.singletonList(createTransaction));
+        assertThat(summary.getReceipts().get(0).isSuccessful()).isTrue();
+        AionAddress contract = TxUtil.calculateContractAddress(createTransaction);
+
+        // the only funds of the new account come through the contract
+        ECKey fundedKey = ECKeyFac.inst().create();
+        AionAddress funded = new AionAddress(fundedKey.getAddress());
+        BigInteger value = BigInteger.TEN.pow(18);
+
+        byte[] call =
+                resourceFactory
+                        .newStreamingEncoder()
+                        .encodeOneString("transfer")
+                        .encodeOneAddress(funded)
+                        .getEncoding();
+        AionTransaction callTransaction =
+                AionTransaction.create(
+                        bundle.privateKeys.get(2),
+                        BigInteger.ZERO.toByteArray(),
+                        contract,
+                        value.multiply(BigInteger.TWO).toByteArray(),
+                        call,
+                        2_000_000,
+                        energyPrice,
+                        TransactionTypes.DEFAULT, null);
+        assertEquals(TxResponse.SUCCESS, pendingState.addTransactionFromApiServer(callTransaction));
+
+        // the funded account is affected by the block, the caller of the contract is not
+        connectAndApply(Collections.singletonList(genTransfer(deployerKey, 1, funded, BigInteger.ONE)));
+        assertEquals(1, pendingState.getPendingTxSize());
+
+        // the funded account spends the value it receives from the pending contract call
+        AionTransaction spend = genTransfer(fundedKey, 0, new AionAddress(new byte[32]), value);
+        assertEquals(TxResponse.SUCCESS, pendingState.addTransactionFromApiServer(spend));
+        assertEquals(2, pendingState.getPendingTxSize());
+    }
+
+    @Test
+    public void fallbackRerunFiresPoolEventsOnce() {
+        ECKey funderKey = bundle.privateKeys.get(0);
+        ECKey otherKey = bundle.privateKeys.get(1);
+        ECKey fundedKey = ECKeyFac.inst().create();
+        AionAddress funded = new AionAddress(fundedKey.getAddress());
+        AionAddress burn = new AionAddress(new byte[32]);
+        BigInteger value = BigInteger.TEN.pow(18);
+
+        AionTransaction replaced = genTransfer(funderKey, 0, burn, BigInteger.ONE);
+        AionTransaction funding = genTransfer(funderKey, 1, funded, value.multiply(BigInteger.TWO));
+        AionTransaction spend = genTransfer(fundedKey, 0, burn, value);
+        AionTransaction included = genTransfer(otherKey, 0, burn, BigInteger.ONE);
+        AionTransaction pending = genTransfer(otherKey, 1, burn, BigInteger.ONE);
+        for (AionTransaction tx : List.of(replaced, funding, spend, included, pending)) {
+            assertEquals(TxResponse.SUCCESS, pendingState.addTransactionFromApiServer(tx));
+        }
+
+        // the block spends nearly all the balance of the funder, so its funding transaction is
+        // dropped and the account it funds has to be executed again
+        BigInteger balance = blockchain.getRepository().getBalance(new AionAddress(funderKey.getAddress()));
+        AionTransaction drain = genTransfer(funderKey, 0, burn, balance.subtract(value));
+        txUpdates.clear();
+        connectAndApply(List.of(drain, included));
+
+        assertEquals(1, pendingState.getPendingTxSize());
+        assertEquals(pending, pendingState.getPendingTransactions().get(0));
+
+        List<AionTransaction> updated = new ArrayList<>();
+        for (PendingTxDetails details : txUpdates) {
+            if (details.state == PendingTransactionState.PENDING.getValue()
+                    || details.state == PendingTransactionState.DROPPED.getValue()) {
+                updated.add(details.receipt.getTransaction());
+            }
+        }
+        assertThat(updated).containsExactly(funding, spend, pending);
+    }
 }
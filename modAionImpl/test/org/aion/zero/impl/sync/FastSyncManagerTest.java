@@ -0,0 +1,452 @@
+package org.aion.zero.impl.sync;
+
+import static com.google.common.truth.Truth.assertThat;
+import static org.aion.crypto.HashUtil.h256;
+import static org.aion.p2p.V1Constants.TRIE_DATA_REQUEST_MAXIMUM_BATCH_SIZE;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.clearInvocations;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import org.aion.base.ConstantUtil;
+import org.aion.mcf.blockchain.Block;
+import org.aion.p2p.INode;
+import org.aion.p2p.IP2pMgr;
+import org.aion.util.types.ByteArrayWrapper;
+import org.aion.zero.impl.blockchain.AionBlockchainImpl;
+import org.aion.zero.impl.db.AionRepositoryImpl;
+import org.aion.zero.impl.sync.FastSyncManager.Phase;
+import org.aion.zero.impl.sync.msg.RequestBlocks;
+import org.aion.zero.impl.sync.msg.RequestTrieData;
+import org.aion.zero.impl.sync.msg.ResponseBlocks;
+import org.aion.zero.impl.sync.msg.ResponseTrieData;
+import org.aion.zero.impl.trie.TrieNodeResult;
+import org.aion.zero.impl.valid.BlockHeaderValidator;
+import org.apache.commons.lang3.RandomUtils;
+import org.apache.commons.lang3.tuple.Pair;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+
+/** Unit tests for {@link FastSyncManager}. */
+public class FastSyncManagerTest {
+
+    private static final long PIVOT_NUMBER = FastSyncManager.MIN_FAST_SYNC_DISTANCE;
+    private static final int ANCESTORS = 3;
+
+    private final byte[] networkBest = RandomUtils.nextBytes(32);
+    private final byte[] stateNode = RandomUtils.nextBytes(64);
+    private final byte[] stateRoot = h256(stateNode);
+
+    private AionBlockchainImpl chain;
+    private AionRepositoryImpl repository;
+    private IP2pMgr p2pMgr;
+    private BlockHeaderValidator headerValidator;
+    private Block bestBlock;
+    private final Map<Integer, INode> peers = new HashMap<>();
+
+    @Before
+    public void setup() {
+        chain = mock(AionBlockchainImpl.class);
+        repository = mock(AionRepositoryImpl.class);
+        p2pMgr = mock(IP2pMgr.class);
+        headerValidator = mock(BlockHeaderValidator.class);
+        bestBlock = mock(Block.class);
+        when(chain.getRepository()).thenReturn(repository);
+        when(chain.getBestBlock()).thenReturn(bestBlock);
+        when(p2pMgr.getActiveNodes()).thenReturn(peers);
+        when(headerValidator.validate(any(), any())).thenReturn(true);
+        when(repository.importTrieNode(any(), any(), any())).thenReturn(TrieNodeResult.IMPORTED);
+    }
+
+    private INode addPeer(int id, byte[] bestHash) {
+        return addPeer(id, bestHash, BigInteger.TEN);
+    }
+
+    private INode addPeer(int id, byte[] bestHash, BigInteger totalDifficulty) {
+        INode peer = mock(INode.class);
+        when(peer.getIdHash()).thenReturn(id);
+        when(peer.getIdShort()).thenReturn("peer" + id);
+        when(peer.getBestBlockNumber()).thenReturn(PIVOT_NUMBER);
+        when(peer.getBestBlockHash()).thenReturn(bestHash);
+        when(peer.getTotalDifficulty()).thenReturn(totalDifficulty);
+        peers.put(id, peer);
+        return peer;
+    }
+
+    private FastSyncManager newManager() {
+        return newManager(TimeUnit.MINUTES.toNanos(10));
+    }
+
+    private FastSyncManager newManager(long pivotTimeout) {
+        return new FastSyncManager(chain, p2pMgr, new SyncStats(0L, false), headerValidator, pivotTimeout, false);
+    }
+
+    /** Creates the pivot with the given hash followed by its ancestors in descending order. */
+    private static List<Block> pivotBlocks(byte[] pivotHash, byte[] stateRoot) {
+        List<Block> blocks = new ArrayList<>();
+        byte[] hash = pivotHash;
+        for (int i = 0; i <= ANCESTORS; i++) {
+            byte[] parentHash = RandomUtils.nextBytes(32);
+            Block block = mock(Block.class);
+            when(block.getNumber()).thenReturn(PIVOT_NUMBER - i);
+            when(block.getHash()).thenReturn(hash);
+            when(block.getHashWrapper()).thenReturn(ByteArrayWrapper.wrap(hash));
+            when(block.getShortHash()).thenReturn("block" + i);
+            when(block.getParentHash()).thenReturn(parentHash);
+            when(block.getStateRoot()).thenReturn(stateRoot);
+            when(block.getTxTrieRoot()).thenReturn(ConstantUtil.EMPTY_TRIE_HASH);
+            when(block.getTransactionsList()).thenReturn(Collections.emptyList());
+            blocks.add(block);
+            hash = parentHash;
+        }
+        return blocks;
+    }
+
+    /** Steps the manager until it requests the pivot and returns the peer that was asked. */
+    private int requestPivot(FastSyncManager manager, byte[] expectedHash) throws InterruptedException {
+        manager.step(0);
+
+        ArgumentCaptor<Integer> peerId = ArgumentCaptor.forClass(Integer.class);
+        ArgumentCaptor<RequestBlocks> request = ArgumentCaptor.forClass(RequestBlocks.class);
+        verify(p2pMgr).send(peerId.capture(), anyString(), request.capture());
+        assertThat(request.getValue().getStartHash()).isEqualTo(expectedHash);
+        clearInvocations(p2pMgr);
+        return peerId.getValue();
+    }
+
+    /** Requests and accepts a valid pivot, after which the state root is requested. */
+    private List<Block> acceptPivot(FastSyncManager manager) throws InterruptedException {
+        int peerId = requestPivot(manager, networkBest);
+        List<Block> blocks = pivotBlocks(networkBest, stateRoot);
+        manager.validateAndAddBlocks(peerId, "peer" + peerId, new ResponseBlocks(blocks));
+        manager.step(0);
+        assertThat(manager.getPhase()).isEqualTo(Phase.STATE);
+        return blocks;
+    }
+
+    private void receiveTrieData(FastSyncManager manager, int peerId, byte[] key, byte[] value, DatabaseType dbType) {
+        manager.getReceivedTrieData().add(new TrieNodeWrapper(peerId, "peer" + peerId, new ResponseTrieData(ByteArrayWrapper.wrap(key), value, dbType)));
+    }
+
+    @Test
+    public void testPivotRequestedWhenPeersAgree() throws InterruptedException {
+        for (int i = 0; i < FastSyncManager.MIN_PIVOT_PEERS; i++) {
+            addPeer(i, networkBest);
+        }
+        FastSyncManager manager = newManager();
+        assertThat(manager.getPhase()).isEqualTo(Phase.PIVOT);
+        assertThat(manager.isStateSynced()).isFalse();
+
+        manager.step(0);
+
+        ArgumentCaptor<RequestBlocks> request = ArgumentCaptor.forClass(RequestBlocks.class);
+        verify(p2pMgr).send(anyInt(), anyString(), request.capture());
+        assertThat(request.getValue().getStartHash()).isEqualTo(networkBest);
+        assertThat(request.getValue().getCount()).isEqualTo(FastSyncManager.PIVOT_ANCESTORS + 1);
+        assertThat(request.getValue().isDescending()).isTrue();
+
+        // a single request is pending at a time
+        manager.step(0);
+        verify(p2pMgr).send(anyInt(), anyString(), any(RequestBlocks.class));
+    }
+
+    @Test
+    public void testNoPivotWithoutAgreement() throws InterruptedException {
+        for (int i = 0; i < FastSyncManager.MIN_PIVOT_PEERS - 1; i++) {
+            addPeer(i, networkBest);
+        }
+        addPeer(FastSyncManager.MIN_PIVOT_PEERS, RandomUtils.nextBytes(32));
+        FastSyncManager manager = newManager();
+
+        manager.step(0);
+
+        verify(p2pMgr, never()).send(anyInt(), anyString(), any(RequestBlocks.class));
+        assertThat(manager.getPhase()).isEqualTo(Phase.PIVOT);
+    }
+
+    @Test
+    public void testNoPivotWithoutAgreementOnTotalDifficulty() throws InterruptedException {
+        for (int i = 0; i < FastSyncManager.MIN_PIVOT_PEERS - 1; i++) {
+            addPeer(i, networkBest);
+        }
+        addPeer(FastSyncManager.MIN_PIVOT_PEERS, networkBest, BigInteger.valueOf(1_000_000L));
+        FastSyncManager manager = newManager();
+
+        manager.step(0);
+
+        verify(p2pMgr, never()).send(anyInt(), anyString(), any(RequestBlocks.class));
+        assertThat(manager.getPhase()).isEqualTo(Phase.PIVOT);
+    }
+
+    @Test
+    public void testNoEligiblePivotOnShortNetwork() throws InterruptedException {
+        for (int i = 0; i < FastSyncManager.MIN_PIVOT_PEERS; i++) {
+            INode peer = addPeer(i, networkBest);
+            when(peer.getBestBlockNumber()).thenReturn(FastSyncManager.MIN_FAST_SYNC_DISTANCE - 1);
+        }
+        FastSyncManager manager = newManager();
+
+        manager.step(0);
+
+        // the regular sync continues from the genesis block
+        verify(p2pMgr, never()).send(anyInt(), anyString(), any(RequestBlocks.class));
+        assertThat(manager.getPhase()).isEqualTo(Phase.COMPLETE);
+        assertThat(manager.isStateSynced()).isTrue();
+    }
+
+    @Test
+    public void testNoEligiblePivotBeforeTimeout() throws InterruptedException {
+        // a single peer is far enough ahead, which is not enough to select a pivot
+        addPeer(0, networkBest);
+        FastSyncManager waiting = newManager();
+        waiting.step(0);
+        assertThat(waiting.getPhase()).isEqualTo(Phase.PIVOT);
+
+        FastSyncManager expired = newManager(0L);
+        expired.step(0);
+        verify(p2pMgr, never()).send(anyInt(), anyString(), any(RequestBlocks.class));
+        assertThat(expired.getPhase()).isEqualTo(Phase.COMPLETE);
+        assertThat(expired.isStateSynced()).isTrue();
+    }
+
+    @Test
+    public void testPivotWithInvalidHeaderRejected() throws InterruptedException {
+        for (int i = 0; i < FastSyncManager.MIN_PIVOT_PEERS; i++) {
+            addPeer(i, networkBest);
+        }
+        FastSyncManager manager = newManager();
+        int peerId = requestPivot(manager, networkBest);
+        when(headerValidator.validate(any(), any())).thenReturn(false);
+
+        manager.validateAndAddBlocks(peerId, "peer" + peerId, new ResponseBlocks(pivotBlocks(networkBest, stateRoot)));
+        manager.step(0);
+
+        verify(p2pMgr).errCheck(peerId, "peer" + peerId);
+        assertThat(manager.getPhase()).isEqualTo(Phase.PIVOT);
+    }
+
+    @Test
+    public void testPivotWithInvalidTxTrieRootRejected() throws InterruptedException {
+        for (int i = 0; i < FastSyncManager.MIN_PIVOT_PEERS; i++) {
+            addPeer(i, networkBest);
+        }
+        FastSyncManager manager = newManager();
+        int peerId = requestPivot(manager, networkBest);
+        List<Block> blocks = pivotBlocks(networkBest, stateRoot);
+        when(blocks.get(0).getTxTrieRoot()).thenReturn(RandomUtils.nextBytes(32));
+
+        manager.validateAndAddBlocks(peerId, "peer" + peerId, new ResponseBlocks(blocks));
+        manager.step(0);
+
+        verify(p2pMgr).errCheck(peerId, "peer" + peerId);
+        assertThat(manager.getPhase()).isEqualTo(Phase.PIVOT);
+    }
+
+    @Test
+    public void testPivotWithBrokenLinkageRejected() throws InterruptedException {
+        for (int i = 0; i < FastSyncManager.MIN_PIVOT_PEERS; i++) {
+            addPeer(i, networkBest);
+        }
+        FastSyncManager manager = newManager();
+        int peerId = requestPivot(manager, networkBest);
+        List<Block> blocks = pivotBlocks(networkBest, stateRoot);
+        when(blocks.get(1).getParentHash()).thenReturn(RandomUtils.nextBytes(32));
+
+        manager.validateAndAddBlocks(peerId, "peer" + peerId, new ResponseBlocks(blocks));
+        manager.step(0);
+
+        verify(p2pMgr).errCheck(peerId, "peer" + peerId);
+        assertThat(manager.getPhase()).isEqualTo(Phase.PIVOT);
+    }
+
+    @Test
+    public void testPivotAcceptedAndStateRootRequested() throws InterruptedException {
+        for (int i = 0; i < FastSyncManager.MIN_PIVOT_PEERS; i++) {
+            addPeer(i, networkBest);
+        }
+        FastSyncManager manager = newManager();
+
+        acceptPivot(manager);
+
+        ArgumentCaptor<RequestTrieData> request = ArgumentCaptor.forClass(RequestTrieData.class);
+        verify(p2pMgr).send(anyInt(), anyString(), request.capture());
+        assertThat(request.getValue().getNodeKey()).isEqualTo(stateRoot);
+        assertThat(request.getValue().getDbType()).isEqualTo(DatabaseType.STATE);
+        verify(p2pMgr, never()).errCheck(anyInt(), anyString());
+    }
+
+    @Test
+    public void testTrieNodeNotMatchingHashRejected() throws InterruptedException {
+        for (int i = 0; i < FastSyncManager.MIN_PIVOT_PEERS; i++) {
+            addPeer(i, networkBest);
+        }
+        FastSyncManager manager = newManager();
+        acceptPivot(manager);
+
+        byte[] invalid = Arrays.copyOf(stateNode, stateNode.length);
+        invalid[0]++;
+        receiveTrieData(manager, 1, stateRoot, invalid, DatabaseType.STATE);
+        manager.step(0);
+
+        verify(p2pMgr).errCheck(1, "peer1");
+        verify(repository, never()).importTrieNode(any(), any(), any());
+        assertThat(manager.getPhase()).isEqualTo(Phase.STATE);
+
+        // the node is still expected and the matching value is imported
+        receiveTrieData(manager, 2, stateRoot, stateNode, DatabaseType.STATE);
+        manager.step(0);
+
+        verify(repository).importTrieNode(stateRoot, stateNode, DatabaseType.STATE);
+        assertThat(manager.getPhase()).isEqualTo(Phase.CONTRACTS);
+    }
+
+    @Test
+    public void testStateCompletedWhenAllContractsVerified() throws InterruptedException {
+        for (int i = 0; i < FastSyncManager.MIN_PIVOT_PEERS; i++) {
+            addPeer(i, networkBest);
+        }
+        FastSyncManager manager = newManager();
+        List<Block> blocks = acceptPivot(manager);
+        when(repository.countContractAccounts(stateRoot)).thenReturn(0L);
+
+        receiveTrieData(manager, 1, stateRoot, stateNode, DatabaseType.STATE);
+        manager.step(0);
+        assertThat(manager.getPhase()).isEqualTo(Phase.CONTRACTS);
+
+        manager.step(0);
+
+        verify(chain).importFastSyncPivot(blocks.get(0), BigInteger.TEN, blocks.subList(1, blocks.size()));
+        assertThat(manager.getPhase()).isEqualTo(Phase.COMPLETE);
+    }
+
+    @Test
+    public void testContractListingCursor() throws InterruptedException {
+        for (int i = 0; i < FastSyncManager.MIN_PIVOT_PEERS; i++) {
+            addPeer(i, networkBest);
+        }
+        FastSyncManager manager = newManager();
+        acceptPivot(manager);
+        when(repository.countContractAccounts(stateRoot)).thenReturn(2L);
+        receiveTrieData(manager, 1, stateRoot, stateNode, DatabaseType.STATE);
+        manager.step(0);
+        clearInvocations(p2pMgr);
+
+        // the listing starts from the first address
+        manager.step(0);
+        ArgumentCaptor<Integer> peerId = ArgumentCaptor.forClass(Integer.class);
+        ArgumentCaptor<RequestTrieData> request = ArgumentCaptor.forClass(RequestTrieData.class);
+        verify(p2pMgr).send(peerId.capture(), anyString(), request.capture());
+        assertThat(request.getValue().getDbType()).isEqualTo(DatabaseType.DETAILS);
+        assertThat(request.getValue().getNodeKey()).isEqualTo(new byte[32]);
+        clearInvocations(p2pMgr);
+
+        // a full page of details that do not match any account of the pivot state
+        Map<ByteArrayWrapper, byte[]> page = new HashMap<>();
+        byte[] last = new byte[32];
+        for (int i = 0; i < TRIE_DATA_REQUEST_MAXIMUM_BATCH_SIZE; i++) {
+            byte[] address = RandomUtils.nextBytes(32);
+            address[0] = 0x10;
+            if (Arrays.compareUnsigned(address, last) > 0) {
+                last = address;
+            }
+            page.put(ByteArrayWrapper.wrap(address), RandomUtils.nextBytes(16));
+        }
+        Map.Entry<ByteArrayWrapper, byte[]> first = page.entrySet().iterator().next();
+        Map<ByteArrayWrapper, byte[]> referenced = new HashMap<>(page);
+        referenced.remove(first.getKey());
+        int listingPeer = peerId.getValue();
+        manager.getReceivedTrieData().add(new TrieNodeWrapper(listingPeer, "peer" + listingPeer, new ResponseTrieData(first.getKey(), first.getValue(), referenced, DatabaseType.DETAILS)));
+        manager.step(0);
+
+        // the next page starts after the last listed address and the state is not complete
+        byte[] next = BigInteger.ONE.add(new BigInteger(1, last)).toByteArray();
+        next = Arrays.copyOfRange(next, next.length - 32, next.length);
+        verify(p2pMgr).send(peerId.capture(), anyString(), request.capture());
+        assertThat(request.getValue().getNodeKey()).isEqualTo(next);
+        assertThat(manager.getPhase()).isEqualTo(Phase.CONTRACTS);
+        clearInvocations(p2pMgr);
+
+        // a partial page ends the listing of the peer, which restarts from the first address
+        listingPeer = peerId.getValue();
+        receiveTrieData(manager, listingPeer, RandomUtils.nextBytes(32), RandomUtils.nextBytes(16), DatabaseType.DETAILS);
+        manager.step(0);
+
+        verify(p2pMgr).send(anyInt(), anyString(), request.capture());
+        assertThat(request.getValue().getNodeKey()).isEqualTo(new byte[32]);
+        assertThat(manager.getPhase()).isEqualTo(Phase.CONTRACTS);
+        verify(chain, never()).importFastSyncPivot(any(), any(), any());
+    }
+
+    @Test
+    public void testRestartFromNewPivot() throws InterruptedException {
+        List<INode> agreeing = new ArrayList<>();
+        for (int i = 0; i < FastSyncManager.MIN_PIVOT_PEERS; i++) {
+            agreeing.add(addPeer(i, networkBest));
+        }
+        FastSyncManager manager = newManager();
+        acceptPivot(manager);
+        clearInvocations(p2pMgr);
+
+        // the network moved too far past the pivot
+        byte[] newBest = RandomUtils.nextBytes(32);
+        for (INode peer : agreeing) {
+            when(peer.getBestBlockNumber()).thenReturn(PIVOT_NUMBER + FastSyncManager.MAX_PIVOT_AGE + 1);
+            when(peer.getBestBlockHash()).thenReturn(newBest);
+        }
+        manager.step(0);
+        assertThat(manager.getPhase()).isEqualTo(Phase.PIVOT);
+
+        // the state node of the old pivot is no longer accepted
+        receiveTrieData(manager, 1, stateRoot, stateNode, DatabaseType.STATE);
+        requestPivot(manager, newBest);
+        verify(repository, never()).importTrieNode(any(), any(), any());
+    }
+
+    @Test
+    public void testResumeHistory() throws InterruptedException {
+        long lowestStored = 40L;
+        byte[] missingHash = RandomUtils.nextBytes(32);
+        when(bestBlock.getNumber()).thenReturn(100L);
+        Block lowest = mock(Block.class);
+        when(chain.getBlockByNumber(anyLong())).thenAnswer(invocation -> (long) invocation.getArgument(0) >= lowestStored ? lowest : null);
+        when(chain.findMissingAncestor(lowest)).thenReturn(Pair.of(ByteArrayWrapper.wrap(missingHash), lowestStored - 1));
+        addPeer(1, networkBest);
+
+        assertThat(FastSyncManager.isRequired(chain)).isTrue();
+        FastSyncManager manager = newManager();
+        assertThat(manager.getPhase()).isEqualTo(Phase.HISTORY);
+        assertThat(manager.isStateSynced()).isTrue();
+        verify(chain).getBlockByNumber(eq(lowestStored));
+
+        manager.step(0);
+
+        ArgumentCaptor<RequestBlocks> request = ArgumentCaptor.forClass(RequestBlocks.class);
+        verify(p2pMgr).send(eq(1), anyString(), request.capture());
+        assertThat(request.getValue().getStartHash()).isEqualTo(missingHash);
+        assertThat(request.getValue().isDescending()).isTrue();
+    }
+
+    @Test
+    public void testCompleteHistory() {
+        when(bestBlock.getNumber()).thenReturn(100L);
+        when(chain.getBlockByNumber(anyLong())).thenReturn(bestBlock);
+
+        assertThat(FastSyncManager.isRequired(chain)).isFalse();
+        assertThat(newManager().getPhase()).isEqualTo(Phase.COMPLETE);
+    }
+}
@@ -27,6 +27,7 @@ import org.aion.p2p.IP2pMgr;
 import org.aion.util.TestResources;
 import org.aion.util.conversions.Hex;
 import org.aion.util.types.ByteArrayWrapper;
+import org.aion.util.types.HashKey;
 import org.aion.zero.impl.blockchain.AionBlockchainImpl;
 import org.aion.zero.impl.sync.SyncHeaderRequestManager.SyncMode;
 import org.aion.zero.impl.sync.msg.ReqBlocksBodies;
@@ -164,7 +165,7 @@ public class SyncMgrTest {
         List<BlockHeader> list = new ArrayList<>();
         list.add(header);
         syncMgr.syncHeaderRequestManager.storeHeaders(1, list);
-        syncMgr.importedBlockHashes.put(ByteArrayWrapper.wrap(hash), true);
+        syncMgr.importedBlockHashes.put(HashKey.wrap(hash), true);
 
         syncMgr.requestBodies(1, "peer1");
 
@@ -247,7 +248,7 @@ public class SyncMgrTest {
         list.add(header1);
         list.add(header2);
         syncMgr.syncHeaderRequestManager.storeHeaders(1, list);
-        syncMgr.importedBlockHashes.put(ByteArrayWrapper.wrap(hash1), true);
+        syncMgr.importedBlockHashes.put(HashKey.wrap(hash1), true);
 
         syncMgr.requestBodies(1, "peer1");
 
@@ -345,8 +346,8 @@ public class SyncMgrTest {
         List<BlockHeader> importedBlocks = new ArrayList<>();
         importedBlocks.add(consecutiveHeaders.get(0));
         importedBlocks.add(consecutiveHeaders.get(1));
-        syncMgr.importedBlockHashes.put(importedBlocks.get(0).getHashWrapper(), true);
-        syncMgr.importedBlockHashes.put(importedBlocks.get(1).getHashWrapper(), true);
+        syncMgr.importedBlockHashes.put(HashKey.wrap(importedBlocks.get(0).getHashWrapper()), true);
+        syncMgr.importedBlockHashes.put(HashKey.wrap(importedBlocks.get(1).getHashWrapper()), true);
         List<BlockHeader> newHeaders = new ArrayList<>();
         newHeaders.add(consecutiveHeaders.get(2));
         newHeaders.add(consecutiveHeaders.get(3));
@@ -21,7 +21,7 @@ import org.aion.mcf.blockchain.Block;
 import org.aion.zero.impl.core.ImportResult;
 import org.aion.zero.impl.db.RepositoryConfig;
 import org.aion.zero.impl.config.PruneConfig;
-import org.aion.util.types.ByteArrayWrapper;
+import org.aion.util.types.HashKey;
 import org.aion.zero.impl.blockchain.StandaloneBlockchain;
 import org.aion.zero.impl.vm.AvmTestConfig;
 import org.junit.After;
@@ -90,16 +90,16 @@ public class TaskImportBlocksTest {
 
         // populate initial input lists
         List<Block> batch = new ArrayList<>();
-        Map<ByteArrayWrapper, Object> imported = new HashMap<>();
+        Map<HashKey, Object> imported = new HashMap<>();
 
         Block current = chain.getBestBlock();
         while (current.getNumber() > 0) {
             batch.add(current);
-            imported.put(ByteArrayWrapper.wrap(current.getHash()), true);
+            imported.put(HashKey.wrap(current.getHash()), true);
             current = chain.getBlockByHash(current.getParentHash());
         }
         batch.add(current);
-        imported.put(ByteArrayWrapper.wrap(current.getHash()), true);
+        imported.put(HashKey.wrap(current.getHash()), true);
 
         // will filter out all blocks
         assertThat(filterBatch(batch, chain, imported)).isEmpty();
@@ -166,17 +166,17 @@ public class TaskImportBlocksTest {
 
         // populate initial input lists
         List<Block> allBlocks = new ArrayList<>();
-        Map<ByteArrayWrapper, Object> allHashes = new HashMap<>();
+        Map<HashKey, Object> allHashes = new HashMap<>();
         List<Block> unrestrictedBlocks = new ArrayList<>();
-        Map<ByteArrayWrapper, Object> unrestrictedHashes = new HashMap<>();
+        Map<HashKey, Object> unrestrictedHashes = new HashMap<>();
 
         for (long i = 0; i <= height; i++) {
             Block current = chain.getBlockByNumber(i);
             allBlocks.add(current);
-            allHashes.put(ByteArrayWrapper.wrap(current.getHash()), true);
+            allHashes.put(HashKey.wrap(current.getHash()), true);
             if (i >= height - current_count + 1) {
                 unrestrictedBlocks.add(current);
-                unrestrictedHashes.put(ByteArrayWrapper.wrap(current.getHash()), true);
+                unrestrictedHashes.put(HashKey.wrap(current.getHash()), true);
             }
         }
 
@@ -2,6 +2,7 @@ package org.aion.zero.impl.sync.handler;
 
 import static com.google.common.truth.Truth.assertThat;
 import static org.aion.p2p.V1Constants.TRIE_DATA_REQUEST_MAXIMUM_BATCH_SIZE;
+import static org.aion.zero.impl.sync.DatabaseType.DETAILS;
 import static org.aion.zero.impl.sync.DatabaseType.STATE;
 import static org.aion.zero.impl.sync.msg.RequestTrieDataTest.nodeKey;
 import static org.aion.zero.impl.sync.msg.ResponseTrieDataTest.leafValue;
@@ -15,14 +16,18 @@ import static org.mockito.Mockito.verifyZeroInteractions;
 import static org.mockito.Mockito.when;
 
 import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
 import org.aion.p2p.IP2pMgr;
 import org.aion.p2p.Ver;
 import org.aion.p2p.impl1.P2pMgr;
 import org.aion.rlp.RLP;
+import org.aion.util.types.ByteArrayWrapper;
 import org.aion.zero.impl.blockchain.AionBlockchainImpl;
 import org.aion.zero.impl.blockchain.IAionBlockchain;
 import org.aion.zero.impl.sync.Act;
 import org.aion.zero.impl.sync.msg.ResponseTrieData;
+import org.apache.commons.lang3.RandomUtils;
 import org.junit.Test;
 import org.slf4j.Logger;
 
@@ -258,4 +263,35 @@ public class RequestTrieDataHandlerTest {
                 new ResponseTrieData(wrappedNodeKey, leafValue, singleReference, STATE);
         verify(p2p, times(1)).send(peerId, displayId, expectedResponse);
     }
+
+    @Test
+    public void testReceive_contractDetails_paging() {
+        Logger log = mock(Logger.class);
+
+        ByteArrayWrapper nextKey = ByteArrayWrapper.wrap(RandomUtils.nextBytes(32));
+        byte[] nextValue = RandomUtils.nextBytes(64);
+        Map<ByteArrayWrapper, byte[]> details = new LinkedHashMap<>();
+        details.put(wrappedNodeKey, leafValue);
+        details.put(nextKey, nextValue);
+
+        IAionBlockchain chain = mock(AionBlockchainImpl.class);
+        when(chain.getContractDetails(nodeKey, TRIE_DATA_REQUEST_MAXIMUM_BATCH_SIZE)).thenReturn(details);
+
+        IP2pMgr p2p = mock(P2pMgr.class);
+
+        RequestTrieDataHandler handler = new RequestTrieDataHandler(log, chain, p2p);
+
+        // receive request for a page of contract details
+        byte[] encoding =
+                RLP.encodeList(
+                        RLP.encodeElement(nodeKey),
+                        RLP.encodeString(DETAILS.toString()),
+                        RLP.encodeInt(0));
+        handler.receive(peerId, displayId, encoding);
+
+        // the first contract is the node and the following ones are the referenced nodes
+        ResponseTrieData expectedResponse =
+                new ResponseTrieData(wrappedNodeKey, leafValue, Map.of(nextKey, nextValue), DETAILS);
+        verify(p2p, times(1)).send(peerId, displayId, expectedResponse);
+    }
 }
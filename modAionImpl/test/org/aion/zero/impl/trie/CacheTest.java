@@ -0,0 +1,122 @@
+package org.aion.zero.impl.trie;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import org.aion.db.impl.mockdb.MockDB;
+import org.aion.util.types.HashKey;
+import org.junit.Before;
+import org.junit.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+public class CacheTest {
+
+    private static final Logger log = LoggerFactory.getLogger("DB");
+
+    private MockDB db;
+
+    @Before
+    public void setup() {
+        db = new MockDB("temp", log);
+        db.open();
+    }
+
+    private static byte[] value(int i) {
+        // long enough to be stored by hash
+        return ("value-0123456789abcdefghijklmnopqrstuvwxyz-" + i).getBytes();
+    }
+
+    @Test
+    public void testDirtyNodesArePinned() {
+        Cache cache = new Cache(db, 64);
+
+        for (int i = 0; i < 100; i++) {
+            cache.put(value(i));
+        }
+
+        // nothing can be evicted before the commit
+        assertThat(cache.getSize()).isEqualTo(100);
+        assertThat(cache.getEvictions()).isEqualTo(0);
+        assertThat(cache.isDirty()).isTrue();
+
+        cache.commit(false);
+
+        assertThat(cache.isDirty()).isFalse();
+        assertThat(cache.getCleanBytes()).isAtMost(64L);
+        assertThat(cache.getSize()).isLessThan(100);
+        assertThat(cache.getEvictions()).isGreaterThan(0L);
+    }
+
+    @Test
+    public void testEvictedNodesAreReloaded() {
+        Cache cache = new Cache(db, 64);
+
+        byte[][] keys = new byte[100][];
+        for (int i = 0; i < keys.length; i++) {
+            keys[i] = (byte[]) cache.put(value(i));
+        }
+        cache.commit(false);
+
+        for (byte[] key : keys) {
+            assertThat(cache.get(key)).isNotNull();
+        }
+        assertThat(cache.getMisses()).isGreaterThan(0L);
+        assertThat(cache.getCleanBytes()).isAtMost(64L);
+    }
+
+    @Test
+    public void testUnboundedCacheKeepsAllNodes() {
+        Cache cache = new Cache(db);
+
+        byte[][] keys = new byte[100][];
+        for (int i = 0; i < keys.length; i++) {
+            keys[i] = (byte[]) cache.put(value(i));
+        }
+        cache.commit(false);
+
+        assertThat(cache.getSize()).isEqualTo(100);
+        assertThat(cache.getEvictions()).isEqualTo(0);
+
+        for (byte[] key : keys) {
+            assertThat(cache.get(key)).isNotNull();
+        }
+        assertThat(cache.getHits()).isEqualTo(100);
+        assertThat(cache.getMisses()).isEqualTo(0);
+    }
+
+    @Test
+    public void testFlushClearsAccounting() {
+        Cache cache = new Cache(db, 1024 * 1024);
+
+        byte[] key = (byte[]) cache.put(value(0));
+        cache.commit(false);
+        assertThat(cache.getCleanBytes()).isGreaterThan(0L);
+        assertThat(cache.getNodes()).containsKey(HashKey.wrap(key));
+
+        cache.commit(true);
+        assertThat(cache.getSize()).isEqualTo(0);
+        assertThat(cache.getCleanBytes()).isEqualTo(0L);
+    }
+
+    @Test
+    public void testTrieWithBoundedCache() {
+        TrieImpl bounded = new TrieImpl(new Cache(db, 256), "");
+        MockDB other = new MockDB("other", log);
+        other.open();
+        TrieImpl unbounded = new TrieImpl(other);
+
+        for (int i = 0; i < 200; i++) {
+            bounded.update(("key" + i).getBytes(), value(i));
+            unbounded.update(("key" + i).getBytes(), value(i));
+            if (i % 50 == 0) {
+                bounded.sync(false);
+            }
+        }
+        bounded.sync(false);
+
+        assertThat(bounded.getRootHash()).isEqualTo(unbounded.getRootHash());
+        for (int i = 0; i < 200; i++) {
+            assertThat(bounded.get(("key" + i).getBytes())).isEqualTo(value(i));
+        }
+    }
+}
@@ -11,6 +11,7 @@ import java.util.Arrays;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Random;
@@ -1122,4 +1123,75 @@ public class TrieTest {
             }
         }
     }
+
+    @Test
+    public void testUpdateBatch_parallelMatchesSequential() {
+        Random random = new Random(42);
+        Map<ByteArrayWrapper, byte[]> initial = new LinkedHashMap<>();
+        for (int i = 0; i < 500; i++) {
+            initial.put(ByteArrayWrapper.wrap(randomBytes(random, 32)), randomBytes(random, 40));
+        }
+
+        Map<ByteArrayWrapper, byte[]> changes = new LinkedHashMap<>();
+        int count = 0;
+        for (ByteArrayWrapper key : initial.keySet()) {
+            // delete some of the existing keys and update others
+            changes.put(key, count % 3 == 0 ? new byte[0] : randomBytes(random, 40));
+            if (++count == 200) {
+                break;
+            }
+        }
+        for (int i = 0; i < 300; i++) {
+            changes.put(ByteArrayWrapper.wrap(randomBytes(random, 32)), randomBytes(random, 40));
+        }
+
+        MockDB sequentialDB = new MockDB("sequential", log);
+        sequentialDB.open();
+        SecureTrie sequential = new SecureTrie(sequentialDB);
+        sequential.updateBatch(initial);
+        sequential.updateBatch(changes);
+
+        MockDB parallelDB = new MockDB("parallel", log);
+        parallelDB.open();
+        TrieImpl parallel = new SecureTrie(parallelDB).withParallelUpdates(true);
+        parallel.updateBatch(initial);
+        parallel.updateBatch(changes);
+
+        assertThat(parallel.getRootHash()).isEqualTo(sequential.getRootHash());
+        for (Map.Entry<ByteArrayWrapper, byte[]> e : changes.entrySet()) {
+            byte[] expected = e.getValue().length == 0 ? new byte[0] : e.getValue();
+            assertThat(parallel.get(e.getKey().toBytes())).isEqualTo(expected);
+        }
+
+        // the stored nodes must also be sufficient to rebuild the trie
+        parallel.sync();
+        TrieImpl reloaded = new SecureTrie(parallelDB, parallel.getRootHash());
+        assertThat(reloaded.getMissingNodes(parallel.getRootHash())).isEmpty();
+    }
+
+    @Test
+    public void testUpdateBatch_parallelWithSmallTrie() {
+        Random random = new Random(7);
+        Map<ByteArrayWrapper, byte[]> changes = new LinkedHashMap<>();
+        for (int i = 0; i < 100; i++) {
+            changes.put(ByteArrayWrapper.wrap(randomBytes(random, 32)), randomBytes(random, 40));
+        }
+
+        // the root is not a branch node yet, so the updates are applied sequentially
+        TrieImpl parallel = new TrieImpl(null).withParallelUpdates(true);
+        parallel.updateBatch(changes);
+
+        TrieImpl sequential = new TrieImpl(null);
+        for (Map.Entry<ByteArrayWrapper, byte[]> e : changes.entrySet()) {
+            sequential.update(e.getKey().toBytes(), e.getValue());
+        }
+
+        assertThat(parallel.getRootHash()).isEqualTo(sequential.getRootHash());
+    }
+
+    private static byte[] randomBytes(Random random, int length) {
+        byte[] bytes = new byte[length];
+        random.nextBytes(bytes);
+        return bytes;
+    }
 }
@@ -4,6 +4,7 @@ import static org.junit.Assert.assertArrayEquals;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
 
 import java.math.BigInteger;
 import org.aion.base.AionTransaction;
@@ -13,6 +14,7 @@ import org.aion.crypto.ECKey;
 import org.aion.crypto.ECKeyFac;
 import org.aion.rlp.RLP;
 import org.aion.rlp.RLPList;
+import org.aion.rlp.SharedRLPList;
 import org.aion.util.bytes.ByteUtil;
 import org.aion.util.types.DataWord;
 import org.aion.types.AionAddress;
@@ -64,6 +66,53 @@ public class AionTransactionTest {
         assertTransactionEquals(tx, tx2);
     }
 
+    @Test
+    public void testDecodeUsingRlpSharedList() {
+        AionTransaction tx =
+                AionTransaction.create(
+                        key,
+                        RandomUtils.nextBytes(16),
+                        new AionAddress(RandomUtils.nextBytes(AionAddress.LENGTH)),
+                        RandomUtils.nextBytes(16),
+                        RandomUtils.nextBytes(64),
+                        2_000_000L,
+                        10_000_000_000L,
+                        TransactionTypes.DEFAULT,
+                        RandomUtils.nextBytes(32));
+
+        // the transaction inside a larger encoding, as in a block body
+        byte[] encodedList = RLP.encodeList(tx.getEncoded(), tx.getEncoded());
+        RLPList transactions = (RLPList) RLP.decode2SharedList(encodedList).get(0);
+
+        AionTransaction tx2 = TxUtil.decodeUsingRlpSharedList((SharedRLPList) transactions.get(1));
+
+        assertNotNull(tx2);
+        assertTransactionEquals(tx, tx2);
+        assertArrayEquals(tx.getBeaconHash(), tx2.getBeaconHash());
+    }
+
+    @Test
+    public void testVerifySignature() {
+        AionTransaction tx =
+                AionTransaction.create(
+                        key,
+                        BigInteger.ONE.toByteArray(),
+                        new AionAddress(RandomUtils.nextBytes(AionAddress.LENGTH)),
+                        BigInteger.ONE.toByteArray(),
+                        RandomUtils.nextBytes(64),
+                        21_000L,
+                        10_000_000_000L,
+                        TransactionTypes.DEFAULT, null);
+
+        assertTrue(tx.verifySignature());
+        // the cached verdict is returned on repeated calls
+        assertTrue(tx.verifySignature());
+
+        AionTransaction decoded = TxUtil.decode(tx.getEncoded());
+        assertNotNull(decoded);
+        assertTrue(decoded.verifySignature());
+    }
+
     @Test
     public void testTransactionCost() {
         byte[] nonce = BigInteger.ONE.toByteArray();
@@ -0,0 +1,180 @@
+package org.aion.zero.impl.vm.common;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Properties;
+import org.aion.base.AionTransaction;
+import org.aion.base.AionTxReceipt;
+import org.aion.base.TransactionTypes;
+import org.aion.crypto.ECKey;
+import org.aion.crypto.ECKeyFac;
+import org.aion.mcf.blockchain.Block;
+import org.aion.precompiled.ContractInfo;
+import org.aion.types.AionAddress;
+import org.aion.util.conversions.Hex;
+import org.aion.zero.impl.blockchain.StandaloneBlockchain;
+import org.aion.zero.impl.config.CfgAion;
+import org.aion.zero.impl.core.ImportResult;
+import org.aion.zero.impl.types.AionBlockSummary;
+import org.aion.zero.impl.types.MiningBlock;
+import org.apache.commons.lang3.tuple.Pair;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Imports the same blocks of precompiled contract calls with and without speculative execution and
+ * checks that both chains end with the same state root, receipts and logs.
+ */
+public class SpeculativeExecutorTest {
+    private static final long ENERGY_PRICE = 10_000_000_000L;
+    private static final BigInteger AMOUNT = BigInteger.TEN.pow(12);
+
+    private List<ECKey> keys;
+    // imports the blocks with the sequential execution
+    private StandaloneBlockchain sequential;
+    // imports the same blocks with the speculative execution
+    private StandaloneBlockchain speculative;
+
+    @Before
+    public void setup() {
+        // ensure the precompiled contracts are live
+        Properties properties = new Properties();
+        properties.put("fork0.3.2", "0");
+        CfgAion.inst().getFork().setProperties(properties);
+
+        keys = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            keys.add(ECKeyFac.inst().create());
+        }
+
+        sequential =
+                new StandaloneBlockchain.Builder()
+                        .withValidatorConfiguration("simple")
+                        .withDefaultAccounts(keys)
+                        .build()
+                        .bc;
+        speculative =
+                new StandaloneBlockchain.Builder()
+                        .withValidatorConfiguration("simple")
+                        .withDefaultAccounts(keys)
+                        .build()
+                        .bc;
+        assertThat(speculative.getGenesis().getHash()).isEqualTo(sequential.getGenesis().getHash());
+    }
+
+    @After
+    public void tearDown() {
+        BulkExecutor.setSpeculativeExecution(false);
+        CfgAion.inst().getFork().setProperties(new Properties());
+        sequential = null;
+        speculative = null;
+    }
+
+    @Test
+    public void testIndependentSenders() {
+        List<AionTransaction> transactions = new ArrayList<>();
+        transactions.add(call(keys.get(0), 0, ContractInfo.BLAKE_2B, Hex.decode("abcdef0123456789")));
+        transactions.add(call(keys.get(1), 0, ContractInfo.TRANSACTION_HASH, new byte[0]));
+        transactions.add(call(keys.get(2), 0, ContractInfo.ED_VERIFY, new byte[128]));
+        transactions.add(call(keys.get(3), 0, ContractInfo.BLAKE_2B, Hex.decode("0123")));
+
+        importOnBothChains(transactions);
+    }
+
+    @Test
+    public void testConflictingSenders() {
+        List<AionTransaction> transactions = new ArrayList<>();
+        // each transaction depends on the nonce and balance left by the previous one
+        transactions.add(call(keys.get(0), 0, ContractInfo.BLAKE_2B, Hex.decode("abcdef0123456789")));
+        transactions.add(call(keys.get(0), 1, ContractInfo.TRANSACTION_HASH, new byte[0]));
+        // fails without data, which reverts the value transfer of this transaction only
+        transactions.add(call(keys.get(0), 2, ContractInfo.BLAKE_2B, new byte[0]));
+        transactions.add(call(keys.get(0), 3, ContractInfo.ED_VERIFY, new byte[128]));
+
+        importOnBothChains(transactions);
+    }
+
+    @Test
+    public void testConflictingRecipientsAndPrecompiledContracts() {
+        List<AionTransaction> transactions = new ArrayList<>();
+        // all the transactions transfer value to the same contracts and interleave their senders
+        transactions.add(call(keys.get(0), 0, ContractInfo.BLAKE_2B, Hex.decode("abcdef0123456789")));
+        transactions.add(call(keys.get(1), 0, ContractInfo.BLAKE_2B, Hex.decode("0123")));
+        transactions.add(call(keys.get(0), 1, ContractInfo.TOKEN_BRIDGE, Hex.decode("abcdef01")));
+        transactions.add(call(keys.get(2), 0, ContractInfo.TOKEN_BRIDGE, new byte[0]));
+        transactions.add(call(keys.get(1), 1, ContractInfo.BLAKE_2B, new byte[0]));
+        transactions.add(call(keys.get(3), 0, ContractInfo.TRANSACTION_HASH, new byte[0]));
+        transactions.add(call(keys.get(2), 1, ContractInfo.TRANSACTION_HASH, new byte[0]));
+        transactions.add(call(keys.get(3), 1, ContractInfo.BLAKE_2B, Hex.decode("abcdef0123456789")));
+
+        importOnBothChains(transactions);
+
+        // the next block starts from the state left by the speculative execution
+        List<AionTransaction> next = new ArrayList<>();
+        next.add(call(keys.get(0), 2, ContractInfo.BLAKE_2B, Hex.decode("0123")));
+        next.add(call(keys.get(1), 2, ContractInfo.BLAKE_2B, Hex.decode("0123")));
+        next.add(call(keys.get(0), 3, ContractInfo.ED_VERIFY, new byte[128]));
+
+        importOnBothChains(next);
+    }
+
+    /**
+     * Creates a block with the given transactions, imports it on both chains and checks that the
+     * results are identical. The block header carries the state root, the receipts root and the
+     * logs bloom computed by the sequential execution, so the speculative import is only accepted
+     * if it reproduces them.
+     */
+    private void importOnBothChains(List<AionTransaction> transactions) {
+        Block parent = sequential.getBestBlock();
+        MiningBlock block = sequential.createBlock(parent, transactions, false, parent.getTimestamp());
+        assertThat(block.getTransactionsList()).hasSize(transactions.size());
+
+        BulkExecutor.setSpeculativeExecution(false);
+        Pair<ImportResult, AionBlockSummary> expected = sequential.tryToConnectAndFetchSummary(block);
+        assertThat(expected.getLeft()).isEqualTo(ImportResult.IMPORTED_BEST);
+
+        BulkExecutor.setSpeculativeExecution(true);
+        Pair<ImportResult, AionBlockSummary> actual = speculative.tryToConnectAndFetchSummary(block);
+        assertThat(actual.getLeft()).isEqualTo(ImportResult.IMPORTED_BEST);
+
+        assertThat(speculative.getRepository().getRoot()).isEqualTo(sequential.getRepository().getRoot());
+
+        List<AionTxReceipt> expectedReceipts = expected.getRight().getReceipts();
+        List<AionTxReceipt> actualReceipts = actual.getRight().getReceipts();
+        assertThat(actualReceipts).hasSize(expectedReceipts.size());
+        for (int i = 0; i < expectedReceipts.size(); i++) {
+            AionTxReceipt expectedReceipt = expectedReceipts.get(i);
+            AionTxReceipt actualReceipt = actualReceipts.get(i);
+            // the full encoding covers the post state, bloom, logs, output, energy and error
+            assertThat(actualReceipt.getEncoded()).isEqualTo(expectedReceipt.getEncoded());
+            assertThat(actualReceipt.getLogInfoList()).isEqualTo(expectedReceipt.getLogInfoList());
+        }
+
+        for (ECKey key : keys) {
+            AionAddress address = new AionAddress(key.getAddress());
+            assertThat(speculative.getRepository().getBalance(address)).isEqualTo(sequential.getRepository().getBalance(address));
+            assertThat(speculative.getRepository().getNonce(address)).isEqualTo(sequential.getRepository().getNonce(address));
+        }
+        for (ContractInfo contract : ContractInfo.values()) {
+            assertThat(speculative.getRepository().getBalance(contract.contractAddress))
+                    .isEqualTo(sequential.getRepository().getBalance(contract.contractAddress));
+        }
+    }
+
+    private static AionTransaction call(ECKey sender, long nonce, ContractInfo contract, byte[] data) {
+        return AionTransaction.create(
+                sender,
+                BigInteger.valueOf(nonce).toByteArray(),
+                contract.contractAddress,
+                AMOUNT.toByteArray(),
+                data,
+                2_000_000,
+                ENERGY_PRICE,
+                TransactionTypes.DEFAULT,
+                null);
+    }
+}
@@ -122,6 +122,9 @@ public abstract class ApiAion extends Api {
 
     protected abstract void pendingTxUpdate(AionTxReceipt _txRcpt, int _state);
 
+    /** Called when the best block moved to another fork that branches at the given block. */
+    protected void chainReorganized(Block commonAncestor) {}
+
     // General Level
     public byte getApiVersion() {
         return JAVAAPI_VAR;
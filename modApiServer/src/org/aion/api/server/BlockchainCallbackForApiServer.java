@@ -1,6 +1,7 @@
 package org.aion.api.server;
 
 import org.aion.base.AionTransaction;
+import org.aion.mcf.blockchain.Block;
 import org.aion.zero.impl.blockchain.BlockchainCallbackInterface;
 import org.aion.zero.impl.types.PendingTxDetails;
 
@@ -29,4 +30,9 @@ public class BlockchainCallbackForApiServer implements BlockchainCallbackInterfa
     public void pendingTxUpdated(PendingTxDetails txDetails) {
         apiService.pendingTxUpdate(txDetails.receipt, txDetails.state);
     }
+
+    @Override
+    public void chainReorganized(Block commonAncestor) {
+        apiService.chainReorganized(commonAncestor);
+    }
 }
@@ -38,8 +38,9 @@ public class AionHttpd extends NanoHTTPD {
 
         String requestBody = body.getOrDefault("postData", null);
 
-        return NanoHTTPD.newFixedLengthResponse(
-                Response.Status.OK, "application/json", rpcProcessor.process(requestBody));
+        // batch responses are sent in chunks as their calls complete
+        return NanoHTTPD.newChunkedResponse(
+                Response.Status.OK, "application/json", rpcProcessor.processStreaming(requestBody));
     }
 
     @Override
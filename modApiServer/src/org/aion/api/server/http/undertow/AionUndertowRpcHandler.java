@@ -6,10 +6,17 @@ import io.undertow.util.Headers;
 import io.undertow.util.HttpString;
 import io.undertow.util.Methods;
 import io.undertow.util.StatusCodes;
+import java.io.IOException;
+import java.io.InputStream;
 import java.util.Map;
 import org.aion.api.server.rpc.RpcProcessor;
+import org.aion.log.AionLoggerFactory;
+import org.aion.log.LogEnum;
+import org.slf4j.Logger;
 
 class AionUndertowRpcHandler implements HttpHandler {
+    private static final Logger LOG = AionLoggerFactory.getLogger(LogEnum.API.name());
+
     private final boolean corsEnabled;
     private final Map<HttpString, String> corsHeaders;
     private final RpcProcessor rpcProcessor;
@@ -57,7 +64,15 @@ class AionUndertowRpcHandler implements HttpHandler {
                             _exchange
                                     .getResponseHeaders()
                                     .put(Headers.CONTENT_TYPE, "application/json");
-                            _exchange.getResponseSender().send(rpcProcessor.process(body));
+
+                            // the exchange is blocking on a worker thread, see AionUndertowRootHandler;
+                            // batch responses are written in chunks as their calls complete
+                            try (InputStream response = rpcProcessor.processStreaming(body)) {
+                                response.transferTo(_exchange.getOutputStream());
+                            } catch (IOException e) {
+                                LOG.debug("<rpc-server - failed to write rpc response>", e);
+                            }
+                            _exchange.endExchange();
                         });
     }
 }
@@ -78,11 +78,15 @@ import org.aion.zero.impl.types.MiningBlockHeader;
 import org.aion.zero.impl.types.BlockContext;
 import org.aion.zero.impl.Version;
 import org.aion.zero.impl.blockchain.AionImpl;
+import org.aion.zero.impl.blockchain.IAionBlockchain;
 import org.aion.zero.impl.blockchain.IAionChain;
 import org.aion.zero.impl.config.CfgAion;
 import org.aion.zero.impl.config.CfgConsensusUnity;
 import org.aion.zero.impl.config.CfgEnergyStrategy;
 import org.aion.zero.impl.db.AionRepositoryImpl;
+import org.aion.zero.impl.db.LogIndex;
+import org.aion.zero.impl.db.TransactionStore;
+import org.aion.zero.impl.db.TransactionStore.HistoryEntry;
 import org.aion.zero.impl.sync.NodeWrapper;
 import org.aion.zero.impl.types.AionBlockSummary;
 import org.aion.zero.impl.types.AionTxInfo;
@@ -104,6 +108,7 @@ public class ApiWeb3Aion extends ApiAion {
 
     private final int OPS_RECENT_ENTITY_COUNT = 32;
     private final int OPS_RECENT_ENTITY_CACHE_TIME_SECONDS = 4;
+    private final int OPS_ADDRESS_HISTORY_MAX = 1000;
 
     private final int STRATUM_RECENT_BLK_COUNT = 128;
     private final int STRATUM_BLKTIME_INCLUDED_COUNT = 32;
@@ -182,6 +187,10 @@ public class ApiWeb3Aion extends ApiAion {
     private final LoadingCache<ByteArrayWrapper, Block> blockCache;
     private static final int BLOCK_CACHE_SIZE = 1000;
 
+    // encoded block and receipt responses
+    private final EncodedResponseCache responseCache;
+    private static final long RESPONSE_CACHE_MAX_CHARS = 64L * 1024 * 1024;
+
     public ApiWeb3Aion(final IAionChain _ac, final AccountManager am) {
         super(_ac, am);
         pendingReceipts = Collections.synchronizedMap(new LRUMap<>(FLTRS_MAX, 100));
@@ -241,6 +250,8 @@ public class ApiWeb3Aion extends ApiAion {
                                     }
                                 });
 
+        responseCache = new EncodedResponseCache(RESPONSE_CACHE_MAX_CHARS);
+
         MinerStats =
                 Caffeine.newBuilder()
                         .maximumSize(1)
@@ -268,6 +279,13 @@ public class ApiWeb3Aion extends ApiAion {
         CachedRecentEntities.invalidateAll();
         MinerStats.invalidateAll();
         blockCache.invalidateAll();
+        responseCache.invalidateAll();
+    }
+
+    @Override
+    protected void chainReorganized(Block commonAncestor) {
+        // the responses about the blocks of the previous fork are no longer requested
+        responseCache.invalidateAbove(commonAncestor.getNumber());
     }
 
     // --------------------------------------------------------------------
@@ -877,14 +895,29 @@ public class ApiWeb3Aion extends ApiAion {
             return new RpcMsg(null, RpcError.INVALID_PARAMS, "Invalid parameters");
         }
 
-        Block block = ac.getBlockchain().getBlockWithInfoByHash(ByteUtil.hexStringToBytes(_hash));
+        byte[] hash = ByteUtil.hexStringToBytes(_hash);
+        if (hash != null && hash.length == 32) {
+            EncodedResponseCache.Encoded cached = responseCache.get("eth_getBlockByHash", _fullTx, hash, null);
+            if (cached != null) {
+                return new RpcMsg(cached);
+            }
+        }
+
+        Block block = ac.getBlockchain().getBlockWithInfoByHash(hash);
 
         if (block == null) {
             LOG.debug("<get-block hash={} err=not-found>", _hash);
             return new RpcMsg(JSONObject.NULL); // json rpc spec: 'or null when no block was found'
         }
 
-        return new RpcMsg(Blk.AionBlockToJson(block, _fullTx));
+        return new RpcMsg(
+                responseCache.put(
+                        "eth_getBlockByHash",
+                        _fullTx,
+                        block.getHash(),
+                        null,
+                        block.getNumber(),
+                        Blk.AionBlockToJson(block, _fullTx)));
     }
 
     public RpcMsg eth_getBlockByNumber(Object _params) {
@@ -918,10 +951,26 @@ public class ApiWeb3Aion extends ApiAion {
             return new RpcMsg(JSONObject.NULL); // json rpc spec: 'or null when no block was found'
         }
 
+        if (bn == BEST_PENDING_BLOCK) {
+            return new RpcMsg(Blk.AionBlockToJson(nb, _fullTx));
+        }
+
+        EncodedResponseCache.Encoded cached = responseCache.get("eth_getBlockByNumber", _fullTx, nb.getHash(), null);
+        if (cached != null) {
+            return new RpcMsg(cached);
+        }
+
         // add main chain block to cache (currently only used by ops_getTransactionReceipt_*
         // functions)
         blockCache.put(nb.getHashWrapper(), nb);
-        return new RpcMsg(Blk.AionBlockToJson(nb, _fullTx));
+        return new RpcMsg(
+                responseCache.put(
+                        "eth_getBlockByNumber",
+                        _fullTx,
+                        nb.getHash(),
+                        null,
+                        nb.getNumber(),
+                        Blk.AionBlockToJson(nb, _fullTx)));
     }
 
     public RpcMsg eth_getTransactionByHash(Object _params) {
@@ -1073,6 +1122,16 @@ public class ApiWeb3Aion extends ApiAion {
         }
 
         byte[] txHash = StringUtils.StringHexToByteArray(_hash);
+
+        // the receipts are cached by the main chain block that includes the transaction
+        AionTxInfo txInfo = txHash == null ? null : this.ac.getAionHub().getBlockchain().getTransactionInfo(txHash);
+        if (txInfo != null) {
+            EncodedResponseCache.Encoded cached = responseCache.get("eth_getTransactionReceipt", false, txInfo.getBlockHash(), txHash);
+            if (cached != null) {
+                return new RpcMsg(cached);
+            }
+        }
+
         TxRecpt r = getTransactionReceipt(txHash);
 
         // commenting this out because of lack support for old web3 client that we are using
@@ -1091,7 +1150,17 @@ public class ApiWeb3Aion extends ApiAion {
                     JSONObject.NULL); // json rpc spec: 'or null when no receipt was found'
         }
 
-        return new RpcMsg(r.toJson());
+        if (txInfo == null) {
+            return new RpcMsg(r.toJson());
+        }
+        return new RpcMsg(
+                responseCache.put(
+                        "eth_getTransactionReceipt",
+                        false,
+                        txInfo.getBlockHash(),
+                        txHash,
+                        r.blockNumber,
+                        r.toJson()));
     }
 
     /* -------------------------------------------------------------------------
@@ -1186,6 +1255,10 @@ public class ApiWeb3Aion extends ApiAion {
             return filter;
         }
 
+        if (readFromLogIndex(filter, bnFrom, bnTo)) {
+            return filter;
+        }
+
         if (bnTo >= (bnFrom + BLOCKS_QUERY_MAX)) {
             String errLog = "jsonrpc - eth_newFilter(): can't query more than " + BLOCKS_QUERY_MAX + " blocks";
             LOG.debug(errLog);
@@ -1221,6 +1294,35 @@ public class ApiWeb3Aion extends ApiAion {
         return filter;
     }
 
+    /**
+     * Reads the historical data of the filter from the log index when it covers the requested
+     * range, which removes the limit on the number of queried blocks.
+     *
+     * @return {@code true} if the filter was populated from the index, {@code false} if the blocks
+     *     have to be scanned
+     */
+    private boolean readFromLogIndex(FltrLg filter, long bnFrom, long bnTo) {
+        IAionBlockchain chain = this.ac.getAionHub().getBlockchain();
+        if (!(chain instanceof AionBlockchainImpl) || !filter.hasIndexedCondition()) {
+            return false;
+        }
+
+        LogIndex logIndex = ((AionBlockchainImpl) chain).getLogIndex();
+        if (logIndex == null) {
+            return false;
+        }
+
+        long best = getBestBlock().getNumber();
+        long from = bnFrom == BEST_PENDING_BLOCK ? best : bnFrom;
+        long to = bnTo == BEST_PENDING_BLOCK ? best : Math.min(bnTo, best);
+        if (from > to || !logIndex.covers(from, to)) {
+            return false;
+        }
+
+        filter.onLogIndex(logIndex, from, to, (AionBlockchainImpl) chain);
+        return true;
+    }
+
     public RpcMsg eth_newFilter(Object _params) {
         if (!isFilterEnabled) {
             return new RpcMsg(null, RpcError.NOT_ALLOWED, "Filters over rpc disabled.");
@@ -2501,6 +2603,95 @@ public class ApiWeb3Aion extends ApiAion {
         return new RpcMsg(new JSONArray(receipts));
     }
 
+    /**
+     * Retrieves the main chain transactions sent, received or deployed by an address, in block
+     * order, from the address history index. Returns at most {@code limit} transactions and the
+     * cursor to pass to the next call, which is {@code null} when the range is exhausted.
+     */
+    public RpcMsg ops_getTransactionsByAddress(Object _params) {
+        String _address;
+        String _fromBlock;
+        String _toBlock;
+        String _limit;
+        String _cursor;
+        if (_params instanceof JSONArray) {
+            JSONArray params = (JSONArray) _params;
+            _address = params.get(0) + "";
+            _fromBlock = params.optString(1, "earliest");
+            _toBlock = params.optString(2, "latest");
+            _limit = params.optString(3, String.valueOf(OPS_ADDRESS_HISTORY_MAX));
+            _cursor = params.optString(4, null);
+        } else if (_params instanceof JSONObject) {
+            JSONObject params = (JSONObject) _params;
+            _address = params.get("address") + "";
+            _fromBlock = params.optString("fromBlock", "earliest");
+            _toBlock = params.optString("toBlock", "latest");
+            _limit = params.optString("limit", String.valueOf(OPS_ADDRESS_HISTORY_MAX));
+            _cursor = params.optString("cursor", null);
+        } else {
+            return new RpcMsg(null, RpcError.INVALID_PARAMS, "Invalid parameters");
+        }
+
+        AionAddress address;
+        try {
+            address = AddressUtils.wrapAddress(_address);
+        } catch (Exception e) {
+            return new RpcMsg(null, RpcError.INVALID_PARAMS, "Invalid address provided.");
+        }
+
+        Long bnFrom = parseBnOrId(_fromBlock);
+        Long bnTo = parseBnOrId(_toBlock);
+        if (bnFrom == null || bnTo == null || bnFrom == BEST_PENDING_BLOCK || bnTo == BEST_PENDING_BLOCK) {
+            return new RpcMsg(null, RpcError.INVALID_PARAMS, "Invalid block number.");
+        }
+
+        int limit;
+        try {
+            limit = Integer.parseInt(_limit);
+        } catch (NumberFormatException e) {
+            return new RpcMsg(null, RpcError.INVALID_PARAMS, "Invalid limit.");
+        }
+        if (limit <= 0 || limit > OPS_ADDRESS_HISTORY_MAX) {
+            return new RpcMsg(null, RpcError.INVALID_PARAMS, "The limit must be between 1 and " + OPS_ADDRESS_HISTORY_MAX + ".");
+        }
+
+        byte[] position = HistoryEntry.startOf(bnFrom);
+        if (_cursor != null) {
+            position = StringUtils.StringHexToByteArray(_cursor);
+            if (position == null || position.length != HistoryEntry.POSITION_SIZE) {
+                return new RpcMsg(null, RpcError.INVALID_PARAMS, "Invalid cursor.");
+            }
+        }
+
+        // cast will cause issues after the PoW refactor goes in
+        AionBlockchainImpl chain = (AionBlockchainImpl) this.ac.getAionHub().getBlockchain();
+        TransactionStore store = chain.getTransactionStore();
+        if (!store.isHistoryEnabled()) {
+            return new RpcMsg(null, RpcError.NOT_ALLOWED, "The address history is not enabled.");
+        }
+
+        // reads one more entry to find the start of the next page
+        List<HistoryEntry> entries = store.getHistory(address.toByteArray(), position, bnTo, limit + 1);
+
+        JSONArray transactions = new JSONArray();
+        for (int i = 0; i < Math.min(limit, entries.size()); i++) {
+            HistoryEntry entry = entries.get(i);
+            if (chain.isMainChain(entry.blockHash, entry.blockNumber)) {
+                JSONObject tx = new JSONObject();
+                tx.put("transactionHash", StringUtils.toJsonHex(entry.txHash));
+                tx.put("blockNumber", entry.blockNumber);
+                tx.put("blockHash", StringUtils.toJsonHex(entry.blockHash));
+                tx.put("transactionIndex", entry.txIndex);
+                transactions.put(tx);
+            }
+        }
+
+        JSONObject result = new JSONObject();
+        result.put("transactions", transactions);
+        result.put("cursor", entries.size() > limit ? StringUtils.toJsonHex(entries.get(limit).getPosition()) : JSONObject.NULL);
+        return new RpcMsg(result);
+    }
+
     /* -------------------------------------------------------------------------
      * stratum pool
      */
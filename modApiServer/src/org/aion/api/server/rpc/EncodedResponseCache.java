@@ -0,0 +1,114 @@
+package org.aion.api.server.rpc;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import java.util.Objects;
+import org.aion.util.types.ByteArrayWrapper;
+import org.json.JSONString;
+
+/**
+ * Caches the JSON encoding of the responses that are fully determined by a block, such as the
+ * blocks and the transaction receipts. The entries are keyed by the method, its flag (e.g. whether
+ * full transactions are requested) and the block hash, so the same request for a recent block from
+ * many clients is encoded once.
+ *
+ * <p>The cached values implement {@link JSONString} and are copied as they are into the response
+ * when it is encoded, without rebuilding the JSON objects.
+ */
+final class EncodedResponseCache {
+
+    private final Cache<Key, Encoded> cache;
+
+    /** @param maxChars the maximum total length of the cached encodings */
+    EncodedResponseCache(long maxChars) {
+        cache =
+                Caffeine.newBuilder()
+                        .maximumWeight(maxChars)
+                        .weigher((Key key, Encoded value) -> value.json.length())
+                        .build();
+    }
+
+    /**
+     * @param item identifies the response within the block, e.g. a transaction hash, or {@code
+     *     null} for responses about the whole block
+     * @return the cached encoding or {@code null} if it is not cached
+     */
+    Encoded get(String method, boolean flag, byte[] blockHash, byte[] item) {
+        return cache.getIfPresent(new Key(method, flag, blockHash, item));
+    }
+
+    /**
+     * Encodes and caches the given response.
+     *
+     * @return the cached encoding, to be used as the response
+     */
+    Encoded put(String method, boolean flag, byte[] blockHash, byte[] item, long blockNumber, Object response) {
+        Encoded encoded = new Encoded(response.toString(), blockNumber);
+        cache.put(new Key(method, flag, blockHash, item), encoded);
+        return encoded;
+    }
+
+    /** Removes the responses about blocks above the given block number. */
+    void invalidateAbove(long blockNumber) {
+        cache.asMap().values().removeIf(encoded -> encoded.blockNumber > blockNumber);
+    }
+
+    void invalidateAll() {
+        cache.invalidateAll();
+    }
+
+    /** A response encoded as JSON. */
+    static final class Encoded implements JSONString {
+        private final String json;
+        private final long blockNumber;
+
+        private Encoded(String json, long blockNumber) {
+            this.json = json;
+            this.blockNumber = blockNumber;
+        }
+
+        @Override
+        public String toJSONString() {
+            return json;
+        }
+
+        @Override
+        public String toString() {
+            return json;
+        }
+    }
+
+    private static final class Key {
+        private final String method;
+        private final boolean flag;
+        private final ByteArrayWrapper blockHash;
+        private final ByteArrayWrapper item;
+
+        private Key(String method, boolean flag, byte[] blockHash, byte[] item) {
+            this.method = method;
+            this.flag = flag;
+            this.blockHash = ByteArrayWrapper.wrap(blockHash);
+            this.item = item == null ? null : ByteArrayWrapper.wrap(item);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof Key)) {
+                return false;
+            }
+            Key other = (Key) o;
+            return flag == other.flag
+                    && method.equals(other.method)
+                    && blockHash.equals(other.blockHash)
+                    && Objects.equals(item, other.item);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(method, flag, blockHash, item);
+        }
+    }
+}
@@ -133,6 +133,7 @@ public class RpcMethods {
                             "ops_getChainHeadViewBestBlock",
                             (params) -> api.ops_getChainHeadViewBestBlock()),
                     Map.entry("ops_getTransaction", (params) -> api.ops_getTransaction(params)),
+                    Map.entry("ops_getTransactionsByAddress", (params) -> api.ops_getTransactionsByAddress(params)),
                     Map.entry("ops_getBlockDetailsByNumber", (params) -> api.ops_getBlockDetailsByNumber(params)),
                     Map.entry("ops_getBlockDetailsByHash", (params) -> api.ops_getBlockDetailsByHash(params)),
                     Map.entry("ops_getBlock", (params) -> api.ops_getBlock(params)),
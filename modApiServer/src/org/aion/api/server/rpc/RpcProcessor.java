@@ -1,12 +1,17 @@
 package org.aion.api.server.rpc;
 
 import com.google.common.base.Stopwatch;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
 import java.util.List;
+import java.util.Queue;
 import java.util.concurrent.Callable;
-import java.util.concurrent.CompletionService;
-import java.util.concurrent.ExecutorCompletionService;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import java.util.concurrent.TimeUnit;
 import org.aion.api.server.account.AccountManager;
 import org.aion.api.server.rpc2.Rpc2Shim;
@@ -26,8 +31,10 @@ public class RpcProcessor {
     private RpcMethods apiHolder;
 
     private ExecutorService executor;
-    private CompletionService<JSONObject> batchCallCompletionService;
     private final int SHUTDOWN_WAIT_SECONDS = 5;
+    // the calls of a batch request executed or buffered at once, which bounds the resources used
+    // by each connection regardless of the size of the batch
+    private final int MAX_BATCH_CALLS_IN_FLIGHT = 8;
 
     private final Rpc2Shim rpc2Shim;
 
@@ -67,7 +74,6 @@ public class RpcProcessor {
         executor =
                 Executors.newFixedThreadPool(
                         Math.min(Runtime.getRuntime().availableProcessors() * 2, 4));
-        batchCallCompletionService = new ExecutorCompletionService<>(executor);
         this.rpc2Shim = rpc2Shim;
         this.web3EntryPoint = web3EntryPoint;
     }
@@ -89,6 +95,30 @@ public class RpcProcessor {
         return response;
     }
 
+    /**
+     * Processes the given request body like {@link #process(String)}, except that the response
+     * of a batch request is produced incrementally while it is read from the returned stream. The
+     * calls of the batch are executed a few at a time and their responses are written in the order
+     * of the requests, so that the memory used does not grow with the size of the batch and a slow
+     * reader holds back the execution of the remaining calls.
+     */
+    public InputStream processStreaming(String _requestBody) {
+        try {
+            String requestBody = _requestBody.trim();
+            if (!StringUtils.isEmpty(requestBody) && requestBody.charAt(0) == '[') {
+                JSONArray reqBodies = new JSONArray(requestBody);
+                if (reqBodies.length() > 0) {
+                    return new BatchResponseStream(reqBodies);
+                }
+            }
+        } catch (Exception e) {
+            // the errors are reported by process below
+            LOG.debug("<rpc-server - failed to stream rpc request body>", e);
+        }
+
+        return new ByteArrayInputStream(process(_requestBody).getBytes(StandardCharsets.UTF_8));
+    }
+
     private String composeRpcResponse(String _respBody) {
         String respBody;
         if (_respBody == null) {
@@ -173,13 +203,9 @@ public class RpcProcessor {
             Stopwatch timer = null;
             if (shouldTime) timer = Stopwatch.createStarted();
 
-            for (int i = 0; i < reqBodies.length(); i++) {
-                batchCallCompletionService.submit(new BatchCallTask(reqBodies.getJSONObject(i)));
-            }
-
-            JSONArray respBodies = new JSONArray();
-            for (int i = 0; i < reqBodies.length(); i++) {
-                respBodies.put(batchCallCompletionService.take().get());
+            String respBody;
+            try (InputStream respBodies = new BatchResponseStream(reqBodies)) {
+                respBody = new String(respBodies.readAllBytes(), StandardCharsets.UTF_8);
             }
 
             if (shouldTime) {
@@ -190,8 +216,6 @@ public class RpcProcessor {
                         timer.toString());
             }
 
-            String respBody = respBodies.toString();
-
             if (LOG.isTraceEnabled()) LOG.trace("<rpc-server response={}>", respBody);
 
             return composeRpcResponse(respBody);
@@ -227,16 +251,16 @@ public class RpcProcessor {
     }
 
     private class BatchCallTask implements Callable<JSONObject> {
-        private JSONObject task;
+        private Object task;
 
-        public BatchCallTask(JSONObject task) {
+        public BatchCallTask(Object task) {
             this.task = task;
         }
 
         @Override
         public JSONObject call() {
             try {
-                return processObject(task);
+                return processObject((JSONObject) task);
             } catch (Exception e) {
                 LOG.debug("<rpc-server - processObject failed in batch request>", e);
                 return new RpcMsg(null, RpcError.INVALID_REQUEST, "INVALID_REQUEST").toJson();
@@ -244,6 +268,101 @@ public class RpcProcessor {
         }
     }
 
+    /**
+     * Produces the JSON array of the responses to a batch request as it is read. At most {@link
+     * #MAX_BATCH_CALLS_IN_FLIGHT} calls are submitted ahead of the response being read, and each
+     * response is encoded only when the reader reaches it.
+     */
+    private class BatchResponseStream extends InputStream {
+        private final JSONArray requests;
+        private final Queue<Future<JSONObject>> inFlight = new ArrayDeque<>();
+        private int submitted = 0;
+        private int written = 0;
+        private boolean finished = false;
+        private byte[] chunk = new byte[] {'['};
+        private int position = 0;
+
+        BatchResponseStream(JSONArray requests) {
+            this.requests = requests;
+            while (submitted < requests.length() && inFlight.size() < MAX_BATCH_CALLS_IN_FLIGHT) {
+                submitNext();
+            }
+        }
+
+        private void submitNext() {
+            inFlight.add(executor.submit(new BatchCallTask(requests.get(submitted))));
+            submitted++;
+        }
+
+        /** @return {@code false} when the whole response was read */
+        private boolean nextChunk() throws IOException {
+            if (finished) {
+                return false;
+            }
+            if (written == requests.length()) {
+                chunk = new byte[] {']'};
+                position = 0;
+                finished = true;
+                return true;
+            }
+
+            JSONObject response;
+            try {
+                response = inFlight.remove().get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IOException("Interrupted while processing a batch request.", e);
+            } catch (Exception e) {
+                LOG.debug("<rpc-server - internal error [5]>", e);
+                response = new RpcMsg(null, RpcError.INTERNAL_ERROR).toJson();
+            }
+            if (submitted < requests.length()) {
+                submitNext();
+            }
+
+            String encoded = response.toString();
+            chunk = (written == 0 ? encoded : "," + encoded).getBytes(StandardCharsets.UTF_8);
+            position = 0;
+            written++;
+            return true;
+        }
+
+        @Override
+        public int read() throws IOException {
+            byte[] single = new byte[1];
+            return read(single, 0, 1) < 0 ? -1 : single[0] & 0xFF;
+        }
+
+        @Override
+        public int read(byte[] buffer, int offset, int length) throws IOException {
+            if (length == 0) {
+                return 0;
+            }
+            while (position == chunk.length) {
+                if (!nextChunk()) {
+                    return -1;
+                }
+            }
+
+            int count = Math.min(length, chunk.length - position);
+            System.arraycopy(chunk, position, buffer, offset, count);
+            position += count;
+            return count;
+        }
+
+        @Override
+        public void close() {
+            // the calls that were not read are no longer needed
+            for (Future<JSONObject> call : inFlight) {
+                call.cancel(true);
+            }
+            inFlight.clear();
+            submitted = requests.length();
+            finished = true;
+            position = chunk.length;
+        }
+    }
+
     public void shutdown() {
         apiHolder.shutdown();
 
@@ -2,7 +2,9 @@ package org.aion.api.server.types;
 
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Comparator;
 import java.util.List;
+import java.util.PriorityQueue;
 import org.aion.base.AionTransaction;
 import org.aion.mcf.blockchain.Block;
 import org.aion.base.Bloom;
@@ -10,7 +12,9 @@ import org.aion.base.LogUtility;
 import org.aion.types.Log;
 import org.aion.zero.impl.types.BlockSummary;
 import org.aion.zero.impl.core.BloomFilter;
+import org.aion.zero.impl.blockchain.AionBlockchainImpl;
 import org.aion.zero.impl.blockchain.IAionBlockchain;
+import org.aion.zero.impl.db.LogIndex;
 import org.aion.zero.impl.types.AionBlockSummary;
 import org.aion.zero.impl.types.AionTxInfo;
 import org.aion.base.AionTxReceipt;
@@ -119,6 +123,90 @@ public final class FltrLg extends Fltr {
         return true;
     }
 
+    /**
+     * @return {@code true} if the filter restricts the contract address or a topic, so that the
+     *     matching logs can be read from the log index
+     */
+    public boolean hasIndexedCondition() {
+        if (contractAddresses.length > 0) {
+            return true;
+        }
+        for (byte[][] orTopics : topics) {
+            if (orTopics != null && orTopics.length > 0) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // reads only the logs of the index postings for the most selective condition available: the
+    // contract addresses, otherwise the first restricted topic position; the postings of each value
+    // are merged in block order and read page by page until the filter is full
+    public void onLogIndex(LogIndex index, long from, long to, AionBlockchainImpl chain) {
+        PriorityQueue<LogIndex.Cursor> cursors =
+                new PriorityQueue<>(Comparator.comparing(LogIndex.Cursor::peek, LogIndex.Position.ORDER));
+        if (contractAddresses.length > 0) {
+            for (byte[] address : contractAddresses) {
+                addCursor(cursors, index.scanByAddress(address, from, to));
+            }
+        } else {
+            for (int i = 0; i < topics.size(); i++) {
+                byte[][] orTopics = topics.get(i);
+                if (orTopics != null && orTopics.length > 0) {
+                    for (byte[] topic : orTopics) {
+                        addCursor(cursors, index.scanByTopic(i, topic, from, to));
+                    }
+                    break;
+                }
+            }
+        }
+
+        Block blk = null;
+        LogIndex.Position previous = null;
+        while (!cursors.isEmpty() && !isFull()) {
+            LogIndex.Cursor cursor = cursors.poll();
+            LogIndex.Position position = cursor.next();
+            addCursor(cursors, cursor);
+
+            // the same log is found once per matching value of the condition
+            if (previous != null
+                    && previous.blockNumber == position.blockNumber
+                    && previous.txIndex == position.txIndex
+                    && previous.logIndex == position.logIndex
+                    && Arrays.equals(previous.blockHash, position.blockHash)) {
+                continue;
+            }
+            previous = position;
+
+            if (!chain.isMainChain(position.blockHash, position.blockNumber)) {
+                continue;
+            }
+            if (blk == null || !Arrays.equals(blk.getHash(), position.blockHash)) {
+                blk = chain.getBlockByHash(position.blockHash);
+            }
+
+            AionTxInfo txInfo = chain.getTransactionInfoLite(position.txHash, position.blockHash);
+            Log logInfo = txInfo.getReceipt().getLogInfoList().get(position.logIndex);
+            if (matchesExactly(logInfo)) {
+                add(
+                        new EvtLg(
+                                new TxRecptLg(
+                                        logInfo,
+                                        blk,
+                                        position.txIndex,
+                                        blk.getTransactionsList().get(position.txIndex),
+                                        position.logIndex,
+                                        true)));
+            }
+        }
+    }
+
+    private static void addCursor(PriorityQueue<LogIndex.Cursor> cursors, LogIndex.Cursor cursor) {
+        if (cursor.peek() != null) {
+            cursors.add(cursor);
+        }
+    }
+
     // -------------------------------------------------------------------------------
 
     private void initBlooms() {
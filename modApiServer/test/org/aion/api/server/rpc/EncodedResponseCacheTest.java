@@ -0,0 +1,54 @@
+package org.aion.api.server.rpc;
+
+import java.util.Arrays;
+import org.apache.commons.lang3.RandomUtils;
+import org.json.JSONObject;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class EncodedResponseCacheTest {
+
+    private final byte[] hash1 = RandomUtils.nextBytes(32);
+    private final byte[] hash2 = RandomUtils.nextBytes(32);
+
+    @Test
+    public void testKeys() {
+        EncodedResponseCache cache = new EncodedResponseCache(1024 * 1024);
+        JSONObject block = new JSONObject().put("number", 1).put("transactions", Arrays.asList("a", "b"));
+
+        EncodedResponseCache.Encoded encoded = cache.put("eth_getBlockByHash", true, hash1, null, 1, block);
+        Assert.assertEquals(block.toString(), encoded.toJSONString());
+
+        // a copy of the hash finds the entry
+        Assert.assertSame(encoded, cache.get("eth_getBlockByHash", true, hash1.clone(), null));
+
+        // the method, flag, block and item are all part of the key
+        Assert.assertNull(cache.get("eth_getBlockByNumber", true, hash1, null));
+        Assert.assertNull(cache.get("eth_getBlockByHash", false, hash1, null));
+        Assert.assertNull(cache.get("eth_getBlockByHash", true, hash2, null));
+        Assert.assertNull(cache.get("eth_getBlockByHash", true, hash1, hash2));
+    }
+
+    @Test
+    public void testEncodingIsCopiedIntoResponse() {
+        EncodedResponseCache cache = new EncodedResponseCache(1024 * 1024);
+        JSONObject receipt = new JSONObject().put("status", "0x1");
+
+        RpcMsg msg = new RpcMsg(cache.put("eth_getTransactionReceipt", false, hash1, hash2, 1, receipt));
+        String response = msg.setId(7).toString();
+
+        Assert.assertEquals(receipt.toString(), new JSONObject(response).getJSONObject("result").toString());
+    }
+
+    @Test
+    public void testInvalidateAbove() {
+        EncodedResponseCache cache = new EncodedResponseCache(1024 * 1024);
+        cache.put("eth_getBlockByHash", false, hash1, null, 10, new JSONObject());
+        cache.put("eth_getBlockByHash", false, hash2, null, 11, new JSONObject());
+
+        cache.invalidateAbove(10);
+
+        Assert.assertNotNull(cache.get("eth_getBlockByHash", false, hash1, null));
+        Assert.assertNull(cache.get("eth_getBlockByHash", false, hash2, null));
+    }
+}
@@ -0,0 +1,97 @@
+package org.aion.api.server.rpc;
+
+import static org.mockito.Mockito.mock;
+
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import org.aion.api.server.account.AccountManager;
+import org.aion.api.server.rpc2.Rpc2Shim;
+import org.aion.api.server.rpc3.Web3EntryPoint;
+import org.aion.log.AionLoggerFactory;
+import org.aion.zero.impl.blockchain.AionImpl;
+import org.json.JSONArray;
+import org.json.JSONObject;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+public class RpcProcessorTest {
+    @BeforeClass
+    public static void setup() {
+        AionLoggerFactory.initAll();
+        AionImpl.instForTest();
+    }
+
+    private static final List<String> EMPTY = new ArrayList<>();
+
+    private RpcProcessor processor;
+
+    @Before
+    public void createProcessor() {
+        // only the ping method is enabled
+        processor =
+                new RpcProcessor(
+                        EMPTY,
+                        EMPTY,
+                        EMPTY,
+                        mock(Rpc2Shim.class),
+                        new AccountManager(null),
+                        mock(Web3EntryPoint.class));
+    }
+
+    @After
+    public void tearDown() {
+        processor.shutdown();
+    }
+
+    @Test
+    public void testBatchResponsesKeepRequestOrder() throws Exception {
+        JSONArray requests = new JSONArray();
+        int count = 100;
+        for (int i = 0; i < count; i++) {
+            requests.put(
+                    new JSONObject()
+                            .put("jsonrpc", "2.0")
+                            .put("method", i % 10 == 0 ? "foo_invalid_method_name" : "ping")
+                            .put("id", i));
+        }
+
+        String streamed;
+        try (InputStream response = processor.processStreaming(requests.toString())) {
+            // reads in small pieces to cross the boundaries of the responses
+            StringBuilder builder = new StringBuilder();
+            byte[] buffer = new byte[7];
+            int read;
+            while ((read = response.read(buffer)) > 0) {
+                builder.append(new String(buffer, 0, read, StandardCharsets.UTF_8));
+            }
+            streamed = builder.toString();
+        }
+
+        JSONArray responses = new JSONArray(streamed);
+        Assert.assertEquals(count, responses.length());
+        for (int i = 0; i < count; i++) {
+            JSONObject response = responses.getJSONObject(i);
+            Assert.assertEquals(i, response.getInt("id"));
+            Assert.assertEquals(i % 10 == 0, response.has("error"));
+        }
+
+        Assert.assertEquals(streamed, processor.process(requests.toString()));
+    }
+
+    @Test
+    public void testStreamingInvalidBatch() throws Exception {
+        String expected = new RpcMsg(null, RpcError.PARSE_ERROR).toString();
+
+        try (InputStream response = processor.processStreaming("[]")) {
+            Assert.assertEquals(expected, new String(response.readAllBytes(), StandardCharsets.UTF_8));
+        }
+        try (InputStream response = processor.processStreaming("[{")) {
+            Assert.assertEquals(expected, new String(response.readAllBytes(), StandardCharsets.UTF_8));
+        }
+    }
+}
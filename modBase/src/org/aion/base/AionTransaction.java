@@ -6,6 +6,7 @@ import org.aion.crypto.ECKey;
 import org.aion.crypto.ECKeyFac;
 import org.aion.crypto.HashUtil;
 import org.aion.crypto.ISignature;
+import org.aion.crypto.SignatureFac;
 import org.aion.types.AionAddress;
 import org.aion.types.Transaction;
 import org.aion.util.bytes.ByteUtil;
@@ -41,6 +42,9 @@ public class AionTransaction {
     /** beacon hash */
     private final byte[] beaconHash;
 
+    /** set after a successful signature verification, which depends only on the fields above */
+    private volatile boolean signatureVerified = false;
+
     /** Constructor for AionTransaction */
     private AionTransaction(
             byte[] nonce,
@@ -380,6 +384,19 @@ public class AionTransaction {
         return type;
     }
 
+    /**
+     * Verifies the signature against the hash of the transaction without signature. A successful
+     * verification is cached, so it is performed at most once per instance.
+     *
+     * @return {@code true} if the signature is valid, {@code false} otherwise
+     */
+    public boolean verifySignature() {
+        if (!signatureVerified) {
+            signatureVerified = SignatureFac.verify(transactionHashWithoutSignature, signature);
+        }
+        return signatureVerified;
+    }
+
     public ISignature getSignature() {
         return signature;
     }
@@ -11,6 +11,7 @@ import org.aion.rlp.RLP;
 import org.aion.rlp.RLPElement;
 import org.aion.rlp.RLPItem;
 import org.aion.rlp.RLPList;
+import org.aion.rlp.RLPListEncoder;
 import org.aion.types.Log;
 import org.aion.util.bytes.ByteUtil;
 import org.aion.util.conversions.Hex;
@@ -184,32 +185,28 @@ public class AionTxReceipt {
      */
     private byte[] getEncoded(boolean receiptTrie) {
 
-        byte[] postTxStateRLP = RLP.encodeElement(this.postTxState);
-        byte[] bloomRLP = RLP.encodeElement(this.bloomFilter.data);
-
-        final byte[] logInfoListRLP;
+        final RLPListEncoder logInfoListRLP;
         if (logInfoList != null) {
-            byte[][] logInfoListE = new byte[logInfoList.size()][];
-
-            int i = 0;
+            logInfoListRLP = new RLPListEncoder(logInfoList.size());
             for (Log logInfo : logInfoList) {
-                logInfoListE[i] = LogUtility.encodeLog(logInfo);
-                ++i;
+                logInfoListRLP.addList(LogUtility.logEncoder(logInfo));
             }
-            logInfoListRLP = RLP.encodeList(logInfoListE);
         } else {
-            logInfoListRLP = RLP.encodeList();
+            logInfoListRLP = new RLPListEncoder(0);
         }
 
-        return receiptTrie
-                ? RLP.encodeList(postTxStateRLP, bloomRLP, logInfoListRLP)
-                : RLP.encodeList(
-                        postTxStateRLP,
-                        bloomRLP,
-                        logInfoListRLP,
-                        RLP.encodeElement(executionResult),
-                        RLP.encodeLong(energyUsed),
-                        RLP.encodeElement(error.getBytes(StandardCharsets.UTF_8)));
+        // the logs are written in place instead of being encoded separately and copied
+        RLPListEncoder encoder =
+                new RLPListEncoder(6)
+                        .addElement(this.postTxState)
+                        .addElement(this.bloomFilter.data)
+                        .addList(logInfoListRLP);
+        if (!receiptTrie) {
+            encoder.addElement(executionResult)
+                    .addLong(energyUsed)
+                    .addElement(error.getBytes(StandardCharsets.UTF_8));
+        }
+        return encoder.encode();
     }
 
     /** TODO: check that this is valid, should null == valid? */
@@ -7,6 +7,7 @@ import org.aion.rlp.RLP;
 import org.aion.rlp.RLPElement;
 import org.aion.rlp.RLPItem;
 import org.aion.rlp.RLPList;
+import org.aion.rlp.RLPListEncoder;
 import org.aion.types.Log;
 
 public class LogUtility {
@@ -20,16 +21,21 @@ public class LogUtility {
     }
 
     public static byte[] encodeLog(Log log) {
-        byte[] addressEncoded = RLP.encodeElement(log.copyOfAddress());
+        return logEncoder(log).encode();
+    }
 
+    /** Returns an encoder of the log, which a receipt can write in place of its own encoding. */
+    static RLPListEncoder logEncoder(Log log) {
         List<byte[]> topics = log.copyOfTopics();
-        byte[][] topicsEncoded = new byte[topics.size()][];
-        for (int i = 0; i < topics.size(); i++) {
-            topicsEncoded[i] = RLP.encodeElement(topics.get(i));
+        RLPListEncoder topicsEncoder = new RLPListEncoder(topics.size());
+        for (byte[] topic : topics) {
+            topicsEncoder.addElement(topic);
         }
 
-        byte[] dataEncoded = RLP.encodeElement(log.copyOfData());
-        return RLP.encodeList(addressEncoded, RLP.encodeList(topicsEncoded), dataEncoded);
+        return new RLPListEncoder(3)
+                .addElement(log.copyOfAddress())
+                .addList(topicsEncoder)
+                .addElement(log.copyOfData());
     }
 
     public static Log decodeLog(byte[] rlp) {
@@ -10,7 +10,10 @@ import org.aion.fastvm.FvmConstants;
 import org.aion.log.AionLoggerFactory;
 import org.aion.log.LogEnum;
 import org.aion.rlp.RLP;
-import org.aion.rlp.RLPList;
+import org.aion.rlp.RLPElement;
+import org.aion.rlp.RLPListEncoder;
+import org.aion.rlp.SharedRLPItem;
+import org.aion.rlp.SharedRLPList;
 import org.aion.types.AionAddress;
 import org.aion.types.InternalTransaction;
 import org.aion.types.Transaction;
@@ -124,15 +127,29 @@ public final class TxUtil {
      */
     public static AionTransaction decode(byte[] rlpEncoding) {
 
-        RLPList decodedTxList;
+        SharedRLPList decodedTxList;
         try {
-            decodedTxList = RLP.decode2(rlpEncoding);
+            decodedTxList = RLP.decode2SharedList(rlpEncoding);
         } catch (Exception e) {
             LOG.error("tx -> unable to decode rlpEncoding");
             return null;
         }
-        RLPList tx = (RLPList) decodedTxList.get(0);
+        return decode((SharedRLPList) decodedTxList.get(0), rlpEncoding);
+    }
+
+    /**
+     * Decode the given RLP list into an {@link AionTransaction}, as part of decoding a larger
+     * structure such as a block. The expected elements are the ones described in {@link
+     * #decode(byte[])}.
+     *
+     * @param tx RLP list of an Aion transaction, decoded with {@link RLP#decode2SharedList(byte[])}
+     * @return Aion Transaction represented by the given RLP list
+     */
+    public static AionTransaction decodeUsingRlpSharedList(SharedRLPList tx) {
+        return decode(tx, tx.getRLPData());
+    }
 
+    private static AionTransaction decode(SharedRLPList tx, byte[] rlpEncoding) {
         byte[] nonce = tx.get(RLP_TX_NONCE).getRLPData();
         byte[] value = tx.get(RLP_TX_VALUE).getRLPData();
         byte[] data = tx.get(RLP_TX_DATA).getRLPData();
@@ -142,13 +159,13 @@ public final class TxUtil {
         if (rlpTo == null || rlpTo.length == 0) {
             destination = null;
         } else {
-            destination = new AionAddress(tx.get(RLP_TX_TO).getRLPData());
+            destination = new AionAddress(rlpTo);
         }
 
         byte[] timeStamp = tx.get(RLP_TX_TIMESTAMP).getRLPData();
-        long energyLimit = new BigInteger(1, tx.get(RLP_TX_NRG).getRLPData()).longValue();
-        long energyPrice = new BigInteger(1, tx.get(RLP_TX_NRGPRICE).getRLPData()).longValue();
-        byte type = new BigInteger(1, tx.get(RLP_TX_TYPE).getRLPData()).byteValue();
+        long energyLimit = decodeLong(tx.get(RLP_TX_NRG));
+        long energyPrice = decodeLong(tx.get(RLP_TX_NRGPRICE));
+        byte type = (byte) decodeLong(tx.get(RLP_TX_TYPE));
 
         byte[] sigs = tx.get(RLP_TX_SIG).getRLPData();
         ISignature signature;
@@ -212,6 +229,16 @@ public final class TxUtil {
         }
     }
 
+    /** Decodes a number the same way as {@code new BigInteger(1, data).longValue()}. */
+    private static long decodeLong(RLPElement element) {
+        if (element instanceof SharedRLPItem) {
+            // avoids copying the data
+            return ((SharedRLPItem) element).longValue();
+        } else {
+            return new BigInteger(1, element.getRLPData()).longValue();
+        }
+    }
+
     /** For signatures you have to keep also RLP of the transaction without any signature data */
     static byte[] rlpEncodeWithoutSignature(
             byte[] nonce,
@@ -226,44 +253,38 @@ public final class TxUtil {
         // see https://aionnetwork.atlassian.net/wiki/spaces/TE/pages/292389035/Transaction+RLP+Encoding
         // for decoding/encoding rules
 
-        byte[] nonceEncoded = RLP.encodeElement(nonce);
-        byte[] destinationEncoded = RLP.encodeElement(destination == null ? null : destination.toByteArray());
-        byte[] valueEncoded = RLP.encodeElement(value);
-        byte[] dataEncoded = RLP.encodeElement(data);
-        byte[] timeStampEncoded = RLP.encodeElement(timeStamp);
-        byte[] energyLimitEncoded = RLP.encodeLong(energyLimit);
-        byte[] energyPriceEncoded = RLP.encodeLong(energyPrice);
-        byte[] typeEncoded = RLP.encodeByte(type);
-
-        if(beaconHash == null) {
-            return RLP.encodeList(
-                    nonceEncoded,
-                    destinationEncoded,
-                    valueEncoded,
-                    dataEncoded,
-                    timeStampEncoded,
-                    energyLimitEncoded,
-                    energyPriceEncoded,
-                    typeEncoded);
-        } else {
+        RLPListEncoder encoder =
+                rlpEncoderWithoutSignature(
+                        nonce, destination, value, data, timeStamp, energyLimit, energyPrice, type);
+
+        if (beaconHash != null) {
             // may use different extensions in the future, but
             // today, the only extension is beacon hash, which
             // is represented by 0x01.
-            byte[] extensionsEncoded = RLP.encodeByte(BEACON_HASH_EXTENSION);
-
-            byte[] beaconHashEncoded = RLP.encodeElement(beaconHash);
-            return RLP.encodeList(
-                    nonceEncoded,
-                    destinationEncoded,
-                    valueEncoded,
-                    dataEncoded,
-                    timeStampEncoded,
-                    energyLimitEncoded,
-                    energyPriceEncoded,
-                    typeEncoded,
-                    extensionsEncoded,
-                    beaconHashEncoded);
+            encoder.addByte(BEACON_HASH_EXTENSION).addElement(beaconHash);
         }
+        return encoder.encode();
+    }
+
+    /** Adds the fields that precede the signature to a new encoder. */
+    private static RLPListEncoder rlpEncoderWithoutSignature(
+            byte[] nonce,
+            AionAddress destination,
+            byte[] value,
+            byte[] data,
+            byte[] timeStamp,
+            long energyLimit,
+            long energyPrice,
+            byte type) {
+        return new RLPListEncoder(11)
+                .addElement(nonce)
+                .addElement(destination == null ? null : destination.toByteArray())
+                .addElement(value)
+                .addElement(data)
+                .addElement(timeStamp)
+                .addLong(energyLimit)
+                .addLong(energyPrice)
+                .addByte(type);
     }
 
     /**
@@ -286,45 +307,17 @@ public final class TxUtil {
         // see https://aionnetwork.atlassian.net/wiki/spaces/TE/pages/292389035/Transaction+RLP+Encoding
         // for decoding/encoding rules
 
-        byte[] nonceEncoded = RLP.encodeElement(nonce);
-        byte[] destinationEncoded = RLP.encodeElement(destination == null ? null : destination.toByteArray());
-        byte[] valueEncoded = RLP.encodeElement(value);
-        byte[] dataEncoded = RLP.encodeElement(data);
-        byte[] timeStampEncoded = RLP.encodeElement(timeStamp);
-        byte[] energyLimitEncoded = RLP.encodeLong(energyLimit);
-        byte[] energyPriceEncoded = RLP.encodeLong(energyPrice);
-        byte[] typeEncoded = RLP.encodeByte(type);
-        byte[] signatureEncoded = RLP.encodeElement(signature.toBytes());
-
-        if(beaconHash == null) {
-            return RLP.encodeList(
-                    nonceEncoded,
-                    destinationEncoded,
-                    valueEncoded,
-                    dataEncoded,
-                    timeStampEncoded,
-                    energyLimitEncoded,
-                    energyPriceEncoded,
-                    typeEncoded,
-                    signatureEncoded);
-        } else {
+        RLPListEncoder encoder =
+                rlpEncoderWithoutSignature(
+                        nonce, destination, value, data, timeStamp, energyLimit, energyPrice, type);
+        encoder.addElement(signature.toBytes());
+
+        if (beaconHash != null) {
             // may use different extensions in the future, but
             // today, the only extension is beacon hash, which
             // is represented by 0x01.
-            byte[] extensionsEncoded = RLP.encodeByte(BEACON_HASH_EXTENSION);
-            byte[] beaconHashEncoded = RLP.encodeElement(beaconHash);
-            return RLP.encodeList(
-                    nonceEncoded,
-                    destinationEncoded,
-                    valueEncoded,
-                    dataEncoded,
-                    timeStampEncoded,
-                    energyLimitEncoded,
-                    energyPriceEncoded,
-                    typeEncoded,
-                    signatureEncoded,
-                    extensionsEncoded,
-                    beaconHashEncoded);
+            encoder.addByte(BEACON_HASH_EXTENSION).addElement(beaconHash);
         }
+        return encoder.encode();
     }
 }
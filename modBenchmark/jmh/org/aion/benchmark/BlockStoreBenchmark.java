@@ -0,0 +1,144 @@
+package org.aion.benchmark;
+
+import java.io.File;
+import java.io.IOException;
+import java.math.BigInteger;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Properties;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+import org.aion.base.AionTransaction;
+import org.aion.crypto.ECKey;
+import org.aion.crypto.ECKeyFac;
+import org.aion.crypto.ECKeyFac.ECKeyType;
+import org.aion.db.impl.ByteArrayKeyValueDatabase;
+import org.aion.db.impl.DatabaseFactory;
+import org.aion.db.impl.DatabaseFactory.Props;
+import org.aion.mcf.blockchain.Block;
+import org.aion.mcf.blockchain.BlockHeader;
+import org.aion.zero.impl.db.AionBlockStore;
+import org.aion.zero.impl.types.MiningBlock;
+import org.aion.zero.impl.types.MiningBlockHeader;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Reads of consecutive main chain blocks from {@link AionBlockStore} for each of the embedded
+ * database vendors. The store is filled with a synthetic chain before the measurements and the
+ * block cache is disabled, so every read reaches the database.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class BlockStoreBenchmark {
+
+    private static final Logger LOG = LoggerFactory.getLogger("DB");
+
+    private static final int CHAIN_LENGTH = 2_000;
+
+    @Param({"mockdb", "leveldb", "rocksdb", "h2"})
+    public String vendor;
+
+    /** The number of blocks read at once, e.g. a single block or the response to a sync request. */
+    @Param({"1", "60"})
+    public int range;
+
+    @Param({"0", "20"})
+    public int transactionsPerBlock;
+
+    private File directory;
+    private ByteArrayKeyValueDatabase index;
+    private ByteArrayKeyValueDatabase blocks;
+    private AionBlockStore store;
+
+    private final Random random = new Random(Synthetic.SEED);
+
+    @Setup
+    public void setup() throws IOException {
+        directory = Files.createTempDirectory("block-store-benchmark").toFile();
+        index = connect("index");
+        blocks = connect("block");
+        store = new AionBlockStore(index, blocks, false);
+
+        ECKeyFac.setType(ECKeyType.ED25519);
+        Random data = new Random(Synthetic.SEED);
+        ECKey sender = Synthetic.key(data);
+
+        byte[] parentHash = new byte[32];
+        BigInteger totalDifficulty = BigInteger.ZERO;
+        for (long number = 0; number < CHAIN_LENGTH; number++) {
+            List<AionTransaction> transactions =
+                    transactionsPerBlock == 0
+                            ? Collections.emptyList()
+                            : Synthetic.transfers(sender, number * transactionsPerBlock, transactionsPerBlock, 10_000_000_000L, data);
+            MiningBlock block = block(parentHash, number, transactions, data);
+            totalDifficulty = totalDifficulty.add(block.getDifficultyBI());
+            store.saveBlock(block, totalDifficulty, true);
+            parentHash = block.getHash();
+        }
+    }
+
+    private ByteArrayKeyValueDatabase connect(String name) {
+        Properties props = new Properties();
+        props.setProperty(Props.DB_TYPE, vendor);
+        props.setProperty(Props.DB_NAME, name);
+        props.setProperty(Props.DB_PATH, directory.getAbsolutePath());
+        props.setProperty(Props.ENABLE_DB_CACHE, "true");
+        props.setProperty(Props.ENABLE_DB_COMPRESSION, "false");
+        ByteArrayKeyValueDatabase db = DatabaseFactory.connect(props, LOG);
+        if (db == null || !db.open()) {
+            throw new IllegalStateException("Unable to open the " + vendor + " database " + name + ".");
+        }
+        return db;
+    }
+
+    private static MiningBlock block(byte[] parentHash, long number, List<AionTransaction> transactions, Random random) {
+        return new MiningBlock(
+                parentHash,
+                Synthetic.address(random),
+                new byte[BlockHeader.BLOOM_BYTE_SIZE],
+                BigInteger.valueOf(1_000_000L).toByteArray(),
+                number,
+                1_500_000_000L + number * 10,
+                new byte[0],
+                Synthetic.bytes(random, MiningBlockHeader.NONCE_LENGTH),
+                Synthetic.bytes(random, 32),
+                Synthetic.bytes(random, 32),
+                Synthetic.bytes(random, 32),
+                new ArrayList<>(transactions),
+                Synthetic.bytes(random, MiningBlockHeader.SOLUTIONSIZE),
+                0,
+                15_000_000L);
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        index.close();
+        blocks.close();
+        try (Stream<Path> paths = Files.walk(directory.toPath())) {
+            paths.sorted(Comparator.reverseOrder()).map(Path::toFile).forEach(File::delete);
+        }
+    }
+
+    /** Reads a range of blocks in ascending order starting from a random height. */
+    @Benchmark
+    public List<Block> getBlocksByRange() {
+        long first = 1 + random.nextInt(CHAIN_LENGTH - range);
+        return store.getBlocksByRange(first, first + range - 1);
+    }
+}
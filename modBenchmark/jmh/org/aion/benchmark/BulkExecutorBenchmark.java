@@ -0,0 +1,158 @@
+package org.aion.benchmark;
+
+import java.io.File;
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Properties;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.aion.base.AccountState;
+import org.aion.base.AionTransaction;
+import org.aion.base.AionTxExecSummary;
+import org.aion.crypto.ECKey;
+import org.aion.crypto.ECKeyFac;
+import org.aion.crypto.ECKeyFac.ECKeyType;
+import org.aion.db.impl.DBVendor;
+import org.aion.db.impl.DatabaseFactory;
+import org.aion.log.AionLoggerFactory;
+import org.aion.log.LogEnum;
+import org.aion.mcf.db.RepositoryCache;
+import org.aion.types.AionAddress;
+import org.aion.zero.impl.config.CfgPrune;
+import org.aion.zero.impl.config.PruneConfig;
+import org.aion.zero.impl.db.AionRepositoryImpl;
+import org.aion.zero.impl.db.RepositoryConfig;
+import org.aion.zero.impl.vm.avm.AvmConfigurations;
+import org.aion.zero.impl.vm.avm.schedule.AvmVersionSchedule;
+import org.aion.zero.impl.vm.common.BlockCachingContext;
+import org.aion.zero.impl.vm.common.BulkExecutor;
+import org.aion.zero.impl.vm.common.PostExecutionWork;
+import org.aion.zero.impl.vm.common.VmFatalException;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.slf4j.Logger;
+
+/**
+ * Execution of synthetic blocks of value transfers with {@link BulkExecutor}, as done when a block
+ * is imported. Each invocation executes the block on a fresh child of the same repository, so
+ * every run starts from the same state.
+ *
+ * <p>The AVM versions are loaded from the project root given by the {@code benchmark.root} system
+ * property, which defaults to the working directory.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class BulkExecutorBenchmark {
+
+    private static final Logger LOG = AionLoggerFactory.getLogger(LogEnum.VM.name());
+
+    private static final int SENDERS = 10;
+    private static final long BLOCK_NUMBER = 1L;
+    private static final long ENERGY_LIMIT = 15_000_000L;
+    private static final byte[] DIFFICULTY = BigInteger.valueOf(1_000_000L).toByteArray();
+
+    @Param({"20", "200"})
+    public int transactions;
+
+    private AionRepositoryImpl repository;
+    private List<AionTransaction> block;
+    private AionAddress coinbase;
+    private PostExecutionWork postExecutionWork;
+
+    @Setup
+    public void setup() throws VmFatalException {
+        String root = System.getProperty("benchmark.root", System.getProperty("user.dir"));
+        AvmConfigurations.initializeConfigurationsAsReadAndWriteable(
+                AvmVersionSchedule.newScheduleForOnlySingleVersionSupport(0, 0), root + File.separator);
+
+        repository = AionRepositoryImpl.createForTesting(inMemory());
+
+        ECKeyFac.setType(ECKeyType.ED25519);
+        Random random = new Random(Synthetic.SEED);
+        RepositoryCache<AccountState> track = repository.startTracking();
+        block = new ArrayList<>(transactions);
+        for (int i = 0; i < SENDERS; i++) {
+            ECKey sender = Synthetic.key(random);
+            AionAddress address = new AionAddress(sender.getAddress());
+            track.createAccount(address);
+            track.addBalance(address, BigInteger.TEN.pow(30));
+
+            int count = transactions / SENDERS + (i < transactions % SENDERS ? 1 : 0);
+            block.addAll(Synthetic.transfers(sender, 0, count, 10_000_000_000L, random));
+        }
+        track.flush();
+        repository.flush();
+
+        coinbase = Synthetic.address(random);
+        postExecutionWork =
+                new PostExecutionWork(
+                        repository,
+                        (topRepository, childRepository, summary, transaction) ->
+                                childRepository.flush());
+
+        for (AionTxExecSummary summary : executeBlock()) {
+            if (summary.isRejected() || summary.isFailed()) {
+                throw new IllegalStateException("The synthetic transaction " + summary.getTransaction() + " did not execute.");
+            }
+        }
+    }
+
+    private static RepositoryConfig inMemory() {
+        return new RepositoryConfig() {
+            @Override
+            public String getDbPath() {
+                return "";
+            }
+
+            @Override
+            public PruneConfig getPruneConfig() {
+                return new CfgPrune(false);
+            }
+
+            @Override
+            public Properties getDatabaseConfig(String dbName) {
+                Properties props = new Properties();
+                props.setProperty(DatabaseFactory.Props.DB_TYPE, DBVendor.MOCKDB.toValue());
+                return props;
+            }
+        };
+    }
+
+    @TearDown
+    public void tearDown() {
+        repository.close();
+        AvmConfigurations.clear();
+    }
+
+    @Benchmark
+    public List<AionTxExecSummary> executeBlock() throws VmFatalException {
+        // the changes are discarded with the child repository
+        return BulkExecutor.executeAllTransactionsInBlock(
+                DIFFICULTY,
+                BLOCK_NUMBER,
+                1_500_000_000L,
+                ENERGY_LIMIT,
+                coinbase,
+                block,
+                repository.startTracking(),
+                false,
+                true,
+                true,
+                true,
+                LOG,
+                postExecutionWork,
+                BlockCachingContext.MAINCHAIN,
+                BLOCK_NUMBER - 1,
+                false,
+                false);
+    }
+}
@@ -0,0 +1,70 @@
+package org.aion.benchmark;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.aion.crypto.HashUtil;
+import org.aion.crypto.ed25519.ECKeyEd25519;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Hashing with {@link HashUtil#h256(byte[])} and Ed25519 signature verification.
+ *
+ * <p>The Ed25519 implementation loads libsodium from the {@code native} directory of the working
+ * directory.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class CryptoBenchmark {
+
+    @State(Scope.Benchmark)
+    public static class HashInput {
+
+        /** Node hashes, encoded transactions and encoded blocks. */
+        @Param({"32", "256", "4096"})
+        public int size;
+
+        private byte[] data;
+
+        @Setup
+        public void setup() {
+            data = Synthetic.bytes(new Random(Synthetic.SEED), size);
+        }
+    }
+
+    @State(Scope.Benchmark)
+    public static class SignedMessage {
+        private byte[] message;
+        private byte[] signature;
+        private byte[] publicKey;
+
+        @Setup
+        public void setup() {
+            // signatures are always over the 32-byte transaction hash
+            message = Synthetic.bytes(new Random(Synthetic.SEED), 32);
+            ECKeyEd25519 key = new ECKeyEd25519();
+            signature = key.sign(message).getSignature();
+            publicKey = key.getPubKey();
+
+            if (!ECKeyEd25519.verify(message, signature, publicKey)) {
+                throw new IllegalStateException("The generated signature is invalid.");
+            }
+        }
+    }
+
+    @Benchmark
+    public byte[] h256(HashInput input) {
+        return HashUtil.h256(input.data);
+    }
+
+    @Benchmark
+    public boolean ed25519Verify(SignedMessage signed) {
+        return ECKeyEd25519.verify(signed.message, signed.signature, signed.publicKey);
+    }
+}
@@ -0,0 +1,78 @@
+package org.aion.benchmark;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.aion.util.types.ByteArrayWrapper;
+import org.aion.util.types.HashKey;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Map lookups by 32-byte hash with {@link HashKey} compared to {@link ByteArrayWrapper}. Each
+ * lookup wraps the raw hash first, as the trie cache and the transaction pool do, so the
+ * allocation reported by the gc profiler includes the wrapping.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class HashKeyBenchmark {
+
+    @Param({"100000"})
+    public int size;
+
+    private byte[][] hashes;
+    private Map<HashKey, Object> hashKeyMap;
+    private Map<ByteArrayWrapper, Object> wrapperMap;
+
+    private int next = 0;
+
+    @Setup
+    public void setup() {
+        Random random = new Random(Synthetic.SEED);
+        hashes = new byte[size][];
+        hashKeyMap = new HashMap<>();
+        wrapperMap = new HashMap<>();
+        for (int i = 0; i < size; i++) {
+            hashes[i] = Synthetic.bytes(random, HashKey.LENGTH);
+            hashKeyMap.put(HashKey.wrap(hashes[i]), hashes[i]);
+            wrapperMap.put(ByteArrayWrapper.wrap(hashes[i]), hashes[i]);
+        }
+    }
+
+    private byte[] nextHash() {
+        byte[] hash = hashes[next];
+        next = (next + 1) % size;
+        return hash;
+    }
+
+    @Benchmark
+    public Object getByHashKey() {
+        return hashKeyMap.get(HashKey.wrap(nextHash()));
+    }
+
+    @Benchmark
+    public Object getByWrapper() {
+        return wrapperMap.get(ByteArrayWrapper.wrap(nextHash()));
+    }
+
+    /** Replaces an existing mapping, so the size of the map stays the same. */
+    @Benchmark
+    public Object putByHashKey() {
+        byte[] hash = nextHash();
+        return hashKeyMap.put(HashKey.wrap(hash), hash);
+    }
+
+    @Benchmark
+    public Object putByWrapper() {
+        byte[] hash = nextHash();
+        return wrapperMap.put(ByteArrayWrapper.wrap(hash), hash);
+    }
+}
@@ -0,0 +1,96 @@
+package org.aion.benchmark;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.aion.rlp.RLP;
+import org.aion.rlp.RLPList;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Encoding and decoding of RLP data shaped like a block: a list holding a header of 16 fields and
+ * a list of transactions with 10 fields each.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class RlpBenchmark {
+
+    private static final int HEADER_FIELDS = 16;
+    private static final int TX_FIELDS = 10;
+
+    @Param({"0", "20", "200"})
+    public int transactions;
+
+    /** The block as nested lists of byte arrays, as accepted by {@link RLP#encode(Object)}. */
+    private List<Object> block;
+
+    private byte[][] header;
+    private byte[][][] txs;
+    private byte[] encoded;
+
+    @Setup
+    public void setup() {
+        Random random = new Random(Synthetic.SEED);
+
+        header = new byte[HEADER_FIELDS][];
+        for (int i = 0; i < HEADER_FIELDS; i++) {
+            // mixes hashes, numbers and short fields
+            header[i] = Synthetic.bytes(random, i % 3 == 0 ? 32 : i % 3 == 1 ? 8 : 1);
+        }
+
+        txs = new byte[transactions][TX_FIELDS][];
+        for (int i = 0; i < transactions; i++) {
+            for (int j = 0; j < TX_FIELDS; j++) {
+                // the data and signature fields are the largest ones
+                txs[i][j] = Synthetic.bytes(random, j == 4 ? 68 : j == 9 ? 96 : 16);
+            }
+        }
+
+        List<Object> headerList = new ArrayList<>(List.of((Object[]) header));
+        List<Object> txList = new ArrayList<>();
+        for (byte[][] tx : txs) {
+            txList.add(new ArrayList<>(List.of((Object[]) tx)));
+        }
+        block = List.of(headerList, txList);
+
+        encoded = RLP.encode(block);
+    }
+
+    @Benchmark
+    public byte[] encode() {
+        return RLP.encode(block);
+    }
+
+    @Benchmark
+    public byte[] encodeElements() {
+        byte[][] encodedHeader = new byte[HEADER_FIELDS][];
+        for (int i = 0; i < HEADER_FIELDS; i++) {
+            encodedHeader[i] = RLP.encodeElement(header[i]);
+        }
+
+        byte[][] encodedTxs = new byte[transactions][];
+        for (int i = 0; i < transactions; i++) {
+            byte[][] fields = new byte[TX_FIELDS][];
+            for (int j = 0; j < TX_FIELDS; j++) {
+                fields[j] = RLP.encodeElement(txs[i][j]);
+            }
+            encodedTxs[i] = RLP.encodeList(fields);
+        }
+
+        return RLP.encodeList(RLP.encodeList(encodedHeader), RLP.encodeList(encodedTxs));
+    }
+
+    @Benchmark
+    public RLPList decode2() {
+        return RLP.decode2(encoded);
+    }
+}
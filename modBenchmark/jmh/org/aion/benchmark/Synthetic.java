@@ -0,0 +1,75 @@
+package org.aion.benchmark;
+
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import org.aion.base.AionTransaction;
+import org.aion.base.TransactionTypes;
+import org.aion.crypto.ECKey;
+import org.aion.crypto.ECKeyFac;
+import org.aion.crypto.ed25519.ECKeyEd25519;
+import org.aion.types.AionAddress;
+import org.aion.util.bytes.ByteUtil;
+import org.libsodium.jni.Sodium;
+
+/** Builds the synthetic data shared by the benchmarks. */
+final class Synthetic {
+
+    /** The seed used for all generated data, so that every run works on the same inputs. */
+    static final long SEED = 20190909L;
+
+    /** The timestamp of the generated transactions, fixed to keep their hashes stable. */
+    static final byte[] TX_TIMESTAMP = ByteUtil.longToBytes(1_500_000_000_000_000L);
+
+    private Synthetic() {}
+
+    static byte[] bytes(Random random, int length) {
+        byte[] bytes = new byte[length];
+        random.nextBytes(bytes);
+        return bytes;
+    }
+
+    static AionAddress address(Random random) {
+        byte[] address = bytes(random, AionAddress.LENGTH);
+        // regular account prefix
+        address[0] = (byte) 0xA0;
+        return new AionAddress(address);
+    }
+
+    /**
+     * Creates an ed25519 key pair from a seed drawn from the given generator, so that the senders,
+     * and with them the transaction hashes, are the same in every run.
+     */
+    static ECKey key(Random random) {
+        byte[] publicKey = new byte[ECKeyEd25519.PUBKEY_BYTES];
+        byte[] secretKey = new byte[ECKeyEd25519.SECKEY_BYTES];
+        byte[] seed = bytes(random, Sodium.crypto_sign_ed25519_seedbytes());
+        Sodium.crypto_sign_ed25519_seed_keypair(publicKey, secretKey, seed);
+        return ECKeyFac.inst().fromPrivate(secretKey);
+    }
+
+    /**
+     * Creates value transfers from the given sender with consecutive nonces starting from {@code
+     * firstNonce}.
+     */
+    static List<AionTransaction> transfers(
+            ECKey sender, long firstNonce, int count, long energyPrice, Random random) {
+        List<AionTransaction> transactions = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            transactions.add(
+                    AionTransaction.createGivenTimestamp(
+                            sender,
+                            BigInteger.valueOf(firstNonce + i).toByteArray(),
+                            address(random),
+                            BigInteger.ONE.toByteArray(),
+                            ByteUtil.EMPTY_BYTE_ARRAY,
+                            21_000L,
+                            energyPrice,
+                            TransactionTypes.DEFAULT,
+                            TX_TIMESTAMP,
+                            null));
+        }
+        return transactions;
+    }
+}
@@ -0,0 +1,98 @@
+package org.aion.benchmark;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.aion.db.impl.mockdb.MockDB;
+import org.aion.zero.impl.trie.TrieImpl;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Updates and root hash computation of a {@link TrieImpl} holding 32-byte keys, as the state and
+ * storage tries do. The trie is backed by an in-memory database and committed after each
+ * iteration.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class TrieBenchmark {
+
+    /** The number of keys already stored in the trie. */
+    @Param({"1000", "100000"})
+    public int size;
+
+    /** The number of updates applied before the root hash is computed, as in a block. */
+    @Param({"1", "200"})
+    public int updates;
+
+    private byte[][] keys;
+    /** Two values for each key, alternated on each pass so that every update is a change. */
+    private byte[][][] values;
+    private MockDB db;
+    private TrieImpl trie;
+
+    private int next = 0;
+    private int pass = 0;
+
+    @Setup
+    public void setup() {
+        Random random = new Random(Synthetic.SEED);
+        keys = new byte[size][];
+        values = new byte[2][size][];
+        for (int i = 0; i < size; i++) {
+            keys[i] = Synthetic.bytes(random, 32);
+            // account states are encoded in about 70 bytes
+            values[0][i] = Synthetic.bytes(random, 70);
+            values[1][i] = Synthetic.bytes(random, 70);
+        }
+
+        db = new MockDB("trie", LoggerFactory.getLogger("DB"));
+        db.open();
+        trie = new TrieImpl(db);
+        for (int i = 0; i < size; i++) {
+            trie.update(keys[i], values[0][i]);
+        }
+        trie.getRootHash();
+        trie.getCache().commit(false);
+    }
+
+    @TearDown(Level.Iteration)
+    public void commit() {
+        // drops the record of the replaced nodes
+        trie.getCache().commit(false);
+    }
+
+    @TearDown
+    public void close() {
+        db.close();
+    }
+
+    /** Replaces the values of existing keys, so the size of the trie stays the same. */
+    @Benchmark
+    public byte[] updateAndGetRootHash() {
+        for (int i = 0; i < updates; i++) {
+            trie.update(keys[next], values[(pass + 1) & 1][next]);
+            if (++next == size) {
+                next = 0;
+                pass++;
+            }
+        }
+        return trie.getRootHash();
+    }
+
+    @Benchmark
+    public byte[] get() {
+        byte[] key = keys[next];
+        next = (next + 1) % size;
+        return trie.get(key);
+    }
+}
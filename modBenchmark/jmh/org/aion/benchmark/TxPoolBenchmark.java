@@ -0,0 +1,90 @@
+package org.aion.benchmark;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Properties;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.aion.base.AionTransaction;
+import org.aion.base.PooledTransaction;
+import org.aion.crypto.ECKey;
+import org.aion.crypto.ECKeyFac;
+import org.aion.crypto.ECKeyFac.ECKeyType;
+import org.aion.txpool.Constant;
+import org.aion.txpool.Constant.TXPOOL_PROPERTY;
+import org.aion.txpool.v1.TxPoolV1;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Adding transactions to {@link TxPoolV1} and taking snapshots of it for block templates. The
+ * transactions are value transfers from several senders with random energy prices.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class TxPoolBenchmark {
+
+    @Param({"10", "100"})
+    public int senders;
+
+    @Param({"100"})
+    public int transactionsPerSender;
+
+    private List<PooledTransaction> transactions;
+
+    /** A pool holding all the transactions, used by the snapshots. */
+    private TxPoolV1 filledPool;
+
+    /** An empty pool, replaced before each addition. */
+    private TxPoolV1 emptyPool;
+
+    @Setup
+    public void setup() {
+        ECKeyFac.setType(ECKeyType.ED25519);
+        Random random = new Random(Synthetic.SEED);
+
+        transactions = new ArrayList<>(senders * transactionsPerSender);
+        for (int i = 0; i < senders; i++) {
+            ECKey sender = Synthetic.key(random);
+            long energyPrice = 10_000_000_000L + random.nextInt(1000) * 1_000_000L;
+            for (AionTransaction tx : Synthetic.transfers(sender, 0, transactionsPerSender, energyPrice, random)) {
+                transactions.add(new PooledTransaction(tx, Constant.MIN_ENERGY_CONSUME));
+            }
+        }
+
+        filledPool = newPool();
+        if (filledPool.add(transactions).size() != transactions.size()) {
+            throw new IllegalStateException("The pool rejected some of the transactions.");
+        }
+    }
+
+    @Setup(Level.Invocation)
+    public void clearPool() {
+        emptyPool = newPool();
+    }
+
+    private TxPoolV1 newPool() {
+        Properties config = new Properties();
+        config.put(TXPOOL_PROPERTY.PROP_TX_TIMEOUT, "100");
+        config.put(TXPOOL_PROPERTY.PROP_POOL_SIZE_MAX, String.valueOf(senders * transactionsPerSender));
+        return new TxPoolV1(config);
+    }
+
+    @Benchmark
+    public List<PooledTransaction> add() {
+        return emptyPool.add(transactions);
+    }
+
+    @Benchmark
+    public List<AionTransaction> snapshot() {
+        return filledPool.snapshot();
+    }
+}
@@ -2,6 +2,7 @@ package org.aion.db.generic;
 
 import java.util.Collection;
 import java.util.Iterator;
+import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 import java.util.concurrent.locks.ReadWriteLock;
@@ -80,6 +81,19 @@ public class LockedDatabase implements ByteArrayKeyValueDatabase {
         }
     }
 
+    @Override
+    public void sync() {
+        // acquire read lock
+        lock.readLock().lock();
+
+        try {
+            database.sync();
+        } finally {
+            // releasing read lock
+            lock.readLock().unlock();
+        }
+    }
+
     @Override
     public Optional<String> getName() {
         // no locks because the name never changes
@@ -205,6 +219,36 @@ public class LockedDatabase implements ByteArrayKeyValueDatabase {
         }
     }
 
+    @Override
+    public List<byte[]> getBatch(List<byte[]> keys) {
+        // acquire read lock
+        lock.readLock().lock();
+
+        try {
+            return database.getBatch(keys);
+        } catch (Exception e) {
+            throw e;
+        } finally {
+            // releasing read lock
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public List<Map.Entry<byte[], byte[]>> getRange(byte[] from, byte[] to, int limit) {
+        // acquire read lock
+        lock.readLock().lock();
+
+        try {
+            return database.getRange(from, to, limit);
+        } catch (Exception e) {
+            throw e;
+        } finally {
+            // releasing read lock
+            lock.readLock().unlock();
+        }
+    }
+
     @Override
     public void putBatch(Map<byte[], byte[]> keyValuePairs) {
         // acquire write lock
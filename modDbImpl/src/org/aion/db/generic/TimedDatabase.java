@@ -2,6 +2,7 @@ package org.aion.db.generic;
 
 import java.util.Collection;
 import java.util.Iterator;
+import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 import org.aion.db.impl.ByteArrayKeyValueDatabase;
@@ -61,6 +62,15 @@ public class TimedDatabase implements ByteArrayKeyValueDatabase {
         LOG.debug(database.toString() + " compact() in " + (t2 - t1) + " ns.");
     }
 
+    @Override
+    public void sync() {
+        long t1 = System.nanoTime();
+        database.sync();
+        long t2 = System.nanoTime();
+
+        LOG.debug(database.toString() + " sync() in " + (t2 - t1) + " ns.");
+    }
+
     @Override
     public Optional<String> getName() {
         // no locks because the name never changes
@@ -161,6 +171,44 @@ public class TimedDatabase implements ByteArrayKeyValueDatabase {
         return value;
     }
 
+    @Override
+    public List<byte[]> getBatch(List<byte[]> keys) {
+        long t1 = System.nanoTime();
+        List<byte[]> values = database.getBatch(keys);
+        long t2 = System.nanoTime();
+
+        LOG.debug(
+                database.toString()
+                        + " getBatch("
+                        + keys.size()
+                        + ") in "
+                        + (t2 - t1)
+                        + " ns.");
+        return values;
+    }
+
+    @Override
+    public List<Map.Entry<byte[], byte[]>> getRange(byte[] from, byte[] to, int limit) {
+        long t1 = System.nanoTime();
+        List<Map.Entry<byte[], byte[]>> entries = database.getRange(from, to, limit);
+        long t2 = System.nanoTime();
+
+        LOG.debug(
+                database.toString()
+                        + " getRange("
+                        + limit
+                        + ") in "
+                        + (t2 - t1)
+                        + " ns."
+                        + "\n\t\t\t\t\tfrom = "
+                        + (from != null ? Hex.toHexString(from) : "null")
+                        + "\n\t\t\t\t\tto = "
+                        + (to != null ? Hex.toHexString(to) : "null")
+                        + "\n\t\t\t\t\treturned entries = "
+                        + entries.size());
+        return entries;
+    }
+
     @Override
     public void putBatch(Map<byte[], byte[]> keyValuePairs) {
         long t1 = System.nanoTime();
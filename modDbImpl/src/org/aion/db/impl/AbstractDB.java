@@ -3,7 +3,9 @@ package org.aion.db.impl;
 import java.io.File;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.List;
 import java.util.Map;
 import java.util.Objects;
 import java.util.Optional;
@@ -154,6 +156,49 @@ public abstract class AbstractDB implements ByteArrayKeyValueDatabase {
      */
     protected abstract byte[] getInternal(byte[] key);
 
+    @Override
+    public List<byte[]> getBatch(List<byte[]> keys) {
+        check(keys);
+        check();
+
+        return getBatchInternal(keys);
+    }
+
+    /**
+     * Database specific multi-get functionality, without locking or integrity checks required.
+     * Locking and checks are applied in {@link #getBatch(List)}.
+     *
+     * @param keys the keys for which the method must return the associated values
+     * @return the values stored for the given keys in the same order, with {@code null} for the
+     *     missing keys
+     * @implNote Retrieves the keys one at a time unless overridden by the database implementation.
+     */
+    protected List<byte[]> getBatchInternal(List<byte[]> keys) {
+        List<byte[]> values = new ArrayList<>(keys.size());
+        for (byte[] key : keys) {
+            values.add(getInternal(key));
+        }
+        return values;
+    }
+
+    @Override
+    public List<Map.Entry<byte[], byte[]>> getRange(byte[] from, byte[] to, int limit) {
+        check(from);
+        check();
+
+        return getRangeInternal(from, to, limit);
+    }
+
+    /**
+     * Database specific range retrieval functionality, without locking or integrity checks
+     * required. Locking and checks are applied in {@link #getRange(byte[], byte[], int)}.
+     *
+     * @implNote Scans all the keys unless overridden by the database implementation.
+     */
+    protected List<Map.Entry<byte[], byte[]>> getRangeInternal(byte[] from, byte[] to, int limit) {
+        return ByteArrayKeyValueDatabase.super.getRange(from, to, limit);
+    }
+
     @Override
     public void put(byte[] key, byte[] value) {
         check(key);
@@ -0,0 +1,29 @@
+package org.aion.db.impl;
+
+import java.util.Collection;
+import java.util.Map;
+
+/**
+ * Implemented by the databases that can apply updates to several databases sharing the same
+ * storage in a single atomic write.
+ */
+public interface AtomicBatchWriter {
+
+    /**
+     * @param databases the databases to update together with this one
+     * @return {@code true} if this database and the given ones can be updated in a single atomic
+     *     write, {@code false} otherwise
+     */
+    boolean canWriteAtomically(Collection<? extends ByteArrayKeyValueDatabase> databases);
+
+    /**
+     * Applies the given updates to this database and the other given databases in a single atomic
+     * write.
+     *
+     * @param updates the updates for each database, where a {@code null} value deletes the
+     *     corresponding key
+     * @throws IllegalArgumentException if the databases cannot be written atomically with this one
+     * @throws RuntimeException if the write fails
+     */
+    void writeAtomically(Map<? extends ByteArrayKeyValueDatabase, Map<byte[], byte[]>> updates);
+}
@@ -1,3 +1,84 @@
 package org.aion.db.impl;
 
-public interface ByteArrayKeyValueStore extends KeyValueStore<byte[], byte[]> {}
+import java.util.AbstractMap;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+public interface ByteArrayKeyValueStore extends KeyValueStore<byte[], byte[]> {
+
+    /**
+     * Retrieves the entries with keys in the range {@code [from, to)} ordered by the unsigned
+     * lexicographic order of the keys, which is the order used by the native databases.
+     *
+     * @param from the inclusive lower bound of the keys
+     * @param to the exclusive upper bound of the keys or {@code null} for a range without an upper
+     *     bound
+     * @param limit the maximum number of returned entries
+     * @return the entries in the given range, up to the given limit
+     * @throws RuntimeException if the data store is closed
+     * @throws NullPointerException if the lower bound is {@code null}
+     * @implNote The default implementation scans all the keys of the data store. Implementations
+     *     backed by ordered databases should override it to seek directly to the start of the range.
+     */
+    default List<Map.Entry<byte[], byte[]>> getRange(byte[] from, byte[] to, int limit) {
+        List<byte[]> keys = new ArrayList<>();
+        Iterator<byte[]> iterator = keys();
+        while (iterator.hasNext()) {
+            byte[] key = iterator.next();
+            if (isInRange(key, from, to)) {
+                keys.add(key);
+            }
+        }
+        keys.sort(Arrays::compareUnsigned);
+
+        List<Map.Entry<byte[], byte[]>> entries = new ArrayList<>();
+        for (byte[] key : keys) {
+            if (entries.size() >= limit) {
+                break;
+            }
+            Optional<byte[]> value = get(key);
+            value.ifPresent(v -> entries.add(new AbstractMap.SimpleImmutableEntry<>(key, v)));
+        }
+        return entries;
+    }
+
+    /**
+     * Retrieves the entries with keys starting with the given prefix ordered by the unsigned
+     * lexicographic order of the keys.
+     *
+     * @param prefix the common prefix of the returned keys
+     * @param limit the maximum number of returned entries
+     * @return the entries with the given prefix, up to the given limit
+     * @throws RuntimeException if the data store is closed
+     * @throws NullPointerException if the prefix is {@code null}
+     */
+    default List<Map.Entry<byte[], byte[]>> getByPrefix(byte[] prefix, int limit) {
+        return getRange(prefix, prefixUpperBound(prefix), limit);
+    }
+
+    /** @return {@code true} if the key is in the range {@code [from, to)}, {@code false} otherwise */
+    static boolean isInRange(byte[] key, byte[] from, byte[] to) {
+        return Arrays.compareUnsigned(key, from) >= 0 && (to == null || Arrays.compareUnsigned(key, to) < 0);
+    }
+
+    /**
+     * Computes the smallest key that is greater than all the keys starting with the given prefix.
+     *
+     * @return the exclusive upper bound for the keys with the given prefix or {@code null} when the
+     *     keys with the prefix have no upper bound
+     */
+    static byte[] prefixUpperBound(byte[] prefix) {
+        for (int i = prefix.length - 1; i >= 0; i--) {
+            if (prefix[i] != (byte) 0xFF) {
+                byte[] bound = Arrays.copyOf(prefix, i + 1);
+                bound[i]++;
+                return bound;
+            }
+        }
+        return null;
+    }
+}
@@ -47,6 +47,16 @@ public interface Database {
     /** Reduce the size of the database when possible. */
     void compact();
 
+    /**
+     * Forces the updates written so far to durable storage, so that they are not lost on a power
+     * failure.
+     *
+     * @throws RuntimeException if the updates could not be made durable
+     * @implNote The default implementation does nothing, which is correct for databases that are
+     *     not persistent or that make each write durable.
+     */
+    default void sync() {}
+
     /** Drop database. Removes all data from source. */
     void drop();
 
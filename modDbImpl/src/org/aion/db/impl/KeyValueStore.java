@@ -1,7 +1,9 @@
 package org.aion.db.impl;
 
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Iterator;
+import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 
@@ -46,6 +48,25 @@ public interface KeyValueStore<KeyT, ValueT> extends AutoCloseable {
      */
     Optional<ValueT> get(KeyT key);
 
+    /**
+     * Retrieves the values stored for the given keys. The returned list has the same size and order
+     * as the given keys and contains {@code null} for the keys that are not present in the data
+     * store.
+     *
+     * @param keys the keys for which the values must be retrieved
+     * @throws RuntimeException if the data store is closed
+     * @throws NullPointerException if the list contains a {@code null} key
+     * @implNote The default implementation retrieves the keys one at a time. Implementations backed
+     *     by native databases should override it to retrieve all the keys with a single call.
+     */
+    default List<ValueT> getBatch(List<KeyT> keys) {
+        List<ValueT> values = new ArrayList<>(keys.size());
+        for (KeyT key : keys) {
+            values.add(get(key).orElse(null));
+        }
+        return values;
+    }
+
     /**
      * Stores or updates a value at the corresponding key. The changes are cached until {@link #commit()} is called.
      *
@@ -2,9 +2,13 @@ package org.aion.db.impl.leveldb;
 
 import java.io.File;
 import java.io.IOException;
+import java.util.AbstractMap;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.Iterator;
+import java.util.List;
 import java.util.Map;
 import org.aion.db.impl.AbstractDB;
 import org.aion.db.impl.SystemExitCodes;
@@ -15,7 +19,9 @@ import org.iq80.leveldb.DBException;
 import org.iq80.leveldb.DBIterator;
 import org.iq80.leveldb.Options;
 import org.iq80.leveldb.ReadOptions;
+import org.iq80.leveldb.Snapshot;
 import org.iq80.leveldb.WriteBatch;
+import org.iq80.leveldb.WriteOptions;
 import org.slf4j.Logger;
 
 /**
@@ -209,6 +215,18 @@ public class LevelDB extends AbstractDB {
         db.compactRange(new byte[] {(byte) 0x00}, new byte[] {(byte) 0xff});
     }
 
+    @Override
+    public void sync() {
+        check();
+
+        // a synced write also syncs the log holding the earlier writes
+        try (WriteBatch batch = db.createWriteBatch()) {
+            db.write(batch, new WriteOptions().sync(true));
+        } catch (IOException e) {
+            LOG.error("Unable to close WriteBatch object in " + this.toString() + ".", e);
+        }
+    }
+
     @Override
     public boolean isOpen() {
         return db != null;
@@ -339,6 +357,43 @@ public class LevelDB extends AbstractDB {
         }
     }
 
+    @Override
+    protected List<byte[]> getBatchInternal(List<byte[]> keys) {
+        List<byte[]> values = new ArrayList<>(keys.size());
+
+        // reads all the keys from the same snapshot since there is no native multi-get
+        try (Snapshot snapshot = db.getSnapshot()) {
+            ReadOptions readOptions = new ReadOptions().snapshot(snapshot);
+            for (byte[] key : keys) {
+                values.add(db.get(key, readOptions));
+            }
+        } catch (Exception e) {
+            LOG.error("Unable to get " + keys.size() + " keys from database " + this.toString() + ".", e);
+            values = new ArrayList<>(Collections.nCopies(keys.size(), null));
+        }
+
+        return values;
+    }
+
+    @Override
+    protected List<Map.Entry<byte[], byte[]>> getRangeInternal(byte[] from, byte[] to, int limit) {
+        List<Map.Entry<byte[], byte[]>> entries = new ArrayList<>();
+
+        try (DBIterator itr = db.iterator()) {
+            for (itr.seek(from); itr.hasNext() && entries.size() < limit; ) {
+                Map.Entry<byte[], byte[]> entry = itr.next();
+                if (to != null && Arrays.compareUnsigned(entry.getKey(), to) >= 0) {
+                    break;
+                }
+                entries.add(new AbstractMap.SimpleImmutableEntry<>(entry.getKey(), entry.getValue()));
+            }
+        } catch (Exception e) {
+            LOG.error("Unable to extract a range of entries from database " + this.toString() + ".", e);
+        }
+
+        return entries;
+    }
+
     @Override
     public void putToBatchInternal(byte[] key, byte[] value) {
         if (batch == null) {
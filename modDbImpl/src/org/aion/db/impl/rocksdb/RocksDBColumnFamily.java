@@ -0,0 +1,467 @@
+package org.aion.db.impl.rocksdb;
+
+import java.io.File;
+import java.util.AbstractMap;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import org.aion.db.impl.AbstractDB;
+import org.aion.db.impl.AtomicBatchWriter;
+import org.aion.db.impl.ByteArrayKeyValueDatabase;
+import org.rocksdb.ColumnFamilyHandle;
+import org.rocksdb.FlushOptions;
+import org.rocksdb.ReadOptions;
+import org.rocksdb.RocksDBException;
+import org.rocksdb.RocksIterator;
+import org.rocksdb.Slice;
+import org.rocksdb.Snapshot;
+import org.rocksdb.WriteBatch;
+import org.slf4j.Logger;
+
+/**
+ * A database stored as a column family of a RocksDB instance shared by all the databases with the
+ * same path.
+ *
+ * <p>Compared to {@link RocksDBWrapper}, which opens a separate instance for each database, the
+ * column families share one block cache, write-ahead log and set of background threads, and
+ * updates to several of them can be written atomically using {@link #writeAtomically(Map)}.
+ */
+public class RocksDBColumnFamily extends AbstractDB implements AtomicBatchWriter {
+
+    private final int maxOpenFiles;
+    private final int writeBufferSize;
+    private final int readBufferSize;
+    private final int cacheSize;
+
+    private SharedRocksDB instance;
+    private ColumnFamilyHandle handle;
+    private WriteBatch batch = null;
+
+    public RocksDBColumnFamily(
+            String name,
+            String path,
+            Logger log,
+            boolean enableDbCache,
+            boolean enableDbCompression,
+            int maxOpenFiles,
+            int writeBufferSize,
+            int readBufferSize,
+            int cacheSize) {
+        super(name, path, log, enableDbCache, enableDbCompression);
+
+        // all the column families are stored in the same directory
+        this.path = new File(path, RocksDBConstants.SHARED_DIRECTORY).getAbsolutePath();
+
+        this.maxOpenFiles = maxOpenFiles;
+        this.writeBufferSize = writeBufferSize;
+        this.readBufferSize = readBufferSize;
+        this.cacheSize = cacheSize;
+
+        LOG.info("RocksDb column family Options: EnableCompression:{} MaxOpenFiles:{} WriteBuffer:{} ReadBuffer:{} SharedCacheSize:{}"
+            , enableDbCompression, maxOpenFiles, writeBufferSize, readBufferSize, cacheSize);
+    }
+
+    @Override
+    public String toString() {
+        return this.getClass().getSimpleName() + ":" + propertiesInfo();
+    }
+
+    // IDatabase Functionality
+    @Override
+    public boolean open() {
+        if (isOpen()) {
+            return true;
+        }
+
+        LOG.debug("Initialising RockDB column family {}", this.toString());
+
+        SharedRocksDB shared =
+                SharedRocksDB.acquire(
+                        path,
+                        LOG,
+                        enableDbCompression,
+                        maxOpenFiles,
+                        writeBufferSize,
+                        readBufferSize,
+                        cacheSize);
+        if (shared == null) {
+            LOG.error("Failed to open the database " + this.toString() + ".");
+            return false;
+        }
+
+        try {
+            handle = shared.getOrCreateFamily(name);
+            instance = shared;
+        } catch (RocksDBException e) {
+            LOG.error("Failed to open the database " + this.toString() + " due to: ", e);
+            shared.release();
+        }
+
+        return isOpen();
+    }
+
+    @Override
+    public void close() {
+        // do nothing if already closed
+        if (instance == null) {
+            return;
+        }
+
+        LOG.info("Closing database " + this.toString());
+
+        if (batch != null) {
+            batch.close();
+            batch = null;
+        }
+
+        // the handle is closed with the shared instance
+        handle = null;
+        instance.release();
+        instance = null;
+    }
+
+    @Override
+    public void compact() {
+        LOG.info("Compacting " + this.toString() + ".");
+        try {
+            instance.getDb().compactRange(handle);
+        } catch (RocksDBException e) {
+            LOG.error("Cannot compact data.", e);
+        }
+    }
+
+    @Override
+    public void sync() {
+        check();
+
+        // the flushed tables are synced to disk
+        try (FlushOptions options = new FlushOptions().setWaitForFlush(true)) {
+            instance.getDb().flush(options, handle);
+        } catch (RocksDBException e) {
+            LOG.error("Unable to sync " + this.toString() + ".", e);
+            throw new RuntimeException(e);
+        }
+    }
+
+    @Override
+    public void drop() {
+        check();
+
+        try {
+            handle = instance.recreateFamily(name);
+        } catch (RocksDBException e) {
+            LOG.error("Unable to drop the database " + this.toString() + ".", e);
+        }
+    }
+
+    @Override
+    public boolean isOpen() {
+        return instance != null;
+    }
+
+    @Override
+    public boolean isCreatedOnDisk() {
+        // the shared instance is created on disk together with its first column family
+        return new File(path, "LOCK").exists() && new File(path, "CURRENT").exists();
+    }
+
+    @Override
+    public long approximateSize() {
+        check();
+
+        try {
+            return instance.getDb().getLongProperty(handle, "rocksdb.total-sst-files-size");
+        } catch (RocksDBException e) {
+            LOG.error("Unable to compute the size of " + this.toString() + ".", e);
+            return -1L;
+        }
+    }
+
+    // IKeyValueStore functionality
+
+    @Override
+    public boolean isEmpty() {
+        check();
+
+        try (RocksIterator itr = instance.getDb().newIterator(handle)) {
+            itr.seekToFirst();
+
+            // check if there is at least one valid item
+            return !itr.isValid();
+        } catch (Exception e) {
+            LOG.error("Unable to extract information from database " + this.toString() + ".", e);
+        }
+
+        return true;
+    }
+
+    @Override
+    public Iterator<byte[]> keys() {
+        check();
+
+        try {
+            Snapshot snapshot = instance.getDb().getSnapshot();
+            ReadOptions readOptions = new ReadOptions();
+            readOptions.setSnapshot(snapshot);
+            return new ColumnFamilyIterator(
+                    instance, snapshot, readOptions, instance.getDb().newIterator(handle, readOptions));
+        } catch (Exception e) {
+            LOG.error("Unable to extract keys from database " + this.toString() + ".", e);
+        }
+
+        // empty when retrieval failed
+        return Collections.emptyIterator();
+    }
+
+    /** A wrapper for the {@link RocksIterator} conforming to the {@link Iterator} interface. */
+    private static class ColumnFamilyIterator implements Iterator<byte[]> {
+        private final SharedRocksDB instance;
+        private final Snapshot snapshot;
+        private final RocksIterator iterator;
+        private final ReadOptions readOptions;
+        private boolean closed;
+
+        ColumnFamilyIterator(
+                SharedRocksDB instance,
+                Snapshot snapshot,
+                ReadOptions readOptions,
+                RocksIterator iterator) {
+            this.instance = instance;
+            this.snapshot = snapshot;
+            this.readOptions = readOptions;
+            this.iterator = iterator;
+            iterator.seekToFirst();
+            closed = false;
+        }
+
+        @Override
+        public boolean hasNext() {
+            if (!closed) {
+                boolean isValid = iterator.isValid();
+
+                // close iterator after last entry
+                if (!isValid) {
+                    iterator.close();
+                    readOptions.close();
+                    if (instance.getDb() != null) {
+                        instance.getDb().releaseSnapshot(snapshot);
+                    }
+                    closed = true;
+                }
+
+                return isValid;
+            } else {
+                return false;
+            }
+        }
+
+        @Override
+        public byte[] next() {
+            byte[] key = iterator.key();
+            iterator.next();
+            return key;
+        }
+    }
+
+    @Override
+    protected byte[] getInternal(byte[] key) {
+        try {
+            return instance.getDb().get(handle, key);
+        } catch (RocksDBException e) {
+            LOG.error("Unable to get key " + Arrays.toString(key) + ". " + e);
+        }
+
+        return null;
+    }
+
+    @Override
+    protected List<byte[]> getBatchInternal(List<byte[]> keys) {
+        try {
+            // retrieves all the keys with a single native call
+            return instance.getDb().multiGetAsList(Collections.nCopies(keys.size(), handle), keys);
+        } catch (RocksDBException e) {
+            LOG.error("Unable to get " + keys.size() + " keys. " + e);
+        }
+
+        return new ArrayList<>(Collections.nCopies(keys.size(), null));
+    }
+
+    @Override
+    protected List<Map.Entry<byte[], byte[]>> getRangeInternal(byte[] from, byte[] to, int limit) {
+        List<Map.Entry<byte[], byte[]>> entries = new ArrayList<>();
+
+        // the upper bound allows the iterator to skip the data outside the range
+        try (Slice upperBound = to == null ? null : new Slice(to);
+                ReadOptions readOptions = new ReadOptions()) {
+            if (upperBound != null) {
+                readOptions.setIterateUpperBound(upperBound);
+            }
+            try (RocksIterator iterator = instance.getDb().newIterator(handle, readOptions)) {
+                for (iterator.seek(from); iterator.isValid() && entries.size() < limit; iterator.next()) {
+                    entries.add(new AbstractMap.SimpleImmutableEntry<>(iterator.key(), iterator.value()));
+                }
+            }
+        } catch (Exception e) {
+            LOG.error("Unable to extract a range of entries from database " + this.toString() + ".", e);
+        }
+
+        return entries;
+    }
+
+    @Override
+    public void putToBatchInternal(byte[] key, byte[] value) {
+        if (batch == null) {
+            batch = new WriteBatch();
+        }
+
+        try {
+            batch.put(handle, key, value);
+        } catch (RocksDBException e) {
+            LOG.error("Unable to perform put to batch operation on " + this.toString() + ".", e);
+            throw new RuntimeException(e);
+        }
+    }
+
+    @Override
+    public void deleteInBatchInternal(byte[] key) {
+        if (batch == null) {
+            batch = new WriteBatch();
+        }
+
+        try {
+            batch.delete(handle, key);
+        } catch (RocksDBException e) {
+            LOG.error("Unable to perform delete in batch operation on " + this.toString() + ".", e);
+            throw new RuntimeException(e);
+        }
+    }
+
+    @Override
+    public void commit() {
+        check();
+
+        if (batch != null) {
+            try {
+                instance.write(batch);
+            } catch (RocksDBException e) {
+                LOG.error(
+                        "Unable to execute batch put/update/delete operation on "
+                                + this.toString()
+                                + ".",
+                        e);
+            }
+            batch.close();
+            batch = null;
+        }
+    }
+
+    @Override
+    public void putBatchInternal(Map<byte[], byte[]> input) {
+        // try-with-resources will automatically close the batch object
+        try (WriteBatch batch = new WriteBatch()) {
+            for (Map.Entry<byte[], byte[]> e : input.entrySet()) {
+                batch.put(handle, e.getKey(), e.getValue());
+            }
+
+            // bulk atomic update
+            instance.write(batch);
+        } catch (RocksDBException e) {
+            LOG.error(
+                    "Unable to execute batch put/update operation on " + this.toString() + ".", e);
+        }
+    }
+
+    @Override
+    public void deleteBatchInternal(Collection<byte[]> keys) {
+        try (WriteBatch batch = new WriteBatch()) {
+            for (byte[] key : keys) {
+                batch.delete(handle, key);
+            }
+
+            // bulk atomic update
+            instance.write(batch);
+        } catch (RocksDBException e) {
+            LOG.error("Unable to execute batch delete operation on " + this.toString() + ".", e);
+        }
+    }
+
+    @Override
+    public boolean canWriteAtomically(Collection<? extends ByteArrayKeyValueDatabase> databases) {
+        List<Object> all = new ArrayList<>(databases);
+        all.add(this);
+        return shareInstance(all);
+    }
+
+    @Override
+    public void writeAtomically(Map<? extends ByteArrayKeyValueDatabase, Map<byte[], byte[]>> updates) {
+        if (!canWriteAtomically(updates.keySet())) {
+            throw new IllegalArgumentException(
+                    "The databases must be open column families of the same instance.");
+        }
+
+        Map<RocksDBColumnFamily, Map<byte[], byte[]>> familyUpdates = new HashMap<>();
+        for (Map.Entry<? extends ByteArrayKeyValueDatabase, Map<byte[], byte[]>> entry : updates.entrySet()) {
+            familyUpdates.put((RocksDBColumnFamily) entry.getKey(), entry.getValue());
+        }
+        writeAtomically(familyUpdates);
+    }
+
+    /**
+     * Returns {@code true} if the given databases are open column families of the same shared
+     * instance, so that they can be updated using {@link #writeAtomically(Map)}.
+     */
+    public static boolean shareInstance(Collection<?> databases) {
+        SharedRocksDB shared = null;
+        for (Object database : databases) {
+            if (!(database instanceof RocksDBColumnFamily)) {
+                return false;
+            }
+            SharedRocksDB current = ((RocksDBColumnFamily) database).instance;
+            if (current == null || (shared != null && current != shared)) {
+                return false;
+            }
+            shared = current;
+        }
+        return shared != null;
+    }
+
+    /**
+     * Applies the given updates to several column families of the same shared instance in a single
+     * atomic write.
+     *
+     * @param updates the updates for each column family, where a {@code null} value deletes the
+     *     corresponding key
+     * @throws IllegalArgumentException if the databases do not share an instance
+     * @throws RuntimeException if the write fails
+     */
+    public static void writeAtomically(Map<RocksDBColumnFamily, Map<byte[], byte[]>> updates) {
+        if (!shareInstance(updates.keySet())) {
+            throw new IllegalArgumentException(
+                    "The databases must be open column families of the same instance.");
+        }
+
+        SharedRocksDB shared = updates.keySet().iterator().next().instance;
+        try (WriteBatch batch = new WriteBatch()) {
+            for (Map.Entry<RocksDBColumnFamily, Map<byte[], byte[]>> entry : updates.entrySet()) {
+                RocksDBColumnFamily database = entry.getKey();
+                for (Map.Entry<byte[], byte[]> update : entry.getValue().entrySet()) {
+                    check(update.getKey());
+                    if (update.getValue() == null) {
+                        batch.delete(database.handle, update.getKey());
+                    } else {
+                        batch.put(database.handle, update.getKey(), update.getValue());
+                    }
+                }
+            }
+
+            shared.write(batch);
+        } catch (RocksDBException e) {
+            throw new RuntimeException("Unable to execute the atomic write to the column families.", e);
+        }
+    }
+}
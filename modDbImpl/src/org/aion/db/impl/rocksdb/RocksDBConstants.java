@@ -1,5 +1,7 @@
 package org.aion.db.impl.rocksdb;
 
+import java.util.Set;
+
 public class RocksDBConstants {
     public static int MAX_OPEN_FILES = 1024;
     public static int BLOCK_SIZE = 4 * 1024;
@@ -16,5 +18,10 @@ public class RocksDBConstants {
     static int LEVEL0_STOP_WRITES_TRIGGER = 16;
     static int LEVEL0_SLOWDOWN_WRITES_TRIGGER = 8;
 
+    // settings for the column families of a shared instance
+    public static String SHARED_DIRECTORY = "rocksdb";
+    public static int SHARED_CACHE_SIZE = 256 * 1024 * 1024;
+    static Set<String> COMPRESSED_FAMILIES = Set.of("block", "transaction");
+
     private RocksDBConstants() {}
 }
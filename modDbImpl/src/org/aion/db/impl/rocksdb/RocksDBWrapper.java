@@ -12,21 +12,26 @@ import static org.aion.db.impl.rocksdb.RocksDBConstants.MIN_WRITE_BUFFER_NUMBER_
 import static org.aion.db.impl.rocksdb.RocksDBConstants.OPTIMIZE_LEVEL_STYLE_COMPACTION;
 
 import java.io.File;
+import java.util.AbstractMap;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.Iterator;
+import java.util.List;
 import java.util.Map;
 import org.aion.db.impl.AbstractDB;
 import org.rocksdb.BlockBasedTableConfig;
 import org.rocksdb.BloomFilter;
 import org.rocksdb.CompactionPriority;
 import org.rocksdb.CompressionType;
+import org.rocksdb.FlushOptions;
 import org.rocksdb.Options;
 import org.rocksdb.ReadOptions;
 import org.rocksdb.RocksDB;
 import org.rocksdb.RocksDBException;
 import org.rocksdb.RocksIterator;
+import org.rocksdb.Slice;
 import org.rocksdb.WriteBatch;
 import org.rocksdb.WriteOptions;
 import org.slf4j.Logger;
@@ -189,6 +194,19 @@ public class RocksDBWrapper extends AbstractDB {
         }
     }
 
+    @Override
+    public void sync() {
+        check();
+
+        // the flushed tables are synced to disk
+        try (FlushOptions options = new FlushOptions().setWaitForFlush(true)) {
+            db.flush(options);
+        } catch (RocksDBException e) {
+            LOG.error("Unable to sync " + this.toString() + ".", e);
+            throw new RuntimeException(e);
+        }
+    }
+
     @Override
     public boolean isOpen() {
         return db != null;
@@ -313,6 +331,40 @@ public class RocksDBWrapper extends AbstractDB {
         return null;
     }
 
+    @Override
+    protected List<byte[]> getBatchInternal(List<byte[]> keys) {
+        try {
+            // retrieves all the keys with a single native call
+            return db.multiGetAsList(keys);
+        } catch (RocksDBException e) {
+            LOG.error("Unable to get " + keys.size() + " keys. " + e);
+        }
+
+        return new ArrayList<>(Collections.nCopies(keys.size(), null));
+    }
+
+    @Override
+    protected List<Map.Entry<byte[], byte[]>> getRangeInternal(byte[] from, byte[] to, int limit) {
+        List<Map.Entry<byte[], byte[]>> entries = new ArrayList<>();
+
+        // the upper bound allows the iterator to skip the data outside the range
+        try (Slice upperBound = to == null ? null : new Slice(to);
+                ReadOptions readOptions = new ReadOptions()) {
+            if (upperBound != null) {
+                readOptions.setIterateUpperBound(upperBound);
+            }
+            try (RocksIterator iterator = db.newIterator(readOptions)) {
+                for (iterator.seek(from); iterator.isValid() && entries.size() < limit; iterator.next()) {
+                    entries.add(new AbstractMap.SimpleImmutableEntry<>(iterator.key(), iterator.value()));
+                }
+            }
+        } catch (Exception e) {
+            LOG.error("Unable to extract a range of entries from database " + this.toString() + ".", e);
+        }
+
+        return entries;
+    }
+
     private WriteBatch batch = null;
 
     @Override
@@ -0,0 +1,307 @@
+package org.aion.db.impl.rocksdb;
+
+import static java.lang.Math.max;
+import static org.aion.db.impl.rocksdb.RocksDBConstants.BLOCK_SIZE;
+import static org.aion.db.impl.rocksdb.RocksDBConstants.BLOOMFILTER_BITS_PER_KEY;
+import static org.aion.db.impl.rocksdb.RocksDBConstants.BYTES_PER_SYNC;
+import static org.aion.db.impl.rocksdb.RocksDBConstants.COMPRESSED_FAMILIES;
+import static org.aion.db.impl.rocksdb.RocksDBConstants.LEVEL0_SLOWDOWN_WRITES_TRIGGER;
+import static org.aion.db.impl.rocksdb.RocksDBConstants.LEVEL0_STOP_WRITES_TRIGGER;
+import static org.aion.db.impl.rocksdb.RocksDBConstants.MAX_BACKGROUND_COMPACTIONS;
+import static org.aion.db.impl.rocksdb.RocksDBConstants.MAX_BACKGROUND_FLUSHES;
+import static org.aion.db.impl.rocksdb.RocksDBConstants.MIN_WRITE_BUFFER_NUMBER_TOMERGE;
+import static org.aion.db.impl.rocksdb.RocksDBConstants.OPTIMIZE_LEVEL_STYLE_COMPACTION;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import org.rocksdb.BlockBasedTableConfig;
+import org.rocksdb.BloomFilter;
+import org.rocksdb.ColumnFamilyDescriptor;
+import org.rocksdb.ColumnFamilyHandle;
+import org.rocksdb.ColumnFamilyOptions;
+import org.rocksdb.CompactionPriority;
+import org.rocksdb.CompressionType;
+import org.rocksdb.DBOptions;
+import org.rocksdb.LRUCache;
+import org.rocksdb.Options;
+import org.rocksdb.RocksDB;
+import org.rocksdb.RocksDBException;
+import org.rocksdb.WriteBatch;
+import org.rocksdb.WriteOptions;
+import org.slf4j.Logger;
+
+/**
+ * A RocksDB instance shared by all the {@link RocksDBColumnFamily} databases located at the same
+ * path. All column families share the block cache, the write-ahead log and the background threads
+ * of the instance.
+ *
+ * <p>The instance is opened when the first column family is acquired and closed when the last one
+ * is released.
+ */
+final class SharedRocksDB {
+
+    // guarded by the class
+    private static final Map<String, SharedRocksDB> instances = new HashMap<>();
+
+    private final String path;
+    private final Logger log;
+    private final boolean enableDbCompression;
+    private final int maxOpenFiles;
+    private final int writeBufferSize;
+    private final int readBufferSize;
+
+    private final LRUCache blockCache;
+    private final DBOptions dbOptions;
+    private final WriteOptions writeOptions;
+    private final Map<String, ColumnFamilyHandle> handles = new HashMap<>();
+    private final Map<String, ColumnFamilyOptions> familyOptions = new HashMap<>();
+    private RocksDB db;
+    private int references = 0;
+
+    private SharedRocksDB(
+            String path,
+            Logger log,
+            boolean enableDbCompression,
+            int maxOpenFiles,
+            int writeBufferSize,
+            int readBufferSize,
+            int cacheSize) {
+        this.path = path;
+        this.log = log;
+        this.enableDbCompression = enableDbCompression;
+        this.maxOpenFiles = maxOpenFiles;
+        this.writeBufferSize = writeBufferSize;
+        this.readBufferSize = readBufferSize;
+
+        RocksDB.loadLibrary();
+        this.blockCache = new LRUCache(cacheSize);
+        this.dbOptions = setupDbOptions();
+        this.writeOptions = new WriteOptions();
+        this.writeOptions.setLowPri(true);
+    }
+
+    /**
+     * Returns the instance stored at the given path, opening it if necessary. The options of the
+     * first acquisition are used for the lifetime of the instance.
+     *
+     * @return the shared instance or {@code null} if it could not be opened
+     */
+    static synchronized SharedRocksDB acquire(
+            String path,
+            Logger log,
+            boolean enableDbCompression,
+            int maxOpenFiles,
+            int writeBufferSize,
+            int readBufferSize,
+            int cacheSize) {
+        SharedRocksDB instance = instances.get(path);
+        if (instance == null) {
+            instance =
+                    new SharedRocksDB(
+                            path,
+                            log,
+                            enableDbCompression,
+                            maxOpenFiles,
+                            writeBufferSize,
+                            readBufferSize,
+                            cacheSize);
+            if (!instance.open()) {
+                instance.closeResources();
+                return null;
+            }
+            instances.put(path, instance);
+        }
+        instance.references++;
+        return instance;
+    }
+
+    /** Closes the instance if the released column family was the last one using it. */
+    void release() {
+        synchronized (SharedRocksDB.class) {
+            references--;
+            if (references == 0) {
+                instances.remove(path);
+                log.info("Closing shared RocksDB instance at {}.", path);
+                closeResources();
+            }
+        }
+    }
+
+    RocksDB getDb() {
+        return db;
+    }
+
+    WriteOptions getWriteOptions() {
+        return writeOptions;
+    }
+
+    /** Returns the handle of the given column family, creating the family if it does not exist. */
+    synchronized ColumnFamilyHandle getOrCreateFamily(String name) throws RocksDBException {
+        ColumnFamilyHandle handle = handles.get(name);
+        if (handle == null) {
+            handle = db.createColumnFamily(descriptor(name));
+            handles.put(name, handle);
+            log.info("Created column family {} in the shared RocksDB instance at {}.", name, path);
+        }
+        return handle;
+    }
+
+    /** Removes all the data of the given column family by dropping and recreating it. */
+    synchronized ColumnFamilyHandle recreateFamily(String name) throws RocksDBException {
+        ColumnFamilyHandle handle = handles.remove(name);
+        if (handle != null) {
+            db.dropColumnFamily(handle);
+            handle.close();
+        }
+        return getOrCreateFamily(name);
+    }
+
+    /**
+     * Writes the given batch, which may contain updates for several column families of this
+     * instance, atomically.
+     */
+    void write(WriteBatch batch) throws RocksDBException {
+        db.write(writeOptions, batch);
+    }
+
+    private boolean open() {
+        File directory = new File(path);
+        if (!directory.exists() && !directory.mkdirs()) {
+            log.error("Failed to initialize the database storage at {}.", path);
+            return false;
+        }
+
+        List<ColumnFamilyDescriptor> descriptors = new ArrayList<>();
+        descriptors.add(descriptor(new String(RocksDB.DEFAULT_COLUMN_FAMILY, StandardCharsets.UTF_8)));
+        for (byte[] family : listFamilies()) {
+            if (!Arrays.equals(family, RocksDB.DEFAULT_COLUMN_FAMILY)) {
+                descriptors.add(descriptor(new String(family, StandardCharsets.UTF_8)));
+            }
+        }
+
+        List<ColumnFamilyHandle> openedHandles = new ArrayList<>();
+        try {
+            db = RocksDB.open(dbOptions, path, descriptors, openedHandles);
+        } catch (RocksDBException e) {
+            if (e.getMessage() != null && e.getMessage().contains("lock")) {
+                log.error(
+                        "Failed to open the shared database at "
+                                + path
+                                + "\nCheck if you have two instances running on the same database."
+                                + "\nFailure due to: ",
+                        e);
+            } else {
+                log.error("Failed to open the shared database at " + path + " due to: ", e);
+            }
+            return false;
+        }
+
+        for (int i = 0; i < descriptors.size(); i++) {
+            handles.put(
+                    new String(descriptors.get(i).getName(), StandardCharsets.UTF_8),
+                    openedHandles.get(i));
+        }
+        log.info(
+                "Opened shared RocksDB instance at {} with {} column families.",
+                path,
+                handles.size());
+        return true;
+    }
+
+    private List<byte[]> listFamilies() {
+        if (!new File(path, "CURRENT").exists()) {
+            return List.of();
+        }
+
+        try (Options options = new Options()) {
+            return RocksDB.listColumnFamilies(options, path);
+        } catch (RocksDBException e) {
+            log.error("Unable to list the column families at " + path + ".", e);
+            return List.of();
+        }
+    }
+
+    private void closeResources() {
+        for (ColumnFamilyHandle handle : handles.values()) {
+            handle.close();
+        }
+        handles.clear();
+
+        if (db != null) {
+            db.close();
+            db = null;
+        }
+
+        for (ColumnFamilyOptions options : familyOptions.values()) {
+            options.close();
+        }
+        familyOptions.clear();
+
+        writeOptions.close();
+        dbOptions.close();
+        blockCache.close();
+    }
+
+    private DBOptions setupDbOptions() {
+        DBOptions options = new DBOptions();
+
+        options.setCreateIfMissing(true);
+        options.setCreateMissingColumnFamilies(true);
+        options.setUseFsync(false);
+        options.setAtomicFlush(true);
+        options.setParanoidChecks(true);
+        options.setMaxOpenFiles(this.maxOpenFiles);
+        options.setRandomAccessMaxBufferSize(this.readBufferSize);
+        options.setIncreaseParallelism(max(1, Runtime.getRuntime().availableProcessors() / 2));
+        options.setMaxBackgroundCompactions(MAX_BACKGROUND_COMPACTIONS);
+        options.setMaxBackgroundFlushes(MAX_BACKGROUND_FLUSHES);
+        options.setBytesPerSync(BYTES_PER_SYNC);
+
+        return options;
+    }
+
+    /**
+     * Column families holding block data are always compressed and are read by hash without a
+     * bloom filter. The other column families are mostly accessed by point lookups of keys that
+     * may be absent, so they use bloom filters.
+     */
+    private ColumnFamilyDescriptor descriptor(String name) {
+        boolean bulkData = COMPRESSED_FAMILIES.contains(name);
+
+        ColumnFamilyOptions options = new ColumnFamilyOptions();
+        options.setCompressionType(
+                bulkData || enableDbCompression
+                        ? CompressionType.LZ4_COMPRESSION
+                        : CompressionType.NO_COMPRESSION);
+        options.setBottommostCompressionType(CompressionType.ZLIB_COMPRESSION);
+        options.setMinWriteBufferNumberToMerge(MIN_WRITE_BUFFER_NUMBER_TOMERGE);
+        options.setLevel0StopWritesTrigger(LEVEL0_STOP_WRITES_TRIGGER);
+        options.setLevel0SlowdownWritesTrigger(LEVEL0_SLOWDOWN_WRITES_TRIGGER);
+        options.setWriteBufferSize(this.writeBufferSize);
+        options.setDisableAutoCompactions(false);
+        options.setLevelCompactionDynamicLevelBytes(true);
+        options.setCompactionPriority(CompactionPriority.MinOverlappingRatio);
+        options.optimizeLevelStyleCompaction(OPTIMIZE_LEVEL_STYLE_COMPACTION);
+
+        BlockBasedTableConfig bbtc = new BlockBasedTableConfig();
+        bbtc.setBlockSize(BLOCK_SIZE);
+        bbtc.setBlockCache(blockCache);
+        bbtc.setCacheIndexAndFilterBlocks(true);
+        bbtc.setPinL0FilterAndIndexBlocksInCache(true);
+        if (!bulkData) {
+            bbtc.setFilterPolicy(new BloomFilter(BLOOMFILTER_BITS_PER_KEY, false));
+        }
+        options.setTableFormatConfig(bbtc);
+
+        ColumnFamilyOptions previous = familyOptions.put(name, options);
+        if (previous != null) {
+            previous.close();
+        }
+        return new ColumnFamilyDescriptor(name.getBytes(StandardCharsets.UTF_8), options);
+    }
+}
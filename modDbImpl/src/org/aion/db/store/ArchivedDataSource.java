@@ -2,6 +2,7 @@ package org.aion.db.store;
 
 import java.util.Collection;
 import java.util.Iterator;
+import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 import org.aion.db.impl.ByteArrayKeyValueDatabase;
@@ -36,6 +37,16 @@ public class ArchivedDataSource implements ByteArrayKeyValueStore {
         return data.get(key);
     }
 
+    @Override
+    public List<byte[]> getBatch(List<byte[]> keys) {
+        return data.getBatch(keys);
+    }
+
+    @Override
+    public List<Map.Entry<byte[], byte[]>> getRange(byte[] from, byte[] to, int limit) {
+        return data.getRange(from, to, limit);
+    }
+
     @Override
     public void putBatch(Map<byte[], byte[]> batch) {
         // the data store will check for nulls
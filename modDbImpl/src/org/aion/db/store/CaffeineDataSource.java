@@ -2,6 +2,8 @@ package org.aion.db.store;
 
 import com.github.benmanes.caffeine.cache.Caffeine;
 import com.github.benmanes.caffeine.cache.LoadingCache;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.concurrent.TimeUnit;
 import org.aion.db.impl.ByteArrayKeyValueDatabase;
 import org.aion.util.types.ByteArrayWrapper;
@@ -43,4 +45,32 @@ final class CaffeineDataSource<V> extends ObjectDataSource<V> {
         // the cache automatically loads the entries it is missing as defined in the constructor
         return cache.get(ByteArrayWrapper.wrap(key));
     }
+
+    @Override
+    public List<V> getBatch(List<byte[]> keys) {
+        List<V> values = new ArrayList<>(keys.size());
+        List<byte[]> missing = new ArrayList<>();
+        List<Integer> positions = new ArrayList<>();
+        for (byte[] key : keys) {
+            V val = cache.getIfPresent(ByteArrayWrapper.wrap(key));
+            if (val == null) {
+                positions.add(values.size());
+                missing.add(key);
+            }
+            values.add(val);
+        }
+
+        if (!missing.isEmpty()) {
+            // the entries missing from the cache are loaded with a single query
+            List<V> loaded = getBatchFromDatabase(missing);
+            for (int i = 0; i < missing.size(); i++) {
+                V val = loaded.get(i);
+                if (val != null) {
+                    cache.put(ByteArrayWrapper.wrap(missing.get(i)), val);
+                }
+                values.set(positions.get(i), val);
+            }
+        }
+        return values;
+    }
 }
@@ -2,6 +2,8 @@ package org.aion.db.store;
 
 import com.github.benmanes.caffeine.cache.Caffeine;
 import com.github.benmanes.caffeine.cache.LoadingCache;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.concurrent.TimeUnit;
 import org.aion.db.impl.ByteArrayKeyValueDatabase;
 import org.aion.util.types.ByteArrayWrapper;
@@ -71,6 +73,16 @@ class DebugCaffeineDataSource<V> extends ObjectDataSource<V> {
         return cache.get(ByteArrayWrapper.wrap(key));
     }
 
+    @Override
+    public List<V> getBatch(List<byte[]> keys) {
+        // retrieves the keys one at a time to keep the cache statistics accurate
+        List<V> values = new ArrayList<>(keys.size());
+        for (byte[] key : keys) {
+            values.add(get(key));
+        }
+        return values;
+    }
+
     @Override
     public void close() {
         super.close();
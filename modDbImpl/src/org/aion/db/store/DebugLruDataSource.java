@@ -1,5 +1,7 @@
 package org.aion.db.store;
 
+import java.util.ArrayList;
+import java.util.List;
 import org.aion.db.impl.ByteArrayKeyValueDatabase;
 import org.aion.util.types.ByteArrayWrapper;
 import org.slf4j.Logger;
@@ -55,6 +57,16 @@ final class DebugLruDataSource<V> extends LruDataSource<V> {
         }
     }
 
+    @Override
+    public List<V> getBatch(List<byte[]> keys) {
+        // retrieves the keys one at a time to keep the cache statistics accurate
+        List<V> values = new ArrayList<>(keys.size());
+        for (byte[] key : keys) {
+            values.add(get(key));
+        }
+        return values;
+    }
+
     @Override
     public void close() {
         super.close();
@@ -10,7 +10,12 @@ import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
 import java.util.concurrent.locks.ReadWriteLock;
 import java.util.concurrent.locks.ReentrantReadWriteLock;
 import org.aion.db.impl.ByteArrayKeyValueDatabase;
@@ -24,6 +29,10 @@ import org.slf4j.Logger;
  * [storeBlockChanges] call). When the [prune] is called for a block the deletes for this block are
  * submitted to the underlying DataSource with respect to following inserts. E.g. if the key was
  * deleted at block N and then inserted at block N + 10 this delete is not passed.
+ *
+ * <p>Blocks can also be pruned in the background using [schedulePrune]. The background pruning
+ * processes the keys in small batches, releasing the lock between batches so that block imports
+ * are not stalled, and is rate limited unless it falls behind.
  */
 public class JournalPruneDataSource implements ByteArrayKeyValueStore {
 
@@ -35,28 +44,47 @@ public class JournalPruneDataSource implements ByteArrayKeyValueStore {
         long blockNumber;
         Set<ByteArrayWrapper> insertedKeys = new HashSet<>();
         Set<ByteArrayWrapper> deletedKeys = new HashSet<>();
-    }
-
-    private static class Ref {
 
-        boolean dbRef;
-        int journalRefs;
-
-        public Ref(boolean dbRef) {
-            this.dbRef = dbRef;
-        }
+        // compact copies of the keys kept while the block waits to be pruned
+        byte[][] inserted;
+        byte[][] deleted;
 
-        public int getTotRefs() {
-            return journalRefs + (dbRef ? 1 : 0);
+        void compact() {
+            inserted = toArray(insertedKeys);
+            deleted = toArray(deletedKeys);
+            insertedKeys = null;
+            deletedKeys = null;
         }
+    }
 
-        @Override
-        public String toString() {
-            return "refs: " + String.valueOf(journalRefs) + " db: " + String.valueOf(dbRef);
+    private static byte[][] toArray(Set<ByteArrayWrapper> keys) {
+        byte[][] array = new byte[keys.size()][];
+        int i = 0;
+        for (ByteArrayWrapper key : keys) {
+            array[i++] = key.toBytes();
         }
+        return array;
     }
 
-    Map<ByteArrayWrapper, Ref> refCount = new HashMap<>();
+    /*
+     * The reference count of a key combines the number of journal references (the upper bits)
+     * with a flag for the reference held by the database (the lowest bit).
+     */
+    private static final int DB_REF = 1;
+    private static final int JOURNAL_REF = 2;
+
+    private final RefCountMap refCount = new RefCountMap();
+
+    // background pruning settings
+    private static final int PRUNE_BATCH_SIZE = 1_000;
+    private static final long MAX_PRUNED_KEYS_PER_SECOND = 200_000L;
+    private static final long PAUSE_NANOS_PER_KEY = TimeUnit.SECONDS.toNanos(1) / MAX_PRUNED_KEYS_PER_SECOND;
+    // the rate limit is lifted when more blocks are waiting to be pruned
+    private static final int MAX_THROTTLED_BACKLOG = 64;
+
+    private ExecutorService pruner = null;
+    private final AtomicInteger scheduledPrunes = new AtomicInteger(0);
+    private volatile boolean stopping = false;
 
     private ByteArrayKeyValueStore src;
     // block hash => updates
@@ -95,7 +123,7 @@ public class JournalPruneDataSource implements ByteArrayKeyValueStore {
                 if (value != null) {
                     // If it exists and pruning is enabled.
                     currentUpdates.insertedKeys.add(keyW);
-                    incRef(keyW);
+                    incRef(key);
 
                     // put to source database.
                     src.put(key, value);
@@ -165,7 +193,7 @@ public class JournalPruneDataSource implements ByteArrayKeyValueStore {
                     ByteArrayWrapper keyW = ByteArrayWrapper.wrap(entry.getKey());
                     if (entry.getValue() != null) {
                         currentUpdates.insertedKeys.add(keyW);
-                        incRef(keyW);
+                        incRef(entry.getKey());
                         insertsOnly.put(entry.getKey(), entry.getValue());
                     } else {
                         currentUpdates.deletedKeys.add(keyW);
@@ -190,22 +218,32 @@ public class JournalPruneDataSource implements ByteArrayKeyValueStore {
         }
     }
 
-    private void incRef(ByteArrayWrapper keyW) {
-        Ref cnt = refCount.get(keyW);
-        if (cnt == null) {
-            cnt = new Ref(src.get(keyW.toBytes()).isPresent());
-            refCount.put(keyW, cnt);
+    private void incRef(byte[] key) {
+        int ref = refCount.get(key);
+        if (ref == RefCountMap.MISSING) {
+            ref = src.get(key).isPresent() ? DB_REF : 0;
+            key = key.clone();
         }
-        cnt.journalRefs++;
+        refCount.put(key, ref + JOURNAL_REF);
     }
 
-    private Ref decRef(ByteArrayWrapper keyW) {
-        Ref cnt = refCount.get(keyW);
-        cnt.journalRefs -= 1;
-        if (cnt.journalRefs == 0) {
-            refCount.remove(keyW);
+    /** @return the reference count of the key after removing one journal reference */
+    private int decRef(byte[] key) {
+        int ref = refCount.get(key);
+        if (ref == RefCountMap.MISSING) {
+            throw new IllegalStateException("Missing reference count for a journaled key.");
+        }
+        ref -= JOURNAL_REF;
+        if (journalRefs(ref) == 0) {
+            refCount.remove(key);
+        } else {
+            refCount.put(key, ref);
         }
-        return cnt;
+        return ref;
+    }
+
+    private static int journalRefs(int ref) {
+        return ref >>> 1;
     }
 
     public void storeBlockChanges(ByteArrayWrapper blockHash, long blockNumber) {
@@ -218,6 +256,7 @@ public class JournalPruneDataSource implements ByteArrayKeyValueStore {
         try {
             currentUpdates.blockHeader = blockHash;
             currentUpdates.blockNumber = blockNumber;
+            currentUpdates.compact();
             blockUpdates.put(blockHash, currentUpdates);
             currentUpdates = new Updates();
         } finally {
@@ -235,50 +274,210 @@ public class JournalPruneDataSource implements ByteArrayKeyValueStore {
         try {
             Updates updates = blockUpdates.remove(blockHash);
             if (updates != null) {
-                for (ByteArrayWrapper insertedKey : updates.insertedKeys) {
-                    decRef(insertedKey).dbRef = true;
+                releaseInsertedKeys(updates.inserted, 0, updates.inserted.length);
+                deleteUnreferencedKeys(updates.deleted, 0, updates.deleted.length);
+
+                for (Updates fork : removeForkBlocks(blockNumber)) {
+                    rollbackInsertedKeys(fork.inserted, 0, fork.inserted.length);
                 }
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
 
-                List<byte[]> batchRemove = new ArrayList<>();
-                for (ByteArrayWrapper key : updates.deletedKeys) {
-                    Ref ref = refCount.get(key);
-                    if (ref == null || ref.journalRefs == 0) {
-                        batchRemove.add(key.toBytes());
-                    } else if (ref != null) {
-                        ref.dbRef = false;
-                    }
+    /**
+     * Prunes the given block in the background. The blocks are pruned in the order in which they
+     * are scheduled, with the same outcome as calling [prune] for each of them.
+     */
+    public void schedulePrune(ByteArrayWrapper blockHash, long blockNumber) {
+        if (!enabled.get()) {
+            return;
+        }
+
+        scheduledPrunes.incrementAndGet();
+        getPruner()
+                .execute(
+                        () -> {
+                            try {
+                                pruneIncrementally(blockHash, blockNumber);
+                            } catch (Exception e) {
+                                LOG.error("Could not prune block " + blockNumber + " due to ", e);
+                            } finally {
+                                scheduledPrunes.decrementAndGet();
+                            }
+                        });
+    }
+
+    /** @return the number of blocks scheduled for pruning that were not pruned yet */
+    public int getScheduledPruneCount() {
+        return scheduledPrunes.get();
+    }
+
+    /** Completes the scheduled pruning without rate limits and stops the background thread. */
+    public void shutdownPruning() {
+        ExecutorService executor;
+        synchronized (this) {
+            executor = pruner;
+            pruner = null;
+        }
+        if (executor == null) {
+            return;
+        }
+
+        stopping = true;
+        executor.shutdown();
+        boolean interrupted = false;
+        try {
+            while (!executor.isTerminated()) {
+                try {
+                    executor.awaitTermination(1, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    interrupted = true;
                 }
-                src.deleteBatch(batchRemove);
+            }
+        } finally {
+            stopping = false;
+            if (interrupted) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    private synchronized ExecutorService getPruner() {
+        if (pruner == null) {
+            pruner =
+                    Executors.newSingleThreadExecutor(
+                            runnable -> {
+                                Thread thread = new Thread(runnable, "state-prune");
+                                thread.setDaemon(true);
+                                thread.setPriority(Thread.MIN_PRIORITY);
+                                return thread;
+                            });
+        }
+        return pruner;
+    }
+
+    /** Performs the work of [prune] in batches, holding the lock for one batch at a time. */
+    private void pruneIncrementally(ByteArrayWrapper blockHash, long blockNumber) {
+        Updates updates;
+        lock.writeLock().lock();
+        try {
+            updates = blockUpdates.remove(blockHash);
+        } finally {
+            lock.writeLock().unlock();
+        }
+        if (updates == null) {
+            return;
+        }
 
-                rollbackForkBlocks(blockNumber);
+        for (int from = 0; from < updates.inserted.length; from += PRUNE_BATCH_SIZE) {
+            int to = Math.min(from + PRUNE_BATCH_SIZE, updates.inserted.length);
+            lock.writeLock().lock();
+            try {
+                releaseInsertedKeys(updates.inserted, from, to);
+            } finally {
+                lock.writeLock().unlock();
             }
+        }
+
+        for (int from = 0; from < updates.deleted.length; from += PRUNE_BATCH_SIZE) {
+            int to = Math.min(from + PRUNE_BATCH_SIZE, updates.deleted.length);
+            lock.writeLock().lock();
+            try {
+                deleteUnreferencedKeys(updates.deleted, from, to);
+            } finally {
+                lock.writeLock().unlock();
+            }
+            throttle(to - from);
+        }
+
+        List<Updates> forks;
+        lock.writeLock().lock();
+        try {
+            forks = removeForkBlocks(blockNumber);
         } finally {
             lock.writeLock().unlock();
         }
+        for (Updates fork : forks) {
+            for (int from = 0; from < fork.inserted.length; from += PRUNE_BATCH_SIZE) {
+                int to = Math.min(from + PRUNE_BATCH_SIZE, fork.inserted.length);
+                lock.writeLock().lock();
+                try {
+                    rollbackInsertedKeys(fork.inserted, from, to);
+                } finally {
+                    lock.writeLock().unlock();
+                }
+                throttle(to - from);
+            }
+        }
+    }
+
+    /** Pauses the background pruning according to the number of processed keys. */
+    private void throttle(int keyCount) {
+        if (!stopping && scheduledPrunes.get() <= MAX_THROTTLED_BACKLOG) {
+            LockSupport.parkNanos(keyCount * PAUSE_NANOS_PER_KEY);
+        }
     }
 
-    private void rollbackForkBlocks(long blockNum) {
-        for (Updates updates : new ArrayList<>(blockUpdates.values())) {
+    /** @implNote The method calling this method must handle the locking. */
+    private void releaseInsertedKeys(byte[][] keys, int from, int to) {
+        for (int i = from; i < to; i++) {
+            int ref = decRef(keys[i]);
+            if (journalRefs(ref) > 0) {
+                // the key is now stored in the database
+                refCount.put(keys[i], ref | DB_REF);
+            }
+        }
+    }
+
+    /** @implNote The method calling this method must handle the locking. */
+    private void deleteUnreferencedKeys(byte[][] keys, int from, int to) {
+        List<byte[]> batchRemove = new ArrayList<>();
+        for (int i = from; i < to; i++) {
+            int ref = refCount.get(keys[i]);
+            if (ref == RefCountMap.MISSING || journalRefs(ref) == 0) {
+                batchRemove.add(keys[i]);
+            } else {
+                refCount.put(keys[i], ref & ~DB_REF);
+            }
+        }
+        src.deleteBatch(batchRemove);
+    }
+
+    /** @implNote The method calling this method must handle the locking. */
+    private List<Updates> removeForkBlocks(long blockNum) {
+        List<Updates> forks = new ArrayList<>();
+        Iterator<Updates> iterator = blockUpdates.values().iterator();
+        while (iterator.hasNext()) {
+            Updates updates = iterator.next();
             if (updates.blockNumber == blockNum) {
-                rollback(updates.blockHeader);
+                iterator.remove();
+                forks.add(updates);
             }
         }
+        return forks;
     }
 
-    private void rollback(ByteArrayWrapper blockHashW) {
-        Updates updates = blockUpdates.remove(blockHashW);
+    /** @implNote The method calling this method must handle the locking. */
+    private void rollbackInsertedKeys(byte[][] keys, int from, int to) {
         List<byte[]> batchRemove = new ArrayList<>();
-        for (ByteArrayWrapper insertedKey : updates.insertedKeys) {
-            Ref ref = decRef(insertedKey);
-            if (ref.getTotRefs() == 0) {
-                batchRemove.add(insertedKey.toBytes());
+        for (int i = from; i < to; i++) {
+            if (decRef(keys[i]) == 0) {
+                batchRemove.add(keys[i]);
             }
         }
         src.deleteBatch(batchRemove);
     }
 
-    public Map<ByteArrayWrapper, Ref> getRefCount() {
-        return refCount;
+    /** @return the number of keys with tracked references */
+    public int getRefCountSize() {
+        lock.readLock().lock();
+        try {
+            return refCount.size();
+        } finally {
+            lock.readLock().unlock();
+        }
     }
 
     public LinkedHashMap<ByteArrayWrapper, Updates> getBlockUpdates() {
@@ -316,6 +515,32 @@ public class JournalPruneDataSource implements ByteArrayKeyValueStore {
         }
     }
 
+    @Override
+    public List<byte[]> getBatch(List<byte[]> keys) {
+        lock.readLock().lock();
+        try {
+            return src.getBatch(keys);
+        } catch (Exception e) {
+            LOG.error("Could not get keys due to ", e);
+            throw e;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public List<Map.Entry<byte[], byte[]>> getRange(byte[] from, byte[] to, int limit) {
+        lock.readLock().lock();
+        try {
+            return src.getRange(from, to, limit);
+        } catch (Exception e) {
+            LOG.error("Could not get range due to ", e);
+            throw e;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
     @Override
     public Iterator<byte[]> keys() {
         lock.readLock().lock();
@@ -331,6 +556,8 @@ public class JournalPruneDataSource implements ByteArrayKeyValueStore {
 
     @Override
     public void close() {
+        shutdownPruning();
+
         lock.writeLock().lock();
 
         try {
@@ -0,0 +1,404 @@
+package org.aion.db.store;
+
+import java.util.AbstractMap;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import org.aion.db.impl.AtomicBatchWriter;
+import org.aion.db.impl.ByteArrayKeyValueDatabase;
+import org.aion.db.impl.ByteArrayKeyValueStore;
+import org.aion.db.impl.PersistenceMethod;
+import org.aion.util.types.ByteArrayWrapper;
+
+/**
+ * A database whose updates are made durable through a {@link WriteAheadJournal}.
+ *
+ * <p>Updates are visible to reads as soon as they are made, but are only stored when the journal
+ * is committed. Calling {@link #commit()} on this database has no effect.
+ *
+ * <p>Instances are created by {@link WriteAheadJournal#register(ByteArrayKeyValueDatabase)}.
+ */
+public final class JournaledDatabase implements ByteArrayKeyValueDatabase {
+
+    /** Marks a deleted key among the pending updates. */
+    static final byte[] DELETED = new byte[0];
+
+    private final WriteAheadJournal journal;
+    private final ByteArrayKeyValueDatabase database;
+
+    // all updates not yet applied to the underlying database
+    private final Map<ByteArrayWrapper, byte[]> pending = new ConcurrentHashMap<>();
+    // updates made since the last commit, guarded by the journal
+    private Map<ByteArrayWrapper, byte[]> uncommitted = new HashMap<>();
+
+    JournaledDatabase(WriteAheadJournal journal, ByteArrayKeyValueDatabase database) {
+        this.journal = journal;
+        this.database = database;
+    }
+
+    ByteArrayKeyValueDatabase getUnderlying() {
+        return database;
+    }
+
+    @Override
+    public String toString() {
+        return this.getClass().getSimpleName() + " over " + database.toString();
+    }
+
+    // Journal functionality
+    // -----------------------------------------------------------------------------------------
+
+    void addUncommitted(byte[] key, byte[] value) {
+        ByteArrayWrapper wrappedKey = ByteArrayWrapper.wrap(key);
+        uncommitted.put(wrappedKey, value);
+        pending.put(wrappedKey, value);
+    }
+
+    Map<ByteArrayWrapper, byte[]> takeUncommitted() {
+        Map<ByteArrayWrapper, byte[]> updates = uncommitted;
+        uncommitted = new HashMap<>();
+        return updates;
+    }
+
+    /** Writes the committed updates to the underlying database and stops tracking them. */
+    void apply(Map<ByteArrayWrapper, byte[]> updates) {
+        write(database, updates);
+        clearApplied(updates);
+    }
+
+    private void clearApplied(Map<ByteArrayWrapper, byte[]> updates) {
+        // newer updates to the same keys remain pending
+        for (Map.Entry<ByteArrayWrapper, byte[]> update : updates.entrySet()) {
+            pending.remove(update.getKey(), update.getValue());
+        }
+    }
+
+    /**
+     * Applies the updates of a commit to their databases. Databases that share their storage, such
+     * as the column families of one RocksDB instance, are updated in a single atomic write through
+     * {@link AtomicBatchWriter}.
+     */
+    static void applyAll(Map<JournaledDatabase, Map<ByteArrayWrapper, byte[]>> group) {
+        List<ByteArrayKeyValueDatabase> databases = new ArrayList<>();
+        for (JournaledDatabase journaled : group.keySet()) {
+            databases.add(journaled.database);
+        }
+
+        ByteArrayKeyValueDatabase first = databases.isEmpty() ? null : databases.get(0);
+        if (group.size() > 1
+                && first instanceof AtomicBatchWriter
+                && ((AtomicBatchWriter) first).canWriteAtomically(databases)) {
+            Map<ByteArrayKeyValueDatabase, Map<byte[], byte[]>> updates = new HashMap<>();
+            for (Map.Entry<JournaledDatabase, Map<ByteArrayWrapper, byte[]>> entry : group.entrySet()) {
+                Map<byte[], byte[]> databaseUpdates = new HashMap<>();
+                for (Map.Entry<ByteArrayWrapper, byte[]> update : entry.getValue().entrySet()) {
+                    byte[] value = update.getValue();
+                    databaseUpdates.put(update.getKey().toBytes(), value == DELETED ? null : value);
+                }
+                updates.put(entry.getKey().database, databaseUpdates);
+            }
+            ((AtomicBatchWriter) first).writeAtomically(updates);
+            group.forEach(JournaledDatabase::clearApplied);
+        } else {
+            group.forEach(JournaledDatabase::apply);
+        }
+    }
+
+    void clearPending() {
+        uncommitted.clear();
+        pending.clear();
+    }
+
+    static void write(ByteArrayKeyValueDatabase database, Map<ByteArrayWrapper, byte[]> updates) {
+        Map<byte[], byte[]> puts = new HashMap<>();
+        List<byte[]> deletes = new ArrayList<>();
+        for (Map.Entry<ByteArrayWrapper, byte[]> update : updates.entrySet()) {
+            if (update.getValue() == DELETED) {
+                deletes.add(update.getKey().toBytes());
+            } else {
+                puts.put(update.getKey().toBytes(), update.getValue());
+            }
+        }
+
+        if (!puts.isEmpty()) {
+            database.putBatch(puts);
+        }
+        if (!deletes.isEmpty()) {
+            database.deleteBatch(deletes);
+        }
+    }
+
+    // IDatabase functionality
+    // -----------------------------------------------------------------------------------------
+
+    @Override
+    public boolean open() {
+        return database.open();
+    }
+
+    @Override
+    public void close() {
+        database.close();
+    }
+
+    @Override
+    public void compact() {
+        database.compact();
+    }
+
+    @Override
+    public void sync() {
+        // the pending updates are durable in the journal
+        database.sync();
+    }
+
+    @Override
+    public void drop() {
+        journal.drop(this);
+    }
+
+    @Override
+    public Optional<String> getName() {
+        return database.getName();
+    }
+
+    @Override
+    public Optional<String> getPath() {
+        return database.getPath();
+    }
+
+    @Override
+    public boolean isOpen() {
+        return database.isOpen();
+    }
+
+    @Override
+    public boolean isClosed() {
+        return database.isClosed();
+    }
+
+    @Override
+    public boolean isLocked() {
+        return database.isLocked();
+    }
+
+    @Override
+    public PersistenceMethod getPersistenceMethod() {
+        return database.getPersistenceMethod();
+    }
+
+    @Override
+    public boolean isCreatedOnDisk() {
+        return database.isCreatedOnDisk();
+    }
+
+    @Override
+    public long approximateSize() {
+        return database.approximateSize();
+    }
+
+    // IKeyValueStore functionality
+    // ------------------------------------------------------------------------------------
+
+    @Override
+    public boolean isEmpty() {
+        if (pending.isEmpty()) {
+            return database.isEmpty();
+        }
+        return !keys().hasNext();
+    }
+
+    @Override
+    public Iterator<byte[]> keys() {
+        // the pending updates must be read before the database, since applied updates are
+        // written to the database before they are removed from the pending ones
+        Map<ByteArrayWrapper, byte[]> updates = new HashMap<>(pending);
+        Iterator<byte[]> stored = database.keys();
+        if (updates.isEmpty()) {
+            return stored;
+        }
+        return new MergedKeyIterator(stored, updates);
+    }
+
+    @Override
+    public Optional<byte[]> get(byte[] key) {
+        Objects.requireNonNull(key, "The data store does not accept null keys.");
+        database.check();
+
+        byte[] value = pending.get(ByteArrayWrapper.wrap(key));
+        if (value == null) {
+            return database.get(key);
+        }
+        return value == DELETED ? Optional.empty() : Optional.of(value);
+    }
+
+    @Override
+    public List<byte[]> getBatch(List<byte[]> keys) {
+        database.check();
+
+        // the pending updates must be read before the database, as in get(key)
+        List<byte[]> values = new ArrayList<>(keys.size());
+        List<byte[]> missing = new ArrayList<>();
+        for (byte[] key : keys) {
+            Objects.requireNonNull(key, "The data store does not accept null keys.");
+            byte[] value = pending.get(ByteArrayWrapper.wrap(key));
+            values.add(value);
+            if (value == null) {
+                missing.add(key);
+            }
+        }
+
+        if (!missing.isEmpty()) {
+            Iterator<byte[]> stored = database.getBatch(missing).iterator();
+            for (int i = 0; i < values.size(); i++) {
+                if (values.get(i) == null) {
+                    values.set(i, stored.next());
+                }
+            }
+        }
+
+        for (int i = 0; i < values.size(); i++) {
+            if (values.get(i) == DELETED) {
+                values.set(i, null);
+            }
+        }
+        return values;
+    }
+
+    @Override
+    public List<Map.Entry<byte[], byte[]>> getRange(byte[] from, byte[] to, int limit) {
+        Objects.requireNonNull(from, "The data store does not accept null keys.");
+        database.check();
+
+        // the pending updates must be read before the database, as in keys()
+        Map<ByteArrayWrapper, byte[]> updates = new HashMap<>();
+        for (Map.Entry<ByteArrayWrapper, byte[]> update : pending.entrySet()) {
+            if (ByteArrayKeyValueStore.isInRange(update.getKey().toBytes(), from, to)) {
+                updates.put(update.getKey(), update.getValue());
+            }
+        }
+
+        // each pending deletion can hide at most one of the stored entries
+        int storedLimit = (int) Math.min((long) limit + updates.size(), Integer.MAX_VALUE);
+        TreeMap<byte[], byte[]> merged = new TreeMap<>(Arrays::compareUnsigned);
+        for (Map.Entry<byte[], byte[]> entry : database.getRange(from, to, storedLimit)) {
+            merged.put(entry.getKey(), entry.getValue());
+        }
+        for (Map.Entry<ByteArrayWrapper, byte[]> update : updates.entrySet()) {
+            if (update.getValue() == DELETED) {
+                merged.remove(update.getKey().toBytes());
+            } else {
+                merged.put(update.getKey().toBytes(), update.getValue());
+            }
+        }
+
+        List<Map.Entry<byte[], byte[]>> entries = new ArrayList<>(Math.min(limit, merged.size()));
+        for (Map.Entry<byte[], byte[]> entry : merged.entrySet()) {
+            if (entries.size() >= limit) {
+                break;
+            }
+            entries.add(new AbstractMap.SimpleImmutableEntry<>(entry.getKey(), entry.getValue()));
+        }
+        return entries;
+    }
+
+    @Override
+    public void put(byte[] key, byte[] value) {
+        Objects.requireNonNull(key, "The data store does not accept null keys.");
+        Objects.requireNonNull(value, "The data store does not accept null values.");
+        database.check();
+
+        journal.recordUpdate(this, key, value);
+    }
+
+    @Override
+    public void delete(byte[] key) {
+        Objects.requireNonNull(key, "The data store does not accept null keys.");
+        database.check();
+
+        journal.recordUpdate(this, key, DELETED);
+    }
+
+    @Override
+    public void commit() {
+        // the updates are stored when the journal is committed
+    }
+
+    @Override
+    public void putBatch(Map<byte[], byte[]> input) {
+        database.check();
+
+        for (Map.Entry<byte[], byte[]> entry : input.entrySet()) {
+            put(entry.getKey(), entry.getValue());
+        }
+    }
+
+    @Override
+    public void deleteBatch(Collection<byte[]> keys) {
+        database.check();
+
+        for (byte[] key : keys) {
+            delete(key);
+        }
+    }
+
+    @Override
+    public void check() {
+        database.check();
+    }
+
+    /** Iterates over the stored keys without pending updates followed by the pending puts. */
+    private static final class MergedKeyIterator implements Iterator<byte[]> {
+        private final Iterator<byte[]> stored;
+        private final Map<ByteArrayWrapper, byte[]> updates;
+        private final Iterator<Map.Entry<ByteArrayWrapper, byte[]>> added;
+        private byte[] next;
+
+        private MergedKeyIterator(Iterator<byte[]> stored, Map<ByteArrayWrapper, byte[]> updates) {
+            this.stored = stored;
+            this.updates = updates;
+            this.added = updates.entrySet().iterator();
+            this.next = advance();
+        }
+
+        private byte[] advance() {
+            while (stored.hasNext()) {
+                byte[] key = stored.next();
+                if (!updates.containsKey(ByteArrayWrapper.wrap(key))) {
+                    return key;
+                }
+            }
+            while (added.hasNext()) {
+                Map.Entry<ByteArrayWrapper, byte[]> update = added.next();
+                if (update.getValue() != DELETED) {
+                    return update.getKey().toBytes();
+                }
+            }
+            return null;
+        }
+
+        @Override
+        public boolean hasNext() {
+            return next != null;
+        }
+
+        @Override
+        public byte[] next() {
+            if (next == null) {
+                throw new NoSuchElementException();
+            }
+            byte[] current = next;
+            next = advance();
+            return current;
+        }
+    }
+}
@@ -1,6 +1,7 @@
 package org.aion.db.store;
 
 import java.io.IOException;
+import java.util.List;
 import java.util.concurrent.locks.Lock;
 import java.util.concurrent.locks.ReentrantLock;
 
@@ -62,6 +63,17 @@ class LockedObjectStore<V> implements ObjectStore<V> {
         }
     }
 
+    @Override
+    public List<V> getBatch(List<byte[]> keys) {
+        lock.lock();
+
+        try {
+            return source.getBatch(keys);
+        } finally {
+            lock.unlock();
+        }
+    }
+
     @Override
     public boolean isOpen() {
         lock.lock();
@@ -1,5 +1,7 @@
 package org.aion.db.store;
 
+import java.util.ArrayList;
+import java.util.List;
 import org.aion.db.impl.ByteArrayKeyValueDatabase;
 import org.aion.util.types.ByteArrayWrapper;
 import org.apache.commons.collections4.map.LRUMap;
@@ -42,4 +44,32 @@ class LruDataSource<V> extends ObjectDataSource<V> {
             return val;
         }
     }
+
+    @Override
+    public List<V> getBatch(List<byte[]> keys) {
+        List<V> values = new ArrayList<>(keys.size());
+        List<byte[]> missing = new ArrayList<>();
+        List<Integer> positions = new ArrayList<>();
+        for (byte[] key : keys) {
+            ByteArrayWrapper wrappedKey = ByteArrayWrapper.wrap(key);
+            if (cache.containsKey(wrappedKey)) {
+                values.add(cache.get(wrappedKey));
+            } else {
+                positions.add(values.size());
+                missing.add(key);
+                values.add(null);
+            }
+        }
+
+        if (!missing.isEmpty()) {
+            // the entries missing from the cache are loaded with a single query
+            List<V> loaded = getBatchFromDatabase(missing);
+            for (int i = 0; i < missing.size(); i++) {
+                V val = loaded.get(i);
+                cache.put(ByteArrayWrapper.wrap(missing.get(i)), val);
+                values.set(positions.get(i), val);
+            }
+        }
+        return values;
+    }
 }
@@ -1,5 +1,7 @@
 package org.aion.db.store;
 
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Optional;
 import org.aion.db.impl.ByteArrayKeyValueDatabase;
 
@@ -46,6 +48,21 @@ class ObjectDataSource<V> implements ObjectStore<V> {
         return val.map(serializer::deserialize).orElse(null);
     }
 
+    @Override
+    public List<V> getBatch(List<byte[]> keys) {
+        return getBatchFromDatabase(keys);
+    }
+
+    // used by inheriting classes when loading multiple entries from the database with one query
+    protected List<V> getBatchFromDatabase(List<byte[]> keys) {
+        List<byte[]> stored = src.getBatch(keys);
+        List<V> values = new ArrayList<>(stored.size());
+        for (byte[] val : stored) {
+            values.add(val == null ? null : serializer.deserialize(val));
+        }
+        return values;
+    }
+
     /** Returns the underlying cache source. */
     protected ByteArrayKeyValueDatabase getSrc() {
         return src;
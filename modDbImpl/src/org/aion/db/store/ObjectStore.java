@@ -1,6 +1,8 @@
 package org.aion.db.store;
 
 import java.io.Closeable;
+import java.util.ArrayList;
+import java.util.List;
 
 /**
  * A key value store that interacts with objects that are serialized to byte arrays and deserialized
@@ -35,6 +37,20 @@ public interface ObjectStore<V> extends Closeable {
      */
     V get(byte[] key);
 
+    /**
+     * Retrieves the objects stored at the given keys. The returned list has the same size and order
+     * as the given keys and contains {@code null} for the keys without a stored object.
+     *
+     * @apiNote The same visibility guarantees as for {@link #get(byte[])} apply.
+     */
+    default List<V> getBatch(List<byte[]> keys) {
+        List<V> values = new ArrayList<>(keys.size());
+        for (byte[] key : keys) {
+            values.add(get(key));
+        }
+        return values;
+    }
+
     /** Returns {@code true} to indicate that the database is open, {@code false} otherwise. */
     boolean isOpen();
 }
@@ -0,0 +1,138 @@
+package org.aion.db.store;
+
+import java.util.Arrays;
+
+/**
+ * An open addressing hash map from byte array keys to non-negative int values.
+ *
+ * <p>Compared to a {@code HashMap<ByteArrayWrapper, Integer>} it stores no wrapper, boxed value or
+ * entry objects, which keeps the memory use of tracking millions of keys low.
+ *
+ * @implNote This class is not thread safe. The key arrays are stored without copying and must not
+ *     be modified after being added.
+ */
+final class RefCountMap {
+
+    static final int MISSING = -1;
+
+    private static final int MIN_CAPACITY = 16;
+
+    private byte[][] keys;
+    private int[] values;
+    private int mask;
+    private int size;
+
+    RefCountMap() {
+        allocate(MIN_CAPACITY);
+    }
+
+    int size() {
+        return size;
+    }
+
+    /** @return the value for the given key or {@link #MISSING} if the key is not present */
+    int get(byte[] key) {
+        int slot = find(key);
+        return slot < 0 ? MISSING : values[slot];
+    }
+
+    void put(byte[] key, int value) {
+        if (value < 0) {
+            throw new IllegalArgumentException("The values must not be negative.");
+        }
+
+        int slot = home(key);
+        while (keys[slot] != null) {
+            if (Arrays.equals(keys[slot], key)) {
+                values[slot] = value;
+                return;
+            }
+            slot = (slot + 1) & mask;
+        }
+
+        keys[slot] = key;
+        values[slot] = value;
+        size++;
+
+        // keeps the load factor at or below 0.75
+        if (size > keys.length - (keys.length >>> 2)) {
+            resize(keys.length << 1);
+        }
+    }
+
+    void remove(byte[] key) {
+        int slot = find(key);
+        if (slot < 0) {
+            return;
+        }
+
+        keys[slot] = null;
+        size--;
+
+        // shift back the following entries of the probe sequence to close the gap
+        int empty = slot;
+        int current = (slot + 1) & mask;
+        while (keys[current] != null) {
+            int home = home(keys[current]);
+            if (!cyclicallyBetween(empty, home, current)) {
+                keys[empty] = keys[current];
+                values[empty] = values[current];
+                keys[current] = null;
+                empty = current;
+            }
+            current = (current + 1) & mask;
+        }
+    }
+
+    void clear() {
+        allocate(MIN_CAPACITY);
+        size = 0;
+    }
+
+    private int find(byte[] key) {
+        int slot = home(key);
+        while (keys[slot] != null) {
+            if (Arrays.equals(keys[slot], key)) {
+                return slot;
+            }
+            slot = (slot + 1) & mask;
+        }
+        return -1;
+    }
+
+    private int home(byte[] key) {
+        int hash = Arrays.hashCode(key);
+        hash ^= hash >>> 16;
+        hash *= 0x85ebca6b;
+        hash ^= hash >>> 13;
+        return hash & mask;
+    }
+
+    /** @return {@code true} if {@code value} is in the cyclic range {@code (from, to]} */
+    private static boolean cyclicallyBetween(int from, int value, int to) {
+        return from <= to ? from < value && value <= to : from < value || value <= to;
+    }
+
+    private void resize(int capacity) {
+        byte[][] oldKeys = keys;
+        int[] oldValues = values;
+        allocate(capacity);
+
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldKeys[i] != null) {
+                int slot = home(oldKeys[i]);
+                while (keys[slot] != null) {
+                    slot = (slot + 1) & mask;
+                }
+                keys[slot] = oldKeys[i];
+                values[slot] = oldValues[i];
+            }
+        }
+    }
+
+    private void allocate(int capacity) {
+        keys = new byte[capacity][];
+        values = new int[capacity];
+        mask = capacity - 1;
+    }
+}
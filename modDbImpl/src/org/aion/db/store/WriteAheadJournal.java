@@ -0,0 +1,434 @@
+package org.aion.db.store;
+
+import com.google.common.util.concurrent.Uninterruptibles;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.zip.CRC32;
+import org.aion.db.impl.ByteArrayKeyValueDatabase;
+import org.aion.util.types.ByteArrayWrapper;
+import org.slf4j.Logger;
+
+/**
+ * Write-ahead journal shared by a group of databases.
+ *
+ * <p>Updates to the databases registered with the journal are kept in memory until {@link
+ * #commit()} is called. A commit appends the updates made to all the databases since the previous
+ * commit to the journal file as a single record, synced to disk once, and then applies them to the
+ * databases on a background thread. Until they are applied, reads are served from memory.
+ *
+ * <p>The complete records found in the journal file are replayed when the databases are registered
+ * again, so that after a crash the updates of a commit are either present in all the databases or
+ * in none of them. Replaying a record is idempotent, therefore the journal is truncated only once
+ * all the records it holds have been applied and synced to disk by the databases and its size
+ * exceeds {@link #MAX_JOURNAL_SIZE}.
+ *
+ * @implNote The updates are committed only when {@link #commit()} is called, which the repository
+ *     does once per imported block, so that a record never holds part of a block. Bulk updates
+ *     that are not part of a block import are kept in memory until the next commit.
+ */
+public final class WriteAheadJournal implements AutoCloseable {
+
+    /** The size in bytes after which the journal is truncated. */
+    public static final long MAX_JOURNAL_SIZE = 256L * 1024 * 1024;
+
+    private static final int RECORD_MAGIC = 0x41574a31;
+    private static final int HEADER_SIZE = Integer.BYTES * 2 + Long.BYTES;
+    private static final int DELETED_LENGTH = -1;
+
+    private final File file;
+    private final FileChannel channel;
+    private final Logger log;
+    private final ExecutorService applier;
+
+    private final Map<String, JournaledDatabase> databases = new LinkedHashMap<>();
+    // the updates found in the journal at startup that are replayed on registration
+    private final Map<String, List<Map<ByteArrayWrapper, byte[]>>> recovered = new HashMap<>();
+
+    private volatile Future<?> lastApplication = null;
+    private boolean closed = false;
+
+    /**
+     * Opens the journal stored in the given file, creating it if it does not exist, and reads the
+     * records that must be replayed.
+     *
+     * @param file the journal file
+     * @param log the logger used for reporting failures
+     * @throws IOException if the journal file cannot be opened or read
+     */
+    public WriteAheadJournal(File file, Logger log) throws IOException {
+        this.file = file;
+        this.log = log;
+        this.channel =
+                FileChannel.open(
+                        file.toPath(),
+                        StandardOpenOption.CREATE,
+                        StandardOpenOption.READ,
+                        StandardOpenOption.WRITE);
+        this.applier =
+                Executors.newSingleThreadExecutor(
+                        runnable -> {
+                            Thread thread = new Thread(runnable, "journal-apply");
+                            thread.setDaemon(true);
+                            return thread;
+                        });
+        readRecords();
+    }
+
+    /**
+     * Registers a database with the journal, replaying any updates for it recovered from the
+     * journal file.
+     *
+     * @param database the database to be journaled; it must have a name that is unique within the
+     *     journal
+     * @return the journaled view of the database which must be used for all subsequent accesses
+     * @throws IllegalArgumentException if the database does not have a name or the name is already
+     *     registered
+     */
+    public synchronized JournaledDatabase register(ByteArrayKeyValueDatabase database) {
+        checkOpen();
+        String name =
+                database.getName()
+                        .orElseThrow(
+                                () ->
+                                        new IllegalArgumentException(
+                                                "Journaled databases must have a name."));
+        if (databases.containsKey(name)) {
+            throw new IllegalArgumentException("The database " + name + " is already journaled.");
+        }
+
+        List<Map<ByteArrayWrapper, byte[]>> updates = recovered.remove(name);
+        if (updates != null) {
+            for (Map<ByteArrayWrapper, byte[]> update : updates) {
+                JournaledDatabase.write(database, update);
+            }
+            log.info("Replayed {} journaled updates for the {} database.", updates.size(), name);
+        }
+
+        JournaledDatabase journaled = new JournaledDatabase(this, database);
+        databases.put(name, journaled);
+        return journaled;
+    }
+
+    /**
+     * Discards the recovered updates of databases that were not registered and truncates the
+     * journal, since all the records it holds have been replayed. Must be called after all the
+     * databases have been registered.
+     */
+    public synchronized void finishRecovery() {
+        checkOpen();
+        for (Map.Entry<String, List<Map<ByteArrayWrapper, byte[]>>> entry : recovered.entrySet()) {
+            log.warn(
+                    "Discarding {} journaled updates for the unused {} database.",
+                    entry.getValue().size(),
+                    entry.getKey());
+        }
+        recovered.clear();
+        awaitApplication();
+        syncAndTruncate();
+    }
+
+    /**
+     * Durably stores the updates made to the registered databases since the previous commit and
+     * schedules them to be applied to the databases.
+     */
+    public synchronized void commit() {
+        checkOpen();
+
+        Map<JournaledDatabase, Map<ByteArrayWrapper, byte[]>> group = new LinkedHashMap<>();
+        for (JournaledDatabase database : databases.values()) {
+            Map<ByteArrayWrapper, byte[]> updates = database.takeUncommitted();
+            if (!updates.isEmpty()) {
+                group.put(database, updates);
+            }
+        }
+
+        if (group.isEmpty()) {
+            return;
+        }
+
+        try {
+            append(group);
+        } catch (IOException e) {
+            // without the journal record the updates are applied as they would be without a journal
+            log.error("Unable to write to the journal " + file + ", applying updates directly.", e);
+            awaitApplication();
+            group.forEach(JournaledDatabase::apply);
+            return;
+        }
+
+        lastApplication = applier.submit(() -> JournaledDatabase.applyAll(group));
+
+        try {
+            if (channel.size() >= MAX_JOURNAL_SIZE) {
+                awaitApplication();
+                syncAndTruncate();
+            }
+        } catch (IOException e) {
+            log.error("Unable to read the size of the journal " + file + ".", e);
+        }
+    }
+
+    /**
+     * Waits until all the committed updates have been applied to the databases.
+     *
+     * @throws IllegalStateException if the updates could not be applied
+     */
+    public void awaitApplication() {
+        Future<?> application = lastApplication;
+        if (application == null) {
+            return;
+        }
+
+        try {
+            Uninterruptibles.getUninterruptibly(application);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Unable to apply the journaled updates.", e.getCause());
+        }
+    }
+
+    /**
+     * Commits the pending updates, waits for them to be applied and releases the journal file. The
+     * registered databases are not closed.
+     */
+    @Override
+    public synchronized void close() {
+        if (closed) {
+            return;
+        }
+
+        try {
+            commit();
+            awaitApplication();
+            syncAndTruncate();
+        } finally {
+            closed = true;
+            applier.shutdown();
+            try {
+                channel.close();
+            } catch (IOException e) {
+                log.error("Unable to close the journal " + file + ".", e);
+            }
+        }
+    }
+
+    /** Records an update of a registered database, to be stored on the next commit. */
+    synchronized void recordUpdate(JournaledDatabase database, byte[] key, byte[] value) {
+        checkOpen();
+        database.addUncommitted(key, value);
+    }
+
+    /**
+     * Removes all the data of a registered database. The journal is emptied first, so that the
+     * database is not repopulated on recovery.
+     */
+    synchronized void drop(JournaledDatabase database) {
+        checkOpen();
+        commit();
+        awaitApplication();
+        syncAndTruncate();
+        database.clearPending();
+        database.getUnderlying().drop();
+    }
+
+    private void checkOpen() {
+        if (closed) {
+            throw new IllegalStateException("The journal " + file + " is closed.");
+        }
+    }
+
+    /**
+     * Truncates the journal once the databases have made the applied updates durable, since their
+     * writes are not synced individually.
+     */
+    private void syncAndTruncate() {
+        for (JournaledDatabase database : databases.values()) {
+            try {
+                database.getUnderlying().sync();
+            } catch (RuntimeException e) {
+                // the records are kept and replayed on recovery
+                log.error(
+                        "Unable to sync the database "
+                                + database.getUnderlying()
+                                + ", keeping the journal "
+                                + file
+                                + ".",
+                        e);
+                return;
+            }
+        }
+        truncate();
+    }
+
+    private void truncate() {
+        try {
+            channel.truncate(0);
+            channel.force(true);
+        } catch (IOException e) {
+            // the records are replayed again on recovery, which does not affect the result
+            log.error("Unable to truncate the journal " + file + ".", e);
+        }
+    }
+
+    private void append(Map<JournaledDatabase, Map<ByteArrayWrapper, byte[]>> group)
+            throws IOException {
+        int payloadSize = Integer.BYTES;
+        Map<JournaledDatabase, byte[]> names = new HashMap<>();
+        for (Map.Entry<JournaledDatabase, Map<ByteArrayWrapper, byte[]>> entry : group.entrySet()) {
+            byte[] name = entry.getKey().getName().get().getBytes(StandardCharsets.UTF_8);
+            names.put(entry.getKey(), name);
+            payloadSize += Short.BYTES + name.length + Integer.BYTES;
+            for (Map.Entry<ByteArrayWrapper, byte[]> update : entry.getValue().entrySet()) {
+                byte[] value = update.getValue();
+                payloadSize += Integer.BYTES * 2 + update.getKey().length();
+                if (value != JournaledDatabase.DELETED) {
+                    payloadSize += value.length;
+                }
+            }
+        }
+
+        ByteBuffer payload = ByteBuffer.allocate(payloadSize);
+        payload.putInt(group.size());
+        for (Map.Entry<JournaledDatabase, Map<ByteArrayWrapper, byte[]>> entry : group.entrySet()) {
+            byte[] name = names.get(entry.getKey());
+            payload.putShort((short) name.length);
+            payload.put(name);
+            payload.putInt(entry.getValue().size());
+            for (Map.Entry<ByteArrayWrapper, byte[]> update : entry.getValue().entrySet()) {
+                byte[] key = update.getKey().toBytes();
+                byte[] value = update.getValue();
+                payload.putInt(key.length);
+                payload.put(key);
+                if (value == JournaledDatabase.DELETED) {
+                    payload.putInt(DELETED_LENGTH);
+                } else {
+                    payload.putInt(value.length);
+                    payload.put(value);
+                }
+            }
+        }
+        payload.flip();
+
+        CRC32 checksum = new CRC32();
+        checksum.update(payload.duplicate());
+
+        ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+        header.putInt(RECORD_MAGIC);
+        header.putInt(payloadSize);
+        header.putLong(checksum.getValue());
+        header.flip();
+
+        long position = channel.size();
+        try {
+            channel.position(position);
+            while (header.hasRemaining() || payload.hasRemaining()) {
+                channel.write(new ByteBuffer[] {header, payload});
+            }
+            channel.force(false);
+        } catch (IOException e) {
+            // discard the partial record so that later records can be recovered
+            channel.truncate(position);
+            throw e;
+        }
+    }
+
+    /** Reads the complete records from the journal file and discards a partially written one. */
+    private void readRecords() throws IOException {
+        long size = channel.size();
+        long position = 0;
+        int records = 0;
+
+        ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+        while (position + HEADER_SIZE <= size) {
+            header.clear();
+            readFully(header, position);
+            header.flip();
+
+            int magic = header.getInt();
+            int payloadSize = header.getInt();
+            long expectedChecksum = header.getLong();
+            if (magic != RECORD_MAGIC
+                    || payloadSize < 0
+                    || position + HEADER_SIZE + payloadSize > size) {
+                break;
+            }
+
+            ByteBuffer payload = ByteBuffer.allocate(payloadSize);
+            readFully(payload, position + HEADER_SIZE);
+            payload.flip();
+
+            CRC32 checksum = new CRC32();
+            checksum.update(payload.duplicate());
+            if (checksum.getValue() != expectedChecksum) {
+                break;
+            }
+
+            parseRecord(payload);
+            position += HEADER_SIZE + payloadSize;
+            records++;
+        }
+
+        if (position < size) {
+            log.warn(
+                    "Discarding {} bytes of incomplete updates from the journal {}.",
+                    size - position,
+                    file);
+            channel.truncate(position);
+            channel.force(true);
+        }
+        channel.position(position);
+
+        if (records > 0) {
+            log.info("Recovered {} committed updates from the journal {}.", records, file);
+        }
+    }
+
+    private void readFully(ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            int read = channel.read(buffer, position + buffer.position());
+            if (read < 0) {
+                throw new IOException("Unexpected end of the journal " + file + ".");
+            }
+        }
+    }
+
+    private void parseRecord(ByteBuffer payload) {
+        int databaseCount = payload.getInt();
+        for (int i = 0; i < databaseCount; i++) {
+            byte[] name = new byte[payload.getShort()];
+            payload.get(name);
+
+            int updateCount = payload.getInt();
+            Map<ByteArrayWrapper, byte[]> updates = new LinkedHashMap<>();
+            for (int j = 0; j < updateCount; j++) {
+                byte[] key = new byte[payload.getInt()];
+                payload.get(key);
+
+                int valueLength = payload.getInt();
+                if (valueLength == DELETED_LENGTH) {
+                    updates.put(ByteArrayWrapper.wrap(key), JournaledDatabase.DELETED);
+                } else {
+                    byte[] value = new byte[valueLength];
+                    payload.get(value);
+                    updates.put(ByteArrayWrapper.wrap(key), value);
+                }
+            }
+
+            recovered
+                    .computeIfAbsent(new String(name, StandardCharsets.UTF_8), k -> new ArrayList<>())
+                    .add(updates);
+        }
+    }
+}
@@ -1,8 +1,10 @@
 package org.aion.db.store;
 
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.HashMap;
 import java.util.Iterator;
+import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 import org.aion.db.impl.ByteArrayKeyValueStore;
@@ -28,6 +30,16 @@ public class XorDataSource implements ByteArrayKeyValueStore {
         return source.get(convertKey(key));
     }
 
+    // range queries are not delegated to the source since the key conversion does not preserve order
+    @Override
+    public List<byte[]> getBatch(List<byte[]> keys) {
+        List<byte[]> converted = new ArrayList<>(keys.size());
+        for (byte[] key : keys) {
+            converted.add(convertKey(key));
+        }
+        return source.getBatch(converted);
+    }
+
     @Override
     public Iterator<byte[]> keys() {
         return new XorDSIteratorWrapper(source.keys());
@@ -12,6 +12,7 @@ import org.aion.db.impl.leveldb.LevelDB;
 import org.aion.db.impl.mockdb.MockDB;
 import org.aion.db.impl.mockdb.MockDBDriver;
 import org.aion.db.impl.mockdb.PersistentMockDB;
+import org.aion.db.impl.rocksdb.RocksDBColumnFamily;
 import org.aion.db.impl.rocksdb.RocksDBWrapper;
 import org.junit.Test;
 import org.slf4j.Logger;
@@ -58,6 +59,13 @@ public class DatabaseFactoryTest {
         assertThat(db).isNotNull();
         assertThat(db.getClass().getSimpleName()).isEqualTo(RocksDBWrapper.class.getSimpleName());
 
+        // ROCKSDB_CF
+        props.setProperty(Props.DB_TYPE, DBVendor.ROCKSDB_CF.toValue());
+
+        db = DatabaseFactory.connect(props, log);
+        assertThat(db).isNotNull();
+        assertThat(db.getClass().getSimpleName()).isEqualTo(RocksDBColumnFamily.class.getSimpleName());
+
         // H2
         props.setProperty(Props.DB_TYPE, DBVendor.H2.toValue());
         db = DatabaseFactory.connect(props, log);
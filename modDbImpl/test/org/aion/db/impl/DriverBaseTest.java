@@ -758,6 +758,58 @@ public class DriverBaseTest {
         assertThat(keys.hasNext()).isFalse();
     }
 
+    @Test
+    public void testGetBatch() {
+        db.put(k1, v1);
+        db.put(k3, v3);
+        db.commit();
+
+        List<byte[]> values = db.getBatch(List.of(k3, k2, k1));
+        assertThat(db.isLocked()).isFalse();
+
+        // the values are aligned with the keys with null for the missing ones
+        assertThat(values.size()).isEqualTo(3);
+        assertThat(values.get(0)).isEqualTo(v3);
+        assertThat(values.get(1)).isNull();
+        assertThat(values.get(2)).isEqualTo(v1);
+    }
+
+    @Test
+    public void testGetRange() {
+        byte[] low = new byte[] {0x01};
+        byte[] high = new byte[] {(byte) 0x80};
+        Map<byte[], byte[]> ops = new HashMap<>();
+        ops.put(k1, v1);
+        ops.put(k2, v2);
+        ops.put(k3, v3);
+        ops.put(low, v1);
+        ops.put(high, v2);
+        db.putBatch(ops);
+
+        List<Map.Entry<byte[], byte[]>> entries = db.getRange(k1, k3, 10);
+        assertThat(db.isLocked()).isFalse();
+        assertThat(entries.size()).isEqualTo(2);
+        assertThat(entries.get(0).getKey()).isEqualTo(k1);
+        assertThat(entries.get(0).getValue()).isEqualTo(v1);
+        assertThat(entries.get(1).getKey()).isEqualTo(k2);
+        assertThat(entries.get(1).getValue()).isEqualTo(v2);
+
+        // the keys are ordered as unsigned bytes
+        entries = db.getRange(low, null, 10);
+        assertThat(entries.size()).isEqualTo(5);
+        assertThat(entries.get(0).getKey()).isEqualTo(low);
+        assertThat(entries.get(4).getKey()).isEqualTo(high);
+
+        entries = db.getByPrefix("key".getBytes(), 2);
+        assertThat(entries.size()).isEqualTo(2);
+        assertThat(entries.get(0).getKey()).isEqualTo(k1);
+        assertThat(entries.get(1).getKey()).isEqualTo(k2);
+
+        assertThat(db.getByPrefix(new byte[] {(byte) 0xFF}, 10)).isEmpty();
+        assertThat(ByteArrayKeyValueStore.prefixUpperBound(new byte[] {0x01, (byte) 0xFF})).isEqualTo(new byte[] {0x02});
+        assertThat(ByteArrayKeyValueStore.prefixUpperBound(new byte[] {(byte) 0xFF})).isNull();
+    }
+
     @Test
     public void testIsEmpty() {
         assertThat(db.isEmpty()).isTrue();
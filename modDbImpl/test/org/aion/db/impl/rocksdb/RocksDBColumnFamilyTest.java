@@ -0,0 +1,109 @@
+package org.aion.db.impl.rocksdb;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+public class RocksDBColumnFamilyTest {
+    private static final Logger log = LoggerFactory.getLogger("DB");
+
+    private static final byte[] k1 = "key1".getBytes();
+    private static final byte[] v1 = "value1".getBytes();
+
+    private static final byte[] k2 = "key2".getBytes();
+    private static final byte[] v2 = "value2".getBytes();
+
+    @Rule public TemporaryFolder testFolder = new TemporaryFolder();
+
+    @Test
+    public void testFamiliesShareInstanceWithSeparateData() {
+        RocksDBColumnFamily state = newFamily("state");
+        RocksDBColumnFamily block = newFamily("block");
+        assertThat(state.open()).isTrue();
+        assertThat(block.open()).isTrue();
+        assertThat(RocksDBColumnFamily.shareInstance(List.of(state, block))).isTrue();
+
+        state.putBatch(Map.of(k1, v1));
+        block.putBatch(Map.of(k2, v2));
+
+        assertThat(state.get(k1).get()).isEqualTo(v1);
+        assertThat(state.get(k2).isPresent()).isFalse();
+        assertThat(block.get(k2).get()).isEqualTo(v2);
+        assertThat(block.get(k1).isPresent()).isFalse();
+
+        // the instance stays open while a family uses it
+        state.close();
+        assertThat(block.get(k2).get()).isEqualTo(v2);
+        block.close();
+
+        // the data persists after the shared instance is reopened
+        RocksDBColumnFamily reopened = newFamily("state");
+        assertThat(reopened.open()).isTrue();
+        assertThat(reopened.get(k1).get()).isEqualTo(v1);
+        reopened.close();
+    }
+
+    @Test
+    public void testWriteAtomically() {
+        RocksDBColumnFamily state = newFamily("state");
+        RocksDBColumnFamily index = newFamily("index");
+        assertThat(state.open()).isTrue();
+        assertThat(index.open()).isTrue();
+        state.putBatch(Map.of(k2, v2));
+
+        Map<byte[], byte[]> stateUpdates = new HashMap<>();
+        stateUpdates.put(k1, v1);
+        stateUpdates.put(k2, null);
+        Map<RocksDBColumnFamily, Map<byte[], byte[]>> updates = new HashMap<>();
+        updates.put(state, stateUpdates);
+        updates.put(index, Map.of(k2, v2));
+
+        RocksDBColumnFamily.writeAtomically(updates);
+
+        assertThat(state.get(k1).get()).isEqualTo(v1);
+        assertThat(state.get(k2).isPresent()).isFalse();
+        assertThat(index.get(k2).get()).isEqualTo(v2);
+
+        state.close();
+        index.close();
+    }
+
+    @Test
+    public void testDropOnlyAffectsFamily() {
+        RocksDBColumnFamily state = newFamily("state");
+        RocksDBColumnFamily block = newFamily("block");
+        assertThat(state.open()).isTrue();
+        assertThat(block.open()).isTrue();
+        state.putBatch(Map.of(k1, v1));
+        block.putBatch(Map.of(k2, v2));
+
+        state.drop();
+
+        assertThat(state.isOpen()).isTrue();
+        assertThat(state.isEmpty()).isTrue();
+        assertThat(block.get(k2).get()).isEqualTo(v2);
+
+        state.close();
+        block.close();
+    }
+
+    private RocksDBColumnFamily newFamily(String name) {
+        return new RocksDBColumnFamily(
+                name,
+                testFolder.getRoot().getAbsolutePath(),
+                log,
+                false,
+                false,
+                RocksDBConstants.MAX_OPEN_FILES,
+                RocksDBConstants.WRITE_BUFFER_SIZE,
+                RocksDBConstants.READ_BUFFER_SIZE,
+                RocksDBConstants.CACHE_SIZE);
+    }
+}
@@ -1627,4 +1627,44 @@ public class JournalPruneDataSourceTest {
         assertThat(source_db.get(k5).get()).isEqualTo(v5);
         assertThat(source_db.get(k6).get()).isEqualTo(v6);
     }
+
+    @Test
+    public void scheduledPruningTest() {
+        db.setPruneEnabled(true);
+
+        // block 0
+        db.put(k1, v1);
+        db.put(k2, v2);
+        db.storeBlockChanges(b0, 0);
+
+        // block 1
+        db.put(k3, v3);
+        db.delete(k1);
+        db.storeBlockChanges(b1, 1);
+
+        // block 2
+        db.put(k1, v4);
+        db.delete(k2);
+        db.storeBlockChanges(b2, 2);
+
+        db.schedulePrune(b0, 0);
+        db.schedulePrune(b1, 1);
+        db.shutdownPruning();
+
+        assertThat(db.getScheduledPruneCount()).isEqualTo(0);
+        assertThat(db.getBlockUpdates().size()).isEqualTo(1);
+        // not deleted due to block 2 insert
+        assertThat(source_db.get(k1).get()).isEqualTo(v4);
+        assertThat(source_db.get(k2).get()).isEqualTo(v2);
+        assertThat(source_db.get(k3).get()).isEqualTo(v3);
+
+        // pruning restarts when more blocks are scheduled
+        db.schedulePrune(b2, 2);
+        db.shutdownPruning();
+
+        assertThat(db.getBlockUpdates().size()).isEqualTo(0);
+        assertThat(db.getRefCountSize()).isEqualTo(0);
+        assertThat(source_db.get(k1).get()).isEqualTo(v4);
+        assertThat(source_db.get(k2).isPresent()).isFalse();
+    }
 }
@@ -0,0 +1,53 @@
+package org.aion.db.store;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import java.nio.ByteBuffer;
+import org.junit.Test;
+
+public class RefCountMapTest {
+
+    @Test
+    public void testPutGetAndRemove() {
+        RefCountMap map = new RefCountMap();
+        int count = 10_000;
+
+        for (int i = 0; i < count; i++) {
+            map.put(key(i), i);
+        }
+        assertThat(map.size()).isEqualTo(count);
+
+        // remove every other key to exercise the shifting of probe sequences
+        for (int i = 0; i < count; i += 2) {
+            map.remove(key(i));
+        }
+        assertThat(map.size()).isEqualTo(count / 2);
+
+        for (int i = 0; i < count; i++) {
+            assertThat(map.get(key(i))).isEqualTo(i % 2 == 0 ? RefCountMap.MISSING : i);
+        }
+    }
+
+    @Test
+    public void testPutReplacesValue() {
+        RefCountMap map = new RefCountMap();
+        map.put(key(1), 3);
+        map.put(key(1), 5);
+
+        assertThat(map.size()).isEqualTo(1);
+        assertThat(map.get(key(1))).isEqualTo(5);
+
+        map.clear();
+        assertThat(map.size()).isEqualTo(0);
+        assertThat(map.get(key(1))).isEqualTo(RefCountMap.MISSING);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testPutNegativeValue() {
+        new RefCountMap().put(key(1), -1);
+    }
+
+    private static byte[] key(int i) {
+        return ByteBuffer.allocate(32).putInt(i).array();
+    }
+}
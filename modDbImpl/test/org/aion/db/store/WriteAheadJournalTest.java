@@ -0,0 +1,287 @@
+package org.aion.db.store;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import org.aion.db.impl.ByteArrayKeyValueDatabase;
+import org.aion.db.impl.mockdb.MockDB;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+public class WriteAheadJournalTest {
+    private static final Logger log = LoggerFactory.getLogger("DB");
+
+    private static final byte[] k1 = "key1".getBytes();
+    private static final byte[] v1 = "value1".getBytes();
+
+    private static final byte[] k2 = "key2".getBytes();
+    private static final byte[] v2 = "value2".getBytes();
+
+    private static final byte[] k3 = "key3".getBytes();
+    private static final byte[] v3 = "value3".getBytes();
+
+    @Rule public TemporaryFolder testFolder = new TemporaryFolder();
+
+    private final List<WriteAheadJournal> journals = new ArrayList<>();
+    private File journalFile;
+
+    @Before
+    public void setup() {
+        journalFile = new File(testFolder.getRoot(), "journal.wal");
+    }
+
+    @After
+    public void tearDown() {
+        for (WriteAheadJournal journal : journals) {
+            journal.close();
+        }
+    }
+
+    @Test
+    public void testUpdatesAppliedOnCommit() throws IOException {
+        WriteAheadJournal journal = openJournal();
+        MockDB state = openDatabase("state");
+        MockDB index = openDatabase("index");
+        ByteArrayKeyValueDatabase journaledState = journal.register(state);
+        ByteArrayKeyValueDatabase journaledIndex = journal.register(index);
+        state.putBatch(Map.of(k3, v3));
+
+        journaledState.put(k1, v1);
+        journaledIndex.put(k2, v2);
+        journaledState.delete(k3);
+
+        // the updates are visible before being committed
+        assertThat(journaledState.get(k1).get()).isEqualTo(v1);
+        assertThat(journaledIndex.get(k2).get()).isEqualTo(v2);
+        assertThat(journaledState.get(k3).isPresent()).isFalse();
+        assertThat(state.get(k1).isPresent()).isFalse();
+        assertThat(index.get(k2).isPresent()).isFalse();
+        assertThat(state.get(k3).get()).isEqualTo(v3);
+
+        journal.commit();
+        journal.awaitApplication();
+
+        assertThat(state.get(k1).get()).isEqualTo(v1);
+        assertThat(index.get(k2).get()).isEqualTo(v2);
+        assertThat(state.get(k3).isPresent()).isFalse();
+        assertThat(journaledState.get(k1).get()).isEqualTo(v1);
+    }
+
+    @Test
+    public void testKeysIncludePendingUpdates() throws IOException {
+        WriteAheadJournal journal = openJournal();
+        MockDB state = openDatabase("state");
+        ByteArrayKeyValueDatabase journaled = journal.register(state);
+        state.putBatch(Map.of(k1, v1, k2, v2));
+
+        journaled.delete(k1);
+        journaled.put(k3, v3);
+
+        List<String> keys = new ArrayList<>();
+        Iterator<byte[]> iterator = journaled.keys();
+        while (iterator.hasNext()) {
+            keys.add(new String(iterator.next()));
+        }
+        assertThat(keys).containsExactly("key2", "key3");
+        assertThat(journaled.isEmpty()).isFalse();
+
+        journaled.delete(k2);
+        journaled.delete(k3);
+        assertThat(journaled.isEmpty()).isTrue();
+    }
+
+    @Test
+    public void testBatchAndRangeReadsIncludePendingUpdates() throws IOException {
+        WriteAheadJournal journal = openJournal();
+        MockDB state = openDatabase("state");
+        ByteArrayKeyValueDatabase journaled = journal.register(state);
+        state.putBatch(Map.of(k1, v1, k2, v2));
+
+        journaled.delete(k1);
+        journaled.put(k3, v3);
+
+        List<byte[]> values = journaled.getBatch(List.of(k1, k2, k3));
+        assertThat(values.get(0)).isNull();
+        assertThat(values.get(1)).isEqualTo(v2);
+        assertThat(values.get(2)).isEqualTo(v3);
+
+        // the deleted key must not reduce the number of returned entries
+        List<Map.Entry<byte[], byte[]>> entries = journaled.getRange(k1, null, 2);
+        assertThat(entries.size()).isEqualTo(2);
+        assertThat(entries.get(0).getKey()).isEqualTo(k2);
+        assertThat(entries.get(1).getKey()).isEqualTo(k3);
+        assertThat(entries.get(1).getValue()).isEqualTo(v3);
+    }
+
+    @Test
+    public void testCommittedUpdatesReplayedOnRecovery() throws IOException {
+        WriteAheadJournal journal = openJournal();
+        ByteArrayKeyValueDatabase journaled = journal.register(openDatabase("state"));
+        journaled.put(k1, v1);
+        journal.commit();
+        journaled.put(k2, v2);
+        journaled.delete(k1);
+        journal.commit();
+
+        // uncommitted updates are lost on a crash
+        journaled.put(k3, v3);
+        journal.awaitApplication();
+
+        // simulate a crash that lost the writes to the database
+        WriteAheadJournal recovered = openJournal();
+        MockDB state = openDatabase("state");
+        recovered.register(state);
+
+        assertThat(state.get(k1).isPresent()).isFalse();
+        assertThat(state.get(k2).get()).isEqualTo(v2);
+        assertThat(state.get(k3).isPresent()).isFalse();
+    }
+
+    @Test
+    public void testIncompleteRecordDiscarded() throws IOException {
+        WriteAheadJournal journal = openJournal();
+        ByteArrayKeyValueDatabase journaled = journal.register(openDatabase("state"));
+        journaled.put(k1, v1);
+        journal.commit();
+        journal.awaitApplication();
+
+        long validLength = journalFile.length();
+        Files.write(journalFile.toPath(), new byte[] {0x41, 0x57, 0x4a}, StandardOpenOption.APPEND);
+
+        WriteAheadJournal recovered = openJournal();
+        MockDB state = openDatabase("state");
+        recovered.register(state);
+
+        assertThat(journalFile.length()).isEqualTo(validLength);
+        assertThat(state.get(k1).get()).isEqualTo(v1);
+    }
+
+    @Test
+    public void testFinishRecoveryEmptiesJournal() throws IOException {
+        WriteAheadJournal journal = openJournal();
+        journal.register(openDatabase("state")).put(k1, v1);
+        journal.register(openDatabase("stateArchive")).put(k2, v2);
+        journal.commit();
+        journal.awaitApplication();
+
+        WriteAheadJournal recovered = openJournal();
+        MockDB state = openDatabase("state");
+        recovered.register(state);
+        recovered.finishRecovery();
+
+        assertThat(state.get(k1).get()).isEqualTo(v1);
+        assertThat(journalFile.length()).isEqualTo(0L);
+    }
+
+    @Test
+    public void testCloseAppliesUncommittedUpdates() throws IOException {
+        WriteAheadJournal journal = openJournal();
+        MockDB state = openDatabase("state");
+        journal.register(state).put(k1, v1);
+
+        journal.close();
+
+        assertThat(state.get(k1).get()).isEqualTo(v1);
+        assertThat(journalFile.length()).isEqualTo(0L);
+    }
+
+    @Test
+    public void testUpdatesOnlyStoredOnCommit() throws IOException {
+        WriteAheadJournal journal = openJournal();
+        MockDB state = openDatabase("state");
+        ByteArrayKeyValueDatabase journaled = journal.register(state);
+        byte[] value = new byte[1024 * 1024];
+        for (int i = 0; i < 65; i++) {
+            journaled.put(("key" + i).getBytes(), value);
+        }
+
+        // the updates of a block are never split across records
+        assertThat(journalFile.length()).isEqualTo(0L);
+        assertThat(state.isEmpty()).isTrue();
+
+        journal.commit();
+        journal.awaitApplication();
+
+        assertThat(journalFile.length()).isGreaterThan(0L);
+        assertThat(state.get("key64".getBytes()).get()).isEqualTo(value);
+    }
+
+    @Test
+    public void testDatabasesSyncedBeforeTruncation() throws IOException {
+        WriteAheadJournal journal = openJournal();
+        SyncCountingDB state = new SyncCountingDB("state", false);
+        journal.register(state).put(k1, v1);
+
+        journal.close();
+
+        assertThat(state.syncs).isEqualTo(1);
+        assertThat(journalFile.length()).isEqualTo(0L);
+    }
+
+    @Test
+    public void testJournalKeptWhenSyncFails() throws IOException {
+        WriteAheadJournal journal = openJournal();
+        journal.register(new SyncCountingDB("state", true)).put(k1, v1);
+
+        journal.close();
+
+        assertThat(journalFile.length()).isGreaterThan(0L);
+
+        WriteAheadJournal recovered = openJournal();
+        MockDB state = openDatabase("state");
+        recovered.register(state);
+
+        assertThat(state.get(k1).get()).isEqualTo(v1);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testRegisterSameNameTwice() throws IOException {
+        WriteAheadJournal journal = openJournal();
+        journal.register(openDatabase("state"));
+        journal.register(openDatabase("state"));
+    }
+
+    private WriteAheadJournal openJournal() throws IOException {
+        WriteAheadJournal journal = new WriteAheadJournal(journalFile, log);
+        journals.add(journal);
+        return journal;
+    }
+
+    private static MockDB openDatabase(String name) {
+        MockDB database = new MockDB(name, log);
+        assertThat(database.open()).isTrue();
+        return database;
+    }
+
+    /** Counts the calls to {@link #sync()}, optionally failing them. */
+    private static final class SyncCountingDB extends MockDB {
+        private final boolean failing;
+        private int syncs = 0;
+
+        private SyncCountingDB(String name, boolean failing) {
+            super(name, log);
+            this.failing = failing;
+            assertThat(open()).isTrue();
+        }
+
+        @Override
+        public void sync() {
+            syncs++;
+            if (failing) {
+                throw new RuntimeException("Unable to sync.");
+            }
+        }
+    }
+}
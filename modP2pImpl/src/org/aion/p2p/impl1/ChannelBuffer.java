@@ -1,6 +1,8 @@
 package org.aion.p2p.impl1;
 
+import java.io.IOException;
 import java.nio.ByteBuffer;
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.concurrent.atomic.AtomicBoolean;
@@ -12,15 +14,19 @@ import org.slf4j.Logger;
 /** @author chris */
 class ChannelBuffer {
 
+    private static final byte[] EMPTY_BODY = new byte[0];
+    // the body frame starts at this size and doubles as bytes arrive, up to the declared length
+    static final int INITIAL_BODY_CAPACITY = 64 * 1024;
+
     byte[] body = null;
     Lock lock = new ReentrantLock();
     private Header header = null;
-    // buffer for buffer remaining after NIO select read.
-    private byte[] remainBuffer;
-    private int buffRemain = 0;
     private int nodeIdHash;
     private String displayId;
     private byte[] bsHead = new byte[Header.LEN];
+    // reusable frame for the header and frame for the body of the message currently being read
+    private final ByteBuffer headFrame = ByteBuffer.wrap(bsHead);
+    private ByteBuffer bodyFrame = null;
     private AtomicBoolean closed = new AtomicBoolean(false);
 
     private Map<Integer, RouteStatus> routes = new HashMap<>();
@@ -56,14 +62,6 @@ class ChannelBuffer {
         this.closed.set(true);
     }
 
-    int getBuffRemain() {
-        return buffRemain;
-    }
-
-    void setBuffRemain(int buffRemain) {
-        this.buffRemain = buffRemain;
-    }
-
     /**
      * @param _route int
      * @param _maxReqsPerSec int requests within 1 s
@@ -101,49 +99,84 @@ class ChannelBuffer {
         return routes.get(_route);
     }
 
-    void readHead(ByteBuffer buf) {
-        if (buf.array().length < bsHead.length) {
-            if (p2pLOG.isDebugEnabled()) {
-                p2pLOG.debug("ChannelBuffer readHead short buffer size");
+    /**
+     * Consumes bytes from the given buffer into the header and body of the current message. Reads
+     * may end at any point of a message and are continued by the next call.
+     *
+     * @param buf buffer positioned at the next unread byte from the channel
+     * @return {@code true} when the header and body of the current message are complete, {@code
+     *     false} when more bytes are needed from the channel
+     * @throws IOException when the header is invalid, since the stream cannot be realigned
+     */
+    boolean readFrom(ByteBuffer buf) throws IOException {
+        if (isHeaderNotCompleted()) {
+            transfer(buf, headFrame);
+            if (headFrame.hasRemaining()) {
+                return false;
             }
-            return;
-        }
+            headFrame.clear();
 
-        buf.get(bsHead);
-        try {
-            header = Header.decode(bsHead);
-        } catch (IllegalArgumentException | IndexOutOfBoundsException e) {
-            if (p2pLOG.isDebugEnabled()) {
-                p2pLOG.debug("ChannelBuffer readHead exception.", e);
+            try {
+                header = Header.decode(bsHead);
+            } catch (IllegalArgumentException | IndexOutOfBoundsException e) {
+                throw new IOException("invalid-header", e);
             }
-        }
-    }
-
-    void readBody(ByteBuffer buf) {
-        if (isHeaderNotCompleted()) {
-            if (p2pLOG.isDebugEnabled()) {
-                p2pLOG.debug("ChannelBuffer readBody no header.");
+            if (header.getLen() < 0) {
+                throw new IOException("invalid-header-body-length " + header.getLen());
             }
-            return;
         }
 
-        if (buf.array().length < header.getLen()) {
-            if (p2pLOG.isDebugEnabled()) {
-                p2pLOG.debug("ChannelBuffer readBody short buffer size.");
+        if (isBodyNotCompleted()) {
+            int len = header.getLen();
+            if (bodyFrame == null) {
+                // the body array is handed off with the message, so it is allocated per message;
+                // it is not allocated at the declared length, which the peer may never send
+                bodyFrame = ByteBuffer.wrap(len == 0 ? EMPTY_BODY : new byte[Math.min(len, INITIAL_BODY_CAPACITY)]);
             }
-            return;
+            transfer(buf, bodyFrame);
+            while (bodyFrame.position() < len && buf.hasRemaining()) {
+                growBodyFrame(len);
+                transfer(buf, bodyFrame);
+            }
+            if (bodyFrame.position() < len) {
+                return false;
+            }
+            body = bodyFrame.array();
+            bodyFrame = null;
         }
+        return true;
+    }
+
+    /** Doubles the capacity of the full body frame without exceeding the declared length. */
+    private void growBodyFrame(int len) {
+        int position = bodyFrame.position();
+        int capacity = (int) Math.min(len, 2L * bodyFrame.capacity());
+        bodyFrame = ByteBuffer.wrap(Arrays.copyOf(bodyFrame.array(), capacity));
+        bodyFrame.position(position);
+    }
+
+    /** @return the size of the frame holding the partially read body, 0 when there is none */
+    int getBodyFrameCapacity() {
+        return bodyFrame == null ? 0 : bodyFrame.capacity();
+    }
 
-        body = new byte[header.getLen()];
-        buf.get(body);
+    /** Copies as many bytes as fit from the source buffer into the destination frame. */
+    private static void transfer(ByteBuffer src, ByteBuffer dst) {
+        int count = Math.min(src.remaining(), dst.remaining());
+        if (count > 0) {
+            src.get(dst.array(), dst.arrayOffset() + dst.position(), count);
+            dst.position(dst.position() + count);
+        }
     }
 
     void refreshHeader() {
         header = null;
+        headFrame.clear();
     }
 
     void refreshBody() {
         body = null;
+        bodyFrame = null;
     }
 
     /** @return boolean */
@@ -156,14 +189,6 @@ class ChannelBuffer {
         return header == null || body == null || body.length != header.getLen();
     }
 
-    byte[] getRemainBuffer() {
-        return remainBuffer;
-    }
-
-    void setRemainBuffer(byte[] remainBuffer) {
-        this.remainBuffer = remainBuffer;
-    }
-
     public Header getHeader() {
         return header;
     }
@@ -71,15 +71,22 @@ public final class P2pMgr implements IP2pMgr {
     private final AtomicBoolean start = new AtomicBoolean(true);
 
     private ServerSocketChannel tcpServer;
-    private Selector selector;
+    // each event loop reads the channels registered with one selector
+    private final int ioThreads;
+    private Selector[] selectors;
+    private TaskInbound[] inboundLoops;
     private ScheduledExecutorService scheduledWorkers;
     private int errTolerance;
     /*
      * The value was chosen to be smaller than the limit for receiveMsgQue.
      * The size should be increased if we notice many warning logs that
      * the queue has reached capacity during execution.
+     * Each event loop has its own queue, which holds the messages to the
+     * peers whose channel is registered with that loop. A slow peer only
+     * delays the messages to the peers of its loop, and only until it is
+     * dropped by the writer.
      */
-    private BlockingQueue<MsgOut> sendMsgQue = new LinkedBlockingQueue<>(10_000);
+    private final BlockingQueue<MsgOut>[] sendMsgQues;
     /*
      * The size limit was chosen taking into account that:
      * - in a 2G OOM heap dump the size of this queue reached close to 700_000;
@@ -124,6 +131,40 @@ public final class P2pMgr implements IP2pMgr {
             final int _maxActiveNodes,
             final boolean _bootlistSyncOnly,
             final int _errorTolerance) {
+        this(
+                _p2pLog,
+                surveyLog,
+                chainId,
+                _revision,
+                _nodeId,
+                _ip,
+                _port,
+                _bootNodes,
+                _upnpEnable,
+                _maxTempNodes,
+                _maxActiveNodes,
+                _bootlistSyncOnly,
+                _errorTolerance,
+                1);
+    }
+
+    /** @param _ioThreads the number of event loops reading from and writing to the peers */
+    @SuppressWarnings("unchecked")
+    public P2pMgr(
+            final Logger _p2pLog,
+            final Logger surveyLog,
+            final int chainId,
+            final String _revision,
+            final String _nodeId,
+            final String _ip,
+            final int _port,
+            final String[] _bootNodes,
+            final boolean _upnpEnable,
+            final int _maxTempNodes,
+            final int _maxActiveNodes,
+            final boolean _bootlistSyncOnly,
+            final int _errorTolerance,
+            final int _ioThreads) {
 
         if (_p2pLog == null) {
             throw new NullPointerException("A non-null logger must be provided in the constructor.");
@@ -142,6 +183,14 @@ public final class P2pMgr implements IP2pMgr {
         this.maxActiveNodes = _maxActiveNodes;
         this.syncSeedsOnly = _bootlistSyncOnly;
         this.errTolerance = _errorTolerance;
+        if (_ioThreads < 1) {
+            throw new IllegalArgumentException("At least one io thread is required.");
+        }
+        this.ioThreads = _ioThreads;
+        this.sendMsgQues = new BlockingQueue[_ioThreads];
+        for (int i = 0; i < _ioThreads; i++) {
+            sendMsgQues[i] = new LinkedBlockingQueue<>(10_000);
+        }
 
         INode myNode = new Node(false, selfNodeId, selfIp, selfPort);
         myNode.setBinaryVersion(selfRevision);
@@ -165,7 +214,15 @@ public final class P2pMgr implements IP2pMgr {
     @Override
     public void run() {
         try {
-            selector = Selector.open();
+            selectors = new Selector[ioThreads];
+            inboundLoops = new TaskInbound[ioThreads];
+            for (int i = 0; i < ioThreads; i++) {
+                selectors[i] = Selector.open();
+                inboundLoops[i] = getInboundInstance(selectors[i]);
+            }
+            for (TaskInbound loop : inboundLoops) {
+                loop.setLoops(inboundLoops);
+            }
 
             scheduledWorkers = Executors.newScheduledThreadPool(5);
 
@@ -193,11 +250,14 @@ public final class P2pMgr implements IP2pMgr {
                         e);
             }
 
-            tcpServer.register(selector, SelectionKey.OP_ACCEPT);
+            // the first event loop accepts the connections and assigns them to all the loops
+            tcpServer.register(selectors[0], SelectionKey.OP_ACCEPT);
 
-            Thread thrdIn = new Thread(getInboundInstance(), "p2p-in");
-            thrdIn.setPriority(Thread.NORM_PRIORITY);
-            thrdIn.start();
+            for (int i = 0; i < ioThreads; i++) {
+                Thread thrdIn = new Thread(inboundLoops[i], threadName("p2p-in", i));
+                thrdIn.setPriority(Thread.NORM_PRIORITY);
+                thrdIn.start();
+            }
 
             if (p2pLOG.isDebugEnabled()) {
                 this.handlers.forEach(
@@ -214,9 +274,11 @@ public final class P2pMgr implements IP2pMgr {
                         });
             }
 
-            Thread thrdOut = new Thread(new TaskSend(p2pLOG, surveyLog, this, sendMsgQue, start, nodeMgr, selector), "p2p-out");
-            thrdOut.setPriority(Thread.MAX_PRIORITY);
-            thrdOut.start();
+            for (int i = 0; i < ioThreads; i++) {
+                Thread thrdOut = new Thread(new TaskSend(p2pLOG, surveyLog, this, sendMsgQues[i], start, nodeMgr, selectors), threadName("p2p-out", i));
+                thrdOut.setPriority(Thread.MAX_PRIORITY);
+                thrdOut.start();
+            }
 
             for (int i = 0; i < WORKER; i++) {
                 Thread t = new Thread(getReceiveInstance(), "p2p-worker-" + i);
@@ -237,7 +299,7 @@ public final class P2pMgr implements IP2pMgr {
                         () -> {
                             Thread.currentThread().setName("p2p-status");
                             p2pLOG.info(nodeMgr.dumpNodeInfo(selfShortId, p2pLOG.isDebugEnabled()));
-                            p2pLOG.debug("receive queue[{}] send queue[{}]", receiveMsgQue.size(), sendMsgQue.size());
+                            p2pLOG.debug("receive queue[{}] send queue[{}]", receiveMsgQue.size(), sendQueueSize());
                         },
                         DELAY_SHOW_P2P_STATUS, DELAY_SHOW_P2P_STATUS, TimeUnit.SECONDS);
             }
@@ -300,6 +362,7 @@ public final class P2pMgr implements IP2pMgr {
 
     private void send(int nodeId, String displayId, final Msg message, Dest peerList) {
         try {
+            BlockingQueue<MsgOut> sendMsgQue = sendMsgQues[sendQueueIndex(nodeId, peerList)];
             boolean added = sendMsgQue.offer(new MsgOut(nodeId, displayId, message, peerList), OFFER_TIMEOUT, TimeUnit.MILLISECONDS);
             if (!added) {
                 p2pLOG.warn("Message not added to the send queue due to exceeded capacity: msg={} for node={}", message, displayId);
@@ -362,7 +425,7 @@ public final class P2pMgr implements IP2pMgr {
         }
 
         if (_sc != null) {
-            SelectionKey sk = _sc.keyFor(selector);
+            SelectionKey sk = selectors == null ? null : _sc.keyFor(selectors[selectorIndex(_sc, selectors.length)]);
             if (sk != null) {
                 sk.cancel();
                 sk.attach(null);
@@ -477,12 +540,58 @@ public final class P2pMgr implements IP2pMgr {
         nodeMgr.updateChainInfo(blockNumber, blockHash, blockTD);
     }
 
-    private TaskInbound getInboundInstance() {
+    /** @return the index of the event loop that reads from and writes to the given channel */
+    static int selectorIndex(SocketChannel _channel, int _count) {
+        return Math.floorMod(_channel.hashCode(), _count);
+    }
+
+    /**
+     * @return the index of the queue of the event loop that owns the channel of the peer, so that
+     *     all the messages to a peer are written in order by one thread, also while the peer moves
+     *     from the inbound or outbound nodes to the active nodes
+     */
+    private int sendQueueIndex(int _nodeId, Dest _peerList) {
+        if (ioThreads == 1) {
+            return 0;
+        }
+
+        INode node;
+        switch (_peerList) {
+            case INBOUND:
+                node = nodeMgr.getInboundNode(_nodeId);
+                break;
+            case OUTBOUND:
+                node = nodeMgr.getOutboundNode(_nodeId);
+                break;
+            default:
+                node = nodeMgr.getActiveNode(_nodeId);
+                break;
+        }
+
+        SocketChannel channel = node == null ? null : node.getChannel();
+        // the writer discards the messages to unknown peers, any queue will do
+        return channel == null ? Math.floorMod(_nodeId, ioThreads) : selectorIndex(channel, ioThreads);
+    }
+
+    private String threadName(String _prefix, int _index) {
+        // keeps the original names when a single event loop is used
+        return ioThreads == 1 ? _prefix : _prefix + "-" + _index;
+    }
+
+    private int sendQueueSize() {
+        int size = 0;
+        for (BlockingQueue<MsgOut> queue : sendMsgQues) {
+            size += queue.size();
+        }
+        return size;
+    }
+
+    private TaskInbound getInboundInstance(Selector _selector) {
         return new TaskInbound(
                 p2pLOG,
                 surveyLog,
                 this,
-                this.selector,
+                _selector,
                 this.start,
                 this.nodeMgr,
                 this.handlers,
@@ -530,19 +639,24 @@ public final class P2pMgr implements IP2pMgr {
                     p2pLOG.debug("success-connect node-id={} ip={}", node.getIdShort(), node.getIpStr());
 
                     channel.configureBlocking(false);
-                    SelectionKey sk = channel.register(selector, SelectionKey.OP_READ);
                     ChannelBuffer rb = new ChannelBuffer(p2pLOG);
                     rb.setDisplayId(node.getIdShort());
                     rb.setNodeIdHash(nodeIdHash);
-                    sk.attach(rb);
 
-                    node.refreshTimestamp();
-                    node.setChannel(channel);
-                    nodeMgr.addOutboundNode(node);
+                    // the handshake is sent once the event loop can read the response
+                    final SocketChannel connected = channel;
+                    inboundLoops[selectorIndex(channel, inboundLoops.length)].register(
+                            channel,
+                            rb,
+                            () -> {
+                                node.refreshTimestamp();
+                                node.setChannel(connected);
+                                nodeMgr.addOutboundNode(node);
 
-                    p2pLOG.debug("prepare-request-handshake -> id={} ip={}", node.getIdShort(), node.getIpStr());
+                                p2pLOG.debug("prepare-request-handshake -> id={} ip={}", node.getIdShort(), node.getIpStr());
 
-                    send(node.getIdHash(), node.getIdShort(), cachedReqHandshake1, Dest.OUTBOUND);
+                                send(node.getIdHash(), node.getIdShort(), cachedReqHandshake1, Dest.OUTBOUND);
+                            });
                 } else {
                     p2pLOG.debug("fail-connect node-id -> id={} ip={}", node.getIdShort(), node.getIpStr());
 
@@ -2,6 +2,7 @@ package org.aion.p2p.impl1;
 
 import java.io.IOException;
 import java.nio.ByteBuffer;
+import java.nio.channels.ClosedChannelException;
 import java.nio.channels.ClosedSelectorException;
 import java.nio.channels.SelectionKey;
 import java.nio.channels.Selector;
@@ -12,7 +13,9 @@ import java.util.Arrays;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
+import java.util.Queue;
 import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
 import org.aion.p2p.Ctrl;
@@ -43,12 +46,20 @@ public class TaskInbound implements Runnable {
     private final ResHandshake1 cachedResHandshake1;
     private final BlockingQueue<MsgIn> receiveMsgQue;
 
+    // channels waiting to be registered with the selector of this event loop
+    private final Queue<Runnable> pendingRegistrations = new ConcurrentLinkedQueue<>();
+    // all the event loops, used to assign accepted channels
+    private TaskInbound[] loops = new TaskInbound[] {this};
+
     // used to impose a low limit to this type of messages
     private static final int ACT_BROADCAST_BLOCK = 7;
     private static final int CTRL_SYNC = 1;
 
     private static final int OFFER_TIMEOUT = 100; // in milliseconds
 
+    // messages larger than the read buffer are assembled across several reads
+    private static final int READ_BUFFER_SIZE = 1024 * 1024;
+
     // used when survey logging
     private static final long MIN_DURATION = 60_000_000_000L; // 60 seconds
     private long waitTime = 0, processTime = 0;
@@ -75,16 +86,55 @@ public class TaskInbound implements Runnable {
         this.receiveMsgQue = _receiveMsgQue;
     }
 
+    /** Sets the event loops that share the accepted channels, including this one. */
+    void setLoops(TaskInbound[] _loops) {
+        this.loops = _loops;
+    }
+
+    /**
+     * Registers the channel for reads with the selector of this event loop. The registration is
+     * performed by the event loop thread, since registering from another thread blocks until the
+     * selector wakes up.
+     *
+     * @param _onRegistered executed by the event loop thread after the channel was registered
+     */
+    void register(final SocketChannel _channel, final ChannelBuffer _cb, final Runnable _onRegistered) {
+        pendingRegistrations.add(
+                () -> {
+                    try {
+                        _channel.register(selector, SelectionKey.OP_READ, _cb);
+                        _onRegistered.run();
+                    } catch (ClosedChannelException e) {
+                        p2pLOG.debug("register-closed-channel node={}", _cb.getDisplayId());
+                    }
+                });
+        selector.wakeup();
+    }
+
+    private void processRegistrations() {
+        Runnable registration;
+        while ((registration = pendingRegistrations.poll()) != null) {
+            try {
+                registration.run();
+            } catch (Exception e) {
+                p2pLOG.debug("register-channel-exception.", e);
+            }
+        }
+    }
+
     @Override
     public void run() {
         // for runtime survey information
         long startTime, duration;
 
-        // readBuffer buffer pre-alloc. @ max_body_size
-        ByteBuffer readBuf = ByteBuffer.allocate(P2pConstant.MAX_BODY_SIZE);
+        // direct buffer reused for all the channels, avoiding the temporary direct buffer the JDK
+        // uses when reading into heap buffers
+        ByteBuffer readBuf = ByteBuffer.allocateDirect(READ_BUFFER_SIZE);
 
         while (start.get()) {
 
+            processRegistrations();
+
             startTime = System.nanoTime();
             try {
                 // timeout set to 0.1 second
@@ -188,129 +238,39 @@ public class TaskInbound implements Runnable {
             }
 
             node.setChannel(channel);
-            SelectionKey sk = channel.register(this.selector, SelectionKey.OP_READ);
-            sk.attach(new ChannelBuffer(p2pLOG));
-            this.nodeMgr.addInboundNode(node);
-
-            if (p2pLOG.isDebugEnabled()) {
-                p2pLOG.debug("new-connection {}:{}", ip, port);
-            }
-        }
-    }
-
-    private int readHeader(final ChannelBuffer _cb, final ByteBuffer _readBuf, int cnt) {
-
-        if (cnt < Header.LEN) {
-            return cnt;
-        }
-
-        int origPos = _readBuf.position();
-
-        int startP = origPos - cnt;
+            TaskInbound loop = loops[P2pMgr.selectorIndex(channel, loops.length)];
+            loop.register(
+                    channel,
+                    new ChannelBuffer(p2pLOG),
+                    () -> {
+                        this.nodeMgr.addInboundNode(node);
 
-        _readBuf.position(startP);
-
-        _cb.readHead(_readBuf);
-
-        _readBuf.position(origPos);
-
-        return cnt - Header.LEN;
-    }
-
-    private int readBody(final ChannelBuffer _cb, ByteBuffer _readBuf, int _cnt) {
-
-        int bodyLen = _cb.getHeader().getLen();
-
-        // some msg have nobody.
-        if (bodyLen == 0) {
-            _cb.body = new byte[0];
-            return _cnt;
-        }
-
-        if (_cnt < bodyLen) {
-            return _cnt;
+                        if (p2pLOG.isDebugEnabled()) {
+                            p2pLOG.debug("new-connection {}:{}", ip, port);
+                        }
+                    });
         }
-
-        int origPos = _readBuf.position();
-        int startP = origPos - _cnt;
-        _readBuf.position(startP);
-        _cb.readBody(_readBuf);
-        _readBuf.position(origPos);
-        return _cnt - bodyLen;
     }
 
     private void readBuffer(
             final SelectionKey _sk, final ChannelBuffer _cb, final ByteBuffer _readBuf)
             throws Exception {
 
-        _readBuf.rewind();
-
         SocketChannel sc = (SocketChannel) _sk.channel();
 
         int r;
-        int cnt = 0;
         do {
+            _readBuf.clear();
             r = sc.read(_readBuf);
-            cnt += r;
-        } while (r > 0);
-
-        if (cnt < 1) {
-            return;
-        }
-
-        int remainBufAll = _cb.getBuffRemain() + cnt;
-        ByteBuffer bufferAll = calBuffer(_cb, _readBuf, cnt);
+            _readBuf.flip();
 
-        do {
-            r = readMsg(_sk, bufferAll, remainBufAll);
-            if (remainBufAll == r) {
-                break;
-            } else {
-                remainBufAll = r;
+            // the bytes are copied once from the read buffer into the frames of the channel
+            while (_cb.readFrom(_readBuf)) {
+                handleMsg(_sk, _cb);
             }
-        } while (r > 0);
-
-        _cb.setBuffRemain(r);
 
-        if (r != 0) {
-            // there are no perfect cycling buffer in jdk
-            // yet.
-            // simply just buff move for now.
-            // @TODO: looking for more efficient way.
-
-            int currPos = bufferAll.position();
-            _cb.setRemainBuffer(new byte[r]);
-            bufferAll.position(currPos - r);
-            bufferAll.get(_cb.getRemainBuffer());
-        }
-
-        _readBuf.rewind();
-    }
-
-    private int readMsg(SelectionKey _sk, ByteBuffer _readBuf, int _cnt) throws IOException {
-        ChannelBuffer cb = (ChannelBuffer) _sk.attachment();
-        if (cb == null) {
-            throw new IOException("attachment is null");
-        }
-
-        int readCnt;
-        if (cb.isHeaderNotCompleted()) {
-            readCnt = readHeader(cb, _readBuf, _cnt);
-        } else {
-            readCnt = _cnt;
-        }
-
-        if (cb.isBodyNotCompleted()) {
-            readCnt = readBody(cb, _readBuf, readCnt);
-        }
-
-        if (cb.isBodyNotCompleted()) {
-            return readCnt;
-        }
-
-        handleMsg(_sk, cb);
-
-        return readCnt;
+            // a full buffer indicates that more data may already be available
+        } while (r == _readBuf.capacity());
     }
 
     private void handleMsg(SelectionKey _sk, ChannelBuffer _cb) {
@@ -393,22 +353,6 @@ public class TaskInbound implements Runnable {
         }
     }
 
-    private ByteBuffer calBuffer(ChannelBuffer _cb, ByteBuffer _readBuf, int _cnt) {
-        ByteBuffer r;
-        if (_cb.getBuffRemain() != 0) {
-            byte[] alreadyRead = new byte[_cnt];
-            _readBuf.position(0);
-            _readBuf.get(alreadyRead);
-            r = ByteBuffer.allocate(_cb.getBuffRemain() + _cnt);
-            r.put(_cb.getRemainBuffer());
-            r.put(alreadyRead);
-        } else {
-            r = _readBuf;
-        }
-
-        return r;
-    }
-
     /**
      * @param _sk SelectionKey
      * @param _act ACT
@@ -6,6 +6,10 @@ import java.nio.channels.ClosedChannelException;
 import java.nio.channels.SelectionKey;
 import java.nio.channels.Selector;
 import java.nio.channels.SocketChannel;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.concurrent.BlockingQueue;
 import java.util.concurrent.RejectedExecutionException;
 import java.util.concurrent.atomic.AtomicBoolean;
@@ -24,10 +28,15 @@ public class TaskSend implements Runnable {
     private final AtomicBoolean start;
     private final BlockingQueue<MsgOut> sendMsgQue;
     private final INodeMgr nodeMgr;
-    private final Selector selector;
+    private final Selector[] selectors;
+
+    // limits for the messages taken from the queue and coalesced into a single write
+    private static final int MAX_BATCH_MESSAGES = 256;
+    private static final int MAX_WRITE_BYTES = 256 * 1024;
 
     // used when survey logging
     private static final long MIN_DURATION = 60_000_000_000L; // 60 seconds
+    private long writeCount = 0, writeBytes = 0, writeMessages = 0;
     private long waitTime = 0,
             fullProcessTime = 0,
             internalProcessTime = 0,
@@ -45,6 +54,18 @@ public class TaskSend implements Runnable {
             final AtomicBoolean _start,
             final INodeMgr _nodeMgr,
             final Selector _selector) {
+        this(p2pLOG, surveyLog, _mgr, _sendMsgQue, _start, _nodeMgr, new Selector[] {_selector});
+    }
+
+    /** @param _selectors the selectors of all the event loops the channels are assigned to */
+    public TaskSend(
+            final Logger p2pLOG,
+            final Logger surveyLog,
+            final IP2pMgr _mgr,
+            final BlockingQueue<MsgOut> _sendMsgQue,
+            final AtomicBoolean _start,
+            final INodeMgr _nodeMgr,
+            final Selector[] _selectors) {
 
         this.p2pLOG = p2pLOG;
         this.surveyLog = surveyLog;
@@ -52,7 +73,7 @@ public class TaskSend implements Runnable {
         this.sendMsgQue = _sendMsgQue;
         this.start = _start;
         this.nodeMgr = _nodeMgr;
-        this.selector = _selector;
+        this.selectors = _selectors;
     }
 
     @Override
@@ -64,6 +85,10 @@ public class TaskSend implements Runnable {
             try {
                 startTime = System.nanoTime();
                 MsgOut mo = sendMsgQue.take();
+                // takes the messages queued in the meantime without waiting for more
+                List<MsgOut> batch = new ArrayList<>();
+                batch.add(mo);
+                sendMsgQue.drainTo(batch, MAX_BATCH_MESSAGES - 1);
                 duration = System.nanoTime() - startTime;
                 waitTime += duration;
                 if (waitTime > MIN_DURATION) { // print and reset total time so far
@@ -71,8 +96,12 @@ public class TaskSend implements Runnable {
                     waitTime = 0;
                 }
 
+                if (p2pLOG.isTraceEnabled()) {
+                    p2pLOG.trace("send-queue depth={} batch={}", sendMsgQue.size(), batch.size());
+                }
+
                 startTime = System.nanoTime();
-                process(mo);
+                process(batch);
                 duration = System.nanoTime() - startTime;
                 fullProcessTime += duration;
                 if (fullProcessTime > MIN_DURATION) { // print and reset total time so far
@@ -98,55 +127,72 @@ public class TaskSend implements Runnable {
         surveyLog.debug("TaskSend: setup for write, duration = {} ns.", setupWriteTime);
         surveyLog.debug("TaskSend: write message, duration = {} ns.", writeTime);
         surveyLog.debug("TaskSend: start to end of write try, duration = {} ns.", tryTime);
+        surveyLog.debug("TaskSend: writes = {}, messages = {}, bytes = {}.", writeCount, writeMessages, writeBytes);
     }
 
-    /**
-     * Returns {@code true} if the message was processed, {@code false} otherwise.
-     *
-     * @return {@code true} if the message was processed, {@code false} otherwise
-     */
-    private boolean process(MsgOut mo) {
-        // shouldn't happen; but just in case
-        if (mo == null) return false;
+    /** The messages of a batch addressed to the same channel. */
+    private static final class PeerBatch {
+        final String nodeShortId;
+        final SocketChannel channel;
+        final ChannelBuffer channelBuffer;
+        final List<Msg> messages = new ArrayList<>();
 
+        PeerBatch(String nodeShortId, SocketChannel channel, ChannelBuffer channelBuffer) {
+            this.nodeShortId = nodeShortId;
+            this.channel = channel;
+            this.channelBuffer = channelBuffer;
+        }
+    }
+
+    /** Groups the messages by destination, keeping their order, and writes them per peer. */
+    private void process(List<MsgOut> batch) {
         // for runtime survey information
         long startTime, duration;
 
         startTime = System.nanoTime();
-        // if timeout , throw away this msg.
-        long now = System.currentTimeMillis();
-        if (now - mo.getTimestamp() > P2pConstant.WRITE_MSG_TIMEOUT) {
-            p2pLOG.debug("timeout-msg to-node={} timestamp={}", mo.getDisplayId(), now);
-            duration = System.nanoTime() - startTime;
-            timeoutTime += duration;
-            if (timeoutTime > MIN_DURATION) { // print and reset total time so far
-                surveyLog.debug("TaskSend: timeout, duration = {} ns.", timeoutTime);
-                timeoutTime = 0;
+        Map<SocketChannel, PeerBatch> peers = new LinkedHashMap<>();
+        for (MsgOut mo : batch) {
+            // if timeout , throw away this msg.
+            long now = System.currentTimeMillis();
+            if (now - mo.getTimestamp() > P2pConstant.WRITE_MSG_TIMEOUT) {
+                long timeoutStart = System.nanoTime();
+                p2pLOG.debug("timeout-msg to-node={} timestamp={}", mo.getDisplayId(), now);
+                timeoutTime += System.nanoTime() - timeoutStart;
+                if (timeoutTime > MIN_DURATION) { // print and reset total time so far
+                    surveyLog.debug("TaskSend: timeout, duration = {} ns.", timeoutTime);
+                    timeoutTime = 0;
+                }
+                continue;
             }
-            return false;
-        }
 
-        INode node = null;
-        switch (mo.getDest()) {
-            case ACTIVE:
-                node = nodeMgr.getActiveNode(mo.getNodeId());
-                break;
-            case INBOUND:
-                node = nodeMgr.getInboundNode(mo.getNodeId());
-                break;
-            case OUTBOUND:
-                node = nodeMgr.getOutboundNode(mo.getNodeId());
-                break;
-        }
+            INode node = null;
+            switch (mo.getDest()) {
+                case ACTIVE:
+                    node = nodeMgr.getActiveNode(mo.getNodeId());
+                    break;
+                case INBOUND:
+                    node = nodeMgr.getInboundNode(mo.getNodeId());
+                    break;
+                case OUTBOUND:
+                    node = nodeMgr.getOutboundNode(mo.getNodeId());
+                    break;
+            }
 
-        if (node != null) {
-            SelectionKey sk = node.getChannel().keyFor(selector);
-            if (sk != null && sk.attachment() != null) {
-                ChannelBuffer attachment = (ChannelBuffer) sk.attachment();
-                write(node.getIdShort(), node.getChannel(), mo.getMsg(), attachment);
+            if (node != null) {
+                SocketChannel channel = node.getChannel();
+                PeerBatch peer = peers.get(channel);
+                if (peer == null) {
+                    SelectionKey sk = channel.keyFor(selectors[P2pMgr.selectorIndex(channel, selectors.length)]);
+                    if (sk == null || sk.attachment() == null) {
+                        continue;
+                    }
+                    peer = new PeerBatch(node.getIdShort(), channel, (ChannelBuffer) sk.attachment());
+                    peers.put(channel, peer);
+                }
+                peer.messages.add(mo.getMsg());
+            } else {
+                p2pLOG.debug("msg-{} ->{} node-not-exist", mo.getDest().name(), mo.getDisplayId());
             }
-        } else {
-            p2pLOG.debug("msg-{} ->{} node-not-exist", mo.getDest().name(), mo.getDisplayId());
         }
         duration = System.nanoTime() - startTime;
         internalProcessTime += duration;
@@ -154,7 +200,10 @@ public class TaskSend implements Runnable {
             surveyLog.debug("TaskSend: internal process message, duration = {} ns.", internalProcessTime);
             internalProcessTime = 0;
         }
-        return true;
+
+        for (PeerBatch peer : peers.values()) {
+            write(peer.nodeShortId, peer.channel, peer.messages, peer.channelBuffer);
+        }
     }
 
     private static final long MAX_BUFFER_WRITE_TIME = 1_000_000_000L;
@@ -163,7 +212,7 @@ public class TaskSend implements Runnable {
     private void write(
             final String nodeShortId,
             final SocketChannel sc,
-            final Msg msg,
+            final List<Msg> msgs,
             final ChannelBuffer channelBuffer) {
         // for runtime survey information
         long startTime, duration;
@@ -190,23 +239,23 @@ public class TaskSend implements Runnable {
             startTime = System.nanoTime();
             channelBuffer.lock.lock();
 
-            /*
-             * @warning header set len (body len) before header encode
-             */
-            byte[] bodyBytes = msg.encode();
-            int bodyLen = bodyBytes == null ? 0 : bodyBytes.length;
-            Header h = msg.getHeader();
-            h.setLen(bodyLen);
-            byte[] headerBytes = h.encode();
-
-            p2pLOG.trace("write id:{} {}-{}-{}", nodeShortId, h.getVer(), h.getCtrl(), h.getAction());
-
-            ByteBuffer buf = ByteBuffer.allocate(headerBytes.length + bodyLen);
-            buf.put(headerBytes);
-            if (bodyBytes != null) {
-                buf.put(bodyBytes);
+            // the header and body of each message are passed to the channel without being copied
+            List<ByteBuffer> frames = new ArrayList<>(2 * msgs.size());
+            List<Integer> frameSizes = new ArrayList<>(msgs.size());
+            for (Msg msg : msgs) {
+                /*
+                 * @warning header set len (body len) before header encode
+                 */
+                byte[] bodyBytes = msg.encode();
+                int bodyLen = bodyBytes == null ? 0 : bodyBytes.length;
+                Header h = msg.getHeader();
+                h.setLen(bodyLen);
+                frames.add(ByteBuffer.wrap(h.encode()));
+                frames.add(bodyBytes == null ? ByteBuffer.allocate(0) : ByteBuffer.wrap(bodyBytes));
+                frameSizes.add(Header.LEN + bodyLen);
+
+                p2pLOG.trace("write id:{} {}-{}-{}", nodeShortId, h.getVer(), h.getCtrl(), h.getAction());
             }
-            buf.flip();
             duration = System.nanoTime() - startTime;
             setupWriteTime += duration;
             if (setupWriteTime > MIN_DURATION) { // print and reset total time so far
@@ -214,57 +263,38 @@ public class TaskSend implements Runnable {
                 setupWriteTime = 0;
             }
 
-            long t1 = System.nanoTime(), t2;
-            int wrote = 0;
-            try {
-                startTime = System.nanoTime();
-                do {
-                    int result = sc.write(buf);
-                    wrote += result;
-
-                    if (result == 0) {
-                        // @Attention:  very important sleep , otherwise when NIO write buffer full,
-                        // without sleep will hangup this thread.
-                        Thread.sleep(0, 1);
-                    }
-
-                    t2 = System.nanoTime() - t1;
-                } while (buf.hasRemaining() && (t2 < MAX_BUFFER_WRITE_TIME));
-                duration = System.nanoTime() - startTime;
-                writeTime += duration;
-                if (writeTime > MIN_DURATION) { // print and reset total time so far
-                    surveyLog.debug("TaskSend: write message, duration = {} ns.", writeTime);
-                    writeTime = 0;
+            // coalesces consecutive messages into gather writes limited by the byte budget
+            int first = 0;
+            while (first < frameSizes.size()) {
+                int last = first;
+                long bytes = frameSizes.get(first);
+                while (last + 1 < frameSizes.size() && bytes + frameSizes.get(last + 1) <= MAX_WRITE_BYTES) {
+                    last++;
+                    bytes += frameSizes.get(last);
                 }
 
-                if (t2 > MIN_TRACE_BUFFER_WRITE_TIME) {
-                    p2pLOG.trace(
-                        "msg write: id {} size {} time {} ms length {}",
-                        nodeShortId,
-                        wrote,
-                        t2,
-                        buf.array().length);
+                ByteBuffer[] buffers = frames.subList(2 * first, 2 * (last + 1)).toArray(new ByteBuffer[0]);
+                if (!write(nodeShortId, sc, buffers, bytes, channelBuffer)) {
+                    // the peer would read the rest of the stream from inside a partial frame, so
+                    // the channel cannot be used anymore
+                    channelBuffer.setClosed();
+                    mgr.dropActive(channelBuffer.getNodeIdHash(), "write-incomplete");
+                    return;
                 }
 
-            } catch (ClosedChannelException ex1) {
-                p2pLOG.debug("closed-channel-exception node=" + nodeShortId, ex1);
-                channelBuffer.setClosed();
-            } catch (IOException ex2) {
-                p2pLOG.debug(
-                        "write-msg-io-exception node="
-                            + nodeShortId
-                            + " headerBytes="
-                            + headerBytes.length
-                            + " bodyLen="
-                            + bodyLen
-                            + " time="
-                            + (System.nanoTime() - t1)
-                            + "ns",
-                        ex2);
-
-                if (ex2.getMessage().equals("Broken pipe")) {
-                    channelBuffer.setClosed();
+                int count = last - first + 1;
+                writeCount++;
+                writeMessages += count;
+                writeBytes += bytes;
+                if (p2pLOG.isTraceEnabled()) {
+                    p2pLOG.trace(
+                            "write id:{} msgs={} bytes={} pending-msgs={}",
+                            nodeShortId,
+                            count,
+                            bytes,
+                            frameSizes.size() - last - 1);
                 }
+                first = last + 1;
             }
         } catch (Exception e) {
             p2pLOG.error("TaskSend exception.", e);
@@ -278,4 +308,72 @@ public class TaskSend implements Runnable {
             channelBuffer.lock.unlock();
         }
     }
+
+    /**
+     * Writes the given buffers with as few system calls as possible.
+     *
+     * @return {@code true} if all the bytes were written, {@code false} otherwise
+     */
+    private boolean write(
+            final String nodeShortId,
+            final SocketChannel sc,
+            final ByteBuffer[] buffers,
+            final long bytes,
+            final ChannelBuffer channelBuffer)
+            throws InterruptedException {
+        // for runtime survey information
+        long startTime, duration;
+
+        long t1 = System.nanoTime(), t2;
+        long wrote = 0;
+        try {
+            startTime = System.nanoTime();
+            do {
+                long result = sc.write(buffers);
+                wrote += result;
+
+                if (result == 0) {
+                    // @Attention:  very important sleep , otherwise when NIO write buffer full,
+                    // without sleep will hangup this thread.
+                    Thread.sleep(0, 1);
+                }
+
+                t2 = System.nanoTime() - t1;
+            } while (wrote < bytes && (t2 < MAX_BUFFER_WRITE_TIME));
+            duration = System.nanoTime() - startTime;
+            writeTime += duration;
+            if (writeTime > MIN_DURATION) { // print and reset total time so far
+                surveyLog.debug("TaskSend: write message, duration = {} ns.", writeTime);
+                writeTime = 0;
+            }
+
+            if (t2 > MIN_TRACE_BUFFER_WRITE_TIME) {
+                p2pLOG.trace(
+                    "msg write: id {} size {} time {} ms length {}",
+                    nodeShortId,
+                    wrote,
+                    t2,
+                    bytes);
+            }
+            return wrote >= bytes;
+        } catch (ClosedChannelException ex1) {
+            p2pLOG.debug("closed-channel-exception node=" + nodeShortId, ex1);
+            channelBuffer.setClosed();
+        } catch (IOException ex2) {
+            p2pLOG.debug(
+                    "write-msg-io-exception node="
+                        + nodeShortId
+                        + " bytes="
+                        + bytes
+                        + " time="
+                        + (System.nanoTime() - t1)
+                        + "ns",
+                    ex2);
+
+            if ("Broken pipe".equals(ex2.getMessage())) {
+                channelBuffer.setClosed();
+            }
+        }
+        return false;
+    }
 }
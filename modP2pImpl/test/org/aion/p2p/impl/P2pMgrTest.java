@@ -1,13 +1,26 @@
 package org.aion.p2p.impl;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.Mockito.doNothing;
 import static org.mockito.Mockito.spy;
 import static org.mockito.Mockito.when;
 
+import java.io.IOException;
+import java.net.ServerSocket;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
 import java.util.Map;
 import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import org.aion.p2p.Ctrl;
+import org.aion.p2p.Handler;
+import org.aion.p2p.INode;
+import org.aion.p2p.Msg;
+import org.aion.p2p.Ver;
 import org.aion.p2p.impl1.P2pMgr;
 import org.junit.Before;
 import org.junit.Test;
@@ -19,6 +32,8 @@ import org.slf4j.LoggerFactory;
 /** @author chris */
 public class P2pMgrTest {
 
+    private static final byte TEST_ACT = 100;
+
     @Mock private Logger p2pLOG;
     private Logger surveyLog;
 
@@ -92,4 +107,85 @@ public class P2pMgrTest {
         P2pMgr p2p = new P2pMgr(p2pLOG, surveyLog, 0, "", nodeId1, ip1, port1, nodes, false, 128, 128, false, 50);
         assertEquals(3, p2p.getTempNodesCount());
     }
+
+    @Test
+    public void testMultipleIoThreads() {
+        String[] nodes = new String[] {"p2p://" + nodeId2 + "@" + ip2 + ":" + port2};
+
+        P2pMgr p2p = new P2pMgr(p2pLOG, surveyLog, 0, "", nodeId1, ip1, port1, nodes, false, 128, 128, false, 50, 4);
+        assertEquals(1, p2p.getTempNodesCount());
+    }
+
+    @Test(timeout = 60_000)
+    public void testSendToPeersOnDifferentLoops() throws IOException, InterruptedException {
+        String ip = "127.0.0.1";
+        int peerCount = 6;
+        CountDownLatch received = new CountDownLatch(peerCount);
+
+        List<P2pMgr> receivers = new ArrayList<>();
+        String[] nodes = new String[peerCount];
+        for (int i = 0; i < peerCount; i++) {
+            String id = UUID.randomUUID().toString();
+            int port = freePort();
+            nodes[i] = "p2p://" + id + "@" + ip + ":" + port;
+
+            P2pMgr receiver = new P2pMgr(p2pLOG, surveyLog, 0, "", id, ip, port, new String[0], false, 128, 128, false, 50);
+            receiver.register(
+                    Collections.singletonList(
+                            new Handler(Ver.V0, Ctrl.SYNC, TEST_ACT) {
+                                @Override
+                                public void receive(int _id, String _displayId, byte[] _msg) {
+                                    received.countDown();
+                                }
+                            }));
+            receivers.add(receiver);
+        }
+
+        // the connections of the sender are spread over its event loops by the channel hash
+        P2pMgr sender = new P2pMgr(p2pLOG, surveyLog, 0, "", UUID.randomUUID().toString(), ip, freePort(), nodes, false, 128, 128, false, 50, 3);
+        // registered last because the handshake request is shared by the instances
+        sender.register(new ArrayList<>());
+
+        try {
+            for (P2pMgr receiver : receivers) {
+                receiver.run();
+            }
+            sender.run();
+
+            // the sender connects to one peer per second
+            while (sender.getActiveNodes().size() < peerCount) {
+                Thread.sleep(100);
+            }
+
+            for (INode node : sender.getActiveNodes().values()) {
+                // the writers set the body length in the header, so each send gets its own message
+                Msg msg =
+                        new Msg(Ver.V0, Ctrl.SYNC, TEST_ACT) {
+                            @Override
+                            public byte[] encode() {
+                                return new byte[] {1, 2, 3};
+                            }
+                        };
+                sender.send(node.getIdHash(), node.getIdShort(), msg);
+            }
+
+            assertTrue(received.await(10, TimeUnit.SECONDS));
+        } finally {
+            sender.shutdown();
+            for (P2pMgr receiver : receivers) {
+                receiver.shutdown();
+            }
+        }
+    }
+
+    private static int freePort() throws IOException {
+        try (ServerSocket socket = new ServerSocket(0)) {
+            return socket.getLocalPort();
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testNoIoThreads() {
+        new P2pMgr(p2pLOG, surveyLog, 0, "", nodeId1, ip1, port1, new String[0], false, 128, 128, false, 50, 0);
+    }
 }
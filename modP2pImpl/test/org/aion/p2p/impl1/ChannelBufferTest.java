@@ -9,6 +9,7 @@ import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertTrue;
 import static org.mockito.Mockito.when;
 
+import java.io.IOException;
 import java.nio.ByteBuffer;
 import java.util.Random;
 import java.util.UUID;
@@ -88,15 +89,18 @@ public class ChannelBufferTest {
     }
 
     @Test
-    public void testReadHead() {
+    public void testReadHead() throws IOException {
         for (int i = 0; i < 100; i++) {
             cb.refreshHeader();
+            cb.refreshBody();
             ByteBuffer bb = genBuffer();
-            cb.readHead(bb);
-            if (bb.array().length >= LEN) {
+            boolean completed = cb.readFrom(bb);
+            if (bb.limit() >= LEN) {
                 assertArrayEquals(expectHeader.encode(), cb.getHeader().encode());
+                assertTrue(completed);
             } else {
                 assertNull(cb.getHeader());
+                assertFalse(completed);
             }
         }
     }
@@ -119,17 +123,16 @@ public class ChannelBufferTest {
     }
 
     @Test
-    public void testReadBody() {
+    public void testReadBody() throws IOException {
         for (int i = 0; i < 100; i++) {
             cb.refreshHeader();
             cb.refreshBody();
             ByteBuffer bb = genBuffer();
-            cb.readHead(bb);
-            if (bb.array().length >= LEN) {
+            if (cb.readFrom(bb)) {
                 assertArrayEquals(expectHeader.encode(), cb.getHeader().encode());
-                cb.readBody(bb);
                 assertNotNull(cb.body);
                 assertEquals(cb.getHeader().getLen(), cb.body.length);
+                assertFalse(bb.hasRemaining());
             } else {
                 assertNull(cb.getHeader());
             }
@@ -137,10 +140,65 @@ public class ChannelBufferTest {
     }
 
     @Test
-    public void testReadBodyNotCompleted() {
-        ByteBuffer bb = genBuffer();
-        cb.readBody(bb);
-        assertNull(cb.body);
+    public void testReadAcrossBuffers() throws IOException {
+        byte[] body = UUID.randomUUID().toString().getBytes();
+        byte[] message =
+                ByteBuffer.allocate(LEN + body.length)
+                        .putShort((short) 0)
+                        .put((byte) 1)
+                        .put((byte) 2)
+                        .putInt(body.length)
+                        .put(body)
+                        .array();
+
+        // the message is delivered one byte at a time
+        for (int i = 0; i < message.length - 1; i++) {
+            assertFalse(cb.readFrom(ByteBuffer.wrap(message, i, 1)));
+        }
+        assertTrue(cb.readFrom(ByteBuffer.wrap(message, message.length - 1, 1)));
+        assertArrayEquals(body, cb.body);
+
+        // the frames are reused for the next message
+        cb.refreshHeader();
+        cb.refreshBody();
+        ByteBuffer twoMessages = ByteBuffer.allocate(2 * message.length).put(message).put(message);
+        twoMessages.flip();
+        assertTrue(cb.readFrom(twoMessages));
+        assertArrayEquals(body, cb.body);
+        cb.refreshHeader();
+        cb.refreshBody();
+        assertTrue(cb.readFrom(twoMessages));
+        assertArrayEquals(body, cb.body);
+        assertFalse(twoMessages.hasRemaining());
+    }
+
+    @Test
+    public void testBodyFrameGrowsAsBytesArrive() throws IOException {
+        byte[] body = new byte[10 * ChannelBuffer.INITIAL_BODY_CAPACITY + 7];
+        r.nextBytes(body);
+        byte[] message = ByteBuffer.allocate(LEN + body.length).putInt(1).putInt(body.length).put(body).array();
+
+        // the declared length is not allocated before the body arrives
+        assertFalse(cb.readFrom(ByteBuffer.wrap(message, 0, LEN + 1)));
+        assertEquals(ChannelBuffer.INITIAL_BODY_CAPACITY, cb.getBodyFrameCapacity());
+
+        int read = LEN + 1;
+        assertFalse(cb.readFrom(ByteBuffer.wrap(message, read, 3 * ChannelBuffer.INITIAL_BODY_CAPACITY)));
+        read += 3 * ChannelBuffer.INITIAL_BODY_CAPACITY;
+        assertEquals(4 * ChannelBuffer.INITIAL_BODY_CAPACITY, cb.getBodyFrameCapacity());
+
+        while (message.length - read > 1000) {
+            assertFalse(cb.readFrom(ByteBuffer.wrap(message, read, 1000)));
+            read += 1000;
+        }
+        assertTrue(cb.readFrom(ByteBuffer.wrap(message, read, message.length - read)));
+        assertArrayEquals(body, cb.body);
+        assertEquals(0, cb.getBodyFrameCapacity());
+    }
+
+    @Test(expected = IOException.class)
+    public void testReadInvalidHeader() throws IOException {
+        cb.readFrom(ByteBuffer.allocate(LEN).putInt(0).putInt(-1).flip());
     }
 
     @Test
@@ -414,13 +414,8 @@ public class TaskInboundTest {
         // settings for readBuffer
         when(sk.channel()).thenReturn(sc);
         int read = r.nextInt(10000);
-        int remain = r.nextInt(10000);
         when(sc.read(any(ByteBuffer.class))).thenReturn(read).thenReturn(0);
 
-        // settings for calBuffer
-        when(cb.getBuffRemain()).thenReturn(remain);
-        when(cb.getRemainBuffer()).thenReturn(new byte[remain]);
-
         // settings for readMsg
         when(cb.isHeaderNotCompleted()).thenReturn(true);
         when(cb.isBodyNotCompleted()).thenReturn(true);
@@ -1,18 +1,28 @@
 package org.aion.p2p.impl1;
 
+import static org.junit.Assert.assertArrayEquals;
 import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertTrue;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.doNothing;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
 import java.nio.channels.SelectionKey;
 import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
 import java.nio.channels.SocketChannel;
 import java.util.Random;
 import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
 import java.util.concurrent.atomic.AtomicBoolean;
+import org.aion.p2p.Header;
 import org.aion.p2p.INode;
 import org.aion.p2p.INodeMgr;
 import org.aion.p2p.IP2pMgr;
@@ -227,4 +237,102 @@ public class TaskSendTest {
             Thread.sleep(10);
         }
     }
+
+    @Test(timeout = 10_000)
+    public void testCoalescedWrites() throws InterruptedException, IOException {
+        BlockingQueue<MsgOut> queue = new LinkedBlockingQueue<>();
+        AtomicBoolean atb = new AtomicBoolean(true);
+        TaskSend ts = new TaskSend(p2pLOG, p2pLOG, p2pMgr, queue, atb, nodeMgr, selector);
+
+        try (ServerSocketChannel server = ServerSocketChannel.open()) {
+            server.bind(new InetSocketAddress("127.0.0.1", 0));
+            SocketChannel ch = SocketChannel.open(server.getLocalAddress());
+            SocketChannel peer = server.accept();
+            ch.configureBlocking(false);
+            ch.register(selector, SelectionKey.OP_READ, new ChannelBuffer(p2pLOG));
+
+            when(nodeMgr.getActiveNode(0)).thenReturn(node);
+            when(node.getChannel()).thenReturn(ch);
+            when(node.getIdShort()).thenReturn("1");
+
+            // the queued messages are written to the peer in order
+            byte[] body1 = new byte[] {1, 2, 3};
+            byte[] body2 = new byte[0];
+            byte[] body3 = new byte[] {4};
+            queue.add(new MsgOut(0, "1", newMsg(body1), Dest.ACTIVE));
+            queue.add(new MsgOut(0, "1", newMsg(body2), Dest.ACTIVE));
+            queue.add(new MsgOut(0, "1", newMsg(body3), Dest.ACTIVE));
+
+            Thread t = new Thread(ts);
+            t.start();
+
+            ByteBuffer received = ByteBuffer.allocate(3 * Header.LEN + body1.length + body2.length + body3.length);
+            while (received.hasRemaining()) {
+                peer.read(received);
+            }
+            received.flip();
+            assertArrayEquals(body1, readBody(received));
+            assertArrayEquals(body2, readBody(received));
+            assertArrayEquals(body3, readBody(received));
+
+            atb.set(false);
+            t.interrupt();
+            t.join();
+            peer.close();
+            ch.close();
+        }
+    }
+
+    @Test(timeout = 10_000)
+    public void testIncompleteWriteDropsPeer() throws InterruptedException, IOException {
+        BlockingQueue<MsgOut> queue = new LinkedBlockingQueue<>();
+        AtomicBoolean atb = new AtomicBoolean(true);
+        TaskSend ts = new TaskSend(p2pLOG, p2pLOG, p2pMgr, queue, atb, nodeMgr, selector);
+
+        try (ServerSocketChannel server = ServerSocketChannel.open()) {
+            server.bind(new InetSocketAddress("127.0.0.1", 0));
+            SocketChannel ch = SocketChannel.open(server.getLocalAddress());
+            SocketChannel peer = server.accept();
+            ch.configureBlocking(false);
+            ChannelBuffer channelBuffer = new ChannelBuffer(p2pLOG);
+            ch.register(selector, SelectionKey.OP_READ, channelBuffer);
+
+            when(nodeMgr.getActiveNode(0)).thenReturn(node);
+            when(node.getChannel()).thenReturn(ch);
+            when(node.getIdShort()).thenReturn("1");
+
+            // the peer does not read, so the message cannot be written within the time limit
+            queue.add(new MsgOut(0, "1", newMsg(new byte[64 * 1024 * 1024]), Dest.ACTIVE));
+
+            Thread t = new Thread(ts);
+            t.start();
+
+            // the rest of the stream would start inside the partial frame
+            verify(p2pMgr, timeout(5_000)).dropActive(anyInt(), eq("write-incomplete"));
+            assertTrue(channelBuffer.isClosed());
+
+            atb.set(false);
+            t.interrupt();
+            t.join();
+            peer.close();
+            ch.close();
+        }
+    }
+
+    private static Msg newMsg(byte[] body) {
+        return new Msg((short) 0, (byte) 1, (byte) 2) {
+            @Override
+            public byte[] encode() {
+                return body;
+            }
+        };
+    }
+
+    private static byte[] readBody(ByteBuffer buffer) {
+        byte[] header = new byte[Header.LEN];
+        buffer.get(header);
+        byte[] body = new byte[Header.decode(header).getLen()];
+        buffer.get(body);
+        return body;
+    }
 }
@@ -11,6 +11,7 @@ import static org.aion.util.bytes.ByteUtil.isSingleZero;
 import java.math.BigInteger;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Objects;
 import org.aion.util.bytes.ByteUtil;
 import org.aion.util.conversions.Hex;
 
@@ -40,7 +41,7 @@ public class RLP {
      * value 0x80 plus the length of the string followed by the string. The range of the first byte
      * is thus [0x80, 0xb7].
      */
-    private static final int OFFSET_SHORT_ITEM = 0x80;
+    static final int OFFSET_SHORT_ITEM = 0x80;
 
     /**
      * [0xb7] If a string is more than 55 bytes long, the RLP encoding consists of a single byte
@@ -57,7 +58,7 @@ public class RLP {
      * list followed by the concatenation of the RLP encodings of the items. The range of the first
      * byte is thus [0xc0, 0xf7].
      */
-    private static final int OFFSET_SHORT_LIST = 0xc0;
+    static final int OFFSET_SHORT_LIST = 0xc0;
 
     /**
      * [0xf7] If the total payload of a list is more than 55 bytes long, the RLP encoding consists
@@ -279,6 +280,127 @@ public class RLP {
         }
     }
 
+    /**
+     * Parse wire byte[] message into RLP elements that refer to the given array instead of copying
+     * parts of it. The data of each element is only copied when requested with {@link
+     * RLPElement#getRLPData()}.
+     *
+     * @param msgData - raw RLP data, which must not be modified while the elements are in use
+     * @return rlpList - outcome of recursive RLP structure, accepting the same encodings as {@link
+     *     #decode2(byte[])}
+     */
+    public static SharedRLPList decode2SharedList(byte[] msgData) {
+        // like the outer list of decode2, this list has no encoding of its own
+        SharedRLPList rlpList = new SharedRLPList(null, 0, 0);
+        int length = msgData == null ? 0 : msgData.length;
+        sharedTraverse(msgData, 0, length, length, rlpList);
+        return rlpList;
+    }
+
+    /**
+     * Parse the given range of a byte[] into RLP elements that refer to the array, as done by
+     * {@link #decode2SharedList(byte[])} for a whole array. Used to decode several messages copied
+     * into the same array without copying each of them.
+     *
+     * @param msgData - array containing the raw RLP data, which must not be modified while the
+     *     elements are in use
+     * @param offset - the position of the first byte of the RLP data
+     * @param length - the number of bytes of the RLP data; no element may extend beyond them
+     * @return rlpList - outcome of recursive RLP structure
+     */
+    public static SharedRLPList decode2SharedList(byte[] msgData, int offset, int length) {
+        Objects.checkFromIndexSize(offset, length, msgData.length);
+        SharedRLPList rlpList = new SharedRLPList(null, 0, 0);
+        sharedTraverse(msgData, offset, offset + length, offset + length, rlpList);
+        return rlpList;
+    }
+
+    /**
+     * Get exactly one message payload as views into the message.
+     *
+     * @implNote The bounds of each element are checked against the end of the message at {@code
+     *     limit}, which the copies in {@link #fullTraverse(byte[], int, int, int, RLPList)} do
+     *     implicitly for the whole array.
+     */
+    private static void sharedTraverse(
+            byte[] msgData, int startPos, int endPos, int limit, SharedRLPList rlpList) {
+
+        try {
+            if (msgData == null || msgData.length == 0) {
+                return;
+            }
+            int pos = startPos;
+
+            while (pos < endPos) {
+
+                int type = msgData[pos] & 0xFF;
+
+                if (type < OFFSET_SHORT_ITEM) { // single byte item
+                    rlpList.add(new SharedRLPItem(msgData, pos, 1));
+                    ++pos;
+                } else if (type <= OFFSET_LONG_ITEM) {
+                    // null item or an item less than 55 bytes long,
+                    // data[0] - 0x80 == length of the item
+                    int length = type - OFFSET_SHORT_ITEM;
+                    Objects.checkFromIndexSize(pos + 1, length, limit);
+
+                    rlpList.add(new SharedRLPItem(msgData, pos + 1, length));
+                    pos += 1 + length;
+                } else if (type < OFFSET_SHORT_LIST) {
+                    // It's an item with a payload more than 55 bytes
+                    // data[0] - 0xB7 = how much next bytes allocated for
+                    // the length of the string
+                    int lengthOfLength = type - OFFSET_LONG_ITEM;
+                    int length = calcLength(lengthOfLength, msgData, pos);
+                    Objects.checkFromIndexSize(pos + lengthOfLength + 1, length, limit);
+
+                    rlpList.add(new SharedRLPItem(msgData, pos + lengthOfLength + 1, length));
+                    pos += lengthOfLength + length + 1;
+                } else if (type <= OFFSET_LONG_LIST) {
+                    // It's a list with a payload less than 55 bytes
+                    int length = type - OFFSET_SHORT_LIST;
+                    Objects.checkFromIndexSize(pos, length + 1, limit);
+
+                    SharedRLPList newLevelList = new SharedRLPList(msgData, pos, length + 1);
+                    if (length > 0) {
+                        sharedTraverse(msgData, pos + 1, pos + length + 1, limit, newLevelList);
+                    }
+                    rlpList.add(newLevelList);
+
+                    pos += 1 + length;
+                } else {
+                    // It's a list with a payload more than 55 bytes
+                    // data[0] - 0xF7 = how many next bytes allocated
+                    // for the length of the list
+                    int lengthOfLength = type - OFFSET_LONG_LIST;
+                    int length = calcLength(lengthOfLength, msgData, pos);
+                    Objects.checkFromIndexSize(pos + lengthOfLength + 1, length, limit);
+
+                    SharedRLPList newLevelList =
+                            new SharedRLPList(msgData, pos, lengthOfLength + length + 1);
+                    sharedTraverse(
+                            msgData,
+                            pos + lengthOfLength + 1,
+                            pos + lengthOfLength + length + 1,
+                            limit,
+                            newLevelList);
+                    rlpList.add(newLevelList);
+
+                    pos += lengthOfLength + length + 1;
+                }
+            }
+        } catch (Exception e) {
+            throw new RuntimeException(
+                    "RLP wrong encoding ("
+                            + Hex.toHexString(
+                                    msgData,
+                                    startPos,
+                                    endPos - startPos > 1024 ? 1024 : endPos - startPos)
+                            + ")",
+                    e);
+        }
+    }
+
     /**
      * Reads any RLP encoded byte-array and returns all objects as byte-array or list of byte-arrays
      *
@@ -355,31 +477,8 @@ public class RLP {
     public static byte[] encode(Object input) {
         Value val = new Value(input);
         if (val.isList()) {
-            List<Object> inputArray = val.asList();
-            if (inputArray.isEmpty()) {
-                return encodeLength(inputArray.size(), OFFSET_SHORT_LIST);
-            }
-
-            List<byte[]> obj = new ArrayList<>();
-            int length = 0;
-
-            for (Object object : inputArray) {
-                byte[] temp = encode(object);
-                obj.add(temp);
-                length += temp.length;
-            }
-
-            byte[] prefix = encodeLength(length, OFFSET_SHORT_LIST);
-            byte[] output = new byte[prefix.length + length];
-
-            System.arraycopy(prefix, 0, output, 0, prefix.length);
-            int pos = prefix.length;
-            for (byte[] anObj : obj) {
-                System.arraycopy(anObj, 0, output, pos, anObj.length);
-                pos += anObj.length;
-            }
-
-            return output;
+            // nested lists are written in place instead of being encoded separately and copied
+            return toListEncoder(val.asList()).encode();
         } else {
             byte[] inputAsBytes = toBytes(input);
             if (inputAsBytes.length == 1 && (inputAsBytes[0] & 0xff) < 0x80) {
@@ -391,6 +490,112 @@ public class RLP {
         }
     }
 
+    private static RLPListEncoder toListEncoder(List<Object> inputArray) {
+        RLPListEncoder encoder = new RLPListEncoder(inputArray.size());
+        for (Object object : inputArray) {
+            Value val = new Value(object);
+            if (val.isList()) {
+                encoder.addList(toListEncoder(val.asList()));
+            } else {
+                encoder.addElement(toBytes(object));
+            }
+        }
+        return encoder;
+    }
+
+    // SIZES AND IN PLACE WRITES, used by RLPListEncoder
+
+    /** Returns the number of bytes needed to write the given number without leading zeroes. */
+    private static int byteCount(long value) {
+        return (Long.SIZE - Long.numberOfLeadingZeros(value) + 7) / Byte.SIZE;
+    }
+
+    /** Returns the size of {@link #encodeElement(byte[])} for the given data. */
+    static int elementSize(byte[] srcData) {
+        if (srcData == null || srcData.length == 0) {
+            return 1;
+        } else if (srcData.length == 1 && (srcData[0] & 0xFF) < OFFSET_SHORT_ITEM) {
+            return 1;
+        } else {
+            return lengthPrefixSize(srcData.length) + srcData.length;
+        }
+    }
+
+    /** Returns the size of the encoding of a non-negative number without leading zeroes. */
+    static int numberSize(long value) {
+        return value < OFFSET_SHORT_ITEM ? 1 : 1 + byteCount(value);
+    }
+
+    /** Returns the size of the prefix of an item or list with the given payload length. */
+    static int lengthPrefixSize(int length) {
+        return length < SIZE_THRESHOLD ? 1 : 1 + byteCount(length);
+    }
+
+    /**
+     * Writes the prefix of an item or list with the given payload length.
+     *
+     * @param offset {@link #OFFSET_SHORT_ITEM} for items or {@link #OFFSET_SHORT_LIST} for lists
+     * @return the position after the prefix
+     */
+    static int writeLengthPrefix(int length, int offset, byte[] dest, int pos) {
+        if (length < SIZE_THRESHOLD) {
+            dest[pos] = (byte) (offset + length);
+            return pos + 1;
+        } else {
+            int byteNum = byteCount(length);
+            dest[pos] = (byte) (offset + SIZE_THRESHOLD - 1 + byteNum);
+            return writeBigEndian(length, byteNum, dest, pos + 1);
+        }
+    }
+
+    /**
+     * Writes the same bytes as {@link #encodeElement(byte[])}.
+     *
+     * @return the position after the element
+     */
+    static int writeElement(byte[] srcData, byte[] dest, int pos) {
+        if (srcData == null || srcData.length == 0) {
+            dest[pos] = (byte) OFFSET_SHORT_ITEM;
+            return pos + 1;
+        } else if (srcData.length == 1 && (srcData[0] & 0xFF) < OFFSET_SHORT_ITEM) {
+            dest[pos] = srcData[0];
+            return pos + 1;
+        } else {
+            pos = writeLengthPrefix(srcData.length, OFFSET_SHORT_ITEM, dest, pos);
+            System.arraycopy(srcData, 0, dest, pos, srcData.length);
+            return pos + srcData.length;
+        }
+    }
+
+    /**
+     * Writes a non-negative number without leading zeroes, as done by {@link
+     * #encodeBigInteger(BigInteger)}.
+     *
+     * @return the position after the number
+     */
+    static int writeNumber(long value, byte[] dest, int pos) {
+        if (value == 0) {
+            dest[pos] = (byte) OFFSET_SHORT_ITEM;
+            return pos + 1;
+        } else if (value < OFFSET_SHORT_ITEM) {
+            dest[pos] = (byte) value;
+            return pos + 1;
+        } else {
+            int byteNum = byteCount(value);
+            dest[pos] = (byte) (OFFSET_SHORT_ITEM + byteNum);
+            return writeBigEndian(value, byteNum, dest, pos + 1);
+        }
+    }
+
+    /** Writes the lowest {@code byteNum} bytes of the value in big-endian order. */
+    static int writeBigEndian(long value, int byteNum, byte[] dest, int pos) {
+        for (int i = byteNum - 1; i >= 0; i--) {
+            dest[pos + i] = (byte) value;
+            value >>>= 8;
+        }
+        return pos + byteNum;
+    }
+
     /** Integer limitation goes up to 2^31-1 so length can never be bigger than MAX_ITEM_LENGTH */
     public static byte[] encodeLength(int length, int offset) {
         if (length < SIZE_THRESHOLD) {
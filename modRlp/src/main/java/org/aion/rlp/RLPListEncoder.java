@@ -0,0 +1,171 @@
+package org.aion.rlp;
+
+import java.math.BigInteger;
+import java.util.Arrays;
+
+/**
+ * Encodes an RLP list in two passes: the elements are recorded as they are added, then the size
+ * of the encoding is computed and every element is written once into a single array of that size.
+ * Unlike {@link RLP#encodeList(byte[]...)}, the elements do not need to be encoded into arrays of
+ * their own first, and nested lists are written in place.
+ *
+ * <p>Each {@code add} method produces the same encoding as the corresponding {@code encode} method
+ * in {@link RLP}.
+ *
+ * @implNote The added arrays are not copied until the list is written, so they must not be
+ *     modified in the meantime.
+ */
+public final class RLPListEncoder {
+
+    private static final byte ELEMENT = 0;
+    private static final byte ENCODED = 1;
+    private static final byte LIST = 2;
+    /** An unsigned number encoded with no leading zeroes. */
+    private static final byte NUMBER = 3;
+    /** A number encoded in 8 bytes, as done by {@link RLP#encodeLong(long)} above 32 bits. */
+    private static final byte LONG = 4;
+
+    private byte[] kinds;
+    private Object[] objects;
+    private long[] numbers;
+    private int count = 0;
+
+    /** The size of the encoded elements, computed on demand. */
+    private int payloadSize = -1;
+
+    /** @param expectedSize the expected number of elements, used for the initial capacity */
+    public RLPListEncoder(int expectedSize) {
+        int capacity = Math.max(expectedSize, 1);
+        kinds = new byte[capacity];
+        objects = new Object[capacity];
+        numbers = new long[capacity];
+    }
+
+    /** Adds a byte array, encoded as by {@link RLP#encodeElement(byte[])}. */
+    public RLPListEncoder addElement(byte[] data) {
+        return add(ELEMENT, data, 0);
+    }
+
+    /** Adds an element that is already RLP encoded, such as a cached transaction encoding. */
+    public RLPListEncoder addEncoded(byte[] encoded) {
+        return add(ENCODED, encoded, 0);
+    }
+
+    /** Adds a nested list, which is written in place when this list is written. */
+    public RLPListEncoder addList(RLPListEncoder list) {
+        return add(LIST, list, 0);
+    }
+
+    /** Adds a number, encoded as by {@link RLP#encodeLong(long)}. */
+    public RLPListEncoder addLong(long value) {
+        return (value & 0x00000000FFFFFFFFL) == value ? add(NUMBER, null, value) : add(LONG, null, value);
+    }
+
+    /** Adds a byte, encoded as by {@link RLP#encodeByte(byte)}. */
+    public RLPListEncoder addByte(byte value) {
+        return add(NUMBER, null, value & 0xFF);
+    }
+
+    /** Adds a number, encoded as by {@link RLP#encodeBigInteger(BigInteger)}. */
+    public RLPListEncoder addBigInteger(BigInteger value) {
+        if (value.signum() >= 0 && value.bitLength() < Long.SIZE) {
+            // avoids converting the number to an array
+            return add(NUMBER, null, value.longValue());
+        } else {
+            return add(ELEMENT, Utils.asUnsignedByteArray(value), 0);
+        }
+    }
+
+    private RLPListEncoder add(byte kind, Object object, long number) {
+        if (count == kinds.length) {
+            int capacity = count * 2;
+            kinds = Arrays.copyOf(kinds, capacity);
+            objects = Arrays.copyOf(objects, capacity);
+            numbers = Arrays.copyOf(numbers, capacity);
+        }
+        kinds[count] = kind;
+        objects[count] = object;
+        numbers[count] = number;
+        count++;
+        payloadSize = -1;
+        return this;
+    }
+
+    /** Returns the number of elements in the list. */
+    public int size() {
+        return count;
+    }
+
+    /** Returns the size of the RLP encoding of the list, including its header. */
+    public int getEncodedSize() {
+        int payload = getPayloadSize();
+        return RLP.lengthPrefixSize(payload) + payload;
+    }
+
+    private int getPayloadSize() {
+        if (payloadSize < 0) {
+            int size = 0;
+            for (int i = 0; i < count; i++) {
+                size = Math.addExact(size, elementSize(i));
+            }
+            payloadSize = size;
+        }
+        return payloadSize;
+    }
+
+    private int elementSize(int i) {
+        switch (kinds[i]) {
+            case ELEMENT:
+                return RLP.elementSize((byte[]) objects[i]);
+            case ENCODED:
+                return ((byte[]) objects[i]).length;
+            case LIST:
+                return ((RLPListEncoder) objects[i]).getEncodedSize();
+            case NUMBER:
+                return RLP.numberSize(numbers[i]);
+            default:
+                return 1 + Long.BYTES;
+        }
+    }
+
+    /** Encodes the list into a new array of exactly the encoded size. */
+    public byte[] encode() {
+        byte[] encoded = new byte[getEncodedSize()];
+        writeTo(encoded, 0);
+        return encoded;
+    }
+
+    /**
+     * Writes the encoding of the list into the given array.
+     *
+     * @param dest the array to write to, with at least {@link #getEncodedSize()} bytes available
+     *     from {@code pos}
+     * @param pos the position of the first written byte
+     * @return the position after the last written byte
+     */
+    public int writeTo(byte[] dest, int pos) {
+        pos = RLP.writeLengthPrefix(getPayloadSize(), RLP.OFFSET_SHORT_LIST, dest, pos);
+        for (int i = 0; i < count; i++) {
+            switch (kinds[i]) {
+                case ELEMENT:
+                    pos = RLP.writeElement((byte[]) objects[i], dest, pos);
+                    break;
+                case ENCODED:
+                    byte[] encoded = (byte[]) objects[i];
+                    System.arraycopy(encoded, 0, dest, pos, encoded.length);
+                    pos += encoded.length;
+                    break;
+                case LIST:
+                    pos = ((RLPListEncoder) objects[i]).writeTo(dest, pos);
+                    break;
+                case NUMBER:
+                    pos = RLP.writeNumber(numbers[i], dest, pos);
+                    break;
+                default:
+                    dest[pos++] = (byte) (RLP.OFFSET_SHORT_ITEM + Long.BYTES);
+                    pos = RLP.writeBigEndian(numbers[i], Long.BYTES, dest, pos);
+            }
+        }
+        return pos;
+    }
+}
@@ -0,0 +1,60 @@
+package org.aion.rlp;
+
+import java.util.Arrays;
+import org.aion.util.bytes.ByteUtil;
+
+/**
+ * An RLP item that refers to its data inside the encoding it was decoded from, instead of holding
+ * a copy of it. The data is copied only when requested.
+ *
+ * @implNote The encoding must not be modified while the item is in use.
+ */
+public class SharedRLPItem implements RLPElement {
+
+    private static final long serialVersionUID = -5302838432738263419L;
+
+    private final byte[] encoding;
+    private final int offset;
+    private final int length;
+
+    /**
+     * @param encoding the array containing the item
+     * @param offset the position of the first data byte of the item, after the RLP prefix
+     * @param length the number of data bytes of the item
+     */
+    SharedRLPItem(byte[] encoding, int offset, int length) {
+        this.encoding = encoding;
+        this.offset = offset;
+        this.length = length;
+    }
+
+    /**
+     * Returns a new copy of the item data on each call.
+     *
+     * @implNote Consistent with {@link RLPItem}, an empty array is returned for empty items.
+     */
+    public byte[] getRLPData() {
+        return length == 0
+                ? ByteUtil.EMPTY_BYTE_ARRAY
+                : Arrays.copyOfRange(encoding, offset, offset + length);
+    }
+
+    /** Returns the number of data bytes of the item. */
+    public int size() {
+        return length;
+    }
+
+    /**
+     * Returns the item data interpreted as an unsigned big-endian number, truncated to its lowest
+     * 64 bits, without copying it.
+     *
+     * @implNote Equivalent to {@code new BigInteger(1, getRLPData()).longValue()}.
+     */
+    public long longValue() {
+        long value = 0;
+        for (int i = Math.max(0, length - Long.BYTES); i < length; i++) {
+            value = (value << 8) | (encoding[offset + i] & 0xFF);
+        }
+        return value;
+    }
+}
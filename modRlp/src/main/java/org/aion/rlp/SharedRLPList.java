@@ -0,0 +1,42 @@
+package org.aion.rlp;
+
+import java.util.Arrays;
+
+/**
+ * An RLP list whose elements are views into the encoding it was decoded from, see {@link
+ * RLP#decode2SharedList(byte[])}. Neither the encoding of the list nor the data of its items is
+ * copied until requested.
+ *
+ * @implNote The encoding must not be modified while the list or its elements are in use.
+ */
+public class SharedRLPList extends RLPList {
+
+    private static final long serialVersionUID = 2405381925612478013L;
+
+    private final byte[] encoding;
+    private final int offset;
+    private final int length;
+
+    /**
+     * @param encoding the array containing the list
+     * @param offset the position of the RLP prefix of the list
+     * @param length the number of bytes of the list encoding, including its prefix
+     */
+    SharedRLPList(byte[] encoding, int offset, int length) {
+        this.encoding = encoding;
+        this.offset = offset;
+        this.length = length;
+    }
+
+    /** Returns a new copy of the RLP encoding of the list on each call. */
+    @Override
+    public byte[] getRLPData() {
+        return encoding == null ? null : Arrays.copyOfRange(encoding, offset, offset + length);
+    }
+
+    /** The encoding of a shared list is defined by the array it was decoded from. */
+    @Override
+    public void setRLPData(byte[] rlpData) {
+        throw new UnsupportedOperationException("The encoding of a shared RLP list cannot be replaced.");
+    }
+}
@@ -14,10 +14,15 @@ import org.aion.util.conversions.Hex;
  */
 public class Value {
 
-    private Object value;
-    private byte[] rlp;
-
-    private boolean decoded = false;
+    /*
+     * The decoded value and the encoding are computed lazily while the instance may be shared
+     * between threads, e.g. by the trie node cache. Both are volatile so that a reader that sees
+     * one of them also sees its contents. Concurrent computations produce equal results, so the
+     * last write may win.
+     */
+    private volatile Object value;
+    private volatile byte[] rlp;
+    private volatile boolean decoded = false;
 
     public static Value fromRlpEncoded(byte[] data) {
 
@@ -170,18 +175,22 @@ public class Value {
     }
 
     public byte[] encode() {
-        if (rlp == null) {
-            rlp = RLP.encode(value);
+        byte[] encoded = rlp;
+        if (encoded == null) {
+            encoded = RLP.encode(value);
+            rlp = encoded;
         }
-        return rlp;
+        return encoded;
     }
 
     public boolean cmp(Value o) {
         if (o == null) {
             return false;
         }
-        if (rlp != null && o.rlp != null) {
-            return Arrays.equals(rlp, o.rlp);
+        byte[] encoded = rlp;
+        byte[] otherEncoded = o.rlp;
+        if (encoded != null && otherEncoded != null) {
+            return Arrays.equals(encoded, otherEncoded);
         } else {
             return Arrays.equals(this.encode(), o.encode());
         }
@@ -0,0 +1,118 @@
+package org.aion.rlp;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import java.math.BigInteger;
+import java.util.Arrays;
+import org.aion.util.bytes.ByteUtil;
+import org.aion.util.conversions.Hex;
+import org.junit.Test;
+
+public class RLPListEncoderTest {
+
+    private static final long[] NUMBERS = {
+        0L, 1L, 0x7FL, 0x80L, 0xFFL, 0x100L, 0x7FFFL, 0x8000L, 0xFFFFL, 0xFFFFFFL, 0x1000000L,
+        0xFFFFFFFFL, 0x100000000L, 10_000_000_000L, Long.MAX_VALUE, -1L, Long.MIN_VALUE
+    };
+
+    private static byte[][] elements() {
+        byte[] longElement = new byte[1024];
+        Arrays.fill(longElement, (byte) 0x42);
+        return new byte[][] {
+            null,
+            ByteUtil.EMPTY_BYTE_ARRAY,
+            new byte[] {0},
+            new byte[] {0x7F},
+            new byte[] {(byte) 0x80},
+            new byte[55],
+            new byte[56],
+            new byte[255],
+            new byte[256],
+            longElement
+        };
+    }
+
+    @Test
+    public void testEmptyList() {
+        assertThat(new RLPListEncoder(0).encode()).isEqualTo(RLP.encodeList());
+        assertThat(new RLPListEncoder(0).getEncodedSize()).isEqualTo(1);
+    }
+
+    @Test
+    public void testAddElement() {
+        for (byte[] element : elements()) {
+            byte[] expected = RLP.encodeList(RLP.encodeElement(element));
+            assertThat(new RLPListEncoder(1).addElement(element).encode()).isEqualTo(expected);
+        }
+    }
+
+    @Test
+    public void testAddLong() {
+        for (long number : NUMBERS) {
+            byte[] expected = RLP.encodeList(RLP.encodeLong(number));
+            assertThat(new RLPListEncoder(1).addLong(number).encode()).isEqualTo(expected);
+        }
+    }
+
+    @Test
+    public void testAddBigInteger() {
+        for (long number : NUMBERS) {
+            BigInteger value = BigInteger.valueOf(number);
+            byte[] expected = RLP.encodeList(RLP.encodeBigInteger(value));
+            assertThat(new RLPListEncoder(1).addBigInteger(value).encode()).isEqualTo(expected);
+        }
+
+        BigInteger large = BigInteger.ONE.shiftLeft(200).add(BigInteger.TEN);
+        byte[] expected = RLP.encodeList(RLP.encodeBigInteger(large));
+        assertThat(new RLPListEncoder(1).addBigInteger(large).encode()).isEqualTo(expected);
+    }
+
+    @Test
+    public void testAddByte() {
+        for (int i = Byte.MIN_VALUE; i <= Byte.MAX_VALUE; i++) {
+            byte[] expected = RLP.encodeList(RLP.encodeByte((byte) i));
+            assertThat(new RLPListEncoder(1).addByte((byte) i).encode()).isEqualTo(expected);
+        }
+    }
+
+    @Test
+    public void testNestedLists() {
+        byte[][] elements = elements();
+
+        RLPListEncoder inner = new RLPListEncoder(elements.length);
+        byte[][] innerEncoded = new byte[elements.length][];
+        for (int i = 0; i < elements.length; i++) {
+            inner.addElement(elements[i]);
+            innerEncoded[i] = RLP.encodeElement(elements[i]);
+        }
+        byte[] encodedElement = RLP.encodeElement(Hex.decode("0102030405"));
+
+        // the initial capacity is exceeded on purpose
+        RLPListEncoder outer =
+                new RLPListEncoder(1)
+                        .addList(inner)
+                        .addEncoded(encodedElement)
+                        .addList(new RLPListEncoder(0))
+                        .addLong(10_000_000_000L);
+        byte[] expected =
+                RLP.encodeList(
+                        RLP.encodeList(innerEncoded),
+                        encodedElement,
+                        RLP.encodeList(),
+                        RLP.encodeLong(10_000_000_000L));
+
+        assertThat(outer.size()).isEqualTo(4);
+        assertThat(outer.getEncodedSize()).isEqualTo(expected.length);
+        assertThat(outer.encode()).isEqualTo(expected);
+    }
+
+    @Test
+    public void testWriteTo() {
+        RLPListEncoder encoder = new RLPListEncoder(2).addElement(new byte[60]).addLong(1L);
+        byte[] expected = encoder.encode();
+
+        byte[] dest = new byte[expected.length + 2];
+        assertThat(encoder.writeTo(dest, 1)).isEqualTo(expected.length + 1);
+        assertThat(Arrays.copyOfRange(dest, 1, expected.length + 1)).isEqualTo(expected);
+    }
+}
@@ -0,0 +1,127 @@
+package org.aion.rlp;
+
+import static com.google.common.truth.Truth.assertThat;
+import static org.aion.rlp.RLP.decode2;
+import static org.aion.rlp.RLP.decode2SharedList;
+import static org.aion.rlp.RLP.encodeElement;
+import static org.aion.rlp.RLP.encodeList;
+import static org.aion.rlp.RLP.encodeLong;
+
+import java.math.BigInteger;
+import java.util.Arrays;
+import org.aion.util.bytes.ByteUtil;
+import org.aion.util.conversions.Hex;
+import org.junit.Test;
+
+public class SharedRLPListTest {
+
+    private static final byte[] LONG_ELEMENT = new byte[1024];
+
+    static {
+        Arrays.fill(LONG_ELEMENT, (byte) 0x42);
+    }
+
+    /** Nested lists with empty, single byte, short and long items. */
+    private static final byte[] ENCODING =
+            encodeList(
+                    encodeElement(null),
+                    encodeElement(new byte[] {0x01}),
+                    encodeElement(new byte[] {(byte) 0x81}),
+                    encodeElement("a string shorter than the threshold".getBytes()),
+                    encodeElement(LONG_ELEMENT),
+                    encodeList(),
+                    encodeList(encodeLong(Long.MAX_VALUE), encodeList(encodeElement(LONG_ELEMENT))));
+
+    @Test
+    public void testDecodeMatchesDecode2() {
+        assertSameStructure(decode2SharedList(ENCODING), decode2(ENCODING));
+    }
+
+    @Test
+    public void testDecodeMatchesDecode2_wEmptyInput() {
+        assertThat(decode2SharedList(null)).isEmpty();
+        assertThat(decode2SharedList(ByteUtil.EMPTY_BYTE_ARRAY)).isEmpty();
+    }
+
+    @Test
+    public void testDecodeRange() {
+        byte[] other = encodeList(encodeElement(LONG_ELEMENT));
+        byte[] data = ByteUtil.merge(other, ENCODING, other);
+
+        assertSameStructure(decode2SharedList(data, other.length, ENCODING.length), decode2(ENCODING));
+        assertThat(decode2SharedList(data, other.length, 0)).isEmpty();
+    }
+
+    @Test(expected = RuntimeException.class)
+    public void testDecodeRange_wElementBeyondRange() {
+        byte[] data = ByteUtil.merge(ENCODING, ENCODING);
+        // the range ends inside the list, which the array itself does not
+        decode2SharedList(data, 0, ENCODING.length - 1);
+    }
+
+    @Test
+    public void testGetRLPDataReturnsCopies() {
+        byte[] encoding = ENCODING.clone();
+        SharedRLPList list = (SharedRLPList) decode2SharedList(encoding).get(0);
+
+        byte[] first = list.getRLPData();
+        first[0] = 0;
+        assertThat(list.getRLPData()).isEqualTo(ENCODING);
+        assertThat(encoding).isEqualTo(ENCODING);
+
+        byte[] item = list.get(4).getRLPData();
+        item[0] = 0;
+        assertThat(list.get(4).getRLPData()).isEqualTo(LONG_ELEMENT);
+    }
+
+    @Test
+    public void testLongValue() {
+        long[] values = {0L, 1L, 0x7FL, 0x80L, 0xFFFFL, 1L << 40, Long.MAX_VALUE, -1L};
+        for (long value : values) {
+            byte[] encoding = encodeList(encodeLong(value));
+            SharedRLPItem item = (SharedRLPItem) ((RLPList) decode2SharedList(encoding).get(0)).get(0);
+
+            assertThat(item.longValue()).isEqualTo(value);
+            assertThat(item.longValue()).isEqualTo(new BigInteger(1, item.getRLPData()).longValue());
+        }
+
+        // longer items are truncated to the lowest 64 bits
+        byte[] encoding = encodeList(encodeElement(Hex.decode("0102030405060708090a")));
+        SharedRLPItem item = (SharedRLPItem) ((RLPList) decode2SharedList(encoding).get(0)).get(0);
+        assertThat(item.size()).isEqualTo(10);
+        assertThat(item.longValue()).isEqualTo(0x030405060708090aL);
+    }
+
+    @Test(expected = RuntimeException.class)
+    public void testDecode_wTruncatedItem() {
+        byte[] truncated = Arrays.copyOf(ENCODING, ENCODING.length - 1);
+        // decode2 fails on the same input
+        decode2SharedList(truncated);
+    }
+
+    @Test(expected = RuntimeException.class)
+    public void testDecode_wTruncatedShortList() {
+        decode2SharedList(Hex.decode("c3010203c2"));
+    }
+
+    @Test(expected = UnsupportedOperationException.class)
+    public void testSetRLPData() {
+        ((SharedRLPList) decode2SharedList(ENCODING).get(0)).setRLPData(ENCODING);
+    }
+
+    private static void assertSameStructure(RLPList shared, RLPList copied) {
+        assertThat(shared.size()).isEqualTo(copied.size());
+        assertThat(shared.getRLPData()).isEqualTo(copied.getRLPData());
+        for (int i = 0; i < copied.size(); i++) {
+            RLPElement expected = copied.get(i);
+            RLPElement actual = shared.get(i);
+            if (expected instanceof RLPList) {
+                assertThat(actual).isInstanceOf(SharedRLPList.class);
+                assertSameStructure((RLPList) actual, (RLPList) expected);
+            } else {
+                assertThat(actual).isInstanceOf(SharedRLPItem.class);
+                assertThat(actual.getRLPData()).isEqualTo(expected.getRLPData());
+            }
+        }
+    }
+}
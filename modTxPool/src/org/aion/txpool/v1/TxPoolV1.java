@@ -4,9 +4,9 @@ import com.google.common.annotations.VisibleForTesting;
 import java.math.BigInteger;
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.Comparator;
 import java.util.HashMap;
 import java.util.HashSet;
-import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
@@ -15,9 +15,15 @@ import java.util.Properties;
 import java.util.Set;
 import java.util.SortedMap;
 import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReadWriteLock;
 import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
 import org.aion.base.AionTransaction;
 import org.aion.base.PooledTransaction;
 import org.aion.log.AionLoggerFactory;
@@ -25,47 +31,61 @@ import org.aion.log.LogEnum;
 import org.aion.txpool.Constant;
 import org.aion.txpool.Constant.TXPOOL_PROPERTY;
 import org.aion.types.AionAddress;
-import org.aion.util.types.ByteArrayWrapper;
+import org.aion.util.types.HashKey;
 import org.apache.commons.lang3.tuple.Triple;
 import org.slf4j.Logger;
 
+/**
+ * The transaction pool is sharded by the transaction sender. Each shard owns the account view of
+ * its senders and is guarded by its own lock, so transactions from different senders are added and
+ * removed concurrently. The transaction map and the fee and time indexes are concurrent maps shared
+ * by all the shards.
+ *
+ * <p>The mutations share the read side of the snapshot lock while the block template snapshot takes
+ * the write side, so the transactions are always picked from a consistent pool state.
+ */
 public final class TxPoolV1 {
 
+    private static final int SHARD_COUNT = 16;
+
+    private static final Comparator<IndexKey> TIME_ORDER =
+            Comparator.<IndexKey>comparingLong(k -> k.value).thenComparingLong(k -> k.sequence);
+    private static final Comparator<IndexKey> FEE_ORDER =
+            Comparator.<IndexKey>comparingLong(k -> k.value)
+                    .reversed()
+                    .thenComparingLong(k -> k.sequence);
+
     /**
-     * poolTransactions : Map<ByteArrayWrapper, PooledTransaction>
-     *     @ByteArrayWrapper transaction hash
-     *     @PooledTransaction transaction data with the actual energy consume
-     */
-    private final Map<ByteArrayWrapper, PooledTransaction> poolTransactions;
-    /**
-     * timeView : SortedMap<Long, LinkedHashSet<ByteArrayWrapper>>
-     *     @Long the transaction timeout in the pool by the second unit.
-     *     @LinkedHashSet<ByteArrayWrapper> the hashSet of the transaction hash
+     * poolTransactions : Map<HashKey, PoolEntry>
+     *     @HashKey transaction hash
+     *     @PoolEntry transaction data with the actual energy consume and the index keys
      */
-    private final SortedMap<Long, Set<ByteArrayWrapper>> timeView = new TreeMap<>();
+    private final Map<HashKey, PoolEntry> poolTransactions = new ConcurrentHashMap<>();
     /**
-     * feeView : SortedMap<Long, LinkedHashSet<ByteArrayWrapper>>
-     *     @Long energy price
-     *     @LinkedHashSet<ByteArrayWrapper> the transaction hash set relate with the transaction has the energy price
+     * timeView : SortedMap<IndexKey, HashKey>
+     *     @IndexKey the transaction timeout in the pool by the second unit and the arrival order.
+     *     @HashKey the transaction hash
      */
-    private final SortedMap<Long, Set<ByteArrayWrapper>> feeView =
-            new TreeMap<>(Collections.reverseOrder());
+    private final SortedMap<IndexKey, HashKey> timeView =
+            new ConcurrentSkipListMap<>(TIME_ORDER);
     /**
-     * accountView : Map<AionAddress, SortedMap<BigInteger, ByteArrayWrapper>>
-     *     @AionAddress account
-     *     @BigInteger transaction nonce
-     *     @ByteArrayWrapper TransactionHash
+     * feeView : SortedMap<IndexKey, HashKey>
+     *     @IndexKey energy price (highest first) and the arrival order.
+     *     @HashKey the transaction hash
      */
-    private final Map<AionAddress, SortedMap<BigInteger, ByteArrayWrapper>> accountView = new HashMap<>();
-
-    private final Lock lock = new ReentrantLock();
+    private final SortedMap<IndexKey, HashKey> feeView =
+            new ConcurrentSkipListMap<>(FEE_ORDER);
+    /** The account views sharded by the transaction sender. */
+    private final AccountShard[] shards;
+
+    private final ReadWriteLock snapshotLock = new ReentrantReadWriteLock();
+    private final AtomicInteger poolSize = new AtomicInteger();
+    private final AtomicLong sequence = new AtomicLong();
     private final Logger LOG_TXPOOL;
-    private long blockEnergyLimit;
+    private volatile long blockEnergyLimit;
     public final int maxPoolSize;
     public final int transactionTimeout;
 
-    private PooledTransaction droppedPoolTx;
-
     /**
      * @implNote construct the transaction pool with Java.Properties setup.
      * @param config the pool arguments
@@ -90,7 +110,10 @@ public final class TxPoolV1 {
             maxPoolSize = Constant.TXPOOL_SIZE_DEFAULT;
         }
 
-        poolTransactions = new HashMap<>();
+        shards = new AccountShard[SHARD_COUNT];
+        for (int i = 0; i < SHARD_COUNT; i++) {
+            shards[i] = new AccountShard();
+        }
         LOG_TXPOOL = AionLoggerFactory.getLogger(LogEnum.TXPOOL.toString());
     }
 
@@ -102,118 +125,167 @@ public final class TxPoolV1 {
      * @return the transactions has been added into the pool.
      */
     public List<PooledTransaction> add(List<PooledTransaction> list) {
+        return add(list, new ArrayList<>());
+    }
+
+    private List<PooledTransaction> add(List<PooledTransaction> list, List<PooledTransaction> droppedTransactions) {
         Objects.requireNonNull(list);
         if (list.isEmpty()) {
             return Collections.emptyList();
         }
 
-        lock.lock();
+        snapshotLock.readLock().lock();
         try {
             List<PooledTransaction> addedTransactions = new ArrayList<>();
 
             for (PooledTransaction poolTx : list) {
 
-                if (poolTransactions.size() == maxPoolSize) {
+                if (!reserveSlot()) {
                     LOG_TXPOOL.warn("txPool is full. No transaction has been added!");
                     return addedTransactions;
                 }
 
-                ByteArrayWrapper repayOldTx = checkRepayTransaction(poolTx.tx);
-                ByteArrayWrapper poolTxHash = ByteArrayWrapper.wrap(poolTx.tx.getTransactionHash());
-                if (repayOldTx != null) {
-                    if (repayOldTx.equals(poolTxHash)) {
-                        LOG_TXPOOL.debug("skip adding the tx [{}] because it's not a valid repay transaction.", poolTx.tx);
-                        continue;
-                    } else {
-                        LOG_TXPOOL.debug("repay tx found! Remove original tx");
-                        droppedPoolTx = poolRemove(repayOldTx);
+                boolean added = false;
+                try {
+                    AccountShard shard = shardOf(poolTx.tx.getSenderAddress());
+                    shard.lock.lock();
+                    try {
+                        HashKey repayOldTx = checkRepayTransaction(shard, poolTx.tx);
+                        HashKey poolTxHash = HashKey.wrap(poolTx.tx.getTransactionHash());
+                        if (repayOldTx != null) {
+                            if (repayOldTx.equals(poolTxHash)) {
+                                LOG_TXPOOL.debug("skip adding the tx [{}] because it's not a valid repay transaction.", poolTx.tx);
+                                continue;
+                            } else {
+                                LOG_TXPOOL.debug("repay tx found! Remove original tx");
+                                PooledTransaction droppedTx = poolRemove(shard, repayOldTx);
+                                if (droppedTx != null) {
+                                    droppedTransactions.add(droppedTx);
+                                }
+                            }
+                        }
+
+                        poolAdd(shard, poolTxHash, poolTx);
+                        added = true;
+                        addedTransactions.add(poolTx);
+                    } finally {
+                        shard.lock.unlock();
+                    }
+                } finally {
+                    if (!added) {
+                        // release the slot reserved for a transaction that was skipped or failed
+                        poolSize.decrementAndGet();
                     }
                 }
-
-                poolAdd(poolTxHash, poolTx);
-                addedTransactions.add(poolTx);
             }
 
             return addedTransactions;
         } finally {
-            lock.unlock();
+            snapshotLock.readLock().unlock();
         }
     }
 
-    private void poolAdd(ByteArrayWrapper txHash, PooledTransaction poolTx) {
+    /** Reserves the pool capacity for one transaction, the caller releases it if nothing is added. */
+    private boolean reserveSlot() {
+        int current;
+        do {
+            current = poolSize.get();
+            if (current >= maxPoolSize) {
+                return false;
+            }
+        } while (!poolSize.compareAndSet(current, current + 1));
+        return true;
+    }
+
+    private AccountShard shardOf(AionAddress sender) {
+        return shards[Math.floorMod(sender.hashCode(), SHARD_COUNT)];
+    }
+
+    /** The caller must hold the lock of the sender shard and a reserved pool slot. */
+    private void poolAdd(AccountShard shard, HashKey txHash, PooledTransaction poolTx) {
 
         LOG_TXPOOL.debug("Adding tx[{}]", poolTx.tx);
 
-        poolTransactions.put(txHash, poolTx);
         long txTime = TimeUnit.MICROSECONDS.toSeconds(poolTx.tx.getTimeStampBI().longValue()) + transactionTimeout;
-        Set<ByteArrayWrapper> timeSet = timeView.getOrDefault(txTime, new LinkedHashSet<>());
-        timeView.putIfAbsent(txTime, timeSet);
-        timeSet.add(txHash);
+        long order = sequence.getAndIncrement();
+        PoolEntry entry =
+                new PoolEntry(
+                        poolTx,
+                        new IndexKey(txTime, order),
+                        new IndexKey(poolTx.tx.getEnergyPrice(), order));
 
-        long txEnergyPrice = poolTx.tx.getEnergyPrice();
-        Set<ByteArrayWrapper> feeSet = feeView.getOrDefault(txEnergyPrice, new LinkedHashSet<>());
-        feeView.putIfAbsent(txEnergyPrice, feeSet);
-        feeSet.add(txHash);
+        poolTransactions.put(txHash, entry);
+        timeView.put(entry.timeKey, txHash);
+        feeView.put(entry.feeKey, txHash);
 
-        SortedMap<BigInteger, ByteArrayWrapper> accountInfo = accountView.getOrDefault(poolTx.tx.getSenderAddress(), new TreeMap<>());
-        accountView.putIfAbsent(poolTx.tx.getSenderAddress(), accountInfo);
-        accountInfo.put(poolTx.tx.getNonceBI(), txHash);
+        shard.accounts
+                .computeIfAbsent(poolTx.tx.getSenderAddress(), k -> new TreeMap<>())
+                .put(poolTx.tx.getNonceBI(), txHash);
 
         LOG_TXPOOL.debug("Added tx[{}]", poolTx.tx);
     }
 
-    private PooledTransaction poolRemove(ByteArrayWrapper txHash) {
-        PooledTransaction removedTx = poolTransactions.remove(txHash);
-        if (removedTx == null) {
+    /** The caller must hold the lock of the shard the transaction sender belongs to. */
+    private PooledTransaction poolRemove(AccountShard shard, HashKey txHash) {
+        PoolEntry removed = poolTransactions.remove(txHash);
+        if (removed == null) {
             LOG_TXPOOL.debug("Did not find the transaction hash:{} in the pool", txHash);
             return null;
         }
+        poolSize.decrementAndGet();
 
+        PooledTransaction removedTx = removed.pooledTx;
         LOG_TXPOOL.debug("Removing tx[{}]", removedTx.tx);
 
-        long time = TimeUnit.MICROSECONDS.toSeconds(removedTx.tx.getTimeStampBI().longValue()) + transactionTimeout;
-        Set<ByteArrayWrapper> timeSet = timeView.get(time);
-        timeSet.remove(txHash);
-        if (timeSet.isEmpty()) {
-            timeView.remove(time);
-        }
-
-        Set<ByteArrayWrapper> feeSet = feeView.get(removedTx.tx.getEnergyPrice());
-        feeSet.remove(txHash);
-        if (feeSet.isEmpty()) {
-            feeView.remove(removedTx.tx.getEnergyPrice());
-        }
+        timeView.remove(removed.timeKey);
+        feeView.remove(removed.feeKey);
 
-        SortedMap<BigInteger, ByteArrayWrapper> accountInfo =
-                accountView.get(removedTx.tx.getSenderAddress());
+        SortedMap<BigInteger, HashKey> accountInfo =
+                shard.accounts.get(removedTx.tx.getSenderAddress());
 
         accountInfo.remove(removedTx.tx.getNonceBI());
         if (accountInfo.isEmpty()) {
-            accountView.remove(removedTx.tx.getSenderAddress());
+            shard.accounts.remove(removedTx.tx.getSenderAddress());
         }
 
         LOG_TXPOOL.debug("Removed tx[{}]", removedTx.tx);
         return removedTx;
     }
 
-    private ByteArrayWrapper checkRepayTransaction(AionTransaction tx) {
+    private PooledTransaction poolRemove(HashKey txHash) {
+        PoolEntry entry = poolTransactions.get(txHash);
+        if (entry == null) {
+            LOG_TXPOOL.debug("Did not find the transaction hash:{} in the pool", txHash);
+            return null;
+        }
+
+        AccountShard shard = shardOf(entry.pooledTx.tx.getSenderAddress());
+        shard.lock.lock();
+        try {
+            return poolRemove(shard, txHash);
+        } finally {
+            shard.lock.unlock();
+        }
+    }
+
+    private HashKey checkRepayTransaction(AccountShard shard, AionTransaction tx) {
         AionAddress sender = tx.getSenderAddress();
         BigInteger nonce = tx.getNonceBI();
         long price = tx.getEnergyPrice();
 
-        Map<BigInteger, ByteArrayWrapper> accountInfo = accountView.get(sender);
+        Map<BigInteger, HashKey> accountInfo = shard.accounts.get(sender);
         if (accountInfo != null) {
-            ByteArrayWrapper oldTx = accountInfo.get(nonce);
+            HashKey oldTx = accountInfo.get(nonce);
             if (oldTx == null) {
                 LOG_TXPOOL.trace("Cannot find the tx has same sender and the nonce in the pool. {}", tx);
                 return null;
             }
 
-            PooledTransaction pTx = poolTransactions.get(oldTx);
+            PooledTransaction pTx = poolTransactions.get(oldTx).pooledTx;
             LOG_TXPOOL.debug("Original tx[{}], Repay tx[{}]", pTx.tx, tx);
 
             long pTxPrice = pTx.tx.getEnergyPrice();
-            return (price >= pTxPrice * 2) ? oldTx : ByteArrayWrapper.wrap(tx.getTransactionHash());
+            return (price >= pTxPrice * 2) ? oldTx : HashKey.wrap(tx.getTransactionHash());
         } else {
             LOG_TXPOOL.trace("Cannot find the tx has same sender in the pool. {}", tx);
             return null;
@@ -232,6 +304,21 @@ public final class TxPoolV1 {
         return rtn.isEmpty() ? null : rtn.get(0);
     }
 
+    /**
+     * @implNote add transaction into the pool like {@link #add(PooledTransaction)} and report the
+     *     transaction replaced by it. The dropped transaction is returned to the caller instead of
+     *     being kept by the pool, so concurrent adds cannot see each other's dropped transaction.
+     * @param tx the pool transaction
+     * @param droppedTransactions collects the original transaction dropped by the new repay
+     *     transaction, if any
+     * @return the transaction has been added into the pool. Otherwise, return null.
+     */
+    public PooledTransaction add(PooledTransaction tx, List<PooledTransaction> droppedTransactions) {
+        Objects.requireNonNull(droppedTransactions);
+        List<PooledTransaction> rtn = this.add(Collections.singletonList(tx), droppedTransactions);
+        return rtn.isEmpty() ? null : rtn.get(0);
+    }
+
     /**
      * @implNote remove transactions into the pool.
      * @param tx pool transactions
@@ -240,21 +327,27 @@ public final class TxPoolV1 {
     public List<PooledTransaction> remove(List<PooledTransaction> tx) {
         Objects.requireNonNull(tx);
 
-        lock.lock();
+        snapshotLock.readLock().lock();
         try {
             List<PooledTransaction> removedTx = new ArrayList<>();
 
             for (PooledTransaction pTx : tx) {
-                ByteArrayWrapper txHash = ByteArrayWrapper.wrap(pTx.tx.getTransactionHash());
-                PooledTransaction removedPoolTx = poolRemove(txHash);
-                if (removedPoolTx != null) {
-                    removedTx.add(removedPoolTx);
+                HashKey txHash = HashKey.wrap(pTx.tx.getTransactionHash());
+                AccountShard shard = shardOf(pTx.tx.getSenderAddress());
+                shard.lock.lock();
+                try {
+                    PooledTransaction removedPoolTx = poolRemove(shard, txHash);
+                    if (removedPoolTx != null) {
+                        removedTx.add(removedPoolTx);
+                    }
+                } finally {
+                    shard.lock.unlock();
                 }
             }
 
             return removedTx;
         } finally {
-            lock.unlock();
+            snapshotLock.readLock().unlock();
         }
     }
 
@@ -281,27 +374,32 @@ public final class TxPoolV1 {
             return Collections.emptyList();
         }
 
-        lock.lock();
+        snapshotLock.readLock().lock();
         try {
             List<PooledTransaction> removedTransaction = new ArrayList<>();
-            List<ByteArrayWrapper> removeTxHash = new ArrayList<>();
             for (Map.Entry<AionAddress, BigInteger> account : accountsWithNonce.entrySet()) {
-                if (accountView.containsKey(account.getKey())) {
-                    SortedMap<BigInteger, ByteArrayWrapper> accountInfo = accountView.get(account.getKey());
-                    removeTxHash.addAll(accountInfo.headMap(account.getValue()).values());
-                }
-            }
+                AccountShard shard = shardOf(account.getKey());
+                shard.lock.lock();
+                try {
+                    SortedMap<BigInteger, HashKey> accountInfo = shard.accounts.get(account.getKey());
+                    if (accountInfo == null) {
+                        continue;
+                    }
 
-            for (ByteArrayWrapper hash : removeTxHash) {
-                PooledTransaction pTx = poolRemove(hash);
-                if (pTx != null) {
-                    removedTransaction.add(pTx);
+                    for (HashKey hash : new ArrayList<>(accountInfo.headMap(account.getValue()).values())) {
+                        PooledTransaction pTx = poolRemove(shard, hash);
+                        if (pTx != null) {
+                            removedTransaction.add(pTx);
+                        }
+                    }
+                } finally {
+                    shard.lock.unlock();
                 }
             }
 
             return removedTransaction;
         } finally {
-            lock.unlock();
+            snapshotLock.readLock().unlock();
         }
     }
 
@@ -310,12 +408,7 @@ public final class TxPoolV1 {
      * @return the total transaction number in the transaction pool.
      */
     public int size() {
-        lock.lock();
-        try {
-            return poolTransactions.size();
-        } finally {
-            lock.unlock();
-        }
+        return poolSize.get();
     }
 
     /**
@@ -323,28 +416,24 @@ public final class TxPoolV1 {
      * @return a boolean value represent the pool size reach to the max.
      */
     public boolean isFull() {
-        lock.lock();
-        try {
-            return poolTransactions.size() >= maxPoolSize;
-        } finally {
-            lock.unlock();
-        }
+        return poolSize.get() >= maxPoolSize;
     }
 
     /**
-     * @implNote snapshot the transactions for creating new block template.
+     * @implNote snapshot the transactions for creating new block template. The pool mutations wait
+     *     for the picking to finish, the queries of the pool are not blocked.
      * @return the transactions ready to be seal into the new blocks.
      */
     public List<AionTransaction> snapshot() {
 
-        lock.lock();
+        snapshotLock.writeLock().lock();
         try {
             if (poolTransactions.isEmpty()) {
                 return Collections.emptyList();
             }
 
             Map<AionAddress, BigInteger> accountPickingInfo = new HashMap<>();
-            Set<ByteArrayWrapper> pickedTxHash = new HashSet<>();
+            Set<HashKey> pickedTxHash = new HashSet<>();
 
             // We use the multi rounds picking strategy.
             List<AionTransaction> pickedTransactions = new ArrayList<>();
@@ -379,47 +468,46 @@ public final class TxPoolV1 {
                     cumulatedTxEnergyConsumed);
             return pickedTransactions;
         } finally {
-            lock.unlock();
+            snapshotLock.writeLock().unlock();
         }
     }
 
+    /** The caller must hold the write lock of the snapshot lock. */
     private Triple<List<AionTransaction>, Long, Long> pickTransaction(
             Map<AionAddress, BigInteger> accountPickingInfo,
-            Set<ByteArrayWrapper> pickedTxHash,
+            Set<HashKey> pickedTxHash,
             long cumulatedTxEncodedSize,
             long cumulatedTxEnergy) {
 
         List<AionTransaction> pickedTx = new ArrayList<>();
         long pickedTxEncodedSize = 0;
         long pickedEnergyConsumed = 0;
-        for (Set<ByteArrayWrapper> s : feeView.values()) {
-            for (ByteArrayWrapper hash : s) {
+        for (HashKey hash : feeView.values()) {
 
-                if (!pickedTxHash.contains(hash)) {
-                    PooledTransaction pendingTx = poolTransactions.get(hash);
+            if (!pickedTxHash.contains(hash)) {
+                PooledTransaction pendingTx = poolTransactions.get(hash).pooledTx;
 
-                    AionAddress sender = pendingTx.tx.getSenderAddress();
-                    BigInteger currentAccountPickingNonce =
-                        accountPickingInfo.getOrDefault(sender, getAccountFirstPickingNonce(sender));
+                AionAddress sender = pendingTx.tx.getSenderAddress();
+                BigInteger currentAccountPickingNonce =
+                    accountPickingInfo.getOrDefault(sender, getAccountFirstPickingNonce(sender));
 
-                    if (currentAccountPickingNonce.equals(pendingTx.tx.getNonceBI())) {
-                        long txEncodedSize = pendingTx.tx.getEncoded().length;
-                        long txEnergyConsumed = Math.max(pendingTx.energyConsumed, (Constant.MIN_ENERGY_CONSUME / 2));
+                if (currentAccountPickingNonce.equals(pendingTx.tx.getNonceBI())) {
+                    long txEncodedSize = pendingTx.tx.getEncoded().length;
+                    long txEnergyConsumed = Math.max(pendingTx.energyConsumed, (Constant.MIN_ENERGY_CONSUME / 2));
 
-                        if ((cumulatedTxEncodedSize + pickedTxEncodedSize + txEncodedSize) <= Constant.MAX_BLK_SIZE
-                            && (cumulatedTxEnergy + pickedEnergyConsumed + txEncodedSize) <= blockEnergyLimit) {
-                            LOG_TXPOOL.trace("Transaction picked: [{}]", pendingTx.tx);
-                            pickedTx.add(pendingTx.tx);
-                            pickedTxHash.add(hash);
+                    if ((cumulatedTxEncodedSize + pickedTxEncodedSize + txEncodedSize) <= Constant.MAX_BLK_SIZE
+                        && (cumulatedTxEnergy + pickedEnergyConsumed + txEncodedSize) <= blockEnergyLimit) {
+                        LOG_TXPOOL.trace("Transaction picked: [{}]", pendingTx.tx);
+                        pickedTx.add(pendingTx.tx);
+                        pickedTxHash.add(hash);
 
-                            currentAccountPickingNonce = currentAccountPickingNonce.add(BigInteger.ONE);
-                            accountPickingInfo.put(sender, currentAccountPickingNonce);
+                        currentAccountPickingNonce = currentAccountPickingNonce.add(BigInteger.ONE);
+                        accountPickingInfo.put(sender, currentAccountPickingNonce);
 
-                            pickedTxEncodedSize += txEncodedSize;
-                            pickedEnergyConsumed += txEnergyConsumed;
-                        } else {
-                            return Triple.of(pickedTx, pickedTxEncodedSize, pickedEnergyConsumed);
-                        }
+                        pickedTxEncodedSize += txEncodedSize;
+                        pickedEnergyConsumed += txEnergyConsumed;
+                    } else {
+                        return Triple.of(pickedTx, pickedTxEncodedSize, pickedEnergyConsumed);
                     }
                 }
             }
@@ -429,7 +517,7 @@ public final class TxPoolV1 {
     }
 
     private BigInteger getAccountFirstPickingNonce(AionAddress sender) {
-        SortedMap<BigInteger, ByteArrayWrapper> accountInfo = accountView.get(sender);
+        SortedMap<BigInteger, HashKey> accountInfo = shardOf(sender).accounts.get(sender);
         if (accountInfo == null) {
             throw new IllegalStateException("Can't find the account info relate with sender: " + sender);
         }
@@ -442,48 +530,25 @@ public final class TxPoolV1 {
      * @return removed transactions.
      */
     public List<PooledTransaction> clearOutDateTransaction() {
-        lock.lock();
-        try {
-            return clearOutDateTransaction(TimeUnit.MILLISECONDS.toSeconds(System.currentTimeMillis()));
-        } finally {
-            lock.unlock();
-        }
+        return clearOutDateTransaction(TimeUnit.MILLISECONDS.toSeconds(System.currentTimeMillis()));
     }
 
     List<PooledTransaction> clearOutDateTransaction(long outDateTime) {
-        List<PooledTransaction> clearedTransactions = new ArrayList<>();
-
-        for (Set<ByteArrayWrapper> set : timeView.headMap(outDateTime).values()) {
-            for (ByteArrayWrapper txHash : set) {
-                PooledTransaction removedTx = poolTransactions.remove(txHash);
-                if (removedTx == null) {
-                    LOG_TXPOOL.debug("Did not find the transaction hash:{} in the pool", txHash);
-                    continue;
-                }
-
-                LOG_TXPOOL.debug("Removing tx[{}]", removedTx.tx);
-
-                Set<ByteArrayWrapper> feeSet = feeView.get(removedTx.tx.getEnergyPrice());
-                feeSet.remove(txHash);
-                if (feeSet.isEmpty()) {
-                    feeView.remove(removedTx.tx.getEnergyPrice());
-                }
-
-                SortedMap<BigInteger, ByteArrayWrapper> accountInfo =
-                    accountView.get(removedTx.tx.getSenderAddress());
+        snapshotLock.readLock().lock();
+        try {
+            List<PooledTransaction> clearedTransactions = new ArrayList<>();
 
-                accountInfo.remove(removedTx.tx.getNonceBI());
-                if (accountInfo.isEmpty()) {
-                    accountView.remove(removedTx.tx.getSenderAddress());
+            for (HashKey txHash : timeView.headMap(new IndexKey(outDateTime, Long.MIN_VALUE)).values()) {
+                PooledTransaction removedTx = poolRemove(txHash);
+                if (removedTx != null) {
+                    clearedTransactions.add(removedTx);
                 }
-
-                clearedTransactions.add(removedTx);
-                LOG_TXPOOL.debug("Removed tx[{}]", removedTx.tx);
             }
-        }
-        timeView.headMap(outDateTime).clear();
 
-        return clearedTransactions;
+            return clearedTransactions;
+        } finally {
+            snapshotLock.readLock().unlock();
+        }
     }
 
     /**
@@ -495,16 +560,17 @@ public final class TxPoolV1 {
     public BigInteger bestPoolNonce(AionAddress sender) {
         Objects.requireNonNull(sender);
 
-        lock.lock();
+        AccountShard shard = shardOf(sender);
+        shard.lock.lock();
         try {
-            SortedMap<BigInteger, ByteArrayWrapper> accountInfo = accountView.get(sender);
+            SortedMap<BigInteger, HashKey> accountInfo = shard.accounts.get(sender);
             if (accountInfo == null) {
                 return null;
             }
 
             return accountInfo.lastKey();
         } finally {
-            lock.unlock();
+            shard.lock.unlock();
         }
     }
 
@@ -520,16 +586,17 @@ public final class TxPoolV1 {
         Objects.requireNonNull(sender);
         Objects.requireNonNull(txNonce);
 
-        lock.lock();
+        AccountShard shard = shardOf(sender);
+        shard.lock.lock();
         try {
-            SortedMap<BigInteger, ByteArrayWrapper> accountInfo = accountView.get(sender);
+            SortedMap<BigInteger, HashKey> accountInfo = shard.accounts.get(sender);
             if (accountInfo == null) {
                 return false;
             } else {
                 return accountInfo.containsKey(txNonce);
             }
         } finally {
-            lock.unlock();
+            shard.lock.unlock();
         }
     }
 
@@ -541,21 +608,16 @@ public final class TxPoolV1 {
         int BLK_NRG_MAX = 100_000_000;
         int BLK_NRG_MIN = 1_000_000;
 
-        lock.lock();
-        try {
-            if (nrg < BLK_NRG_MIN) {
-                blockEnergyLimit = BLK_NRG_MIN;
-            } else if (nrg > BLK_NRG_MAX) {
-                blockEnergyLimit = BLK_NRG_MAX;
-            } else {
-                blockEnergyLimit = nrg;
-            }
-
-            LOG_TXPOOL.debug(
-                    "TxPoolA1.updateBlkNrgLimit nrg[{}] blkNrgLimit[{}]", nrg, blockEnergyLimit);
-        } finally {
-            lock.unlock();
+        if (nrg < BLK_NRG_MIN) {
+            blockEnergyLimit = BLK_NRG_MIN;
+        } else if (nrg > BLK_NRG_MAX) {
+            blockEnergyLimit = BLK_NRG_MAX;
+        } else {
+            blockEnergyLimit = nrg;
         }
+
+        LOG_TXPOOL.debug(
+                "TxPoolA1.updateBlkNrgLimit nrg[{}] blkNrgLimit[{}]", nrg, blockEnergyLimit);
     }
 
     /**
@@ -573,25 +635,27 @@ public final class TxPoolV1 {
      */
     public List<AionTransaction> snapshotAll() {
 
-        lock.lock();
-        try {
-            List<AionTransaction> allPoolTransactions = new ArrayList<>();
-            for (SortedMap<BigInteger, ByteArrayWrapper> txHashes : accountView.values()) {
-                for (ByteArrayWrapper hash : txHashes.values()) {
-                    PooledTransaction pTx = poolTransactions.get(hash);
-                    if (pTx == null) {
-                        throw new IllegalStateException("The pool data has broken, cannot find the txHash:" + hash);
+        List<AionTransaction> allPoolTransactions = new ArrayList<>();
+        for (AccountShard shard : shards) {
+            shard.lock.lock();
+            try {
+                for (SortedMap<BigInteger, HashKey> txHashes : shard.accounts.values()) {
+                    for (HashKey hash : txHashes.values()) {
+                        PoolEntry entry = poolTransactions.get(hash);
+                        if (entry == null) {
+                            throw new IllegalStateException("The pool data has broken, cannot find the txHash:" + hash);
+                        }
+                        allPoolTransactions.add(entry.pooledTx.tx);
                     }
-                    allPoolTransactions.add(pTx.tx);
                 }
+            } finally {
+                shard.lock.unlock();
             }
+        }
 
-            LOG_TXPOOL.info("snapshotAll: tx#[{}]", allPoolTransactions.size());
+        LOG_TXPOOL.info("snapshotAll: tx#[{}]", allPoolTransactions.size());
 
-            return allPoolTransactions;
-        } finally {
-            lock.unlock();
-        }
+        return allPoolTransactions;
     }
 
     /**
@@ -604,61 +668,51 @@ public final class TxPoolV1 {
         Objects.requireNonNull(sender);
         Objects.requireNonNull(nonce);
 
-        lock.lock();
+        AccountShard shard = shardOf(sender);
+        shard.lock.lock();
         try {
-            Map<BigInteger, ByteArrayWrapper> accountInfo = accountView.get(sender);
+            Map<BigInteger, HashKey> accountInfo = shard.accounts.get(sender);
             if (accountInfo == null) {
                 return null;
             }
 
-            ByteArrayWrapper txHash = accountInfo.get(nonce);
+            HashKey txHash = accountInfo.get(nonce);
             if (txHash == null) {
                 return null;
             }
 
-            return poolTransactions.get(txHash);
+            return poolTransactions.get(txHash).pooledTx;
         } finally {
-            lock.unlock();
+            shard.lock.unlock();
         }
     }
 
     @VisibleForTesting
     public List<BigInteger> getNonceList(AionAddress acc) {
-        lock.lock();
+        AccountShard shard = shardOf(acc);
+        shard.lock.lock();
         try {
-            Map<BigInteger, ByteArrayWrapper> accountInfo = accountView.get(acc);
+            Map<BigInteger, HashKey> accountInfo = shard.accounts.get(acc);
             return new ArrayList<>(accountInfo.keySet());
         } finally {
-            lock.unlock();
+            shard.lock.unlock();
         }
     }
 
     @VisibleForTesting
     public List<Long> getFeeList() {
-        lock.lock();
-        try {
-            return new ArrayList<>(feeView.keySet());
-        } finally {
-            lock.unlock();
+        List<Long> fees = new ArrayList<>();
+        for (IndexKey key : feeView.keySet()) {
+            if (fees.isEmpty() || fees.get(fees.size() - 1) != key.value) {
+                fees.add(key.value);
+            }
         }
+        return fees;
     }
 
     @VisibleForTesting
     public List<AionTransaction> snapshot(long outDateTime) {
-        lock.lock();
-        try {
-            for (Set<ByteArrayWrapper> hashes : new ArrayList<>(timeView.headMap(outDateTime).values())) {
-                for (ByteArrayWrapper hash : new ArrayList<>(hashes)) {
-                    PooledTransaction pTx = poolRemove(hash);
-                    if (pTx == null) {
-                        throw new IllegalStateException("The pool data has broken, cannot find the txHash:" + hash);
-                    }
-                }
-            }
-        } finally {
-            lock.unlock();
-        }
-
+        clearOutDateTransaction(outDateTime);
         return snapshot();
     }
 
@@ -669,28 +723,60 @@ public final class TxPoolV1 {
     public void updatePoolTransaction(PooledTransaction pooledTransaction) {
         Objects.requireNonNull(pooledTransaction);
 
-        lock.lock();
+        snapshotLock.readLock().lock();
         try {
-            ByteArrayWrapper txHash = ByteArrayWrapper.wrap(pooledTransaction.tx.getTransactionHash());
-            if (poolTransactions.containsKey(txHash)) {
-                poolTransactions.put(txHash, pooledTransaction);
+            HashKey txHash = HashKey.wrap(pooledTransaction.tx.getTransactionHash());
+            AccountShard shard = shardOf(pooledTransaction.tx.getSenderAddress());
+            shard.lock.lock();
+            try {
+                PoolEntry entry = poolTransactions.get(txHash);
+                if (entry != null) {
+                    poolTransactions.put(txHash, new PoolEntry(pooledTransaction, entry.timeKey, entry.feeKey));
+                }
+            } finally {
+                shard.lock.unlock();
             }
-        } finally{
-            lock.unlock();
+        } finally {
+            snapshotLock.readLock().unlock();
+        }
+    }
+
+    /** The accounts of the senders belonging to one shard of the pool. */
+    private static final class AccountShard {
+        private final Lock lock = new ReentrantLock();
+        /**
+         * accounts : Map<AionAddress, SortedMap<BigInteger, HashKey>>
+         *     @AionAddress account
+         *     @BigInteger transaction nonce
+         *     @HashKey TransactionHash
+         */
+        private final Map<AionAddress, SortedMap<BigInteger, HashKey>> accounts = new HashMap<>();
+    }
+
+    /** A pooled transaction together with its keys in the time and fee views. */
+    private static final class PoolEntry {
+        private final PooledTransaction pooledTx;
+        private final IndexKey timeKey;
+        private final IndexKey feeKey;
+
+        private PoolEntry(PooledTransaction pooledTx, IndexKey timeKey, IndexKey feeKey) {
+            this.pooledTx = pooledTx;
+            this.timeKey = timeKey;
+            this.feeKey = feeKey;
         }
     }
 
     /**
-     * @implNote when the transaction has been removed due to the repay transaction. It will be assigned
-     * to the droppedPoolTx. And then the pendingState will retrieve the dropped transaction by this call.
-     * @return the original transaction has been dropped by new repay transaction.
+     * The key of the time and fee views. The arrival sequence keeps the transactions with the same
+     * value in the order they were added.
      */
-    public PooledTransaction getDroppedPoolTx() {
-        lock.lock();
-        try {
-            return droppedPoolTx;
-        } finally{
-            lock.unlock();
+    private static final class IndexKey {
+        private final long value;
+        private final long sequence;
+
+        private IndexKey(long value, long sequence) {
+            this.value = value;
+            this.sequence = sequence;
         }
     }
 }
@@ -101,6 +101,24 @@ public class TxPoolV1Test {
         tp.add(txl);
     }
 
+    @Test
+    public void addFailureReleasesReservedSlot() {
+        Properties config = new Properties();
+        config.put(TXPOOL_PROPERTY.PROP_TX_TIMEOUT, "100");
+
+        TxPoolV1 tp = new TxPoolV1(config);
+        try {
+            tp.add(Collections.singletonList((PooledTransaction) null));
+            Assert.fail("The invalid transaction was added.");
+        } catch (NullPointerException e) {
+            // expected
+        }
+
+        Assert.assertEquals(0, tp.size());
+        tp.add(getMockTransaction(0));
+        Assert.assertEquals(1, tp.size());
+    }
+
     private List<PooledTransaction> getMockTransaction(long energyConsumed) {
         AionTransaction tx =
                 AionTransaction.create(
@@ -1215,12 +1233,12 @@ public class TxPoolV1Test {
                 null);
 
         PooledTransaction newPtx = new PooledTransaction(tx2, Constant.MIN_ENERGY_CONSUME+1);
-        PooledTransaction ptx = tp.add(newPtx);
+        List<PooledTransaction> droppedPtx = new ArrayList<>();
+        PooledTransaction ptx = tp.add(newPtx, droppedPtx);
         assertEquals(newPtx, ptx);
 
-        PooledTransaction drppedPtx = tp.getDroppedPoolTx();
-        assertNotNull(drppedPtx);
-        assertEquals(pooledTx, drppedPtx);
+        assertEquals(1, droppedPtx.size());
+        assertEquals(pooledTx, droppedPtx.get(0));
 
     }
 
@@ -1245,4 +1263,47 @@ public class TxPoolV1Test {
         tp.clearOutDateTransaction(TimeUnit.MICROSECONDS.toSeconds(txl.get(0).tx.getTimeStampBI().longValue()) + 11);
         Assert.assertEquals(0, tp.size());
     }
-}
\ No newline at end of file
+
+    @Test
+    public void concurrentAddAndSnapshot() throws InterruptedException {
+        Properties config = new Properties();
+        config.put(TXPOOL_PROPERTY.PROP_TX_TIMEOUT, "100");
+
+        TxPoolV1 tp = new TxPoolV1(config);
+        int txPerAccount = 50;
+        List<List<PooledTransaction>> txByAccount = new ArrayList<>();
+        for (int i = 0; i < key.size(); i++) {
+            List<PooledTransaction> txl = new ArrayList<>();
+            for (int j = 0; j < txPerAccount; j++) {
+                txl.add(genTransaction(BigInteger.valueOf(j).toByteArray(), i));
+            }
+            txByAccount.add(txl);
+        }
+
+        List<Thread> threads = new ArrayList<>();
+        for (List<PooledTransaction> txl : txByAccount) {
+            Thread t = new Thread(() -> txl.forEach(tp::add));
+            threads.add(t);
+            t.start();
+        }
+
+        // the picked transactions of every account must be continuous while the pool is updated
+        while (threads.stream().anyMatch(Thread::isAlive)) {
+            Map<AionAddress, BigInteger> expectedNonce = new HashMap<>();
+            for (AionTransaction tx : tp.snapshot()) {
+                BigInteger nonce = expectedNonce.getOrDefault(tx.getSenderAddress(), BigInteger.ZERO);
+                assertEquals(nonce, tx.getNonceBI());
+                expectedNonce.put(tx.getSenderAddress(), nonce.add(BigInteger.ONE));
+            }
+        }
+        for (Thread t : threads) {
+            t.join();
+        }
+
+        assertEquals(key.size() * txPerAccount, tp.size());
+        assertEquals(key.size() * txPerAccount, tp.snapshotAll().size());
+        for (ECKey k : key) {
+            assertEquals(BigInteger.valueOf(txPerAccount - 1), tp.bestPoolNonce(new AionAddress(k.getAddress())));
+        }
+    }
+}
@@ -22,6 +22,19 @@ public final class ByteArrayWrapper implements Comparable<ByteArrayWrapper> {
         this.hashCode = Arrays.hashCode(this.bytes);
     }
 
+    private ByteArrayWrapper(byte[] bytes, int hashCode) {
+        this.bytes = bytes;
+        this.hashCode = hashCode;
+    }
+
+    /**
+     * Wraps the given array without copying it. Used by {@link HashKey} for arrays that are not
+     * shared with any other object.
+     */
+    static ByteArrayWrapper wrapOwned(byte[] bytes) {
+        return new ByteArrayWrapper(bytes, Arrays.hashCode(bytes));
+    }
+
     /**
      * Returns a wrapper for the give byte array.
      *
@@ -58,6 +71,16 @@ public final class ByteArrayWrapper implements Comparable<ByteArrayWrapper> {
         return bytes.clone();
     }
 
+    /**
+     * Returns a {@link HashKey} for the wrapped byte array without copying it.
+     *
+     * @throws IllegalArgumentException if the wrapped array does not have length {@link
+     *     HashKey#LENGTH}
+     */
+    public HashKey toHashKey() {
+        return HashKey.wrap(bytes);
+    }
+
     /**
      * Returns the length of the wrapped byte array.
      *
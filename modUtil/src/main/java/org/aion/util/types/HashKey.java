@@ -0,0 +1,160 @@
+package org.aion.util.types;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteOrder;
+import java.util.Objects;
+
+/**
+ * Immutable key for 32-byte hashes (block, transaction and trie node hashes) with value-based
+ * equality.
+ *
+ * <p>Unlike {@link ByteArrayWrapper}, the hash is stored as four {@code long} values read directly
+ * from the given array, so creating a key neither copies nor retains the array and comparing two
+ * keys takes four comparisons. The hash code is computed once on creation.
+ */
+public final class HashKey implements Comparable<HashKey> {
+
+    /** The length in bytes of the hashes that can be wrapped. */
+    public static final int LENGTH = 32;
+
+    private static final VarHandle LONGS =
+            MethodHandles.byteArrayViewVarHandle(long[].class, ByteOrder.BIG_ENDIAN);
+
+    // utility used by toString
+    private static final char[] hexArray = "0123456789abcdef".toCharArray();
+
+    private final long l0, l1, l2, l3;
+    private final int hashCode;
+
+    private HashKey(byte[] bytes, int offset) {
+        this.l0 = (long) LONGS.get(bytes, offset);
+        this.l1 = (long) LONGS.get(bytes, offset + 8);
+        this.l2 = (long) LONGS.get(bytes, offset + 16);
+        this.l3 = (long) LONGS.get(bytes, offset + 24);
+        this.hashCode = computeHash(l0, l1, l2, l3);
+    }
+
+    /**
+     * Returns a key for the given hash. The array is read but not retained, so later changes to it
+     * do not affect the key.
+     *
+     * @param hash non-{@code null} byte array of length {@link #LENGTH}
+     * @return a key for the given hash
+     * @throws NullPointerException if the given array is null
+     * @throws IllegalArgumentException if the given array does not have length {@link #LENGTH}
+     */
+    public static HashKey wrap(byte[] hash) {
+        Objects.requireNonNull(hash, "The given byte array must not be null.");
+        if (hash.length != LENGTH) {
+            throw new IllegalArgumentException(
+                    "The given byte array must have length " + LENGTH + " instead of " + hash.length + ".");
+        }
+        return new HashKey(hash, 0);
+    }
+
+    /**
+     * Returns a key for the hash stored in the given array at the given offset.
+     *
+     * @throws IndexOutOfBoundsException if the array has less than {@link #LENGTH} bytes starting
+     *     from the given offset
+     */
+    public static HashKey wrap(byte[] bytes, int offset) {
+        Objects.requireNonNull(bytes, "The given byte array must not be null.");
+        Objects.checkFromIndexSize(offset, LENGTH, bytes.length);
+        return new HashKey(bytes, offset);
+    }
+
+    /**
+     * Returns a key for the hash held by the given wrapper, without copying the wrapped array.
+     *
+     * @throws IllegalArgumentException if the wrapped array does not have length {@link #LENGTH}
+     */
+    public static HashKey wrap(ByteArrayWrapper hash) {
+        return hash.toHashKey();
+    }
+
+    /**
+     * Returns a new byte array containing the hash.
+     *
+     * @return a new byte array containing the hash
+     */
+    public byte[] toBytes() {
+        byte[] bytes = new byte[LENGTH];
+        writeTo(bytes, 0);
+        return bytes;
+    }
+
+    /** Writes the hash into the given array starting at the given offset. */
+    public void writeTo(byte[] bytes, int offset) {
+        Objects.checkFromIndexSize(offset, LENGTH, bytes.length);
+        LONGS.set(bytes, offset, l0);
+        LONGS.set(bytes, offset + 8, l1);
+        LONGS.set(bytes, offset + 16, l2);
+        LONGS.set(bytes, offset + 24, l3);
+    }
+
+    /** Returns a {@link ByteArrayWrapper} for the hash, for use with the APIs that require one. */
+    public ByteArrayWrapper toWrapper() {
+        return ByteArrayWrapper.wrapOwned(toBytes());
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof HashKey)) {
+            return false;
+        }
+        HashKey other = (HashKey) o;
+        return hashCode == other.hashCode
+                && l0 == other.l0
+                && l1 == other.l1
+                && l2 == other.l2
+                && l3 == other.l3;
+    }
+
+    @Override
+    public int hashCode() {
+        return hashCode;
+    }
+
+    /** Orders the keys by the unsigned value of their bytes. */
+    @Override
+    public int compareTo(HashKey o) {
+        int result = Long.compareUnsigned(l0, o.l0);
+        if (result != 0) {
+            return result;
+        }
+        result = Long.compareUnsigned(l1, o.l1);
+        if (result != 0) {
+            return result;
+        }
+        result = Long.compareUnsigned(l2, o.l2);
+        return result != 0 ? result : Long.compareUnsigned(l3, o.l3);
+    }
+
+    @Override
+    public String toString() {
+        char[] hexChars = new char[LENGTH * 2];
+        appendHex(hexChars, 0, l0);
+        appendHex(hexChars, 16, l1);
+        appendHex(hexChars, 32, l2);
+        appendHex(hexChars, 48, l3);
+        return new String(hexChars);
+    }
+
+    private static void appendHex(char[] hexChars, int offset, long value) {
+        for (int i = 15; i >= 0; i--) {
+            hexChars[offset + i] = hexArray[(int) (value & 0x0F)];
+            value >>>= 4;
+        }
+    }
+
+    private static int computeHash(long l0, long l1, long l2, long l3) {
+        // the hashes are uniformly distributed, so folding the bits is sufficient
+        long h = l0 ^ (l1 * 31) ^ (l2 * 961) ^ (l3 * 29791);
+        return (int) (h ^ (h >>> 32));
+    }
+}
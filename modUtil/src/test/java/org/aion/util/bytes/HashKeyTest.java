@@ -0,0 +1,98 @@
+package org.aion.util.bytes;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import org.aion.util.types.ByteArrayWrapper;
+import org.aion.util.types.HashKey;
+import org.junit.Test;
+
+public class HashKeyTest {
+
+    private final Random random = new Random(11);
+
+    private byte[] randomHash() {
+        byte[] hash = new byte[HashKey.LENGTH];
+        random.nextBytes(hash);
+        return hash;
+    }
+
+    @Test
+    public void testWrapDoesNotRetainInput() {
+        byte[] hash = randomHash();
+        HashKey key = HashKey.wrap(hash);
+        byte[] original = hash.clone();
+
+        hash[0]++;
+
+        assertThat(key.toBytes()).isEqualTo(original);
+        assertThat(key).isEqualTo(HashKey.wrap(original));
+        assertThat(key).isNotEqualTo(HashKey.wrap(hash));
+    }
+
+    @Test
+    public void testMatchesByteArrayWrapper() {
+        for (int i = 0; i < 100; i++) {
+            byte[] hash = randomHash();
+            ByteArrayWrapper wrapper = ByteArrayWrapper.wrap(hash);
+            HashKey key = HashKey.wrap(hash);
+
+            assertThat(HashKey.wrap(wrapper)).isEqualTo(key);
+            assertThat(HashKey.wrap(wrapper).hashCode()).isEqualTo(key.hashCode());
+            assertThat(key.toWrapper()).isEqualTo(wrapper);
+            assertThat(key.toString()).isEqualTo(wrapper.toString());
+        }
+    }
+
+    @Test
+    public void testWrapWithOffset() {
+        byte[] hash = randomHash();
+        byte[] data = new byte[HashKey.LENGTH + 10];
+        System.arraycopy(hash, 0, data, 7, HashKey.LENGTH);
+
+        HashKey key = HashKey.wrap(data, 7);
+        assertThat(key).isEqualTo(HashKey.wrap(hash));
+
+        byte[] copy = new byte[HashKey.LENGTH + 10];
+        key.writeTo(copy, 7);
+        assertThat(copy).isEqualTo(data);
+    }
+
+    @Test
+    public void testOrderIsUnsigned() {
+        List<byte[]> hashes = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            hashes.add(randomHash());
+        }
+        hashes.add(new byte[HashKey.LENGTH]);
+        byte[] max = new byte[HashKey.LENGTH];
+        Arrays.fill(max, (byte) 0xFF);
+        hashes.add(max);
+
+        for (byte[] a : hashes) {
+            for (byte[] b : hashes) {
+                int expected = Integer.signum(Arrays.compareUnsigned(a, b));
+                assertThat(Integer.signum(HashKey.wrap(a).compareTo(HashKey.wrap(b))))
+                        .isEqualTo(expected);
+            }
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testWrapShortArray() {
+        HashKey.wrap(new byte[HashKey.LENGTH - 1]);
+    }
+
+    @Test(expected = IndexOutOfBoundsException.class)
+    public void testWrapOffsetOutOfBounds() {
+        HashKey.wrap(new byte[HashKey.LENGTH + 1], 2);
+    }
+
+    @Test(expected = NullPointerException.class)
+    public void testWrapNull() {
+        HashKey.wrap((byte[]) null);
+    }
+}